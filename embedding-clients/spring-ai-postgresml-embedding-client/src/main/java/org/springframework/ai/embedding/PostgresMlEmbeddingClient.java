@@ -1,18 +1,23 @@
 package org.springframework.ai.embedding;
 
-import java.sql.Array;
+import java.nio.ByteBuffer;
 import java.sql.PreparedStatement;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.springframework.ai.document.Document;
 import org.springframework.ai.document.MetadataMode;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -25,7 +30,9 @@ import org.springframework.util.StringUtils;
  *
  * @author Toshiaki Maki
  */
-public class PostgresMlEmbeddingClient implements EmbeddingClient, InitializingBean {
+public class PostgresMlEmbeddingClient implements EmbeddingClient, InitializingBean, DisposableBean {
+
+	public static final int DEFAULT_BATCH_SIZE = 128;
 
 	private final JdbcTemplate jdbcTemplate;
 
@@ -39,27 +46,46 @@ public class PostgresMlEmbeddingClient implements EmbeddingClient, InitializingB
 
 	private final MetadataMode metadataMode;
 
+	/**
+	 * Maximum number of texts embedded by a single query. Larger inputs are split in
+	 * chunks.
+	 */
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	/**
+	 * Number of chunks embedded concurrently, each on its own pooled connection.
+	 */
+	private int parallelism = 1;
+
+	private ExecutorService executor;
+
+	/**
+	 * The embeddings are transferred in their binary send format (bytea) and decoded
+	 * straight into float arrays, avoiding any text parsing or per component boxing.
+	 */
 	public enum VectorType {
 
-		PG_ARRAY("", null, (rs, i) -> {
-			Array embedding = rs.getArray("embedding");
-			return Arrays.stream((Float[]) embedding.getArray()).map(Float::doubleValue).toList();
-		}), PG_VECTOR("::vector", "vector", (rs, i) -> {
-			String embedding = rs.getString("embedding");
-			return Arrays.stream((embedding.substring(1, embedding.length() - 1)
-				/* remove leading '[' and trailing ']' */.split(","))).map(Double::parseDouble).toList();
-		});
+		PG_ARRAY("", null, "array_send", PostgresMlEmbeddingClient::decodeFloat4Array),
+		PG_VECTOR("::vector", "vector", "vector_send", PostgresMlEmbeddingClient::decodeVector);
 
 		private final String cast;
 
 		private final String extensionName;
 
+		private final String sendFunction;
+
 		private final RowMapper<List<Double>> rowMapper;
 
-		VectorType(String cast, String extensionName, RowMapper<List<Double>> rowMapper) {
+		VectorType(String cast, String extensionName, String sendFunction, Function<byte[], float[]> decoder) {
 			this.cast = cast;
 			this.extensionName = extensionName;
-			this.rowMapper = rowMapper;
+			this.sendFunction = sendFunction;
+			this.rowMapper = (rs, i) -> EmbeddingUtil.asList(decoder.apply(rs.getBytes("embedding")));
+		}
+
+		private String select(String text) {
+			return "SELECT " + this.sendFunction + "(pgml.embed(?, " + text + ", ?::JSONB)" + this.cast
+					+ ") AS embedding";
 		}
 
 	}
@@ -118,10 +144,27 @@ public class PostgresMlEmbeddingClient implements EmbeddingClient, InitializingB
 		}
 	}
 
+	/**
+	 * @param batchSize maximum number of texts embedded by a single query. Defaults to
+	 * {@link #DEFAULT_BATCH_SIZE}.
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "batchSize must be greater than zero.");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @param parallelism number of batches embedded concurrently. Should not exceed the
+	 * connection pool size. Defaults to 1.
+	 */
+	public void setParallelism(int parallelism) {
+		Assert.isTrue(parallelism > 0, "parallelism must be greater than zero.");
+		this.parallelism = parallelism;
+	}
+
 	@Override
 	public List<Double> embed(String text) {
-		return this.jdbcTemplate.queryForObject(
-				"SELECT pgml.embed(?, ?, ?::JSONB)" + this.vectorType.cast + " AS embedding", this.vectorType.rowMapper,
+		return this.jdbcTemplate.queryForObject(this.vectorType.select("?"), this.vectorType.rowMapper,
 				this.transformer, text, this.kwargs);
 	}
 
@@ -130,27 +173,108 @@ public class PostgresMlEmbeddingClient implements EmbeddingClient, InitializingB
 		return this.embed(document.getFormattedContent(this.metadataMode));
 	}
 
+	/**
+	 * Embed the documents, formatted according to the configured {@link MetadataMode}, in
+	 * batches.
+	 * @param documents the documents to embed.
+	 * @return the embeddings, in the documents order.
+	 */
+	public List<List<Double>> embedDocuments(List<Document> documents) {
+		return this.embed(documents.stream().map(document -> document.getFormattedContent(this.metadataMode)).toList());
+	}
+
 	@Override
 	public List<List<Double>> embed(List<String> texts) {
 		if (CollectionUtils.isEmpty(texts)) {
 			return List.of();
 		}
+
+		List<List<String>> batches = new ArrayList<>();
+		for (int i = 0; i < texts.size(); i += this.batchSize) {
+			batches.add(texts.subList(i, Math.min(i + this.batchSize, texts.size())));
+		}
+
+		if (this.executor == null || batches.size() == 1) {
+			List<List<Double>> result = new ArrayList<>(texts.size());
+			for (List<String> batch : batches) {
+				result.addAll(embedBatch(batch));
+			}
+			return result;
+		}
+
+		List<CompletableFuture<List<List<Double>>>> futures = batches.stream()
+			.map(batch -> CompletableFuture.supplyAsync(() -> embedBatch(batch), this.executor))
+			.toList();
+		try {
+			List<List<Double>> result = new ArrayList<>(texts.size());
+			for (CompletableFuture<List<List<Double>>> future : futures) {
+				result.addAll(future.join());
+			}
+			return result;
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw e;
+		}
+	}
+
+	private List<List<Double>> embedBatch(List<String> texts) {
 		return this.jdbcTemplate.query(connection -> {
-			PreparedStatement preparedStatement = connection.prepareStatement("SELECT pgml.embed(?, text, ?::JSONB)"
-					+ vectorType.cast + " AS embedding FROM (SELECT unnest(?) AS text) AS texts");
-			preparedStatement.setString(1, transformer);
-			preparedStatement.setString(2, kwargs);
+			PreparedStatement preparedStatement = connection.prepareStatement(this.vectorType.select("text")
+					+ " FROM unnest(?) WITH ORDINALITY AS texts(text, position) ORDER BY position");
+			preparedStatement.setString(1, this.transformer);
+			preparedStatement.setString(2, this.kwargs);
 			preparedStatement.setArray(3, connection.createArrayOf("TEXT", texts.toArray(Object[]::new)));
 			return preparedStatement;
 		}, rs -> {
-			List<List<Double>> result = new ArrayList<>();
+			List<List<Double>> result = new ArrayList<>(texts.size());
 			while (rs.next()) {
-				result.add(vectorType.rowMapper.mapRow(rs, -1));
+				result.add(this.vectorType.rowMapper.mapRow(rs, -1));
 			}
 			return result;
 		});
 	}
 
+	/**
+	 * Decode the binary send format of a one dimensional float4[] array: the number of
+	 * dimensions, a has-nulls flag and the element type oid, followed by the size and
+	 * lower bound of the dimension and the length prefixed, big endian, elements.
+	 */
+	static float[] decodeFloat4Array(byte[] bytes) {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		int dimensions = buffer.getInt();
+		if (dimensions == 0) {
+			return new float[0];
+		}
+		Assert.isTrue(dimensions == 1, "Expected a one dimensional array but got: " + dimensions);
+		buffer.getInt(); // has nulls
+		buffer.getInt(); // element type oid
+		int size = buffer.getInt();
+		buffer.getInt(); // lower bound
+		float[] embedding = new float[size];
+		for (int i = 0; i < size; i++) {
+			int length = buffer.getInt();
+			Assert.isTrue(length == Float.BYTES, "Unexpected array element length: " + length);
+			embedding[i] = buffer.getFloat();
+		}
+		return embedding;
+	}
+
+	/**
+	 * Decode the binary send format of a pgvector vector: the number of dimensions and an
+	 * unused, 16 bits, header followed by the big endian float4 components.
+	 */
+	static float[] decodeVector(byte[] bytes) {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		int dimensions = Short.toUnsignedInt(buffer.getShort());
+		buffer.getShort(); // unused
+		float[] embedding = new float[dimensions];
+		buffer.asFloatBuffer().get(embedding);
+		return embedding;
+	}
+
 	@Override
 	public EmbeddingResponse embedForResponse(List<String> texts) {
 		List<Embedding> data = new ArrayList<>();
@@ -176,6 +300,21 @@ public class PostgresMlEmbeddingClient implements EmbeddingClient, InitializingB
 		if (StringUtils.hasText(this.vectorType.extensionName)) {
 			this.jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS " + this.vectorType.extensionName);
 		}
+		if (this.parallelism > 1) {
+			AtomicInteger threadCount = new AtomicInteger();
+			this.executor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+				Thread thread = new Thread(runnable, "postgresml-embedding-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (this.executor != null) {
+			this.executor.shutdown();
+		}
 	}
 
 }
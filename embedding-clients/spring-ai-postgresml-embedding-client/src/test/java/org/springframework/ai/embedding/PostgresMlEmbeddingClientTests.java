@@ -0,0 +1,42 @@
+package org.springframework.ai.embedding;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostgresMlEmbeddingClientTests {
+
+	@Test
+	void decodeFloat4Array() {
+		// array_send('{0.5,-1.25,3}'::float4[])
+		ByteBuffer buffer = ByteBuffer.allocate(5 * Integer.BYTES + 3 * (Integer.BYTES + Float.BYTES));
+		buffer.putInt(1).putInt(0).putInt(700).putInt(3).putInt(1);
+		for (float value : new float[] { 0.5f, -1.25f, 3f }) {
+			buffer.putInt(Float.BYTES).putFloat(value);
+		}
+
+		assertThat(PostgresMlEmbeddingClient.decodeFloat4Array(buffer.array())).containsExactly(0.5f, -1.25f, 3f);
+		assertThat(PostgresMlEmbeddingClient.decodeFloat4Array(new byte[12])).isEmpty();
+	}
+
+	@Test
+	void decodeVector() {
+		// vector_send('[0.5,-1.25,3]'::vector)
+		ByteBuffer buffer = ByteBuffer.allocate(2 * Short.BYTES + 3 * Float.BYTES);
+		buffer.putShort((short) 3).putShort((short) 0).putFloat(0.5f).putFloat(-1.25f).putFloat(3f);
+
+		assertThat(PostgresMlEmbeddingClient.decodeVector(buffer.array())).containsExactly(0.5f, -1.25f, 3f);
+	}
+
+	@Test
+	void decodeVectorDimensionsAsUnsigned() {
+		int dimensions = 40000;
+		ByteBuffer buffer = ByteBuffer.allocate(2 * Short.BYTES + dimensions * Float.BYTES);
+		buffer.putShort((short) dimensions).putShort((short) 0);
+
+		assertThat(PostgresMlEmbeddingClient.decodeVector(buffer.array())).hasSize(dimensions);
+	}
+
+}
@@ -19,19 +19,40 @@ package org.springframework.ai.embedding;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.FileUrlResource;
 import org.springframework.core.io.Resource;
 import org.springframework.util.Assert;
-import org.springframework.util.FileCopyUtils;
-import org.springframework.util.StreamUtils;
+import org.springframework.util.FileSystemUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -43,6 +64,22 @@ public class ResourceCacheService {
 
 	private static final Log logger = LogFactory.getLog(ResourceCacheService.class);
 
+	private static final long TRANSFER_CHUNK_SIZE = 8 * 1024 * 1024;
+
+	private static final String LOCK_SUFFIX = ".lock";
+
+	/**
+	 * In-process locks, striped by cached file, so that their number stays bounded
+	 * whatever the number of files cached.
+	 */
+	private static final Object[] LOCKS = new Object[64];
+
+	static {
+		for (int i = 0; i < LOCKS.length; i++) {
+			LOCKS[i] = new Object();
+		}
+	}
+
 	/**
 	 * The parent folder that contains all cached resources.
 	 */
@@ -55,6 +92,19 @@ public class ResourceCacheService {
 	 */
 	private List<String> excludedUriSchemas = new ArrayList<>(List.of("file", "classpath"));
 
+	/**
+	 * Maximum size, in bytes, of the cache directory. When exceeded, the least recently
+	 * used files are evicted. Zero or negative for an unbounded cache.
+	 */
+	private long maxCacheSize = 0;
+
+	/**
+	 * Optional local directory mirroring the remote resources, laid out as
+	 * {@code {mirrorDirectory}/{uri host}/{uri path}}. Resources found in the mirror are
+	 * cached from it instead of the network.
+	 */
+	private File mirrorDirectory;
+
 	public ResourceCacheService() {
 		this(new File(System.getProperty("java.io.tmpdir"), "spring-ai-onnx-model").getAbsolutePath());
 	}
@@ -73,6 +123,13 @@ public class ResourceCacheService {
 		Assert.isTrue(this.cacheDirectory.isDirectory(), "The cache folder must be a directory");
 	}
 
+	/**
+	 * @return the parent folder that contains all cached resources.
+	 */
+	public File getCacheDirectory() {
+		return this.cacheDirectory;
+	}
+
 	/**
 	 * Overrides the excluded URI schemas list.
 	 * @param excludedUriSchemas new list of URI schemas to be excluded from caching.
@@ -82,6 +139,24 @@ public class ResourceCacheService {
 		this.excludedUriSchemas = excludedUriSchemas;
 	}
 
+	/**
+	 * @param maxCacheSize maximum size, in bytes, of the cache directory. The least
+	 * recently used files are evicted when exceeded. Zero or negative for an unbounded
+	 * cache.
+	 */
+	public void setMaxCacheSize(long maxCacheSize) {
+		this.maxCacheSize = maxCacheSize;
+	}
+
+	/**
+	 * @param mirrorDirectory local directory, laid out as {@code {mirrorDirectory}/{uri
+	 * host}/{uri path}}, to pre-populate the cache from. Null to always fetch the
+	 * original resources.
+	 */
+	public void setMirrorDirectory(File mirrorDirectory) {
+		this.mirrorDirectory = mirrorDirectory;
+	}
+
 	/**
 	 * Get {@link Resource} representing the cached copy of the original resource.
 	 * @param originalResourceUri Resource to be cached.
@@ -99,6 +174,24 @@ public class ResourceCacheService {
 	 * the excluded schema list the original resource is returned.
 	 */
 	public Resource getCachedResource(Resource originalResource) {
+		return getCachedResource(originalResource, null);
+	}
+
+	/**
+	 * Get {@link Resource} representing the cached copy of the original resource.
+	 * <p>
+	 * The resource is streamed into a temporary file, verified against the expected
+	 * checksum (if any) and atomically moved in place, so a partially written file is
+	 * never visible. Concurrent callers, in this or other processes, caching the same
+	 * resource wait for the first one instead of downloading it again.
+	 * @param originalResource Resource to be cached.
+	 * @param expectedSha256 Optional, hex encoded, SHA-256 checksum of the resource
+	 * content. The download fails if the content doesn't match. Null to skip the
+	 * verification.
+	 * @return Returns a cached resource. If the original resource's URI schema is within
+	 * the excluded schema list the original resource is returned.
+	 */
+	public Resource getCachedResource(Resource originalResource, String expectedSha256) {
 		try {
 			if (this.excludedUriSchemas.contains(originalResource.getURI().getScheme())) {
 				logger.info("The " + originalResource.toString() + " resource with URI schema ["
@@ -108,9 +201,10 @@ public class ResourceCacheService {
 
 			File cachedFile = getCachedFile(originalResource);
 			if (!cachedFile.exists()) {
-				FileCopyUtils.copy(StreamUtils.copyToByteArray(originalResource.getInputStream()), cachedFile);
-				logger.info("Caching the " + originalResource.toString() + " resource to: " + cachedFile);
+				cache(mirrored(originalResource), cachedFile, expectedSha256);
+				evict(cachedFile.toPath());
 			}
+			touch(cachedFile.toPath());
 			return new FileUrlResource(cachedFile.getAbsolutePath());
 		}
 		catch (Exception e) {
@@ -118,6 +212,220 @@ public class ResourceCacheService {
 		}
 	}
 
+	private void cache(Resource originalResource, File cachedFile, String expectedSha256) throws IOException {
+		// File locks are held on behalf of the whole JVM, so threads of this process are
+		// serialized separately.
+		synchronized (lock(cachedFile)) {
+			// The lock file is left in place, it is only deleted, while held, by the
+			// eviction of the cached file.
+			Path lockFile = cachedFile.toPath().resolveSibling(cachedFile.getName() + LOCK_SUFFIX);
+			while (!cache(originalResource, cachedFile, expectedSha256, lockFile)) {
+				// The lock file was deleted while waiting for it, lock the new one.
+			}
+		}
+	}
+
+	/**
+	 * @return false if the lock file was deleted while waiting for its lock.
+	 */
+	private boolean cache(Resource originalResource, File cachedFile, String expectedSha256, Path lockFile)
+			throws IOException {
+		try (FileChannel lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+				FileLock lock = lockChannel.lock()) {
+
+			// A caller locking a new lock file in the meantime could be caching the file
+			// too, at worst it is downloaded twice, and atomically moved in place twice.
+			if (!Files.exists(lockFile)) {
+				return false;
+			}
+
+			// Cached by another thread or process while waiting for the lock.
+			if (cachedFile.exists()) {
+				return true;
+			}
+
+			Path tempFile = Files.createTempFile(cachedFile.getParentFile().toPath(), cachedFile.getName(), ".tmp");
+			try {
+				String sha256 = copy(originalResource, tempFile);
+				if (StringUtils.hasText(expectedSha256) && !expectedSha256.equalsIgnoreCase(sha256)) {
+					throw new IOException("Checksum mismatch for " + originalResource.getDescription()
+							+ ". Expected SHA-256 " + expectedSha256 + " but was " + sha256);
+				}
+				move(tempFile, cachedFile.toPath());
+				logger.info("Caching the " + originalResource.toString() + " resource to: " + cachedFile);
+			}
+			finally {
+				Files.deleteIfExists(tempFile);
+			}
+			return true;
+		}
+	}
+
+	private static Object lock(File cachedFile) {
+		return LOCKS[Math.floorMod(cachedFile.getAbsolutePath().hashCode(), LOCKS.length)];
+	}
+
+	private Resource mirrored(Resource originalResource) throws IOException {
+		if (this.mirrorDirectory == null) {
+			return originalResource;
+		}
+		URI uri = originalResource.getURI();
+		String host = StringUtils.hasText(uri.getHost()) ? uri.getHost() : "";
+		File mirroredFile = new File(new File(this.mirrorDirectory, host), uri.getPath());
+		if (!mirroredFile.isFile()) {
+			return originalResource;
+		}
+		logger.info("Using the mirrored " + mirroredFile + " copy of the " + originalResource + " resource");
+		return new FileSystemResource(mirroredFile);
+	}
+
+	/**
+	 * Record the file access. Explicitly set, as the file system may not track the access
+	 * time (e.g. noatime mounts).
+	 */
+	private static void touch(Path file) {
+		try {
+			Files.getFileAttributeView(file, BasicFileAttributeView.class)
+				.setTimes(null, FileTime.from(Instant.now()), null);
+		}
+		catch (IOException e) {
+			logger.debug("Failed to update the last access time of: " + file, e);
+		}
+	}
+
+	/**
+	 * Evict the least recently accessed files until the cache size drops below the
+	 * maximum size.
+	 * @param retained file that is never evicted, i.e. the file just cached.
+	 */
+	void evict(Path retained) throws IOException {
+		if (this.maxCacheSize <= 0) {
+			return;
+		}
+
+		List<CachedFile> cachedFiles = new ArrayList<>();
+		try (Stream<Path> paths = Files.walk(this.cacheDirectory.toPath())) {
+			for (Path path : (Iterable<Path>) paths::iterator) {
+				String name = path.getFileName().toString();
+				if (name.endsWith(LOCK_SUFFIX) || name.endsWith(".tmp")) {
+					continue;
+				}
+				try {
+					BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+					if (attributes.isRegularFile()) {
+						cachedFiles.add(new CachedFile(path, attributes.size(), attributes.lastAccessTime()));
+					}
+				}
+				catch (NoSuchFileException e) {
+					// Concurrently evicted.
+				}
+			}
+		}
+
+		long cacheSize = cachedFiles.stream().mapToLong(CachedFile::size).sum();
+		cachedFiles.sort(Comparator.comparing(CachedFile::lastAccessTime));
+
+		for (CachedFile cachedFile : cachedFiles) {
+			if (cacheSize <= this.maxCacheSize) {
+				break;
+			}
+			if (cachedFile.path().equals(retained)) {
+				continue;
+			}
+			if (Files.deleteIfExists(cachedFile.path())) {
+				logger.info("Evicted the least recently used cache file: " + cachedFile.path());
+				deleteIfEmpty(cachedFile.path().getParent());
+			}
+			cacheSize -= cachedFile.size();
+		}
+	}
+
+	/**
+	 * Delete the folder when it only holds the lock files of evicted files, along with
+	 * these lock files.
+	 */
+	private void deleteIfEmpty(Path folder) throws IOException {
+		if (folder.equals(this.cacheDirectory.toPath())) {
+			return;
+		}
+		List<Path> files;
+		try (Stream<Path> content = Files.list(folder)) {
+			files = content.toList();
+		}
+		if (files.stream().anyMatch(file -> !file.getFileName().toString().endsWith(LOCK_SUFFIX))) {
+			return;
+		}
+		for (Path lockFile : files) {
+			deleteStaleLock(lockFile);
+		}
+		try {
+			Files.deleteIfExists(folder);
+		}
+		catch (DirectoryNotEmptyException e) {
+			// Concurrently populated, or a lock file still in use.
+		}
+	}
+
+	/**
+	 * Delete the lock file of an evicted file, unless it is in use. It is deleted while
+	 * held, so that a caller waiting for it notices, and locks a new one instead.
+	 */
+	private static void deleteStaleLock(Path lockFile) throws IOException {
+		String name = lockFile.getFileName().toString();
+		Path cachedFile = lockFile.resolveSibling(name.substring(0, name.length() - LOCK_SUFFIX.length()));
+		synchronized (lock(cachedFile.toFile())) {
+			try (FileChannel lockChannel = FileChannel.open(lockFile, StandardOpenOption.WRITE);
+					FileLock lock = lockChannel.tryLock()) {
+				// Otherwise held by another process, caching the file again.
+				if (lock != null && !Files.exists(cachedFile)) {
+					Files.deleteIfExists(lockFile);
+				}
+			}
+			catch (NoSuchFileException e) {
+				// Concurrently deleted.
+			}
+		}
+	}
+
+	private record CachedFile(Path path, long size, FileTime lastAccessTime) {
+	}
+
+	/**
+	 * Stream the resource content into the target file.
+	 * @return the hex encoded SHA-256 checksum of the copied content.
+	 */
+	private static String copy(Resource resource, Path target) throws IOException {
+		MessageDigest digest = sha256();
+		try (ReadableByteChannel source = Channels.newChannel(new DigestInputStream(resource.getInputStream(), digest));
+				FileChannel destination = FileChannel.open(target, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+			long position = 0;
+			long transferred;
+			while ((transferred = destination.transferFrom(source, position, TRANSFER_CHUNK_SIZE)) > 0) {
+				position += transferred;
+			}
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static void move(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
 	private File getCachedFile(Resource originalResource) throws IOException {
 		var resourceParentFolder = new File(this.cacheDirectory,
 				UUID.nameUUIDFromBytes(pathWithoutLastSegment(originalResource.getURI())).toString());
@@ -141,7 +449,7 @@ public class ResourceCacheService {
 	public void deleteCacheFolder() {
 		if (this.cacheDirectory.exists()) {
 			logger.info("Empty Model Cache at:" + this.cacheDirectory.getAbsolutePath());
-			this.cacheDirectory.delete();
+			FileSystemUtils.deleteRecursively(this.cacheDirectory);
 			this.cacheDirectory.mkdirs();
 		}
 	}
@@ -1,21 +1,35 @@
 package org.springframework.ai.embedding;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import ai.djl.huggingface.tokenizers.Encoding;
 import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
-import ai.djl.ndarray.NDArray;
-import ai.djl.ndarray.NDManager;
-import ai.djl.ndarray.types.DataType;
-import ai.djl.ndarray.types.Shape;
 import ai.onnxruntime.OnnxTensor;
-import ai.onnxruntime.OnnxValue;
 import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtException;
 import ai.onnxruntime.OrtSession;
@@ -24,6 +38,7 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.ai.document.Document;
 import org.springframework.ai.document.MetadataMode;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
@@ -35,7 +50,7 @@ import org.springframework.util.StringUtils;
  *
  * @author Christian Tzolov
  */
-public class TransformersEmbeddingClient implements EmbeddingClient, InitializingBean {
+public class TransformersEmbeddingClient implements EmbeddingClient, InitializingBean, DisposableBean {
 
 	private static final Log logger = LogFactory.getLog(TransformersEmbeddingClient.class);
 
@@ -46,14 +61,55 @@ public class TransformersEmbeddingClient implements EmbeddingClient, Initializin
 	// https://huggingface.co/sentence-transformers/all-MiniLM-L6-v2
 	public final static String DEFAULT_ONNX_MODEL_URI = "https://github.com/spring-projects-experimental/spring-ai/raw/main/embedding-clients/transformers-embedding/src/main/resources/onnx/all-MiniLM-L6-v2/model.onnx";
 
+	// Dynamically quantized (int8) all-MiniLM-L6-v2. Faster on CPU, at the cost of a
+	// small accuracy drift: use the EmbeddingDriftReport to measure it against the fp32
+	// model. Other models can be quantized offline with
+	// onnxruntime.quantization.quantize_dynamic(..., weight_type=QuantType.QInt8).
+	public final static String DEFAULT_ONNX_QUANTIZED_MODEL_URI = "https://huggingface.co/Xenova/all-MiniLM-L6-v2/resolve/main/onnx/model_quantized.onnx";
+
 	public final static String DEFAULT_MODEL_OUTPUT_NAME = "last_hidden_state";
 
-	private final static int EMBEDDING_AXIS = 1;
+	public final static int DEFAULT_MAX_TOKENS_PER_BATCH = 16384;
+
+	/**
+	 * How the window embeddings of a long text are combined in windowed mode.
+	 */
+	public enum WindowPooling {
+
+		/**
+		 * Plain average of the window embeddings.
+		 */
+		MEAN,
+
+		/**
+		 * Average of the window embeddings weighted by their token count, so that a short
+		 * trailing window does not weight as much as a full one.
+		 */
+		TOKEN_WEIGHTED
+
+	}
+
+	/**
+	 * Tokenizer truncation strategies, mirroring the HuggingFace tokenizers ones.
+	 */
+	public enum Truncation {
+
+		LONGEST_FIRST, ONLY_FIRST, ONLY_SECOND, DO_NOT_TRUNCATE
+
+	}
 
 	private Resource tokenizerResource = toResource(DEFAULT_ONNX_TOKENIZER_URI);
 
 	private Resource modelResource = toResource(DEFAULT_ONNX_MODEL_URI);
 
+	/**
+	 * Optional, hex encoded, SHA-256 checksums used to verify the tokenizer and model
+	 * downloads when caching them.
+	 */
+	private String tokenizerSha256;
+
+	private String modelSha256;
+
 	private int gpuDeviceId = -1;
 
 	/**
@@ -74,6 +130,8 @@ public class TransformersEmbeddingClient implements EmbeddingClient, Initializin
 
 	private final AtomicInteger embeddingDimensions = new AtomicInteger(-1);
 
+	private long modelSize;
+
 	/**
 	 * Specifies what parts of the {@link Document}'s content and metadata will be used
 	 * for computing the embeddings. Applicable for the {@link #embed(Document)} method
@@ -88,6 +146,18 @@ public class TransformersEmbeddingClient implements EmbeddingClient, Initializin
 	 */
 	private String resourceCacheDirectory;
 
+	/**
+	 * Maximum size, in bytes, of the resource cache directory. The least recently used
+	 * files are evicted when exceeded. Zero or negative for an unbounded cache.
+	 */
+	private long resourceCacheMaxSize = 0;
+
+	/**
+	 * Optional local mirror of the remote resources, laid out as {host}/{path}, used to
+	 * populate the cache without network access.
+	 */
+	private String resourceCacheMirrorDirectory;
+
 	/**
 	 * Allow disabling the resource caching.
 	 */
@@ -107,6 +177,113 @@ public class TransformersEmbeddingClient implements EmbeddingClient, Initializin
 
 	private Set<String> onnxModelInputs;
 
+	/**
+	 * Maximum number of tokens, per sequence, fed to the model. Longer texts are
+	 * truncated according to the {@link #truncation} strategy. Zero or negative to use
+	 * the tokenizer configured max length.
+	 */
+	private int maxSequenceLength = -1;
+
+	/**
+	 * Truncation strategy applied to the sequences longer than the max sequence length.
+	 */
+	private Truncation truncation = Truncation.LONGEST_FIRST;
+
+	/**
+	 * Token budget (batch size x padded sequence length) of a single inference call.
+	 * Inputs are sorted by token length and grouped in buckets within this budget, so
+	 * that short texts are not padded to the length of the longest one. Zero or negative
+	 * to run all the inputs in a single batch.
+	 */
+	private int maxTokensPerBatch = DEFAULT_MAX_TOKENS_PER_BATCH;
+
+	/**
+	 * Embed texts longer than the window size as a set of overlapping token windows,
+	 * pooled into a single embedding, instead of truncating them. Defaults to false.
+	 */
+	private boolean windowed = false;
+
+	/**
+	 * Window size, in tokens, in windowed mode. Zero or negative to fall back to the
+	 * {@link #maxSequenceLength} or the tokenizer configured max length.
+	 */
+	private int windowSize = -1;
+
+	/**
+	 * Number of tokens shared by two consecutive windows in windowed mode (the
+	 * HuggingFace tokenizer stride). Must be lower than the window size.
+	 */
+	private int windowOverlap = 32;
+
+	/**
+	 * How the window embeddings are combined in windowed mode.
+	 */
+	private WindowPooling windowPooling = WindowPooling.TOKEN_WEIGHTED;
+
+	/**
+	 * L2 normalize the pooled embeddings. Defaults to false.
+	 */
+	private boolean normalize = false;
+
+	/**
+	 * Input buffers, returned to the pool after every inference call.
+	 */
+	private final Queue<InputBuffers> inputBuffersPool = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Number of threads used by ONNX runtime to parallelize the execution within nodes.
+	 * Zero or negative to use the runtime default (one thread per physical core).
+	 */
+	private int intraOpNumThreads = 0;
+
+	/**
+	 * Number of threads used by ONNX runtime to parallelize the execution of the graph
+	 * (across nodes). Applicable with the
+	 * {@link OrtSession.SessionOptions.ExecutionMode#PARALLEL} execution mode only. Zero
+	 * or negative to use the runtime default.
+	 */
+	private int interOpNumThreads = 0;
+
+	/**
+	 * Graph optimization level. Null to use the runtime default.
+	 */
+	private OrtSession.SessionOptions.OptLevel optimizationLevel;
+
+	/**
+	 * Sequential or parallel graph execution. Null to use the runtime default.
+	 */
+	private OrtSession.SessionOptions.ExecutionMode executionMode;
+
+	/**
+	 * Pre-allocate memory based on the shapes of earlier runs. Defaults to true.
+	 */
+	private boolean memoryPatternOptimization = true;
+
+	/**
+	 * Use the CPU memory arena allocator. Defaults to true.
+	 */
+	private boolean cpuArenaAllocator = true;
+
+	/**
+	 * Persist the ONNX runtime optimized model into the resource cache directory and load
+	 * it on subsequent startups, skipping the graph optimization. Applicable only for
+	 * file backed (or cached) models and enabled resource caching. Defaults to false.
+	 */
+	private boolean cacheOptimizedModel = false;
+
+	/**
+	 * Number of batches of a single embedding request run concurrently. Values greater
+	 * than 1 split the request across a pool of worker threads sharing the same
+	 * {@link OrtSession}. Consider lowering the {@link #intraOpNumThreads} accordingly to
+	 * avoid over subscribing the CPU cores. Defaults to 1 (sequential).
+	 */
+	private int parallelism = 1;
+
+	/**
+	 * Worker threads used when the {@link #parallelism} is greater than 1.
+	 */
+	private ExecutorService executor;
+
 	public TransformersEmbeddingClient() {
 		this(MetadataMode.NONE);
 	}
@@ -128,6 +305,14 @@ public class TransformersEmbeddingClient implements EmbeddingClient, Initializin
 		this.resourceCacheDirectory = resourceCacheDir;
 	}
 
+	public void setResourceCacheMaxSize(long resourceCacheMaxSize) {
+		this.resourceCacheMaxSize = resourceCacheMaxSize;
+	}
+
+	public void setResourceCacheMirrorDirectory(String resourceCacheMirrorDirectory) {
+		this.resourceCacheMirrorDirectory = resourceCacheMirrorDirectory;
+	}
+
 	public void setGpuDeviceId(int gpuDeviceId) {
 		this.gpuDeviceId = gpuDeviceId;
 	}
@@ -140,6 +325,14 @@ public class TransformersEmbeddingClient implements EmbeddingClient, Initializin
 		this.modelResource = modelResource;
 	}
 
+	public void setTokenizerSha256(String tokenizerSha256) {
+		this.tokenizerSha256 = tokenizerSha256;
+	}
+
+	public void setModelSha256(String modelSha256) {
+		this.modelSha256 = modelSha256;
+	}
+
 	public void setTokenizerResource(String tokenizerResourceUri) {
 		this.tokenizerResource = toResource(tokenizerResourceUri);
 	}
@@ -156,27 +349,104 @@ public class TransformersEmbeddingClient implements EmbeddingClient, Initializin
 		this.modelOutputName = modelOutputName;
 	}
 
+	public void setNormalize(boolean normalize) {
+		this.normalize = normalize;
+	}
+
+	public void setMaxSequenceLength(int maxSequenceLength) {
+		this.maxSequenceLength = maxSequenceLength;
+	}
+
+	public void setTruncation(Truncation truncation) {
+		Assert.notNull(truncation, "Truncation must not be null");
+		this.truncation = truncation;
+	}
+
+	public void setMaxTokensPerBatch(int maxTokensPerBatch) {
+		this.maxTokensPerBatch = maxTokensPerBatch;
+	}
+
+	public void setWindowed(boolean windowed) {
+		this.windowed = windowed;
+	}
+
+	public void setWindowSize(int windowSize) {
+		this.windowSize = windowSize;
+	}
+
+	public void setWindowOverlap(int windowOverlap) {
+		Assert.isTrue(windowOverlap >= 0, "Window overlap must not be negative");
+		this.windowOverlap = windowOverlap;
+	}
+
+	public void setWindowPooling(WindowPooling windowPooling) {
+		Assert.notNull(windowPooling, "Window pooling must not be null");
+		this.windowPooling = windowPooling;
+	}
+
+	public void setIntraOpNumThreads(int intraOpNumThreads) {
+		this.intraOpNumThreads = intraOpNumThreads;
+	}
+
+	public void setInterOpNumThreads(int interOpNumThreads) {
+		this.interOpNumThreads = interOpNumThreads;
+	}
+
+	public void setOptimizationLevel(OrtSession.SessionOptions.OptLevel optimizationLevel) {
+		this.optimizationLevel = optimizationLevel;
+	}
+
+	public void setExecutionMode(OrtSession.SessionOptions.ExecutionMode executionMode) {
+		this.executionMode = executionMode;
+	}
+
+	public void setMemoryPatternOptimization(boolean memoryPatternOptimization) {
+		this.memoryPatternOptimization = memoryPatternOptimization;
+	}
+
+	public void setCpuArenaAllocator(boolean cpuArenaAllocator) {
+		this.cpuArenaAllocator = cpuArenaAllocator;
+	}
+
+	public void setCacheOptimizedModel(boolean cacheOptimizedModel) {
+		this.cacheOptimizedModel = cacheOptimizedModel;
+	}
+
+	public void setParallelism(int parallelism) {
+		Assert.isTrue(parallelism > 0, "Parallelism must be greater than zero");
+		this.parallelism = parallelism;
+	}
+
 	@Override
 	public void afterPropertiesSet() throws Exception {
 
 		this.cacheService = StringUtils.hasText(this.resourceCacheDirectory)
 				? new ResourceCacheService(this.resourceCacheDirectory) : new ResourceCacheService();
+		this.cacheService.setMaxCacheSize(this.resourceCacheMaxSize);
+		if (StringUtils.hasText(this.resourceCacheMirrorDirectory)) {
+			this.cacheService.setMirrorDirectory(new File(this.resourceCacheMirrorDirectory));
+		}
 
 		// Create a pre-trained HuggingFaceTokenizer instance from tokenizerResource
 		// InputStream.
-		this.tokenizer = HuggingFaceTokenizer.newInstance(getCachedResource(this.tokenizerResource).getInputStream(),
-				this.tokenizerOptions);
+		this.tokenizer = HuggingFaceTokenizer.newInstance(
+				getCachedResource(this.tokenizerResource, this.tokenizerSha256).getInputStream(), tokenizerOptions());
 
 		// onnxruntime
 		this.environment = OrtEnvironment.getEnvironment();
 
-		var sessionOptions = new OrtSession.SessionOptions();
-		if (this.gpuDeviceId >= 0) {
-			sessionOptions.addCUDA(this.gpuDeviceId); // Run on a GPU or with another
-														// provider
+		try (var sessionOptions = sessionOptions()) {
+			this.session = createSession(getCachedResource(this.modelResource, this.modelSha256), sessionOptions);
+		}
+
+		if (this.parallelism > 1) {
+			AtomicInteger threadCount = new AtomicInteger();
+			this.executor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+				Thread thread = new Thread(runnable, "transformers-embedding-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
 		}
-		this.session = this.environment.createSession(getCachedResource(this.modelResource).getContentAsByteArray(),
-				sessionOptions);
 
 		this.onnxModelInputs = this.session.getInputNames();
 		Set<String> onnxModelOutputs = this.session.getOutputNames();
@@ -188,8 +458,142 @@ public class TransformersEmbeddingClient implements EmbeddingClient, Initializin
 				"The model output names doesn't contain expected: " + this.modelOutputName);
 	}
 
-	private Resource getCachedResource(Resource resource) {
-		return this.disableCaching ? resource : this.cacheService.getCachedResource(resource);
+	/**
+	 * Create the session from the model file path when the resource is file backed, so
+	 * the model is not loaded on the Java heap. Falls back to the resource content
+	 * otherwise.
+	 */
+	private OrtSession createSession(Resource model, OrtSession.SessionOptions sessionOptions)
+			throws OrtException, IOException {
+
+		this.modelSize = model.contentLength();
+
+		if (!model.isFile()) {
+			return this.environment.createSession(model.getContentAsByteArray(), sessionOptions);
+		}
+
+		File modelFile = model.getFile();
+
+		if (this.disableCaching || !this.cacheOptimizedModel
+				|| this.optimizationLevel == OrtSession.SessionOptions.OptLevel.NO_OPT) {
+			return this.environment.createSession(modelFile.getAbsolutePath(), sessionOptions);
+		}
+
+		File optimizedModelFile = optimizedModelFile(modelFile);
+		if (optimizedModelFile.exists()) {
+			logger.info("Load the optimized model from: " + optimizedModelFile);
+			// The graph is already optimized.
+			sessionOptions.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.NO_OPT);
+			return this.environment.createSession(optimizedModelFile.getAbsolutePath(), sessionOptions);
+		}
+
+		// Write to a temporary file first and move it in place once complete, so that a
+		// concurrent or interrupted startup never observes a partially written model.
+		optimizedModelFile.getParentFile().mkdirs();
+		File tempFile = new File(optimizedModelFile.getParentFile(),
+				optimizedModelFile.getName() + "." + UUID.randomUUID() + ".tmp");
+		sessionOptions.setOptimizedModelFilePath(tempFile.getAbsolutePath());
+
+		OrtSession session = this.environment.createSession(modelFile.getAbsolutePath(), sessionOptions);
+		try {
+			Files.move(tempFile.toPath(), optimizedModelFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			logger.info("Cached the optimized model to: " + optimizedModelFile);
+		}
+		catch (IOException ex) {
+			logger.warn("Failed to cache the optimized model to: " + optimizedModelFile, ex);
+			Files.deleteIfExists(tempFile.toPath());
+		}
+		return session;
+	}
+
+	/**
+	 * The optimized model depends on the source model and on the optimization settings
+	 * and the execution provider it was produced with, so all of them are part of the
+	 * cache key.
+	 */
+	File optimizedModelFile(File modelFile) {
+		String key = modelFile.getAbsolutePath() + ":" + modelFile.length() + ":" + modelFile.lastModified() + ":"
+				+ this.optimizationLevel + ":" + this.gpuDeviceId;
+		String name = StringUtils.stripFilenameExtension(modelFile.getName()) + "-"
+				+ UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)) + ".onnx";
+		return new File(new File(this.cacheService.getCacheDirectory(), "optimized"), name);
+	}
+
+	private OrtSession.SessionOptions sessionOptions() throws OrtException {
+		var sessionOptions = new OrtSession.SessionOptions();
+		if (this.gpuDeviceId >= 0) {
+			// Run on a GPU or with another provider.
+			sessionOptions.addCUDA(this.gpuDeviceId);
+		}
+		if (this.intraOpNumThreads > 0) {
+			sessionOptions.setIntraOpNumThreads(this.intraOpNumThreads);
+		}
+		if (this.interOpNumThreads > 0) {
+			sessionOptions.setInterOpNumThreads(this.interOpNumThreads);
+		}
+		if (this.optimizationLevel != null) {
+			sessionOptions.setOptimizationLevel(this.optimizationLevel);
+		}
+		if (this.executionMode != null) {
+			sessionOptions.setExecutionMode(this.executionMode);
+		}
+		sessionOptions.setMemoryPatternOptimization(this.memoryPatternOptimization);
+		sessionOptions.setCPUArenaAllocator(this.cpuArenaAllocator);
+		return sessionOptions;
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if (this.executor != null) {
+			// Let the in-flight batches complete before closing the session they run on.
+			this.executor.shutdown();
+			if (!this.executor.awaitTermination(30, TimeUnit.SECONDS)) {
+				logger.warn("Embedding worker threads did not terminate in time, interrupting them");
+				this.executor.shutdownNow();
+				this.executor.awaitTermination(30, TimeUnit.SECONDS);
+			}
+			this.executor = null;
+		}
+		if (this.session != null) {
+			this.session.close();
+			this.session = null;
+			this.modelSize = 0;
+		}
+		if (this.tokenizer != null) {
+			this.tokenizer.close();
+			this.tokenizer = null;
+		}
+	}
+
+	/**
+	 * @return the size, in bytes, of the loaded model, used as an estimate of its memory
+	 * footprint. Zero if not loaded.
+	 */
+	long getModelSize() {
+		return this.modelSize;
+	}
+
+	private Map<String, String> tokenizerOptions() {
+		Map<String, String> options = new HashMap<>();
+		// The batches are padded to their longest sequence at inference time.
+		options.put("padding", "false");
+		options.put("truncation", this.truncation.name());
+		int maxLength = (this.windowed && this.windowSize > 0) ? this.windowSize : this.maxSequenceLength;
+		if (maxLength > 0) {
+			options.put("maxLength", String.valueOf(maxLength));
+			options.put("modelMaxLength", String.valueOf(maxLength));
+		}
+		if (this.windowed) {
+			// The truncated tokens are returned as overflowing, overlapping, encodings.
+			options.put("stride", String.valueOf(this.windowOverlap));
+		}
+		// Explicit tokenizer options take precedence.
+		options.putAll(this.tokenizerOptions);
+		return options;
+	}
+
+	private Resource getCachedResource(Resource resource, String sha256) {
+		return this.disableCaching ? resource : this.cacheService.getCachedResource(resource, sha256);
 	}
 
 	@Override
@@ -215,114 +619,380 @@ public class TransformersEmbeddingClient implements EmbeddingClient, Initializin
 	@Override
 	public List<List<Double>> embed(List<String> texts) {
 
-		List<List<Double>> resultEmbeddings = new ArrayList<>();
+		Encoding[] encodings = this.tokenizer.batchEncode(texts);
 
-		try {
+		float[][] embeddings = this.windowed ? embedWindowed(encodings) : embed(encodings, this.normalize);
 
-			Encoding[] encodings = this.tokenizer.batchEncode(texts);
+		List<List<Double>> resultEmbeddings = new ArrayList<>(embeddings.length);
+		for (float[] embedding : embeddings) {
+			resultEmbeddings.add(EmbeddingUtil.asList(embedding));
+		}
+		return resultEmbeddings;
+	}
 
-			long[][] input_ids0 = new long[encodings.length][];
-			long[][] attention_mask0 = new long[encodings.length][];
-			long[][] token_type_ids0 = new long[encodings.length][];
+	/**
+	 * Embed every window of every input in shared batches and pool the window embeddings
+	 * back into one embedding per input. Texts are tokenized once, the windows being the
+	 * tokenizer overflowing encodings.
+	 */
+	private float[][] embedWindowed(Encoding[] encodings) {
+
+		List<Encoding> windows = new ArrayList<>(encodings.length);
+		List<Integer> owners = new ArrayList<>(encodings.length);
+		for (int i = 0; i < encodings.length; i++) {
+			windows.add(encodings[i]);
+			owners.add(i);
+			for (Encoding overflowing : encodings[i].getOverflowing()) {
+				windows.add(overflowing);
+				owners.add(i);
+			}
+		}
 
-			for (int i = 0; i < encodings.length; i++) {
-				input_ids0[i] = encodings[i].getIds();
-				attention_mask0[i] = encodings[i].getAttentionMask();
-				token_type_ids0[i] = encodings[i].getTypeIds();
+		Encoding[] windowEncodings = windows.toArray(new Encoding[0]);
+		int[] windowOwners = new int[windowEncodings.length];
+		int[] windowTokens = new int[windowEncodings.length];
+		for (int i = 0; i < windowEncodings.length; i++) {
+			windowOwners[i] = owners.get(i);
+			for (long mask : windowEncodings[i].getAttentionMask()) {
+				windowTokens[i] += (int) mask;
 			}
+		}
 
-			OnnxTensor inputIds = OnnxTensor.createTensor(this.environment, input_ids0);
-			OnnxTensor attentionMask = OnnxTensor.createTensor(this.environment, attention_mask0);
-			OnnxTensor tokenTypeIds = OnnxTensor.createTensor(this.environment, token_type_ids0);
+		float[][] windowEmbeddings = embed(windowEncodings, false);
 
-			Map<String, OnnxTensor> modelInputs = Map.of("input_ids", inputIds, "attention_mask", attentionMask,
-					"token_type_ids", tokenTypeIds);
+		return poolWindows(windowEmbeddings, windowOwners, windowTokens, encodings.length, this.windowPooling,
+				this.normalize);
+	}
+
+	/**
+	 * Combine the window embeddings into one embedding per input.
+	 * @param windowEmbeddings the embeddings of all windows.
+	 * @param windowOwners for every window, the index of the input it belongs to.
+	 * @param windowTokens for every window, its (non padding) token count.
+	 * @param inputCount number of inputs.
+	 * @param pooling the window pooling strategy.
+	 * @param normalize whether to L2 normalize the pooled embeddings.
+	 * @return one embedding per input.
+	 */
+	static float[][] poolWindows(float[][] windowEmbeddings, int[] windowOwners, int[] windowTokens, int inputCount,
+			WindowPooling pooling, boolean normalize) {
 
-			modelInputs = removeUnknownModelInputs(modelInputs);
+		float[][] result = new float[inputCount][];
+		float[] weights = new float[inputCount];
 
-			// The Run result object is AutoCloseable to prevent references from leaking
-			// out. Once the Result object is
-			// closed, all it’s child OnnxValues are closed too.
-			try (OrtSession.Result results = this.session.run(modelInputs)) {
+		for (int w = 0; w < windowEmbeddings.length; w++) {
+			int owner = windowOwners[w];
+			float weight = (pooling == WindowPooling.TOKEN_WEIGHTED) ? windowTokens[w] : 1;
+			if (result[owner] == null) {
+				result[owner] = new float[windowEmbeddings[w].length];
+			}
+			float[] pooled = result[owner];
+			for (int d = 0; d < pooled.length; d++) {
+				pooled[d] += weight * windowEmbeddings[w][d];
+			}
+			weights[owner] += weight;
+		}
 
-				// OnnxValue lastHiddenState = results.get(0);
-				OnnxValue lastHiddenState = results.get(this.modelOutputName).get();
+		for (int i = 0; i < inputCount; i++) {
+			float divisor = Math.max(weights[i], 1e-9f);
+			for (int d = 0; d < result[i].length; d++) {
+				result[i][d] /= divisor;
+			}
+			if (normalize) {
+				l2Normalize(result[i]);
+			}
+		}
 
-				// 0 - batch_size (1..x)
-				// 1 - sequence_length (128)
-				// 2 - embedding dimensions (384)
-				float[][][] tokenEmbeddings = (float[][][]) lastHiddenState.getValue();
+		return result;
+	}
 
-				try (NDManager manager = NDManager.newBaseManager()) {
-					NDArray ndTokenEmbeddings = create(tokenEmbeddings, manager);
-					NDArray ndAttentionMask = manager.create(attention_mask0);
+	private float[][] embed(Encoding[] encodings, boolean normalize) {
 
-					NDArray embedding = meanPooling(ndTokenEmbeddings, ndAttentionMask);
+		float[][] embeddings = new float[encodings.length][];
+		List<int[]> buckets = buckets(encodings, maxTokensPerBatch(encodings));
 
-					for (int i = 0; i < embedding.size(0); i++) {
-						resultEmbeddings.add(toDoubleList(embedding.get(i).toFloatArray()));
-					}
+		if (this.executor == null || buckets.size() < 2) {
+			for (int[] bucket : buckets) {
+				embed(encodings, bucket, embeddings, normalize);
+			}
+		}
+		else {
+			List<CompletableFuture<Void>> futures = new ArrayList<>(buckets.size());
+			for (int[] bucket : buckets) {
+				futures.add(CompletableFuture.runAsync(() -> embed(encodings, bucket, embeddings, normalize),
+						this.executor));
+			}
+			try {
+				CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+			}
+			catch (CompletionException ex) {
+				if (ex.getCause() instanceof RuntimeException runtimeException) {
+					throw runtimeException;
+				}
+				throw ex;
+			}
+		}
+
+		return embeddings;
+	}
+
+	/**
+	 * With parallel execution, lower the batch token budget so that the request is split
+	 * in (at least) as many batches as the configured parallelism.
+	 */
+	private int maxTokensPerBatch(Encoding[] encodings) {
+		if (this.executor == null) {
+			return this.maxTokensPerBatch;
+		}
+		long totalTokens = 0;
+		for (Encoding encoding : encodings) {
+			totalTokens += encoding.getIds().length;
+		}
+		return maxTokensPerBatch(totalTokens, this.maxTokensPerBatch, this.parallelism);
+	}
+
+	/**
+	 * @param totalTokens number of tokens of the request.
+	 * @param maxTokensPerBatch configured batch token budget, zero or negative for no
+	 * limit.
+	 * @param parallelism number of batches run concurrently.
+	 * @return the batch token budget, at most an equal share of the request tokens.
+	 */
+	static int maxTokensPerBatch(long totalTokens, int maxTokensPerBatch, int parallelism) {
+		int share = (int) Math.max(1, totalTokens / parallelism);
+		return maxTokensPerBatch > 0 ? Math.min(maxTokensPerBatch, share) : share;
+	}
+
+	private void embed(Encoding[] encodings, int[] bucket, float[][] embeddings, boolean normalize) {
+		Encoding[] bucketEncodings = new Encoding[bucket.length];
+		for (int i = 0; i < bucket.length; i++) {
+			bucketEncodings[i] = encodings[bucket[i]];
+		}
+		float[][] bucketEmbeddings = embedBatch(bucketEncodings, normalize);
+		// Restore the original order. Buckets are disjoint, so concurrent writes never
+		// overlap.
+		for (int i = 0; i < bucket.length; i++) {
+			embeddings[bucket[i]] = bucketEmbeddings[i];
+		}
+	}
+
+	private float[][] embedBatch(Encoding[] encodings, boolean normalize) {
+
+		int batchSize = encodings.length;
+		int sequenceLength = 0;
+		for (Encoding encoding : encodings) {
+			sequenceLength = Math.max(sequenceLength, encoding.getIds().length);
+		}
+
+		InputBuffers buffers = borrowInputBuffers(batchSize * sequenceLength);
+
+		try {
+			buffers.fill(encodings, sequenceLength);
+
+			long[] shape = new long[] { batchSize, sequenceLength };
+
+			try (OnnxTensor inputIds = OnnxTensor.createTensor(this.environment, buffers.inputIds, shape);
+					OnnxTensor attentionMask = OnnxTensor.createTensor(this.environment, buffers.attentionMask, shape);
+					OnnxTensor tokenTypeIds = OnnxTensor.createTensor(this.environment, buffers.tokenTypeIds, shape)) {
+
+				Map<String, OnnxTensor> modelInputs = new HashMap<>(4);
+				addIfModelInput(modelInputs, "input_ids", inputIds);
+				addIfModelInput(modelInputs, "attention_mask", attentionMask);
+				addIfModelInput(modelInputs, "token_type_ids", tokenTypeIds);
+
+				// The Run result object is AutoCloseable to prevent references from
+				// leaking out. Once the Result object is closed, all its child
+				// OnnxValues are closed too.
+				try (OrtSession.Result results = this.session.run(modelInputs)) {
+
+					OnnxTensor lastHiddenState = (OnnxTensor) results.get(this.modelOutputName).get();
+
+					// 0 - batch_size (1..x)
+					// 1 - sequence_length (128)
+					// 2 - embedding dimensions (384)
+					long[] outputShape = lastHiddenState.getInfo().getShape();
+					int dimensions = (int) outputShape[2];
+
+					return meanPooling(lastHiddenState.getFloatBuffer(), buffers.attentionMask, batchSize,
+							sequenceLength, dimensions, normalize);
 				}
 			}
 		}
 		catch (OrtException ex) {
 			throw new RuntimeException(ex);
 		}
+		finally {
+			this.inputBuffersPool.offer(buffers);
+		}
+	}
 
-		return resultEmbeddings;
+	/**
+	 * Group the encodings, sorted by token length, in buckets whose padded size (bucket
+	 * size x longest sequence) stays within the token budget. Every bucket holds at least
+	 * one encoding.
+	 * @param encodings the encodings to group.
+	 * @param maxTokensPerBatch the token budget of a bucket, zero or negative for a
+	 * single bucket.
+	 * @return the buckets, as indexes into the encodings array.
+	 */
+	static List<int[]> buckets(Encoding[] encodings, int maxTokensPerBatch) {
+		int[] lengths = new int[encodings.length];
+		for (int i = 0; i < encodings.length; i++) {
+			lengths[i] = encodings[i].getIds().length;
+		}
+		return buckets(lengths, maxTokensPerBatch);
 	}
 
-	private Map<String, OnnxTensor> removeUnknownModelInputs(Map<String, OnnxTensor> modelInputs) {
+	static List<int[]> buckets(int[] lengths, int maxTokensPerBatch) {
+
+		Integer[] order = new Integer[lengths.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+
+		if (maxTokensPerBatch <= 0) {
+			return lengths.length == 0 ? List.of() : List.of(toIntArray(order, 0, order.length));
+		}
 
-		return modelInputs.entrySet()
-			.stream()
-			.filter(a -> onnxModelInputs.contains(a.getKey()))
-			.collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue()));
+		Arrays.sort(order, Comparator.comparingInt(i -> lengths[i]));
 
+		List<int[]> buckets = new ArrayList<>();
+		int start = 0;
+		for (int i = 0; i < order.length; i++) {
+			// Sorted ascending, the current sequence is the longest one of the bucket.
+			long paddedSize = (long) (i - start + 1) * lengths[order[i]];
+			if (i > start && paddedSize > maxTokensPerBatch) {
+				buckets.add(toIntArray(order, start, i));
+				start = i;
+			}
+		}
+		if (start < order.length) {
+			buckets.add(toIntArray(order, start, order.length));
+		}
+		return buckets;
 	}
 
-	// Build a NDArray from 3D float array.
-	private NDArray create(float[][][] data3d, NDManager manager) {
+	private static int[] toIntArray(Integer[] values, int from, int to) {
+		int[] result = new int[to - from];
+		for (int i = from; i < to; i++) {
+			result[i - from] = values[i];
+		}
+		return result;
+	}
 
-		FloatBuffer buffer = FloatBuffer.allocate(data3d.length * data3d[0].length * data3d[0][0].length);
+	private void addIfModelInput(Map<String, OnnxTensor> modelInputs, String name, OnnxTensor tensor) {
+		if (this.onnxModelInputs.contains(name)) {
+			modelInputs.put(name, tensor);
+		}
+	}
 
-		for (float[][] data2d : data3d) {
-			for (float[] data1d : data2d) {
-				buffer.put(data1d);
+	private InputBuffers borrowInputBuffers(int capacity) {
+		InputBuffers buffers = this.inputBuffersPool.poll();
+		if (buffers == null) {
+			buffers = new InputBuffers();
+		}
+		buffers.ensureCapacity(capacity);
+		return buffers;
+	}
+
+	/**
+	 * Masked mean pooling of the token embeddings, i.e. the average of the embeddings of
+	 * the non-padding tokens of every sequence.
+	 * @param tokenEmbeddings flat [batchSize, sequenceLength, dimensions] model output.
+	 * @param attentionMask flat [batchSize, sequenceLength] attention mask.
+	 * @param batchSize number of sequences.
+	 * @param sequenceLength (padded) length of the sequences.
+	 * @param dimensions embedding dimensions.
+	 * @param normalize whether to L2 normalize the pooled embeddings.
+	 * @return one embedding per sequence.
+	 */
+	static float[][] meanPooling(FloatBuffer tokenEmbeddings, LongBuffer attentionMask, int batchSize,
+			int sequenceLength, int dimensions, boolean normalize) {
+
+		float[][] result = new float[batchSize][dimensions];
+
+		for (int b = 0; b < batchSize; b++) {
+			float[] pooled = result[b];
+			int maskOffset = b * sequenceLength;
+			int tokens = 0;
+			for (int t = 0; t < sequenceLength; t++) {
+				if (attentionMask.get(maskOffset + t) == 0) {
+					continue;
+				}
+				tokens++;
+				int offset = (maskOffset + t) * dimensions;
+				for (int d = 0; d < dimensions; d++) {
+					pooled[d] += tokenEmbeddings.get(offset + d);
+				}
+			}
+			// Clamp the attention mask sum to avoid division by zero
+			float divisor = Math.max(tokens, 1e-9f);
+			for (int d = 0; d < dimensions; d++) {
+				pooled[d] /= divisor;
+			}
+			if (normalize) {
+				l2Normalize(pooled);
 			}
 		}
-		buffer.rewind();
 
-		return manager.create(buffer, new Shape(data3d.length, data3d[0].length, data3d[0][0].length));
+		return result;
 	}
 
-	private NDArray meanPooling(NDArray tokenEmbeddings, NDArray attentionMask) {
+	private static void l2Normalize(float[] vector) {
+		double sum = 0;
+		for (float v : vector) {
+			sum += v * v;
+		}
+		float norm = (float) Math.max(Math.sqrt(sum), 1e-12);
+		for (int i = 0; i < vector.length; i++) {
+			vector[i] /= norm;
+		}
+	}
 
-		NDArray attentionMaskExpanded = attentionMask.expandDims(-1)
-			.broadcast(tokenEmbeddings.getShape())
-			.toType(DataType.FLOAT32, false);
+	/**
+	 * Direct, native ordered buffers holding the model inputs. Reused across calls to
+	 * avoid allocating the input tensors for every batch. ONNX runtime uses direct
+	 * buffers as is, without copying them.
+	 */
+	private static class InputBuffers {
 
-		// Multiply token embeddings with expanded attention mask
-		NDArray weightedEmbeddings = tokenEmbeddings.mul(attentionMaskExpanded);
+		private LongBuffer inputIds = allocate(0);
 
-		// Sum along the appropriate axis
-		NDArray sumEmbeddings = weightedEmbeddings.sum(new int[] { EMBEDDING_AXIS });
+		private LongBuffer attentionMask = allocate(0);
 
-		// Clamp the attention mask sum to avoid division by zero
-		NDArray sumMask = attentionMaskExpanded.sum(new int[] { EMBEDDING_AXIS }).clip(1e-9f, Float.MAX_VALUE);
+		private LongBuffer tokenTypeIds = allocate(0);
 
-		// Divide sum embeddings by sum mask
-		return sumEmbeddings.div(sumMask);
-	}
+		void ensureCapacity(int capacity) {
+			if (this.inputIds.capacity() < capacity) {
+				this.inputIds = allocate(capacity);
+				this.attentionMask = allocate(capacity);
+				this.tokenTypeIds = allocate(capacity);
+			}
+			this.inputIds.clear().limit(capacity);
+			this.attentionMask.clear().limit(capacity);
+			this.tokenTypeIds.clear().limit(capacity);
+		}
 
-	private List<Double> toDoubleList(float[] floats) {
-		List<Double> result = new ArrayList<>();
-		if (floats != null && floats.length > 0) {
-			for (int i = 0; i < floats.length; i++) {
-				result.add((double) floats[i]);
+		void fill(Encoding[] encodings, int sequenceLength) {
+			for (int i = 0; i < encodings.length; i++) {
+				put(this.inputIds, i * sequenceLength, encodings[i].getIds(), sequenceLength);
+				put(this.attentionMask, i * sequenceLength, encodings[i].getAttentionMask(), sequenceLength);
+				put(this.tokenTypeIds, i * sequenceLength, encodings[i].getTypeIds(), sequenceLength);
 			}
 		}
-		return result;
+
+		private static void put(LongBuffer buffer, int offset, long[] values, int sequenceLength) {
+			buffer.put(offset, values);
+			// Pad the shorter sequences.
+			for (int i = values.length; i < sequenceLength; i++) {
+				buffer.put(offset + i, 0L);
+			}
+		}
+
+		private static LongBuffer allocate(int capacity) {
+			return ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+		}
+
 	}
 
 	@Override
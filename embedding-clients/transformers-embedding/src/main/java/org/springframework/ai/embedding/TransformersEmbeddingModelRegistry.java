@@ -0,0 +1,273 @@
+/*
+ * Copyright 2023-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.embedding;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+
+/**
+ * Hosts several {@link TransformersEmbeddingClient} models in a single JVM. The models
+ * are loaded lazily, on their first use, and the least recently used ones are unloaded
+ * when the total size of the loaded models exceeds the memory budget. Unloaded models are
+ * transparently reloaded on their next use.
+ * <p>
+ * The registered clients must not be initialized, the registry manages their lifecycle.
+ * All the ONNX sessions share the process wide {@code OrtEnvironment}. The model file
+ * size is used as the estimate of a session memory footprint.
+ *
+ * @since 0.7.1
+ */
+public class TransformersEmbeddingModelRegistry implements DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(TransformersEmbeddingModelRegistry.class);
+
+	private final long memoryBudget;
+
+	private final Map<String, Model> models = new ConcurrentHashMap<>();
+
+	/**
+	 * The loaded models, in access order. Guarded by itself.
+	 */
+	private final LinkedHashMap<String, Model> loadedModels = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * @param memoryBudget maximum total size, in bytes, of the loaded models. Zero or
+	 * negative for an unbounded budget. A model larger than the budget is still loaded,
+	 * alone.
+	 */
+	public TransformersEmbeddingModelRegistry(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+	}
+
+	/**
+	 * Register a model.
+	 * @param name the model name, used to route the requests.
+	 * @param client a configured, not yet initialized, client.
+	 */
+	public void register(String name, TransformersEmbeddingClient client) {
+		Assert.hasText(name, "Model name must not be empty");
+		Assert.notNull(client, "Client must not be null");
+		Assert.isNull(this.models.putIfAbsent(name, new Model(name, client)), "Model already registered: " + name);
+	}
+
+	/**
+	 * @param name the registered model name.
+	 * @return an {@link EmbeddingClient} routing all its requests to the named model.
+	 */
+	public EmbeddingClient getEmbeddingClient(String name) {
+		getModel(name);
+		return new ModelEmbeddingClient(name);
+	}
+
+	public List<List<Double>> embed(String name, List<String> texts) {
+		return withModel(name, client -> client.embed(texts));
+	}
+
+	/**
+	 * @return the names of the currently loaded models, least recently used first.
+	 */
+	public Set<String> getLoadedModels() {
+		synchronized (this.loadedModels) {
+			return Set.copyOf(this.loadedModels.keySet());
+		}
+	}
+
+	/**
+	 * @return the total size, in bytes, of the currently loaded models.
+	 */
+	public long getLoadedSize() {
+		synchronized (this.loadedModels) {
+			return this.loadedModels.values().stream().mapToLong(model -> model.size).sum();
+		}
+	}
+
+	/**
+	 * Unload the named model. It is reloaded on its next use.
+	 * @param name the registered model name.
+	 */
+	public void unload(String name) {
+		Model model = getModel(name);
+		synchronized (this.loadedModels) {
+			this.loadedModels.remove(name);
+		}
+		unload(model);
+	}
+
+	@Override
+	public void destroy() {
+		this.models.values().forEach(this::unload);
+		synchronized (this.loadedModels) {
+			this.loadedModels.clear();
+		}
+	}
+
+	<T> T withModel(String name, Function<TransformersEmbeddingClient, T> action) {
+		Model model = getModel(name);
+		while (true) {
+			model.lock.readLock().lock();
+			try {
+				if (model.loaded) {
+					synchronized (this.loadedModels) {
+						// Refresh the access order.
+						this.loadedModels.get(name);
+					}
+					return action.apply(model.client);
+				}
+			}
+			finally {
+				model.lock.readLock().unlock();
+			}
+			load(model);
+		}
+	}
+
+	private Model getModel(String name) {
+		Model model = this.models.get(name);
+		Assert.notNull(model, "Unknown model: " + name);
+		return model;
+	}
+
+	private void load(Model model) {
+		model.lock.writeLock().lock();
+		try {
+			if (model.loaded) {
+				return;
+			}
+			logger.info("Load the " + model.name + " embedding model");
+			model.client.afterPropertiesSet();
+			model.size = model.client.getModelSize();
+			model.loaded = true;
+		}
+		catch (Exception ex) {
+			throw new IllegalStateException("Failed to load the " + model.name + " embedding model", ex);
+		}
+		finally {
+			model.lock.writeLock().unlock();
+		}
+
+		List<Model> evicted = new ArrayList<>();
+		synchronized (this.loadedModels) {
+			this.loadedModels.put(model.name, model);
+			if (this.memoryBudget > 0) {
+				long loadedSize = this.loadedModels.values().stream().mapToLong(m -> m.size).sum();
+				Iterator<Model> leastRecentlyUsed = this.loadedModels.values().iterator();
+				while (loadedSize > this.memoryBudget && leastRecentlyUsed.hasNext()) {
+					Model candidate = leastRecentlyUsed.next();
+					if (candidate != model) {
+						leastRecentlyUsed.remove();
+						loadedSize -= candidate.size;
+						evicted.add(candidate);
+					}
+				}
+			}
+		}
+		// Outside of the registry lock, as it waits for the in-flight requests.
+		evicted.forEach(this::unload);
+	}
+
+	private void unload(Model model) {
+		model.lock.writeLock().lock();
+		try {
+			if (!model.loaded) {
+				return;
+			}
+			logger.info("Unload the " + model.name + " embedding model");
+			model.loaded = false;
+			model.size = 0;
+			model.client.destroy();
+		}
+		catch (Exception ex) {
+			logger.warn("Failed to unload the " + model.name + " embedding model", ex);
+		}
+		finally {
+			model.lock.writeLock().unlock();
+		}
+	}
+
+	private static class Model {
+
+		private final String name;
+
+		private final TransformersEmbeddingClient client;
+
+		/**
+		 * Requests hold the read lock, loading and unloading the write lock.
+		 */
+		private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+		private volatile boolean loaded;
+
+		private volatile long size;
+
+		Model(String name, TransformersEmbeddingClient client) {
+			this.name = name;
+			this.client = client;
+		}
+
+	}
+
+	private class ModelEmbeddingClient implements EmbeddingClient {
+
+		private final String name;
+
+		ModelEmbeddingClient(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public List<Double> embed(String text) {
+			return withModel(this.name, client -> client.embed(text));
+		}
+
+		@Override
+		public List<Double> embed(Document document) {
+			return withModel(this.name, client -> client.embed(document));
+		}
+
+		@Override
+		public List<List<Double>> embed(List<String> texts) {
+			return withModel(this.name, client -> client.embed(texts));
+		}
+
+		@Override
+		public EmbeddingResponse embedForResponse(List<String> texts) {
+			return withModel(this.name, client -> client.embedForResponse(texts));
+		}
+
+		@Override
+		public int dimensions() {
+			return withModel(this.name, TransformersEmbeddingClient::dimensions);
+		}
+
+	}
+
+}
@@ -18,15 +18,27 @@ package org.springframework.ai.embedding;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * @author Christian Tzolov
@@ -58,7 +70,7 @@ public class ResourceCacheServiceTests {
 
 		assertThat(cachedResource1).isNotEqualTo(new DefaultResourceLoader().getResource(originalResourceUri));
 		assertThat(Files.list(tempDir.toPath()).count()).isEqualTo(1);
-		assertThat(Files.list(Files.list(tempDir.toPath()).iterator().next()).count()).isEqualTo(1);
+		assertThat(cachedFileCount()).isEqualTo(1);
 
 		// Attempt to cache the same resource again should return the already cached
 		// resource.
@@ -68,7 +80,7 @@ public class ResourceCacheServiceTests {
 		assertThat(cachedResource2).isEqualTo(cachedResource1);
 
 		assertThat(Files.list(tempDir.toPath()).count()).isEqualTo(1);
-		assertThat(Files.list(Files.list(tempDir.toPath()).iterator().next()).count()).isEqualTo(1);
+		assertThat(cachedFileCount()).isEqualTo(1);
 
 	}
 
@@ -93,7 +105,7 @@ public class ResourceCacheServiceTests {
 		assertThat(Files.list(tempDir.toPath()).count()).isEqualTo(1)
 			.describedAs(
 					"As both resources come from the same parent segments they should be cached in a single common parent.");
-		assertThat(Files.list(Files.list(tempDir.toPath()).iterator().next()).count()).isEqualTo(2);
+		assertThat(cachedFileCount()).isEqualTo(2);
 
 	}
 
@@ -106,7 +118,147 @@ public class ResourceCacheServiceTests {
 
 		assertThat(cachedResource1).isNotEqualTo(new DefaultResourceLoader().getResource(originalResourceUri1));
 		assertThat(Files.list(tempDir.toPath()).count()).isEqualTo(1);
-		assertThat(Files.list(Files.list(tempDir.toPath()).iterator().next()).count()).isEqualTo(1);
+		assertThat(cachedFileCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void verifyChecksum() throws Exception {
+		var cache = new ResourceCacheService(tempDir);
+		cache.setExcludedUriSchemas(List.of());
+
+		var originalResource = new DefaultResourceLoader()
+			.getResource("file:src/main/resources/onnx/all-MiniLM-L6-v2/tokenizer.json");
+		String sha256 = HexFormat.of()
+			.formatHex(MessageDigest.getInstance("SHA-256").digest(originalResource.getContentAsByteArray()));
+
+		assertThatThrownBy(() -> cache.getCachedResource(originalResource, "0000"))
+			.isInstanceOf(IllegalStateException.class)
+			.hasRootCauseMessage("Checksum mismatch for " + originalResource.getDescription()
+					+ ". Expected SHA-256 0000 but was " + sha256);
+
+		// No temporary file is left behind.
+		assertThat(cachedFileCount()).isEqualTo(0);
+
+		var cachedResource = cache.getCachedResource(originalResource, sha256.toUpperCase());
+		assertThat(cachedResource.getContentAsByteArray()).isEqualTo(originalResource.getContentAsByteArray());
+	}
+
+	@Test
+	public void concurrentCaching() throws Exception {
+		var cache = new ResourceCacheService(tempDir);
+		cache.setExcludedUriSchemas(List.of());
+
+		var originalResourceUri = "file:src/main/resources/onnx/all-MiniLM-L6-v2/tokenizer.json";
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Resource>> futures = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				futures.add(executor.submit(() -> cache.getCachedResource(originalResourceUri)));
+			}
+			for (Future<Resource> future : futures) {
+				assertThat(future.get().contentLength())
+					.isEqualTo(new DefaultResourceLoader().getResource(originalResourceUri).contentLength());
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		assertThat(cachedFileCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void evictLeastRecentlyUsed(@TempDir File sourceDir) throws Exception {
+		var cache = new ResourceCacheService(tempDir);
+		cache.setExcludedUriSchemas(List.of());
+		cache.setMaxCacheSize(250);
+
+		var a = sourceFile(sourceDir, "a.bin", 100);
+		var b = sourceFile(sourceDir, "b.bin", 100);
+		var c = sourceFile(sourceDir, "c.bin", 100);
+
+		var cachedA = cache.getCachedResource(a);
+		Thread.sleep(20);
+		var cachedB = cache.getCachedResource(b);
+		Thread.sleep(20);
+		// Access A again, so that B becomes the least recently used.
+		cache.getCachedResource(a);
+		Thread.sleep(20);
+		var cachedC = cache.getCachedResource(c);
+
+		assertThat(cachedA.exists()).isTrue();
+		assertThat(cachedB.exists()).isFalse();
+		assertThat(cachedC.exists()).isTrue();
+	}
+
+	@Test
+	public void deleteTheFoldersOfEvictedFiles(@TempDir File sourceDir) throws Exception {
+		var cache = new ResourceCacheService(tempDir);
+		cache.setExcludedUriSchemas(List.of());
+		cache.setMaxCacheSize(150);
+
+		var a = sourceFile(new File(sourceDir, "a"), "a.bin", 100);
+		var b = sourceFile(new File(sourceDir, "b"), "b.bin", 100);
+
+		var cachedA = cache.getCachedResource(a);
+		Thread.sleep(20);
+		var cachedB = cache.getCachedResource(b);
+
+		assertThat(cachedA.exists()).isFalse();
+		assertThat(cachedB.exists()).isTrue();
+		// The folder of A is deleted along with its lock file.
+		assertThat(cachedA.getFile().getParentFile()).doesNotExist();
+		assertThat(tempDir.listFiles()).containsExactly(cachedB.getFile().getParentFile());
+
+		// Cached again, with a new lock file.
+		assertThat(cache.getCachedResource(a).exists()).isTrue();
+	}
+
+	@Test
+	public void cacheFromMirror(@TempDir File mirrorDir) throws Exception {
+		var cache = new ResourceCacheService(tempDir);
+		cache.setMirrorDirectory(mirrorDir);
+
+		File mirrored = new File(mirrorDir, "models.example.com/all-MiniLM-L6-v2/model.onnx");
+		mirrored.getParentFile().mkdirs();
+		Files.writeString(mirrored.toPath(), "mirrored model");
+
+		// Never reaches the (unresolvable) host.
+		var cachedResource = cache.getCachedResource("https://models.example.com/all-MiniLM-L6-v2/model.onnx");
+
+		assertThat(cachedResource.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("mirrored model");
+		assertThat(cachedResource.getFile().toPath()).startsWith(tempDir.toPath());
+	}
+
+	@Test
+	public void deleteCacheFolder() throws IOException {
+		var cache = new ResourceCacheService(tempDir);
+		cache.setExcludedUriSchemas(List.of());
+
+		cache.getCachedResource("file:src/main/resources/onnx/all-MiniLM-L6-v2/tokenizer.json");
+		assertThat(Files.list(tempDir.toPath()).count()).isEqualTo(1);
+
+		cache.deleteCacheFolder();
+
+		assertThat(tempDir).isEmptyDirectory();
+	}
+
+	/**
+	 * @return number of files in the (single) cache sub-folder, the lock files that are
+	 * kept in place excluded.
+	 */
+	private long cachedFileCount() throws IOException {
+		try (Stream<Path> files = Files.list(Files.list(tempDir.toPath()).iterator().next())) {
+			return files.filter(file -> !file.getFileName().toString().endsWith(".lock")).count();
+		}
+	}
+
+	private static Resource sourceFile(File folder, String name, int size) throws IOException {
+		folder.mkdirs();
+		File file = new File(folder, name);
+		Files.write(file.toPath(), new byte[size]);
+		return new FileSystemResource(file);
 	}
 
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2023-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.embedding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Writes a tiny ONNX model, usable in place of the (large) pre-trained one: the
+ * {@code last_hidden_state} output is a lookup of the {@code input_ids} in a fixed
+ * embedding table, sized for the vocabulary of the bundled all-MiniLM-L6-v2 tokenizer.
+ * The model protobuf is encoded by hand, to not depend on the ONNX library.
+ */
+final class TestOnnxModel {
+
+	static final String TOKENIZER_URI = "classpath:/onnx/all-MiniLM-L6-v2/tokenizer.json";
+
+	static final int VOCABULARY_SIZE = 30522;
+
+	static final int DIMENSIONS = 8;
+
+	private static final int FLOAT = 1;
+
+	private static final int INT64 = 7;
+
+	private TestOnnxModel() {
+	}
+
+	static File write(File directory) throws IOException {
+		File model = new File(directory, "tiny-model.onnx");
+		Files.write(model.toPath(), model());
+		return model;
+	}
+
+	private static byte[] model() {
+		Proto opset = new Proto().string(1, "").varint(2, 13);
+
+		Proto gather = new Proto().string(1, "embeddings")
+			.string(1, "input_ids")
+			.string(2, "last_hidden_state")
+			.string(3, "lookup")
+			.string(4, "Gather");
+
+		Proto graph = new Proto().message(1, gather)
+			.string(2, "tiny")
+			.message(5, embeddings())
+			.message(11, valueInfo("input_ids", INT64, "batch", "sequence"))
+			.message(12, valueInfo("last_hidden_state", FLOAT, "batch", "sequence", DIMENSIONS));
+
+		return new Proto().varint(1, 7).message(7, graph).message(8, opset).toByteArray();
+	}
+
+	private static Proto embeddings() {
+		ByteBuffer data = ByteBuffer.allocate(VOCABULARY_SIZE * DIMENSIONS * Float.BYTES)
+			.order(ByteOrder.LITTLE_ENDIAN);
+		for (int token = 0; token < VOCABULARY_SIZE; token++) {
+			for (int d = 0; d < DIMENSIONS; d++) {
+				data.putFloat((float) Math.sin(token * 0.37 + d * 1.3));
+			}
+		}
+		return new Proto().varint(1, VOCABULARY_SIZE)
+			.varint(1, DIMENSIONS)
+			.varint(2, FLOAT)
+			.string(8, "embeddings")
+			.bytes(9, data.array());
+	}
+
+	private static Proto valueInfo(String name, int elementType, Object... dimensions) {
+		Proto shape = new Proto();
+		for (Object dimension : dimensions) {
+			shape.message(1, (dimension instanceof Integer size) ? new Proto().varint(1, size)
+					: new Proto().string(2, (String) dimension));
+		}
+		Proto tensorType = new Proto().varint(1, elementType).message(2, shape);
+		return new Proto().string(1, name).message(2, new Proto().message(1, tensorType));
+	}
+
+	/**
+	 * Minimal protobuf writer, supporting the varint and length delimited wire types.
+	 */
+	private static final class Proto {
+
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		Proto varint(int field, long value) {
+			writeVarint((field << 3) | 0);
+			writeVarint(value);
+			return this;
+		}
+
+		Proto string(int field, String value) {
+			return bytes(field, value.getBytes(StandardCharsets.UTF_8));
+		}
+
+		Proto message(int field, Proto value) {
+			return bytes(field, value.toByteArray());
+		}
+
+		Proto bytes(int field, byte[] value) {
+			writeVarint((field << 3) | 2);
+			writeVarint(value.length);
+			this.out.writeBytes(value);
+			return this;
+		}
+
+		byte[] toByteArray() {
+			return this.out.toByteArray();
+		}
+
+		private void writeVarint(long value) {
+			while ((value & ~0x7FL) != 0) {
+				this.out.write((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			this.out.write((int) value);
+		}
+
+	}
+
+}
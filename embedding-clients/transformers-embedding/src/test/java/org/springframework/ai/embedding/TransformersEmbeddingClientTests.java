@@ -16,19 +16,36 @@
 
 package org.springframework.ai.embedding;
 
+import java.io.File;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import ai.onnxruntime.OrtSession;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import org.springframework.ai.document.Document;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 
 /**
  * @author Christian Tzolov
  */
 public class TransformersEmbeddingClientTests {
 
+	private static final List<String> TEXTS = List.of("Hello world", "World is big",
+			"The quick brown fox jumps over the lazy dog", "Spring",
+			"A somewhat longer sentence, to get a bucket of its own", "Embeddings");
+
+	@TempDir
+	File tempDir;
+
 	@Test
 	void embed() throws Exception {
 		TransformersEmbeddingClient embeddingClient = new TransformersEmbeddingClient();
@@ -93,4 +110,208 @@ public class TransformersEmbeddingClientTests {
 		assertThat(embeddingClient.dimensions()).isEqualTo(384);
 	}
 
+	@Test
+	void meanPooling() {
+		// batch of 2 sequences, 3 tokens each, 2 dimensions. The last token of the first
+		// sequence is padding.
+		FloatBuffer tokenEmbeddings = FloatBuffer.wrap(new float[] { 1, 2, 3, 4, 100, 100, 1, 1, 2, 2, 3, 3 });
+		LongBuffer attentionMask = LongBuffer.wrap(new long[] { 1, 1, 0, 1, 1, 1 });
+
+		float[][] pooled = TransformersEmbeddingClient.meanPooling(tokenEmbeddings, attentionMask, 2, 3, 2, false);
+		assertThat(pooled[0]).containsExactly(2f, 3f);
+		assertThat(pooled[1]).containsExactly(2f, 2f);
+
+		float[][] normalized = TransformersEmbeddingClient.meanPooling(tokenEmbeddings, attentionMask, 2, 3, 2, true);
+		assertThat(normalized[1][0]).isCloseTo((float) (1 / Math.sqrt(2)), within(1e-6f));
+		assertThat(normalized[1][1]).isCloseTo((float) (1 / Math.sqrt(2)), within(1e-6f));
+	}
+
+	@Test
+	void lengthBuckets() {
+		int[] lengths = new int[] { 10, 3, 5, 3, 20 };
+
+		List<int[]> buckets = TransformersEmbeddingClient.buckets(lengths, 20);
+		assertThat(buckets).hasSize(3);
+		assertThat(buckets.get(0)).containsExactly(1, 3, 2);
+		assertThat(buckets.get(1)).containsExactly(0);
+		// A sequence longer than the budget still gets its own bucket.
+		assertThat(buckets.get(2)).containsExactly(4);
+
+		List<int[]> single = TransformersEmbeddingClient.buckets(lengths, 0);
+		assertThat(single).hasSize(1);
+		assertThat(single.get(0)).containsExactly(0, 1, 2, 3, 4);
+
+		assertThat(TransformersEmbeddingClient.buckets(new int[0], 20)).isEmpty();
+	}
+
+	@Test
+	void windowPooling() {
+		// Input 0 has two windows, of 4 and 2 tokens. Input 1 has a single window.
+		float[][] windowEmbeddings = new float[][] { { 1, 0 }, { 0, 1 }, { 3, 4 } };
+		int[] owners = new int[] { 0, 0, 1 };
+		int[] tokens = new int[] { 4, 2, 3 };
+
+		float[][] mean = TransformersEmbeddingClient.poolWindows(windowEmbeddings, owners, tokens, 2,
+				TransformersEmbeddingClient.WindowPooling.MEAN, false);
+		assertThat(mean[0]).containsExactly(0.5f, 0.5f);
+		assertThat(mean[1]).containsExactly(3f, 4f);
+
+		float[][] weighted = TransformersEmbeddingClient.poolWindows(windowEmbeddings, owners, tokens, 2,
+				TransformersEmbeddingClient.WindowPooling.TOKEN_WEIGHTED, false);
+		assertThat(weighted[0][0]).isCloseTo(4f / 6, within(1e-6f));
+		assertThat(weighted[0][1]).isCloseTo(2f / 6, within(1e-6f));
+
+		float[][] normalized = TransformersEmbeddingClient.poolWindows(windowEmbeddings, owners, tokens, 2,
+				TransformersEmbeddingClient.WindowPooling.MEAN, true);
+		assertThat(normalized[1]).containsExactly(0.6f, 0.8f);
+	}
+
+	@Test
+	void parallelEmbeddingsMatchTheSequentialOnes() throws Exception {
+		List<List<Double>> sequential = embedWithTestModel(client -> client.setMaxTokensPerBatch(8));
+		List<List<Double>> parallel = embedWithTestModel(client -> {
+			client.setMaxTokensPerBatch(8);
+			client.setParallelism(3);
+		});
+
+		assertThat(sequential).hasSize(TEXTS.size());
+		assertThat(sequential.get(0)).hasSize(TestOnnxModel.DIMENSIONS);
+		assertThat(parallel).isEqualTo(sequential);
+	}
+
+	@Test
+	void sessionOptionsDoNotChangeTheEmbeddings() throws Exception {
+		List<List<Double>> defaults = embedWithTestModel(client -> {
+		});
+		List<List<Double>> tuned = embedWithTestModel(client -> {
+			client.setIntraOpNumThreads(1);
+			client.setInterOpNumThreads(2);
+			client.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.BASIC_OPT);
+			client.setExecutionMode(OrtSession.SessionOptions.ExecutionMode.PARALLEL);
+			client.setMemoryPatternOptimization(false);
+			client.setCpuArenaAllocator(false);
+		});
+
+		assertThat(tuned).isEqualTo(defaults);
+	}
+
+	@Test
+	void maxTokensPerBatchIsSharedAcrossTheParallelBatches() {
+		// The request is split in at least as many batches as the parallelism.
+		assertThat(TransformersEmbeddingClient.maxTokensPerBatch(1000, 16384, 4)).isEqualTo(250);
+		// The configured budget still caps the share.
+		assertThat(TransformersEmbeddingClient.maxTokensPerBatch(1000, 100, 4)).isEqualTo(100);
+		// No configured budget.
+		assertThat(TransformersEmbeddingClient.maxTokensPerBatch(1000, 0, 4)).isEqualTo(250);
+		// Never below one token.
+		assertThat(TransformersEmbeddingClient.maxTokensPerBatch(2, 16384, 4)).isEqualTo(1);
+	}
+
+	private List<List<Double>> embedWithTestModel(Consumer<TransformersEmbeddingClient> customizer) throws Exception {
+		TransformersEmbeddingClient embeddingClient = new TransformersEmbeddingClient();
+		embeddingClient.setDisableCaching(true);
+		embeddingClient.setTokenizerResource(TestOnnxModel.TOKENIZER_URI);
+		embeddingClient.setModelResource("file:" + TestOnnxModel.write(this.tempDir).getAbsolutePath());
+		customizer.accept(embeddingClient);
+		embeddingClient.afterPropertiesSet();
+		try {
+			return embeddingClient.embed(TEXTS);
+		}
+		finally {
+			embeddingClient.destroy();
+		}
+	}
+
+	@Test
+	void fileModelIsLoadedByPathWithoutCopy() throws Exception {
+		File model = TestOnnxModel.write(this.tempDir);
+		File cacheDirectory = new File(this.tempDir, "cache");
+
+		TransformersEmbeddingClient embeddingClient = testModelClient(model, cacheDirectory);
+		embeddingClient.afterPropertiesSet();
+		try {
+			assertThat(embeddingClient.getModelSize()).isEqualTo(model.length());
+			assertThat(embeddingClient.embed("Hello world")).hasSize(TestOnnxModel.DIMENSIONS);
+			try (Stream<Path> cached = Files.walk(cacheDirectory.toPath())) {
+				assertThat(cached.filter(Files::isRegularFile)).isEmpty();
+			}
+		}
+		finally {
+			embeddingClient.destroy();
+		}
+	}
+
+	@Test
+	void optimizedModelIsCachedPerOptimizationSettings() throws Exception {
+		File model = TestOnnxModel.write(this.tempDir);
+		File cacheDirectory = new File(this.tempDir, "cache");
+		File optimizedDirectory = new File(cacheDirectory, "optimized");
+
+		List<Double> basic = embedWithOptimizedModel(model, cacheDirectory,
+				OrtSession.SessionOptions.OptLevel.BASIC_OPT);
+		assertThat(optimizedDirectory.list()).hasSize(1);
+
+		List<Double> all = embedWithOptimizedModel(model, cacheDirectory, OrtSession.SessionOptions.OptLevel.ALL_OPT);
+		assertThat(optimizedDirectory.list()).hasSize(2);
+		assertThat(all).isEqualTo(basic);
+
+		TransformersEmbeddingClient embeddingClient = testModelClient(model, cacheDirectory);
+		embeddingClient.setCacheOptimizedModel(true);
+		embeddingClient.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.BASIC_OPT);
+		embeddingClient.afterPropertiesSet();
+		try {
+			File cpu = embeddingClient.optimizedModelFile(model);
+			assertThat(cpu).exists();
+			embeddingClient.setGpuDeviceId(0);
+			assertThat(embeddingClient.optimizedModelFile(model)).isNotEqualTo(cpu).doesNotExist();
+		}
+		finally {
+			embeddingClient.destroy();
+		}
+	}
+
+	@Test
+	void existingOptimizedModelIsReused() throws Exception {
+		File model = TestOnnxModel.write(this.tempDir);
+		File cacheDirectory = new File(this.tempDir, "cache");
+		File optimizedDirectory = new File(cacheDirectory, "optimized");
+
+		List<Double> first = embedWithOptimizedModel(model, cacheDirectory,
+				OrtSession.SessionOptions.OptLevel.BASIC_OPT);
+		File[] optimized = optimizedDirectory.listFiles();
+		assertThat(optimized).hasSize(1);
+		long lastModified = optimized[0].lastModified() - 60_000;
+		assertThat(optimized[0].setLastModified(lastModified)).isTrue();
+
+		List<Double> second = embedWithOptimizedModel(model, cacheDirectory,
+				OrtSession.SessionOptions.OptLevel.BASIC_OPT);
+
+		assertThat(second).isEqualTo(first);
+		// Loaded, not written again.
+		assertThat(optimizedDirectory.listFiles()).containsExactly(optimized[0]);
+		assertThat(optimized[0].lastModified()).isEqualTo(lastModified);
+	}
+
+	private List<Double> embedWithOptimizedModel(File model, File cacheDirectory,
+			OrtSession.SessionOptions.OptLevel optimizationLevel) throws Exception {
+		TransformersEmbeddingClient embeddingClient = testModelClient(model, cacheDirectory);
+		embeddingClient.setCacheOptimizedModel(true);
+		embeddingClient.setOptimizationLevel(optimizationLevel);
+		embeddingClient.afterPropertiesSet();
+		try {
+			return embeddingClient.embed("Hello world");
+		}
+		finally {
+			embeddingClient.destroy();
+		}
+	}
+
+	private TransformersEmbeddingClient testModelClient(File model, File cacheDirectory) {
+		TransformersEmbeddingClient embeddingClient = new TransformersEmbeddingClient();
+		embeddingClient.setResourceCacheDirectory(cacheDirectory.getAbsolutePath());
+		embeddingClient.setTokenizerResource(TestOnnxModel.TOKENIZER_URI);
+		embeddingClient.setModelResource("file:" + model.getAbsolutePath());
+		return embeddingClient;
+	}
+
 }
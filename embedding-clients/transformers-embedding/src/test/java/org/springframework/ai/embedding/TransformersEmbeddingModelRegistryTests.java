@@ -0,0 +1,114 @@
+/*
+ * Copyright 2023-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.embedding;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TransformersEmbeddingModelRegistryTests {
+
+	@Test
+	public void loadLazilyAndUnloadLeastRecentlyUsed() {
+		var registry = new TransformersEmbeddingModelRegistry(250);
+		var small = new StubEmbeddingClient(100);
+		var medium = new StubEmbeddingClient(100);
+		var large = new StubEmbeddingClient(100);
+		registry.register("small", small);
+		registry.register("medium", medium);
+		registry.register("large", large);
+
+		EmbeddingClient smallClient = registry.getEmbeddingClient("small");
+		assertThat(registry.getLoadedModels()).isEmpty();
+
+		assertThat(smallClient.embed("text")).containsExactly(100.0);
+		assertThat(registry.embed("medium", List.of("text"))).containsExactly(List.of(100.0));
+		assertThat(registry.getLoadedModels()).containsExactlyInAnyOrder("small", "medium");
+
+		// Use small again, so that medium becomes the least recently used model.
+		smallClient.embed("text");
+		registry.embed("large", List.of("text"));
+
+		assertThat(registry.getLoadedModels()).containsExactlyInAnyOrder("small", "large");
+		assertThat(registry.getLoadedSize()).isEqualTo(200);
+		assertThat(medium.loaded).isFalse();
+		assertThat(medium.loads).isEqualTo(1);
+
+		// Transparently reloaded.
+		registry.embed("medium", List.of("text"));
+		assertThat(medium.loads).isEqualTo(2);
+		assertThat(registry.getLoadedModels()).containsExactlyInAnyOrder("large", "medium");
+
+		registry.destroy();
+		assertThat(registry.getLoadedModels()).isEmpty();
+		assertThat(small.loaded || medium.loaded || large.loaded).isFalse();
+	}
+
+	@Test
+	public void unknownModel() {
+		var registry = new TransformersEmbeddingModelRegistry(0);
+		assertThatThrownBy(() -> registry.getEmbeddingClient("missing")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	/**
+	 * Skips the ONNX model loading and embeds every text as the model size.
+	 */
+	private static class StubEmbeddingClient extends TransformersEmbeddingClient {
+
+		private final long size;
+
+		private boolean loaded;
+
+		private int loads;
+
+		StubEmbeddingClient(long size) {
+			this.size = size;
+		}
+
+		@Override
+		public void afterPropertiesSet() {
+			this.loaded = true;
+			this.loads++;
+		}
+
+		@Override
+		public void destroy() {
+			this.loaded = false;
+		}
+
+		@Override
+		long getModelSize() {
+			return this.loaded ? this.size : 0;
+		}
+
+		@Override
+		public List<List<Double>> embed(List<String> texts) {
+			assertThat(this.loaded).isTrue();
+			return texts.stream().map(text -> List.of((double) this.size)).toList();
+		}
+
+		@Override
+		public List<Double> embed(String text) {
+			return embed(List.of(text)).get(0);
+		}
+
+	}
+
+}
@@ -16,23 +16,37 @@
 
 package org.springframework.ai.azure.openai.client;
 
+import com.azure.ai.openai.OpenAIAsyncClient;
 import com.azure.ai.openai.OpenAIClient;
 import com.azure.ai.openai.models.ChatChoice;
 import com.azure.ai.openai.models.ChatCompletions;
 import com.azure.ai.openai.models.ChatCompletionsOptions;
 import com.azure.ai.openai.models.ChatMessage;
 import com.azure.ai.openai.models.ChatRole;
+import com.azure.ai.openai.models.CompletionsUsage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.ai.azure.openai.ratelimit.AzureOpenAiThrottleClassifier;
 import org.springframework.ai.client.AiClient;
 import org.springframework.ai.client.AiResponse;
+import org.springframework.ai.client.AsyncAiClient;
 import org.springframework.ai.client.Generation;
+import org.springframework.ai.client.StreamingAiClient;
 import org.springframework.ai.prompt.Prompt;
 import org.springframework.ai.prompt.messages.Message;
+import org.springframework.ai.ratelimit.AdaptiveRateLimiter;
 import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * {@link AiClient} implementation for {@literal Microsoft Azure AI} backed by
@@ -44,7 +58,7 @@ import java.util.List;
  * @see org.springframework.ai.client.AiClient
  * @see com.azure.ai.openai.OpenAIClient
  */
-public class AzureOpenAiClient implements AiClient {
+public class AzureOpenAiClient implements StreamingAiClient, AsyncAiClient {
 
 	private Double temperature = 0.7;
 
@@ -54,6 +68,10 @@ public class AzureOpenAiClient implements AiClient {
 
 	private final OpenAIClient msoftOpenAiClient;
 
+	private OpenAIAsyncClient msoftOpenAiAsyncClient;
+
+	private AdaptiveRateLimiter rateLimiter;
+
 	public AzureOpenAiClient(OpenAIClient microsoftOpenAiClient) {
 		Assert.notNull(microsoftOpenAiClient, "com.azure.ai.openai.OpenAIClient must not be null");
 		this.msoftOpenAiClient = microsoftOpenAiClient;
@@ -75,6 +93,31 @@ public class AzureOpenAiClient implements AiClient {
 		this.temperature = temperature;
 	}
 
+	public OpenAIAsyncClient getAsyncClient() {
+		return this.msoftOpenAiAsyncClient;
+	}
+
+	/**
+	 * Use the given asynchronous client for the non-blocking and streaming calls. Without
+	 * it, these calls block a bounded elastic thread on the synchronous client.
+	 * @param microsoftOpenAiAsyncClient the asynchronous client, can be null.
+	 */
+	public void setAsyncClient(OpenAIAsyncClient microsoftOpenAiAsyncClient) {
+		this.msoftOpenAiAsyncClient = microsoftOpenAiAsyncClient;
+	}
+
+	public AdaptiveRateLimiter getRateLimiter() {
+		return this.rateLimiter;
+	}
+
+	/**
+	 * Throttle the chat completion requests with the given, possibly shared, limiter.
+	 * @param rateLimiter the limiter to use or null to disable client side throttling.
+	 */
+	public void setRateLimiter(AdaptiveRateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
 	@Override
 	public String generate(String text) {
 
@@ -85,7 +128,7 @@ public class AzureOpenAiClient implements AiClient {
 		options.setModel(this.getModel());
 		logger.trace("Azure Chat Message: {}", azureChatMessage);
 
-		ChatCompletions chatCompletions = this.msoftOpenAiClient.getChatCompletions(this.getModel(), options);
+		ChatCompletions chatCompletions = getChatCompletions(options);
 		logger.trace("Azure ChatCompletions: {}", chatCompletions);
 
 		StringBuilder stringBuilder = new StringBuilder();
@@ -103,6 +146,100 @@ public class AzureOpenAiClient implements AiClient {
 	@Override
 	public AiResponse generate(Prompt prompt) {
 
+		ChatCompletionsOptions options = getChatCompletionsOptions(prompt);
+
+		return getAiResponse(getChatCompletions(options));
+	}
+
+	@Override
+	public CompletableFuture<AiResponse> generateAsync(Prompt prompt) {
+
+		ChatCompletionsOptions options = getChatCompletionsOptions(prompt);
+
+		Mono<ChatCompletions> chatCompletions = (this.msoftOpenAiAsyncClient != null)
+				? Mono.defer(() -> this.msoftOpenAiAsyncClient.getChatCompletions(this.getModel(), options))
+				: Mono.fromCallable(() -> this.msoftOpenAiClient.getChatCompletions(this.getModel(), options))
+					.subscribeOn(Schedulers.boundedElastic());
+
+		if (this.rateLimiter != null) {
+			List<String> contents = options.getMessages().stream().map(ChatMessage::getContent).toList();
+			chatCompletions = this.rateLimiter
+				.executeStream(AdaptiveRateLimiter.estimateTokens(contents), chatCompletions::flux,
+						completions -> (completions.getUsage() != null) ? completions.getUsage().getTotalTokens() : -1,
+						AzureOpenAiThrottleClassifier.INSTANCE)
+				.single();
+		}
+
+		return chatCompletions.map(this::getAiResponse).toFuture();
+	}
+
+	private AiResponse getAiResponse(ChatCompletions chatCompletions) {
+
+		logger.trace("Azure ChatCompletions: {}", chatCompletions);
+
+		List<Generation> generations = new ArrayList<>();
+
+		for (ChatChoice choice : chatCompletions.getChoices()) {
+			ChatMessage choiceMessage = choice.getMessage();
+			// TODO investigate mapping of additional metadata/runtime info to the general
+			// model.
+			Generation generation = new Generation(choiceMessage.getContent());
+			generations.add(generation);
+		}
+
+		return new AiResponse(generations, Map.of(), getRunInfo(chatCompletions.getUsage()));
+	}
+
+	private static Map<String, Object> getRunInfo(CompletionsUsage usage) {
+		if (usage == null) {
+			return Map.of();
+		}
+		return Map.of("prompt-tokens", (long) usage.getPromptTokens(), "completion-tokens",
+				(long) usage.getCompletionTokens(), "total-tokens", (long) usage.getTotalTokens(), "estimated-usage",
+				false);
+	}
+
+	/**
+	 * Stream the chat completion. Every emitted response holds the content deltas of a
+	 * completion chunk. The response of the final chunk of a choice holds the
+	 * {@code finish-reason} and the usage in its run info. When the service does not
+	 * report the usage, the prompt tokens are estimated and the completion tokens are
+	 * counted from the deltas, one token each, the run info {@code estimated-usage} flag
+	 * marking them as such. Cancelling the subscription cancels the underlying HTTP
+	 * request.
+	 * @param prompt the prompt to complete.
+	 * @return the stream of completion deltas.
+	 */
+	@Override
+	public Flux<AiResponse> generateStream(Prompt prompt) {
+
+		ChatCompletionsOptions options = getChatCompletionsOptions(prompt);
+
+		List<String> contents = options.getMessages().stream().map(ChatMessage::getContent).toList();
+		long promptTokens = AdaptiveRateLimiter.estimateTokens(contents);
+
+		Supplier<Flux<AiResponse>> call = () -> {
+			AtomicLong completionTokens = new AtomicLong();
+			Flux<ChatCompletions> chunks = (this.msoftOpenAiAsyncClient != null)
+					? this.msoftOpenAiAsyncClient.getChatCompletionsStream(this.getModel(), options)
+					: Flux.fromStream(
+							() -> this.msoftOpenAiClient.getChatCompletionsStream(this.getModel(), options).stream())
+						.subscribeOn(Schedulers.boundedElastic());
+			return chunks
+				.map(chatCompletions -> getStreamingAiResponse(chatCompletions, promptTokens, completionTokens));
+		};
+
+		if (this.rateLimiter == null) {
+			return Flux.defer(call);
+		}
+
+		return this.rateLimiter.executeStream(promptTokens, call,
+				response -> (Long) response.getRunInfo().getOrDefault("total-tokens", -1L),
+				AzureOpenAiThrottleClassifier.INSTANCE);
+	}
+
+	private ChatCompletionsOptions getChatCompletionsOptions(Prompt prompt) {
+
 		List<Message> messages = prompt.getMessages();
 		List<ChatMessage> azureMessages = new ArrayList<>();
 
@@ -117,20 +254,55 @@ public class AzureOpenAiClient implements AiClient {
 		options.setModel(this.getModel());
 		logger.trace("Azure ChatCompletionsOptions: {}", options);
 
-		ChatCompletions chatCompletions = this.msoftOpenAiClient.getChatCompletions(this.getModel(), options);
-		logger.trace("Azure ChatCompletions: {}", chatCompletions);
+		return options;
+	}
+
+	private AiResponse getStreamingAiResponse(ChatCompletions chatCompletions, long promptTokens,
+			AtomicLong completionTokens) {
 
 		List<Generation> generations = new ArrayList<>();
+		Map<String, Object> runInfo = new HashMap<>();
 
 		for (ChatChoice choice : chatCompletions.getChoices()) {
-			ChatMessage choiceMessage = choice.getMessage();
-			// TODO investigate mapping of additional metadata/runtime info to the general
-			// model.
-			Generation generation = new Generation(choiceMessage.getContent());
-			generations.add(generation);
+			ChatMessage delta = choice.getDelta();
+			String content = (delta != null && delta.getContent() != null) ? delta.getContent() : "";
+			if (!content.isEmpty()) {
+				completionTokens.incrementAndGet();
+			}
+			Map<String, Object> info = new HashMap<>();
+			if (delta != null && delta.getRole() != null) {
+				info.put("role", delta.getRole().toString());
+			}
+			if (choice.getFinishReason() != null) {
+				info.put("finish-reason", choice.getFinishReason().toString());
+				runInfo.put("finish-reason", choice.getFinishReason().toString());
+				CompletionsUsage usage = chatCompletions.getUsage();
+				long prompt = (usage != null) ? usage.getPromptTokens() : promptTokens;
+				long completion = (usage != null) ? usage.getCompletionTokens() : completionTokens.get();
+				runInfo.put("prompt-tokens", prompt);
+				runInfo.put("completion-tokens", completion);
+				runInfo.put("total-tokens", prompt + completion);
+				runInfo.put("estimated-usage", usage == null);
+			}
+			generations.add(new Generation(content, info));
+		}
+
+		return new AiResponse(generations, Map.of(), runInfo);
+	}
+
+	private ChatCompletions getChatCompletions(ChatCompletionsOptions options) {
+
+		if (this.rateLimiter == null) {
+			return this.msoftOpenAiClient.getChatCompletions(this.getModel(), options);
 		}
 
-		return new AiResponse(generations);
+		List<String> contents = options.getMessages().stream().map(ChatMessage::getContent).toList();
+
+		return this.rateLimiter.execute(AdaptiveRateLimiter.estimateTokens(contents),
+				() -> this.msoftOpenAiClient.getChatCompletions(this.getModel(), options),
+				chatCompletions -> (chatCompletions.getUsage() != null) ? chatCompletions.getUsage().getTotalTokens()
+						: -1,
+				AzureOpenAiThrottleClassifier.INSTANCE);
 	}
 
 }
@@ -14,12 +14,14 @@ import com.azure.ai.openai.models.EmbeddingsUsage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.ai.azure.openai.ratelimit.AzureOpenAiThrottleClassifier;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.document.MetadataMode;
 import org.springframework.ai.embedding.Embedding;
 import org.springframework.ai.embedding.EmbeddingClient;
 import org.springframework.ai.embedding.EmbeddingResponse;
 import org.springframework.ai.embedding.EmbeddingUtil;
+import org.springframework.ai.ratelimit.AdaptiveRateLimiter;
 import org.springframework.util.Assert;
 
 public class AzureOpenAiEmbeddingClient implements EmbeddingClient {
@@ -34,6 +36,8 @@ public class AzureOpenAiEmbeddingClient implements EmbeddingClient {
 
 	private final MetadataMode metadataMode;
 
+	private AdaptiveRateLimiter rateLimiter;
+
 	public AzureOpenAiEmbeddingClient(OpenAIClient azureOpenAiClient) {
 		this(azureOpenAiClient, "text-embedding-ada-002");
 	}
@@ -54,7 +58,7 @@ public class AzureOpenAiEmbeddingClient implements EmbeddingClient {
 	@Override
 	public List<Double> embed(String text) {
 		logger.debug("Retrieving embeddings");
-		Embeddings embeddings = this.azureOpenAiClient.getEmbeddings(this.model, new EmbeddingsOptions(List.of(text)));
+		Embeddings embeddings = getEmbeddings(new EmbeddingsOptions(List.of(text)));
 		logger.debug("Embeddings retrieved");
 		return extractEmbeddingsList(embeddings);
 	}
@@ -62,12 +66,30 @@ public class AzureOpenAiEmbeddingClient implements EmbeddingClient {
 	@Override
 	public List<Double> embed(Document document) {
 		logger.debug("Retrieving embeddings");
-		Embeddings embeddings = this.azureOpenAiClient.getEmbeddings(this.model,
+		Embeddings embeddings = getEmbeddings(
 				new EmbeddingsOptions(List.of(document.getFormattedContent(this.metadataMode))));
 		logger.debug("Embeddings retrieved");
 		return extractEmbeddingsList(embeddings);
 	}
 
+	/**
+	 * Throttle the embedding requests with the given, possibly shared, limiter.
+	 * @param rateLimiter the limiter to use or null to disable client side throttling.
+	 */
+	public void setRateLimiter(AdaptiveRateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
+	private Embeddings getEmbeddings(EmbeddingsOptions embeddingsOptions) {
+		if (this.rateLimiter == null) {
+			return this.azureOpenAiClient.getEmbeddings(this.model, embeddingsOptions);
+		}
+		return this.rateLimiter.execute(AdaptiveRateLimiter.estimateTokens(embeddingsOptions.getInput()),
+				() -> this.azureOpenAiClient.getEmbeddings(this.model, embeddingsOptions),
+				embeddings -> (embeddings.getUsage() != null) ? embeddings.getUsage().getTotalTokens() : -1,
+				AzureOpenAiThrottleClassifier.INSTANCE);
+	}
+
 	private List<Double> extractEmbeddingsList(Embeddings embeddings) {
 		return embeddings.getData().stream().map(EmbeddingItem::getEmbedding).flatMap(List::stream).toList();
 	}
@@ -75,7 +97,7 @@ public class AzureOpenAiEmbeddingClient implements EmbeddingClient {
 	@Override
 	public List<List<Double>> embed(List<String> texts) {
 		logger.debug("Retrieving embeddings");
-		Embeddings embeddings = this.azureOpenAiClient.getEmbeddings(this.model, new EmbeddingsOptions(texts));
+		Embeddings embeddings = getEmbeddings(new EmbeddingsOptions(texts));
 		logger.debug("Embeddings retrieved");
 		return embeddings.getData().stream().map(emb -> emb.getEmbedding()).toList();
 	}
@@ -83,7 +105,7 @@ public class AzureOpenAiEmbeddingClient implements EmbeddingClient {
 	@Override
 	public EmbeddingResponse embedForResponse(List<String> texts) {
 		logger.debug("Retrieving embeddings");
-		Embeddings embeddings = this.azureOpenAiClient.getEmbeddings(this.model, new EmbeddingsOptions(texts));
+		Embeddings embeddings = getEmbeddings(new EmbeddingsOptions(texts));
 		logger.debug("Embeddings retrieved");
 		return generateEmbeddingResponse(embeddings);
 	}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.azure.openai.ratelimit;
+
+import java.time.Duration;
+
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpResponse;
+
+import org.springframework.ai.ratelimit.AdaptiveRateLimiter;
+import org.springframework.ai.ratelimit.ThrottleClassifier;
+
+/**
+ * {@link ThrottleClassifier} for the {@link HttpResponseException}s thrown by the Azure
+ * OpenAI SDK. Honors both the {@code retry-after-ms} and {@code Retry-After} headers.
+ *
+ * @since 0.7.1
+ */
+public class AzureOpenAiThrottleClassifier implements ThrottleClassifier {
+
+	public static final AzureOpenAiThrottleClassifier INSTANCE = new AzureOpenAiThrottleClassifier();
+
+	private static final int TOO_MANY_REQUESTS = 429;
+
+	@Override
+	public boolean isThrottled(RuntimeException ex) {
+		return ex instanceof HttpResponseException httpResponseException && httpResponseException.getResponse() != null
+				&& httpResponseException.getResponse().getStatusCode() == TOO_MANY_REQUESTS;
+	}
+
+	@Override
+	public Duration getRetryAfter(RuntimeException ex) {
+		HttpResponse response = ((HttpResponseException) ex).getResponse();
+		String retryAfterMs = response.getHeaderValue("retry-after-ms");
+		if (retryAfterMs != null) {
+			try {
+				return Duration.ofMillis(Long.parseLong(retryAfterMs.trim()));
+			}
+			catch (NumberFormatException e) {
+				// fall back to the Retry-After header
+			}
+		}
+		return AdaptiveRateLimiter.parseRetryAfter(response.getHeaderValue("Retry-After"));
+	}
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2023-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.azure.openai.client;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.azure.ai.openai.OpenAIAsyncClient;
+import com.azure.ai.openai.OpenAIClient;
+import com.azure.ai.openai.models.ChatCompletions;
+import com.azure.core.util.BinaryData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import org.springframework.ai.client.AiResponse;
+import org.springframework.ai.prompt.Prompt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class AzureOpenAiClientTests {
+
+	private final OpenAIAsyncClient asyncClient = mock(OpenAIAsyncClient.class);
+
+	private final AzureOpenAiClient client = new AzureOpenAiClient(mock(OpenAIClient.class));
+
+	@BeforeEach
+	void setUp() {
+		this.client.setAsyncClient(this.asyncClient);
+	}
+
+	@Test
+	void generateWithUsage() {
+		OpenAIClient syncClient = mock(OpenAIClient.class);
+		given(syncClient.getChatCompletions(any(), any())).willReturn(BinaryData.fromString("""
+				{"id": "chatcmpl-1", "created": 1700000000,
+				 "choices": [{"index": 0, "message": {"role": "assistant", "content": "Hello world"},
+				  "finish_reason": "stop"}],
+				 "usage": {"prompt_tokens": 9, "completion_tokens": 2, "total_tokens": 11}}
+				""").toObject(ChatCompletions.class));
+
+		AiResponse response = new AzureOpenAiClient(syncClient).generate(new Prompt("Say hello"));
+
+		assertThat(response.getGeneration().getText()).isEqualTo("Hello world");
+		assertThat(response.getRunInfo()).containsEntry("prompt-tokens", 9L)
+			.containsEntry("completion-tokens", 2L)
+			.containsEntry("total-tokens", 11L)
+			.containsEntry("estimated-usage", false);
+	}
+
+	@Test
+	void streamDeltasWithReportedUsage() {
+		given(this.asyncClient.getChatCompletionsStream(any(), any()))
+			.willReturn(Flux.just(chunk("{\"role\": \"assistant\"}", null, null),
+					chunk("{\"content\": \"Hello\"}", null, null), chunk("{\"content\": \" world\"}", null, null),
+					chunk("{}", "stop", "{\"prompt_tokens\": 9, \"completion_tokens\": 2, \"total_tokens\": 11}")));
+
+		List<AiResponse> responses = this.client.generateStream(new Prompt("Say hello")).collectList().block();
+
+		assertThat(responses).hasSize(4);
+		assertThat(responses.get(0).getGeneration().getInfo()).containsEntry("role", "assistant");
+		assertThat(responses.stream().map(response -> response.getGeneration().getText())).containsExactly("", "Hello",
+				" world", "");
+
+		// Only the final chunk carries the finish reason and the usage.
+		assertThat(responses.get(2).getRunInfo()).isEmpty();
+		AiResponse last = responses.get(3);
+		assertThat(last.getGeneration().getInfo()).containsEntry("finish-reason", "stop");
+		assertThat(last.getRunInfo()).containsEntry("finish-reason", "stop")
+			.containsEntry("prompt-tokens", 9L)
+			.containsEntry("completion-tokens", 2L)
+			.containsEntry("total-tokens", 11L)
+			.containsEntry("estimated-usage", false);
+	}
+
+	@Test
+	void streamDeltasWithEstimatedUsage() {
+		given(this.asyncClient.getChatCompletionsStream(any(), any()))
+			.willReturn(Flux.just(chunk("{\"role\": \"assistant\", \"content\": \"Hello\"}", null, null),
+					chunk("{\"content\": \" world\"}", "stop", null)));
+
+		AiResponse last = this.client.generateStream(new Prompt("Say hello")).blockLast();
+
+		assertThat(last.getRunInfo()).containsEntry("completion-tokens", 2L).containsEntry("estimated-usage", true);
+		assertThat((Long) last.getRunInfo().get("prompt-tokens")).isPositive();
+	}
+
+	@Test
+	void cancellingTheStreamCancelsTheUpstream() {
+		AtomicBoolean cancelled = new AtomicBoolean();
+		given(this.asyncClient.getChatCompletionsStream(any(), any()))
+			.willReturn(Flux.just(chunk("{\"role\": \"assistant\", \"content\": \"Hello\"}", null, null))
+				.concatWith(Flux.never())
+				.doOnCancel(() -> cancelled.set(true)));
+
+		AiResponse first = this.client.generateStream(new Prompt("Say hello")).blockFirst();
+
+		assertThat(first.getGeneration().getText()).isEqualTo("Hello");
+		assertThat(cancelled).isTrue();
+	}
+
+	private static ChatCompletions chunk(String delta, String finishReason, String usage) {
+		String json = """
+				{"id": "chatcmpl-1", "created": 1700000000,
+				 "choices": [{"index": 0, "delta": %s, "finish_reason": %s}], "usage": %s}
+				""".formatted(delta, (finishReason != null) ? "\"" + finishReason + "\"" : "null", usage);
+		return BinaryData.fromString(json).toObject(ChatCompletions.class);
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.client;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.ai.prompt.Prompt;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * {@link AsyncAiClient} adapting a blocking {@link AiClient}, whose calls are run on an
+ * executor. By default, every call runs on its own virtual thread when the runtime
+ * supports them (Java 21+), so that thousands of concurrent calls only cost a few
+ * platform threads. Otherwise the calls run on a cached pool of daemon threads.
+ *
+ * @since 0.7.1
+ */
+public class AsyncAiClientAdapter implements AsyncAiClient, DisposableBean {
+
+	private final AiClient delegate;
+
+	private final Executor executor;
+
+	/**
+	 * The default executor, owned and shut down by this adapter.
+	 */
+	private final ExecutorService ownedExecutor;
+
+	public AsyncAiClientAdapter(AiClient delegate) {
+		Assert.notNull(delegate, "Delegate must not be null");
+		this.delegate = delegate;
+		this.ownedExecutor = defaultExecutor();
+		this.executor = this.ownedExecutor;
+	}
+
+	/**
+	 * @param delegate the blocking client.
+	 * @param executor the executor running the blocking calls.
+	 */
+	public AsyncAiClientAdapter(AiClient delegate, Executor executor) {
+		Assert.notNull(delegate, "Delegate must not be null");
+		Assert.notNull(executor, "Executor must not be null");
+		this.delegate = delegate;
+		this.executor = executor;
+		this.ownedExecutor = null;
+	}
+
+	@Override
+	public AiResponse generate(Prompt prompt) {
+		return this.delegate.generate(prompt);
+	}
+
+	@Override
+	public CompletableFuture<AiResponse> generateAsync(Prompt prompt) {
+		return CompletableFuture.supplyAsync(() -> this.delegate.generate(prompt), this.executor);
+	}
+
+	@Override
+	public void destroy() {
+		if (this.ownedExecutor != null) {
+			this.ownedExecutor.shutdown();
+		}
+	}
+
+	/**
+	 * @return a virtual thread per task executor when available, a cached thread pool
+	 * otherwise.
+	 */
+	static ExecutorService defaultExecutor() {
+		Method newVirtualThreadPerTaskExecutor = ReflectionUtils.findMethod(Executors.class,
+				"newVirtualThreadPerTaskExecutor");
+		if (newVirtualThreadPerTaskExecutor != null) {
+			return (ExecutorService) ReflectionUtils.invokeMethod(newVirtualThreadPerTaskExecutor, null);
+		}
+		AtomicInteger threadNumber = new AtomicInteger();
+		return Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "ai-client-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.prompt.Prompt;
+import org.springframework.util.Assert;
+
+/**
+ * {@link AiClient} decorator serving the responses of already seen prompts from a cache.
+ * Responses are keyed by the {@link PromptDigest} of the prompt messages and of the
+ * delegate model settings, and expire after a time to live.
+ * <p>
+ * The responses are kept in a size bounded, least recently used, in-memory tier and,
+ * optionally, in an on-disk tier surviving restarts, which is useful for the enrichment
+ * pipelines and evaluation tests sending the same prompts run after run. The on-disk tier
+ * only keeps the generations and the run info of the responses, not the provider output.
+ * <p>
+ * A non-zero {@link #TEMPERATURE_SETTING temperature} makes the generation non
+ * deterministic, such prompts bypass the cache unless
+ * {@link #setCacheNonDeterministic(boolean) explicitly allowed}. So do the prompts sent
+ * with an unknown temperature, for instance to a delegate not exposing it, as most
+ * providers default to a non-zero one.
+ *
+ * @since 0.7.1
+ */
+public class CachingAiClient implements AiClient {
+
+	private static final Logger logger = LoggerFactory.getLogger(CachingAiClient.class);
+
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	public static final String TEMPERATURE_SETTING = ModelSettings.TEMPERATURE;
+
+	/**
+	 * Run info entry flagging the responses served from the cache, which consumed no
+	 * tokens.
+	 */
+	public static final String CACHED_RUN_INFO = "cached";
+
+	public static final int DEFAULT_MAX_ENTRIES = 1_000;
+
+	public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofDays(1);
+
+	private final AiClient delegate;
+
+	private final Supplier<Map<String, ?>> modelSettings;
+
+	/**
+	 * Prompt digest to cached response, in access order, bounded to the max entries.
+	 */
+	private final Map<String, CachedResponse> cache;
+
+	private Duration timeToLive = DEFAULT_TIME_TO_LIVE;
+
+	private boolean cacheNonDeterministic = false;
+
+	private Path directory;
+
+	private Clock clock = Clock.systemUTC();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong bypasses = new AtomicLong();
+
+	/**
+	 * @param delegate the client to cache the responses of. Its model and temperature,
+	 * when exposed, are part of the cache key, see {@link ModelSettings}.
+	 */
+	public CachingAiClient(AiClient delegate) {
+		this(delegate, ModelSettings.of(delegate), DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * @param delegate the client to cache the responses of.
+	 * @param modelSettings the current delegate model settings, such as the model name
+	 * and the {@link #TEMPERATURE_SETTING temperature}, part of the cache key.
+	 * @param maxEntries number of responses kept in memory.
+	 */
+	public CachingAiClient(AiClient delegate, Supplier<Map<String, ?>> modelSettings, int maxEntries) {
+		Assert.notNull(delegate, "Delegate must not be null");
+		Assert.notNull(modelSettings, "Model settings must not be null");
+		Assert.isTrue(maxEntries > 0, "Max entries must be positive");
+		this.delegate = delegate;
+		this.modelSettings = modelSettings;
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+				return size() > maxEntries;
+			}
+
+		};
+	}
+
+	public void setTimeToLive(Duration timeToLive) {
+		Assert.isTrue(timeToLive != null && !timeToLive.isNegative() && !timeToLive.isZero(),
+				"Time to live must be positive");
+		this.timeToLive = timeToLive;
+	}
+
+	/**
+	 * @param cacheNonDeterministic cache the responses of the prompts sent with a
+	 * non-zero temperature too.
+	 */
+	public void setCacheNonDeterministic(boolean cacheNonDeterministic) {
+		this.cacheNonDeterministic = cacheNonDeterministic;
+	}
+
+	/**
+	 * @param directory directory of the on-disk tier, created if missing, or null to only
+	 * cache in memory.
+	 */
+	public void setDirectory(File directory) {
+		this.directory = (directory != null) ? directory.toPath() : null;
+	}
+
+	void setClock(Clock clock) {
+		this.clock = clock;
+	}
+
+	/**
+	 * @return the number of responses served from the cache.
+	 */
+	public long getHitCount() {
+		return this.hits.get();
+	}
+
+	/**
+	 * @return the number of cacheable prompts sent to the delegate.
+	 */
+	public long getMissCount() {
+		return this.misses.get();
+	}
+
+	/**
+	 * @return the number of non deterministic prompts sent to the delegate without
+	 * looking up the cache.
+	 */
+	public long getBypassCount() {
+		return this.bypasses.get();
+	}
+
+	@Override
+	public AiResponse generate(Prompt prompt) {
+		Map<String, ?> settings = this.modelSettings.get();
+		if (!this.cacheNonDeterministic && isNonDeterministic(settings)) {
+			this.bypasses.incrementAndGet();
+			return this.delegate.generate(prompt);
+		}
+
+		String key = PromptDigest.digest(prompt, settings);
+		AiResponse cached = get(key);
+		if (cached != null) {
+			this.hits.incrementAndGet();
+			return cached;
+		}
+
+		this.misses.incrementAndGet();
+		AiResponse response = this.delegate.generate(prompt);
+		put(key, response);
+		return response;
+	}
+
+	/**
+	 * Remove all the cached responses, from both tiers.
+	 */
+	public void clear() {
+		synchronized (this.cache) {
+			this.cache.clear();
+		}
+		if (this.directory != null && Files.isDirectory(this.directory)) {
+			try (var files = Files.list(this.directory)) {
+				for (Path file : files.filter(file -> file.toString().endsWith(".json")).toList()) {
+					Files.deleteIfExists(file);
+				}
+			}
+			catch (IOException ex) {
+				logger.warn("Failed to clear the response cache directory {}", this.directory, ex);
+			}
+		}
+	}
+
+	private static boolean isNonDeterministic(Map<String, ?> settings) {
+		return !(settings.get(TEMPERATURE_SETTING) instanceof Number temperature) || temperature.doubleValue() != 0;
+	}
+
+	private AiResponse get(String key) {
+		long now = this.clock.millis();
+		synchronized (this.cache) {
+			CachedResponse cached = this.cache.get(key);
+			if (cached != null) {
+				if (cached.expiresAt() > now) {
+					return cached.response();
+				}
+				this.cache.remove(key);
+			}
+		}
+
+		CachedResponse stored = read(key, now);
+		if (stored != null) {
+			synchronized (this.cache) {
+				this.cache.put(key, stored);
+			}
+			return stored.response();
+		}
+		return null;
+	}
+
+	private void put(String key, AiResponse response) {
+		Map<String, Object> runInfo = new LinkedHashMap<>(response.getRunInfo());
+		runInfo.put(CACHED_RUN_INFO, true);
+		CachedResponse cached = new CachedResponse(this.clock.millis() + this.timeToLive.toMillis(),
+				new AiResponse(response.getGenerations(), response.getProviderOutput(), runInfo));
+		synchronized (this.cache) {
+			this.cache.put(key, cached);
+		}
+		write(key, cached);
+	}
+
+	private CachedResponse read(String key, long now) {
+		if (this.directory == null) {
+			return null;
+		}
+		Path file = this.directory.resolve(key + ".json");
+		if (!Files.exists(file)) {
+			return null;
+		}
+		try {
+			StoredResponse stored = objectMapper.readValue(file.toFile(), StoredResponse.class);
+			if (stored.expiresAt() <= now) {
+				Files.deleteIfExists(file);
+				return null;
+			}
+			List<Generation> generations = stored.generations()
+				.stream()
+				.map(generation -> new Generation(generation.text(), generation.info()))
+				.toList();
+			return new CachedResponse(stored.expiresAt(), new AiResponse(generations, Map.of(), stored.runInfo()));
+		}
+		catch (IOException ex) {
+			logger.warn("Failed to read the cached response {}", file, ex);
+			return null;
+		}
+	}
+
+	private void write(String key, CachedResponse cached) {
+		if (this.directory == null) {
+			return;
+		}
+		List<StoredGeneration> generations = cached.response()
+			.getGenerations()
+			.stream()
+			.map(generation -> new StoredGeneration(generation.getText(), generation.getInfo()))
+			.toList();
+		StoredResponse stored = new StoredResponse(cached.expiresAt(), generations, cached.response().getRunInfo());
+		try {
+			Files.createDirectories(this.directory);
+			// Published atomically, so that concurrent readers never see a partial file.
+			Path temp = Files.createTempFile(this.directory, key, ".tmp");
+			try {
+				objectMapper.writeValue(temp.toFile(), stored);
+				Files.move(temp, this.directory.resolve(key + ".json"), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			}
+			finally {
+				Files.deleteIfExists(temp);
+			}
+		}
+		catch (IOException ex) {
+			logger.warn("Failed to write the cached response {} to {}", key, this.directory, ex);
+		}
+	}
+
+	private record CachedResponse(long expiresAt, AiResponse response) {
+	}
+
+	private record StoredResponse(long expiresAt, List<StoredGeneration> generations, Map<String, Object> runInfo) {
+	}
+
+	private record StoredGeneration(String text, Map<String, Object> info) {
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.client;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.ai.prompt.Prompt;
+import org.springframework.ai.util.SingleFlight;
+import org.springframework.util.Assert;
+
+/**
+ * {@link AiClient} decorator coalescing the identical concurrent requests into a single
+ * delegate call (single flight). The requests are keyed by the {@link PromptDigest} of
+ * the prompt and of the delegate model settings. A request arriving while an identical
+ * one is in flight waits for, and shares, its response or failure. The in-flight entry is
+ * removed as soon as the call completes, so later requests call the delegate again.
+ * <p>
+ * To compose with {@link CachingAiClient}, wrap the caching client, so that the
+ * concurrent cache misses are coalesced too.
+ *
+ * @since 0.7.1
+ */
+public class CoalescingAiClient implements AiClient {
+
+	private final AiClient delegate;
+
+	private final Supplier<Map<String, ?>> modelSettings;
+
+	private final SingleFlight singleFlight = new SingleFlight();
+
+	/**
+	 * @param delegate the client to coalesce the requests of. Its model and temperature,
+	 * when exposed, are part of the request key, see {@link ModelSettings}.
+	 */
+	public CoalescingAiClient(AiClient delegate) {
+		this(delegate, ModelSettings.of(delegate));
+	}
+
+	/**
+	 * @param delegate the client to coalesce the requests of.
+	 * @param modelSettings the current delegate model settings, part of the request key.
+	 */
+	public CoalescingAiClient(AiClient delegate, Supplier<Map<String, ?>> modelSettings) {
+		Assert.notNull(delegate, "Delegate must not be null");
+		Assert.notNull(modelSettings, "Model settings must not be null");
+		this.delegate = delegate;
+		this.modelSettings = modelSettings;
+	}
+
+	/**
+	 * @return the number of requests served by the call of an identical in-flight
+	 * request.
+	 */
+	public long getCoalescedCount() {
+		return this.singleFlight.getCoalescedCount();
+	}
+
+	@Override
+	public AiResponse generate(Prompt prompt) {
+		return this.singleFlight.execute(PromptDigest.digest(prompt, this.modelSettings.get()),
+				() -> this.delegate.generate(prompt));
+	}
+
+}
@@ -0,0 +1,462 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.prompt.Prompt;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+
+/**
+ * {@link AiClient} routing the requests over several delegates, typically distinct
+ * providers, to cut the tail latency and survive the outage of any of them.
+ * <ul>
+ * <li>Hedging: when the primary delegate has not answered within its latency percentile
+ * budget, the request is also sent to a secondary one. The first success wins and the
+ * other call is cancelled, which interrupts its thread.</li>
+ * <li>Failover: when a delegate fails, the request is sent to the next one.</li>
+ * <li>Circuit breaking: a delegate failing several times in a row is skipped for a while,
+ * then probed with a single request.</li>
+ * <li>Failure classification: the failures caused by the request itself, by default the
+ * {@link IllegalArgumentException}s, are thrown as is, without failover nor counting
+ * against the circuit breaker of the delegate.</li>
+ * <li>Latency weighting: the primary is drawn at random with a probability inversely
+ * proportional to the delegates average latency, so that the slow ones receive less
+ * traffic. Without it, the delegates are tried in their registration order.</li>
+ * </ul>
+ *
+ * @since 0.7.1
+ */
+public class HedgingAiClient implements AiClient, DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(HedgingAiClient.class);
+
+	public static final double DEFAULT_HEDGE_PERCENTILE = 0.95;
+
+	public static final Duration DEFAULT_INITIAL_HEDGE_DELAY = Duration.ofSeconds(2);
+
+	public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+	public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+
+	/**
+	 * Number of latency samples kept per delegate.
+	 */
+	static final int LATENCY_WINDOW = 128;
+
+	/**
+	 * Number of latency samples required before hedging at the percentile.
+	 */
+	static final int MIN_LATENCY_SAMPLES = 10;
+
+	private final List<Backend> backends = new ArrayList<>();
+
+	private final ExecutorService executor = AsyncAiClientAdapter.defaultExecutor();
+
+	private boolean hedging = true;
+
+	private double hedgePercentile = DEFAULT_HEDGE_PERCENTILE;
+
+	private Duration initialHedgeDelay = DEFAULT_INITIAL_HEDGE_DELAY;
+
+	private boolean latencyWeighting = true;
+
+	private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+
+	private Duration openDuration = DEFAULT_OPEN_DURATION;
+
+	private Predicate<Throwable> failureClassifier = ex -> !(ex instanceof IllegalArgumentException);
+
+	private final AtomicLong hedges = new AtomicLong();
+
+	private final AtomicLong failovers = new AtomicLong();
+
+	/**
+	 * @param delegates the delegates by name, in preference order.
+	 */
+	public HedgingAiClient(Map<String, ? extends AiClient> delegates) {
+		Assert.notEmpty(delegates, "Delegates must not be empty");
+		delegates.forEach((name, delegate) -> this.backends.add(new Backend(name, delegate)));
+	}
+
+	/**
+	 * @param hedging send a second request once the primary exceeds its latency budget.
+	 */
+	public void setHedging(boolean hedging) {
+		this.hedging = hedging;
+	}
+
+	/**
+	 * @param hedgePercentile the percentile, between 0 and 1, of the primary latencies
+	 * after which the request is hedged.
+	 */
+	public void setHedgePercentile(double hedgePercentile) {
+		Assert.isTrue(hedgePercentile > 0 && hedgePercentile <= 1, "Hedge percentile must be between 0 and 1");
+		this.hedgePercentile = hedgePercentile;
+	}
+
+	/**
+	 * @param initialHedgeDelay hedge delay used until enough latencies of the primary are
+	 * known.
+	 */
+	public void setInitialHedgeDelay(Duration initialHedgeDelay) {
+		Assert.notNull(initialHedgeDelay, "Initial hedge delay must not be null");
+		this.initialHedgeDelay = initialHedgeDelay;
+	}
+
+	public void setLatencyWeighting(boolean latencyWeighting) {
+		this.latencyWeighting = latencyWeighting;
+	}
+
+	/**
+	 * @param failureThreshold number of consecutive failures opening the circuit of a
+	 * delegate.
+	 */
+	public void setFailureThreshold(int failureThreshold) {
+		Assert.isTrue(failureThreshold > 0, "Failure threshold must be positive");
+		this.failureThreshold = failureThreshold;
+	}
+
+	/**
+	 * @param openDuration time a delegate is skipped once its circuit opened.
+	 */
+	public void setOpenDuration(Duration openDuration) {
+		Assert.notNull(openDuration, "Open duration must not be null");
+		this.openDuration = openDuration;
+	}
+
+	/**
+	 * @param failureClassifier tells whether a failure is the delegate's, as opposed to
+	 * one caused by the request, such as an invalid prompt. Only the failures of the
+	 * delegate are failed over and count against its circuit breaker.
+	 */
+	public void setFailureClassifier(Predicate<Throwable> failureClassifier) {
+		Assert.notNull(failureClassifier, "Failure classifier must not be null");
+		this.failureClassifier = failureClassifier;
+	}
+
+	/**
+	 * @return the number of hedge requests sent.
+	 */
+	public long getHedgeCount() {
+		return this.hedges.get();
+	}
+
+	/**
+	 * @return the number of requests sent to another delegate after a failure.
+	 */
+	public long getFailoverCount() {
+		return this.failovers.get();
+	}
+
+	/**
+	 * @return the current status of every delegate, in registration order.
+	 */
+	public List<DelegateStatus> getDelegateStatuses() {
+		long now = System.nanoTime();
+		return this.backends.stream().map(backend -> backend.status(now)).toList();
+	}
+
+	@Override
+	public AiResponse generate(Prompt prompt) {
+		List<Backend> candidates = candidates();
+		// When all circuits are open, all the delegates are tried anyway.
+		boolean forced = candidates.isEmpty();
+		if (forced) {
+			candidates = order(new ArrayList<>(this.backends));
+		}
+		Iterator<Backend> remaining = candidates.iterator();
+		BlockingQueue<Attempt> completed = new LinkedBlockingQueue<>();
+		Map<Backend, Call> running = new LinkedHashMap<>();
+		List<Throwable> failures = new ArrayList<>();
+
+		if (!startNext(remaining, forced, prompt, completed, running)) {
+			// Concurrent requests took the half open probes in the meantime.
+			start(candidates.get(0), prompt, completed, running);
+		}
+		Backend primary = running.keySet().iterator().next();
+		long hedgeAt = (this.hedging && remaining.hasNext())
+				? System.nanoTime() + primary.hedgeDelayNanos(this.hedgePercentile, this.initialHedgeDelay)
+				: Long.MAX_VALUE;
+
+		try {
+			while (true) {
+				Attempt attempt = (hedgeAt == Long.MAX_VALUE) ? completed.take()
+						: completed.poll(hedgeAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+				if (attempt == null) {
+					// The primary exceeded its latency budget.
+					hedgeAt = Long.MAX_VALUE;
+					if (startNext(remaining, forced, prompt, completed, running)) {
+						this.hedges.incrementAndGet();
+					}
+					continue;
+				}
+
+				running.remove(attempt.backend());
+				if (attempt.response() != null) {
+					attempt.backend().succeeded(attempt.nanos());
+					return attempt.response();
+				}
+
+				failures.add(attempt.failure());
+				if (!this.failureClassifier.test(attempt.failure())) {
+					// Caused by the request, the other delegates would fail as well.
+					throw propagate(failures);
+				}
+				attempt.backend().failed(System.nanoTime(), this.failureThreshold, this.openDuration);
+				if (running.isEmpty()) {
+					if (!startNext(remaining, forced, prompt, completed, running)) {
+						throw propagate(failures);
+					}
+					this.failovers.incrementAndGet();
+				}
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the AI client response", ex);
+		}
+		finally {
+			// Cancel the losers. Their elapsed time is a lower bound of their latency,
+			// recorded so that the latencies are not biased towards the calls that won.
+			long now = System.nanoTime();
+			running.forEach((backend, call) -> {
+				call.future().cancel(true);
+				backend.censored(now - call.startNanos());
+			});
+		}
+	}
+
+	/**
+	 * @return the last failure, the earlier ones added as suppressed.
+	 */
+	private static RuntimeException propagate(List<Throwable> failures) {
+		Throwable failure = failures.get(failures.size() - 1);
+		failures.subList(0, failures.size() - 1).forEach(failure::addSuppressed);
+		if (failure instanceof Error error) {
+			throw error;
+		}
+		return (failure instanceof RuntimeException runtimeException) ? runtimeException
+				: new IllegalStateException(failure);
+	}
+
+	@Override
+	public void destroy() {
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Start the next candidate whose circuit lets the request through. The half open
+	 * probe of a delegate is only taken when the request is actually sent to it.
+	 * @return whether a candidate was started.
+	 */
+	private boolean startNext(Iterator<Backend> remaining, boolean forced, Prompt prompt,
+			BlockingQueue<Attempt> completed, Map<Backend, Call> running) {
+		while (remaining.hasNext()) {
+			Backend backend = remaining.next();
+			if (forced || backend.tryAcquire(System.nanoTime(), this.openDuration)) {
+				start(backend, prompt, completed, running);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void start(Backend backend, Prompt prompt, BlockingQueue<Attempt> completed, Map<Backend, Call> running) {
+		long startNanos = System.nanoTime();
+		running.put(backend, new Call(this.executor.submit(() -> {
+			long start = System.nanoTime();
+			try {
+				AiResponse response = backend.delegate.generate(prompt);
+				completed.add(new Attempt(backend, response, null, System.nanoTime() - start));
+			}
+			catch (Throwable ex) {
+				// Errors are queued too, or the request would wait for them forever.
+				if (!Thread.currentThread().isInterrupted()) {
+					logger.debug("AI client {} failed", backend.name, ex);
+				}
+				completed.add(new Attempt(backend, null, ex, System.nanoTime() - start));
+			}
+		}), startNanos));
+	}
+
+	/**
+	 * @return the delegates currently allowed by their circuit breaker, primary first,
+	 * empty when all circuits are open. The half open probes are not taken.
+	 */
+	List<Backend> candidates() {
+		long now = System.nanoTime();
+		return order(new ArrayList<>(this.backends.stream().filter(backend -> backend.isAvailable(now)).toList()));
+	}
+
+	private List<Backend> order(List<Backend> candidates) {
+		if (this.latencyWeighting && candidates.size() > 1) {
+			candidates.sort(Comparator.comparingDouble(Backend::averageNanos));
+			Backend primary = drawPrimary(candidates);
+			candidates.remove(primary);
+			candidates.add(0, primary);
+		}
+		return candidates;
+	}
+
+	private static Backend drawPrimary(List<Backend> candidates) {
+		// Delegates without any latency yet are weighted as the fastest one, to probe
+		// them.
+		double fastest = candidates.stream()
+			.mapToDouble(Backend::averageNanos)
+			.filter(nanos -> nanos > 0)
+			.min()
+			.orElse(1);
+		double[] weights = candidates.stream()
+			.mapToDouble(backend -> 1 / ((backend.averageNanos() > 0) ? backend.averageNanos() : fastest))
+			.toArray();
+		double draw = ThreadLocalRandom.current().nextDouble(Arrays.stream(weights).sum());
+		for (int i = 0; i < weights.length; i++) {
+			draw -= weights[i];
+			if (draw < 0) {
+				return candidates.get(i);
+			}
+		}
+		return candidates.get(0);
+	}
+
+	/**
+	 * Status of a delegate.
+	 *
+	 * @param name the delegate name.
+	 * @param circuitOpen whether the delegate is currently skipped.
+	 * @param averageLatency the exponentially weighted average latency, zero when
+	 * unknown.
+	 * @param consecutiveFailures the number of failures since the last success.
+	 */
+	public record DelegateStatus(String name, boolean circuitOpen, Duration averageLatency, int consecutiveFailures) {
+	}
+
+	private record Attempt(Backend backend, AiResponse response, Throwable failure, long nanos) {
+	}
+
+	private record Call(Future<?> future, long startNanos) {
+	}
+
+	static final class Backend {
+
+		private static final double EWMA_WEIGHT = 0.2;
+
+		private final String name;
+
+		private final AiClient delegate;
+
+		private final long[] latencies = new long[LATENCY_WINDOW];
+
+		private int latencyCount;
+
+		private double averageNanos;
+
+		private int consecutiveFailures;
+
+		private long openUntil;
+
+		Backend(String name, AiClient delegate) {
+			this.name = name;
+			this.delegate = delegate;
+		}
+
+		synchronized boolean isAvailable(long now) {
+			return this.openUntil == 0 || now - this.openUntil >= 0;
+		}
+
+		synchronized boolean tryAcquire(long now, Duration openDuration) {
+			if (this.openUntil == 0) {
+				return true;
+			}
+			if (now - this.openUntil < 0) {
+				return false;
+			}
+			// Half open, a single request probes the delegate until it succeeds or the
+			// open duration elapses again.
+			this.openUntil = now + openDuration.toNanos();
+			return true;
+		}
+
+		synchronized void succeeded(long nanos) {
+			this.latencies[this.latencyCount++ % LATENCY_WINDOW] = nanos;
+			this.averageNanos = (this.averageNanos == 0) ? nanos
+					: EWMA_WEIGHT * nanos + (1 - EWMA_WEIGHT) * this.averageNanos;
+			this.consecutiveFailures = 0;
+			this.openUntil = 0;
+		}
+
+		/**
+		 * Record the elapsed time of a cancelled call, a lower bound of its latency.
+		 */
+		synchronized void censored(long nanos) {
+			this.latencies[this.latencyCount++ % LATENCY_WINDOW] = nanos;
+			if (nanos > this.averageNanos) {
+				this.averageNanos = (this.averageNanos == 0) ? nanos
+						: EWMA_WEIGHT * nanos + (1 - EWMA_WEIGHT) * this.averageNanos;
+			}
+		}
+
+		synchronized void failed(long now, int failureThreshold, Duration openDuration) {
+			this.consecutiveFailures++;
+			if (this.consecutiveFailures >= failureThreshold) {
+				this.openUntil = now + openDuration.toNanos();
+			}
+		}
+
+		synchronized double averageNanos() {
+			return this.averageNanos;
+		}
+
+		synchronized long hedgeDelayNanos(double percentile, Duration initialDelay) {
+			int count = Math.min(this.latencyCount, LATENCY_WINDOW);
+			if (count < MIN_LATENCY_SAMPLES) {
+				return initialDelay.toNanos();
+			}
+			long[] sorted = Arrays.copyOf(this.latencies, count);
+			Arrays.sort(sorted);
+			return sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+		}
+
+		synchronized DelegateStatus status(long now) {
+			boolean open = this.openUntil != 0 && now - this.openUntil < 0;
+			return new DelegateStatus(this.name, open, Duration.ofNanos((long) this.averageNanos),
+					this.consecutiveFailures);
+		}
+
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.client;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Model settings of a client, part of the {@link PromptDigest} keys of the caching and
+ * coalescing clients. The settings are read from the {@code getModel()} and
+ * {@code getTemperature()} accessors of the client, when it exposes them, as the provider
+ * clients do.
+ *
+ * @since 0.7.1
+ */
+public final class ModelSettings {
+
+	public static final String MODEL = "model";
+
+	public static final String TEMPERATURE = "temperature";
+
+	private ModelSettings() {
+	}
+
+	/**
+	 * @param client the client to read the settings of.
+	 * @return the supplier of the current settings of the client, read on every call so
+	 * that the changes made through its setters are reflected. Supplies an empty map when
+	 * the client exposes none of the settings.
+	 */
+	public static Supplier<Map<String, ?>> of(Object client) {
+		Assert.notNull(client, "Client must not be null");
+		Method model = accessor(client.getClass(), "getModel");
+		Method temperature = accessor(client.getClass(), "getTemperature");
+		if (model == null && temperature == null) {
+			return Map::of;
+		}
+		return () -> {
+			Map<String, Object> settings = new HashMap<>(2);
+			put(settings, MODEL, model, client);
+			put(settings, TEMPERATURE, temperature, client);
+			return settings;
+		};
+	}
+
+	private static Method accessor(Class<?> type, String name) {
+		Method method = ReflectionUtils.findMethod(type, name);
+		if (method == null || method.getReturnType() == void.class) {
+			return null;
+		}
+		ReflectionUtils.makeAccessible(method);
+		return method;
+	}
+
+	private static void put(Map<String, Object> settings, String name, Method accessor, Object client) {
+		if (accessor != null) {
+			Object value = ReflectionUtils.invokeMethod(accessor, client);
+			if (value != null) {
+				settings.put(name, value);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.client;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.ai.prompt.Prompt;
+import org.springframework.util.Assert;
+
+/**
+ * {@link AiClient} decorator bounding the number of concurrent requests sent to a
+ * provider and ordering the waiting ones by priority class, so that bulk jobs do not
+ * degrade the latency of the interactive requests sharing the same provider quota.
+ * <p>
+ * The waiting requests are dispatched with weighted fair queuing: a class with twice the
+ * weight of another one is granted twice its share of the slots while both are waiting,
+ * and any class is granted all the slots the others leave free. With the default
+ * {@link #INTERACTIVE} and {@link #BATCH} classes, the batch requests only soak up the
+ * capacity left over by the interactive ones, without ever starving.
+ * <p>
+ * A request waiting longer than the max queue time of its class is shed with a
+ * {@link RequestShedException}, rather than sent once its answer is no longer useful. The
+ * requests of a class are sent through the view returned by
+ * {@link #forPriorityClass(String)}, {@link #generate(Prompt)} uses the default class.
+ * One scheduler is meant to be shared by all the clients of a single provider.
+ *
+ * @since 0.7.1
+ */
+public class PrioritySchedulingAiClient implements AiClient {
+
+	public static final String INTERACTIVE = "interactive";
+
+	public static final String BATCH = "batch";
+
+	public static final int DEFAULT_INTERACTIVE_WEIGHT = 8;
+
+	public static final int DEFAULT_BATCH_WEIGHT = 1;
+
+	private final AiClient delegate;
+
+	private final int maxConcurrency;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Priority classes by name. Guarded by the lock.
+	 */
+	private final Map<String, PriorityClass> priorityClasses = new LinkedHashMap<>();
+
+	private String defaultPriorityClass = INTERACTIVE;
+
+	/**
+	 * Finish tag of the last dispatched request. Guarded by the lock.
+	 */
+	private double virtualTime;
+
+	/**
+	 * Number of requests currently sent to the delegate. Guarded by the lock.
+	 */
+	private int inFlight;
+
+	/**
+	 * Create a scheduler with the {@link #INTERACTIVE} and {@link #BATCH} classes, none
+	 * of them shedding requests.
+	 * @param delegate the client of the provider.
+	 * @param maxConcurrency the maximum number of requests sent concurrently to the
+	 * provider.
+	 */
+	public PrioritySchedulingAiClient(AiClient delegate, int maxConcurrency) {
+		Assert.notNull(delegate, "Delegate must not be null");
+		Assert.isTrue(maxConcurrency > 0, "Max concurrency must be positive");
+		this.delegate = delegate;
+		this.maxConcurrency = maxConcurrency;
+		setPriorityClass(INTERACTIVE, DEFAULT_INTERACTIVE_WEIGHT, null);
+		setPriorityClass(BATCH, DEFAULT_BATCH_WEIGHT, null);
+	}
+
+	/**
+	 * Add or reconfigure a priority class.
+	 * @param name the class name.
+	 * @param weight the share of the slots the class is granted while other classes are
+	 * waiting, relative to their weights.
+	 * @param maxQueueTime the time a request of the class may wait for a slot before
+	 * being shed, null to wait indefinitely.
+	 */
+	public void setPriorityClass(String name, int weight, Duration maxQueueTime) {
+		Assert.hasText(name, "Priority class name must not be empty");
+		Assert.isTrue(weight > 0, "Weight must be positive");
+		this.lock.lock();
+		try {
+			PriorityClass priorityClass = this.priorityClasses.computeIfAbsent(name, PriorityClass::new);
+			priorityClass.weight = weight;
+			priorityClass.maxQueueTime = maxQueueTime;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * @param defaultPriorityClass the class of the requests sent through
+	 * {@link #generate(Prompt)}.
+	 */
+	public void setDefaultPriorityClass(String defaultPriorityClass) {
+		getPriorityClass(defaultPriorityClass);
+		this.defaultPriorityClass = defaultPriorityClass;
+	}
+
+	/**
+	 * @param name the priority class name.
+	 * @return an {@link AiClient} sending all its requests with the given priority class.
+	 */
+	public AiClient forPriorityClass(String name) {
+		getPriorityClass(name);
+		return prompt -> generate(name, prompt);
+	}
+
+	@Override
+	public AiResponse generate(Prompt prompt) {
+		return generate(this.defaultPriorityClass, prompt);
+	}
+
+	/**
+	 * Wait for a slot, then send the request.
+	 * @param priorityClass the priority class name of the request.
+	 * @param prompt the prompt to send.
+	 * @return the delegate response.
+	 * @throws RequestShedException if the request waited longer than the class max queue
+	 * time.
+	 */
+	public AiResponse generate(String priorityClass, Prompt prompt) {
+		acquire(getPriorityClass(priorityClass));
+		try {
+			return this.delegate.generate(prompt);
+		}
+		finally {
+			release();
+		}
+	}
+
+	/**
+	 * @return the queue statistics of every priority class, by name.
+	 */
+	public Map<String, QueueStatistics> getQueueStatistics() {
+		this.lock.lock();
+		try {
+			Map<String, QueueStatistics> statistics = new LinkedHashMap<>();
+			this.priorityClasses.forEach((name, priorityClass) -> statistics.put(name, priorityClass.statistics()));
+			return statistics;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the number of requests currently sent to the delegate.
+	 */
+	public int getInFlight() {
+		this.lock.lock();
+		try {
+			return this.inFlight;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	private PriorityClass getPriorityClass(String name) {
+		this.lock.lock();
+		try {
+			PriorityClass priorityClass = this.priorityClasses.get(name);
+			Assert.notNull(priorityClass, "Unknown priority class: " + name);
+			return priorityClass;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	private void acquire(PriorityClass priorityClass) {
+		Ticket ticket;
+		this.lock.lock();
+		try {
+			ticket = priorityClass.enqueue(this.virtualTime, System.nanoTime());
+			dispatch();
+		}
+		finally {
+			this.lock.unlock();
+		}
+
+		boolean interrupted = false;
+		try {
+			if (ticket.maxQueueNanos < 0) {
+				ticket.decided.await();
+			}
+			else {
+				ticket.decided.await(ticket.enqueuedAt + ticket.maxQueueNanos - System.nanoTime(),
+						TimeUnit.NANOSECONDS);
+			}
+		}
+		catch (InterruptedException ex) {
+			interrupted = true;
+		}
+
+		this.lock.lock();
+		try {
+			if (ticket.state == State.QUEUED) {
+				// Timed out or interrupted while waiting.
+				priorityClass.queue.remove(ticket);
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while waiting for an AI client slot");
+				}
+				priorityClass.shed(ticket);
+			}
+			if (ticket.state == State.SHED) {
+				throw new RequestShedException(priorityClass.name, "Request of the " + priorityClass.name
+						+ " priority class shed after waiting " + priorityClass.maxQueueTime);
+			}
+		}
+		finally {
+			this.lock.unlock();
+		}
+		if (interrupted) {
+			// Granted meanwhile, the request is sent and the interrupt kept for later.
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void release() {
+		this.lock.lock();
+		try {
+			this.inFlight--;
+			dispatch();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Grant the free slots to the waiting requests with the smallest finish tags,
+	 * shedding the expired ones on the way. Called with the lock held.
+	 */
+	private void dispatch() {
+		long now = System.nanoTime();
+		while (this.inFlight < this.maxConcurrency) {
+			Ticket next = null;
+			for (PriorityClass priorityClass : this.priorityClasses.values()) {
+				Ticket head = priorityClass.queue.peek();
+				while (head != null && head.isExpired(now)) {
+					priorityClass.queue.poll();
+					priorityClass.shed(head);
+					head = priorityClass.queue.peek();
+				}
+				if (head != null && (next == null || head.finishTag < next.finishTag)) {
+					next = head;
+				}
+			}
+			if (next == null) {
+				return;
+			}
+			next.priorityClass.queue.poll();
+			next.priorityClass.grant(next, now);
+			this.virtualTime = next.finishTag;
+			this.inFlight++;
+		}
+	}
+
+	/**
+	 * Queue statistics of a priority class.
+	 *
+	 * @param queued the number of requests currently waiting.
+	 * @param served the number of requests granted a slot.
+	 * @param shed the number of requests shed after their max queue time.
+	 * @param averageQueueTime the average time the served requests waited.
+	 * @param maxQueueTime the longest time a served request waited.
+	 */
+	public record QueueStatistics(int queued, long served, long shed, Duration averageQueueTime,
+			Duration maxQueueTime) {
+	}
+
+	private enum State {
+
+		QUEUED, GRANTED, SHED
+
+	}
+
+	private static final class Ticket {
+
+		private final PriorityClass priorityClass;
+
+		private final long enqueuedAt;
+
+		/**
+		 * Time the request may wait for a slot, negative to wait indefinitely.
+		 */
+		private final long maxQueueNanos;
+
+		private final double finishTag;
+
+		private final CountDownLatch decided = new CountDownLatch(1);
+
+		private State state = State.QUEUED;
+
+		Ticket(PriorityClass priorityClass, long enqueuedAt, long maxQueueNanos, double finishTag) {
+			this.priorityClass = priorityClass;
+			this.enqueuedAt = enqueuedAt;
+			this.maxQueueNanos = maxQueueNanos;
+			this.finishTag = finishTag;
+		}
+
+		boolean isExpired(long now) {
+			return this.maxQueueNanos >= 0 && now - this.enqueuedAt > this.maxQueueNanos;
+		}
+
+	}
+
+	/**
+	 * Guarded by the scheduler lock.
+	 */
+	private static final class PriorityClass {
+
+		private final String name;
+
+		private final ArrayDeque<Ticket> queue = new ArrayDeque<>();
+
+		private int weight;
+
+		private Duration maxQueueTime;
+
+		/**
+		 * Finish tag of the last enqueued request.
+		 */
+		private double lastFinishTag;
+
+		private long served;
+
+		private long shed;
+
+		private long totalQueueNanos;
+
+		private long maxQueueNanos;
+
+		PriorityClass(String name) {
+			this.name = name;
+		}
+
+		Ticket enqueue(double virtualTime, long now) {
+			// A class idle for a while does not accumulate credit over the others.
+			this.lastFinishTag = Math.max(this.lastFinishTag, virtualTime) + 1.0 / this.weight;
+			long maxQueueNanos = (this.maxQueueTime != null) ? this.maxQueueTime.toNanos() : -1;
+			Ticket ticket = new Ticket(this, now, maxQueueNanos, this.lastFinishTag);
+			this.queue.add(ticket);
+			return ticket;
+		}
+
+		void grant(Ticket ticket, long now) {
+			long queueNanos = now - ticket.enqueuedAt;
+			this.served++;
+			this.totalQueueNanos += queueNanos;
+			this.maxQueueNanos = Math.max(this.maxQueueNanos, queueNanos);
+			ticket.state = State.GRANTED;
+			ticket.decided.countDown();
+		}
+
+		void shed(Ticket ticket) {
+			this.shed++;
+			ticket.state = State.SHED;
+			ticket.decided.countDown();
+		}
+
+		QueueStatistics statistics() {
+			Duration average = Duration.ofNanos((this.served > 0) ? this.totalQueueNanos / this.served : 0);
+			return new QueueStatistics(this.queue.size(), this.served, this.shed, average,
+					Duration.ofNanos(this.maxQueueNanos));
+		}
+
+	}
+
+}
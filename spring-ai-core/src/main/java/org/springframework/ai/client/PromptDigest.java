@@ -0,0 +1,65 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.ai.prompt.Prompt;
+import org.springframework.ai.prompt.messages.Message;
+import org.springframework.ai.util.TextDigest;
+
+/**
+ * Canonical SHA-256 digest of a {@link Prompt} and of the model settings it is sent with,
+ * used to key the responses of the caching and coalescing clients. Two prompts have the
+ * same digest when their messages have the same types, contents and properties, in the
+ * same order, whatever the order of the properties and settings maps.
+ * <p>
+ * The texts themselves are digested by {@link TextDigest}.
+ *
+ * @since 0.7.1
+ */
+public final class PromptDigest {
+
+	private PromptDigest() {
+	}
+
+	/**
+	 * @param prompt the prompt to digest.
+	 * @param settings the model settings the prompt is sent with, can be empty.
+	 * @return the hex encoded digest.
+	 */
+	public static String digest(Prompt prompt, Map<String, ?> settings) {
+		List<String> values = new ArrayList<>();
+		for (Message message : prompt.getMessages()) {
+			values.add(message.getMessageTypeValue());
+			values.add(message.getContent());
+			values.add(canonical(message.getProperties()));
+		}
+		values.add(canonical(settings));
+		return TextDigest.digest(values);
+	}
+
+	private static String canonical(Map<String, ?> map) {
+		if (map == null || map.isEmpty()) {
+			return "";
+		}
+		return String.valueOf(new TreeMap<>(map));
+	}
+
+}
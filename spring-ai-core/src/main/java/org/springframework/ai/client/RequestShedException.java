@@ -0,0 +1,41 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.client;
+
+/**
+ * Thrown when a request is dropped without being sent, as it waited longer than its
+ * deadline for a free slot. The caller may retry it later or degrade gracefully.
+ *
+ * @since 0.7.1
+ * @see PrioritySchedulingAiClient
+ */
+public class RequestShedException extends RuntimeException {
+
+	private final String priorityClass;
+
+	public RequestShedException(String priorityClass, String message) {
+		super(message);
+		this.priorityClass = priorityClass;
+	}
+
+	/**
+	 * @return the priority class of the shed request.
+	 */
+	public String getPriorityClass() {
+		return this.priorityClass;
+	}
+
+}
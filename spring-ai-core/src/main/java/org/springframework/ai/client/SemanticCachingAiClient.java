@@ -0,0 +1,364 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.client;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.prompt.Prompt;
+import org.springframework.ai.prompt.messages.Message;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+
+/**
+ * {@link AiClient} decorator answering the prompts similar enough to an already answered
+ * one with its response. The answered prompts are stored in a {@link VectorStore}, which
+ * embeds them with its own embedding client, along with the generated texts. A prompt is
+ * served from the cache when the nearest stored prompt similarity reaches the threshold.
+ * <p>
+ * New responses are written to the store asynchronously, off the calling thread. The
+ * entries written by this client can be invalidated by a predicate on their metadata,
+ * completed by the {@link #setMetadataProvider(Function) metadata provider}. The client
+ * keeps at most {@link #setMaxEntries(int) max entries} in the store, deleting the oldest
+ * ones it wrote, and does not serve the entries older than the
+ * {@link #setTimeToLive(Duration) time to live}.
+ * <p>
+ * The store should be dedicated to the cache, as every document found is expected to be a
+ * cache entry. When it is shared by several processes, or survives restarts, the entries
+ * written by the other clients are served but neither bounded nor invalidated by this
+ * one, which only tracks its own entries: they only age out with the time to live, or
+ * have to be deleted from the store directly.
+ *
+ * @since 0.7.1
+ */
+public class SemanticCachingAiClient implements AiClient, DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(SemanticCachingAiClient.class);
+
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	public static final double DEFAULT_SIMILARITY_THRESHOLD = 0.95;
+
+	public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+	public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofDays(1);
+
+	/**
+	 * Metadata holding the JSON array of the cached generation texts.
+	 */
+	public static final String GENERATIONS_METADATA_KEY = "cached_generations";
+
+	/**
+	 * Metadata holding the epoch millis the entry was cached at.
+	 */
+	public static final String CACHED_AT_METADATA_KEY = "cached_at";
+
+	private final AiClient delegate;
+
+	private final VectorStore vectorStore;
+
+	private final double similarityThreshold;
+
+	private Function<Prompt, Map<String, Object>> metadataProvider = prompt -> Map.of();
+
+	private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+	private Duration timeToLive = DEFAULT_TIME_TO_LIVE;
+
+	private Clock clock = Clock.systemUTC();
+
+	private Executor executor;
+
+	/**
+	 * The default executor, owned and shut down by this client.
+	 */
+	private ExecutorService ownedExecutor;
+
+	/**
+	 * Metadata of the entries written by this client, by document id, in insertion order.
+	 */
+	private final Map<String, Map<String, Object>> entries = new LinkedHashMap<>();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong missNanos = new AtomicLong();
+
+	private final AtomicLong savedNanos = new AtomicLong();
+
+	public SemanticCachingAiClient(AiClient delegate, VectorStore vectorStore) {
+		this(delegate, vectorStore, DEFAULT_SIMILARITY_THRESHOLD);
+	}
+
+	/**
+	 * @param delegate the client to cache the responses of.
+	 * @param vectorStore the store of the answered prompts.
+	 * @param similarityThreshold minimum similarity, between 0 and 1, of a stored prompt
+	 * to serve its response.
+	 */
+	public SemanticCachingAiClient(AiClient delegate, VectorStore vectorStore, double similarityThreshold) {
+		Assert.notNull(delegate, "Delegate must not be null");
+		Assert.notNull(vectorStore, "Vector store must not be null");
+		Assert.isTrue(similarityThreshold >= 0 && similarityThreshold <= 1,
+				"Similarity threshold must be between 0 and 1");
+		this.delegate = delegate;
+		this.vectorStore = vectorStore;
+		this.similarityThreshold = similarityThreshold;
+		this.ownedExecutor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "semantic-cache-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.executor = this.ownedExecutor;
+	}
+
+	/**
+	 * @param metadataProvider provides the metadata of the entry cached for a prompt, for
+	 * instance its tenant or topic, used to invalidate the entries.
+	 */
+	public void setMetadataProvider(Function<Prompt, Map<String, Object>> metadataProvider) {
+		Assert.notNull(metadataProvider, "Metadata provider must not be null");
+		this.metadataProvider = metadataProvider;
+	}
+
+	/**
+	 * @param maxEntries maximum number of entries written by this client kept in the
+	 * store, the oldest ones being deleted first.
+	 */
+	public void setMaxEntries(int maxEntries) {
+		Assert.isTrue(maxEntries > 0, "Max entries must be positive");
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * @param timeToLive age, from their {@link #CACHED_AT_METADATA_KEY cached at} time,
+	 * after which the entries are no longer served, and deleted when found.
+	 */
+	public void setTimeToLive(Duration timeToLive) {
+		Assert.isTrue(timeToLive != null && !timeToLive.isNegative() && !timeToLive.isZero(),
+				"Time to live must be positive");
+		this.timeToLive = timeToLive;
+	}
+
+	void setClock(Clock clock) {
+		this.clock = clock;
+	}
+
+	/**
+	 * @param executor the executor writing the new entries to the store, in place of the
+	 * default single writer thread.
+	 */
+	public void setExecutor(Executor executor) {
+		Assert.notNull(executor, "Executor must not be null");
+		destroy();
+		this.executor = executor;
+	}
+
+	/**
+	 * @return the number of responses served from the cache.
+	 */
+	public long getHitCount() {
+		return this.hits.get();
+	}
+
+	/**
+	 * @return the number of prompts sent to the delegate.
+	 */
+	public long getMissCount() {
+		return this.misses.get();
+	}
+
+	/**
+	 * @return the ratio of the prompts served from the cache, 0 when none was received.
+	 */
+	public double getHitRate() {
+		long hits = this.hits.get();
+		long total = hits + this.misses.get();
+		return (total > 0) ? (double) hits / total : 0;
+	}
+
+	/**
+	 * @return the estimated delegate latency saved by the hits, based on the average
+	 * latency of the misses.
+	 */
+	public Duration getLatencySaved() {
+		return Duration.ofNanos(this.savedNanos.get());
+	}
+
+	@Override
+	public AiResponse generate(Prompt prompt) {
+		String query = getQuery(prompt);
+
+		AiResponse cached = lookup(query);
+		if (cached != null) {
+			this.hits.incrementAndGet();
+			long misses = this.misses.get();
+			if (misses > 0) {
+				this.savedNanos.addAndGet(this.missNanos.get() / misses);
+			}
+			return cached;
+		}
+
+		long start = System.nanoTime();
+		AiResponse response = this.delegate.generate(prompt);
+		this.missNanos.addAndGet(System.nanoTime() - start);
+		this.misses.incrementAndGet();
+
+		Map<String, Object> metadata = new HashMap<>(this.metadataProvider.apply(prompt));
+		this.executor.execute(() -> store(query, response, metadata));
+		return response;
+	}
+
+	/**
+	 * Delete the entries written by this client whose metadata match the predicate.
+	 * @param metadataFilter the predicate selecting the entries to delete.
+	 * @return the number of deleted entries.
+	 */
+	public int invalidate(Predicate<Map<String, Object>> metadataFilter) {
+		List<String> ids;
+		synchronized (this.entries) {
+			ids = this.entries.entrySet()
+				.stream()
+				.filter(entry -> metadataFilter.test(entry.getValue()))
+				.map(Map.Entry::getKey)
+				.toList();
+			ids.forEach(this.entries::remove);
+		}
+		if (!ids.isEmpty()) {
+			this.vectorStore.delete(ids);
+		}
+		return ids.size();
+	}
+
+	@Override
+	public void destroy() {
+		if (this.ownedExecutor != null) {
+			this.ownedExecutor.shutdown();
+			this.ownedExecutor = null;
+		}
+	}
+
+	/**
+	 * @return the ids of the entries written by this client.
+	 */
+	Set<String> getEntryIds() {
+		synchronized (this.entries) {
+			return Set.copyOf(this.entries.keySet());
+		}
+	}
+
+	private AiResponse lookup(String query) {
+		List<Document> documents;
+		try {
+			documents = this.vectorStore.similaritySearch(
+					SearchRequest.query(query).withTopK(1).withSimilarityThreshold(this.similarityThreshold));
+		}
+		catch (RuntimeException ex) {
+			logger.warn("Failed to look up the semantic cache, calling the delegate", ex);
+			return null;
+		}
+		if (documents.isEmpty()
+				|| !(documents.get(0).getMetadata().get(GENERATIONS_METADATA_KEY) instanceof String json)) {
+			return null;
+		}
+		if (isExpired(documents.get(0))) {
+			String id = documents.get(0).getId();
+			this.executor.execute(() -> delete(List.of(id)));
+			return null;
+		}
+		try {
+			List<String> texts = objectMapper.readValue(json, new TypeReference<List<String>>() {
+			});
+			return new AiResponse(texts.stream().map(Generation::new).toList());
+		}
+		catch (JsonProcessingException ex) {
+			logger.warn("Ignoring the unreadable semantic cache entry {}", documents.get(0).getId(), ex);
+			return null;
+		}
+	}
+
+	private void store(String query, AiResponse response, Map<String, Object> metadata) {
+		try {
+			List<String> texts = response.getGenerations().stream().map(Generation::getText).toList();
+			metadata.put(GENERATIONS_METADATA_KEY, objectMapper.writeValueAsString(texts));
+			metadata.put(CACHED_AT_METADATA_KEY, this.clock.millis());
+			Document document = new Document(query, metadata);
+			this.vectorStore.add(List.of(document));
+
+			List<String> evicted = new ArrayList<>();
+			synchronized (this.entries) {
+				this.entries.put(document.getId(), Map.copyOf(metadata));
+				Iterator<String> ids = this.entries.keySet().iterator();
+				while (this.entries.size() > this.maxEntries) {
+					evicted.add(ids.next());
+					ids.remove();
+				}
+			}
+			if (!evicted.isEmpty()) {
+				this.vectorStore.delete(evicted);
+			}
+		}
+		catch (JsonProcessingException | RuntimeException ex) {
+			logger.warn("Failed to write the semantic cache entry", ex);
+		}
+	}
+
+	private boolean isExpired(Document document) {
+		return document.getMetadata().get(CACHED_AT_METADATA_KEY) instanceof Number cachedAt
+				&& cachedAt.longValue() + this.timeToLive.toMillis() <= this.clock.millis();
+	}
+
+	private void delete(List<String> ids) {
+		try {
+			synchronized (this.entries) {
+				ids.forEach(this.entries::remove);
+			}
+			this.vectorStore.delete(ids);
+		}
+		catch (RuntimeException ex) {
+			logger.warn("Failed to delete the expired semantic cache entries {}", ids, ex);
+		}
+	}
+
+	private static String getQuery(Prompt prompt) {
+		return prompt.getMessages().stream().map(Message::getContent).collect(Collectors.joining("\n"));
+	}
+
+}
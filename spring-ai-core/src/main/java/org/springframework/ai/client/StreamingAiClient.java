@@ -0,0 +1,34 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.client;
+
+import reactor.core.publisher.Flux;
+
+import org.springframework.ai.prompt.Prompt;
+
+/**
+ * An {@link AiClient} able to stream the generation as it is produced by the model. Each
+ * emitted {@link AiResponse} holds the text generated since the previous one. Cancelling
+ * the subscription aborts the underlying request.
+ *
+ * @since 0.7.1
+ */
+public interface StreamingAiClient extends AiClient {
+
+	Flux<AiResponse> generateStream(Prompt prompt);
+
+}
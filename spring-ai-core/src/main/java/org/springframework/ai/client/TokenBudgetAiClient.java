@@ -0,0 +1,80 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.client;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.ai.prompt.Prompt;
+import org.springframework.ai.prompt.PromptFitter;
+import org.springframework.ai.prompt.PromptFitter.FittedPrompt;
+import org.springframework.util.Assert;
+
+/**
+ * {@link AiClient} decorator fitting the prompts into a token budget with a
+ * {@link PromptFitter} before sending them, and reporting their token counts in the
+ * response run info.
+ *
+ * @since 0.7.1
+ */
+public class TokenBudgetAiClient implements AiClient {
+
+	/**
+	 * Run info key of the tokens of the prompt sent.
+	 */
+	public static final String PROMPT_TOKENS = "fitted-prompt-tokens";
+
+	/**
+	 * Run info key of the tokens of the prompt before fitting.
+	 */
+	public static final String ORIGINAL_PROMPT_TOKENS = "original-prompt-tokens";
+
+	/**
+	 * Run info key of the number of messages dropped.
+	 */
+	public static final String DROPPED_MESSAGES = "dropped-messages";
+
+	/**
+	 * Run info key of the number of messages trimmed.
+	 */
+	public static final String TRIMMED_MESSAGES = "trimmed-messages";
+
+	private final AiClient delegate;
+
+	private final PromptFitter promptFitter;
+
+	public TokenBudgetAiClient(AiClient delegate, PromptFitter promptFitter) {
+		Assert.notNull(delegate, "Delegate must not be null");
+		Assert.notNull(promptFitter, "Prompt fitter must not be null");
+		this.delegate = delegate;
+		this.promptFitter = promptFitter;
+	}
+
+	@Override
+	public AiResponse generate(Prompt prompt) {
+		FittedPrompt fitted = this.promptFitter.fit(prompt);
+		AiResponse response = this.delegate.generate(fitted.prompt());
+
+		Map<String, Object> runInfo = new HashMap<>(response.getRunInfo());
+		runInfo.put(PROMPT_TOKENS, fitted.tokens());
+		runInfo.put(ORIGINAL_PROMPT_TOKENS, fitted.originalTokens());
+		runInfo.put(DROPPED_MESSAGES, fitted.droppedMessages());
+		runInfo.put(TRIMMED_MESSAGES, fitted.trimmedMessages());
+		return new AiResponse(response.getGenerations(), response.getProviderOutput(), runInfo);
+	}
+
+}
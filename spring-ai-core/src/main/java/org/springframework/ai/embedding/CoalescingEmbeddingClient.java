@@ -0,0 +1,96 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.embedding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.util.SingleFlight;
+import org.springframework.ai.util.TextDigest;
+import org.springframework.util.Assert;
+
+/**
+ * {@link EmbeddingClient} decorator coalescing the identical concurrent requests into a
+ * single delegate call (single flight), typically the same query embedded by many threads
+ * at once. The requests are keyed by the {@link TextDigest} of their texts. A request
+ * arriving while an identical one is in flight waits for, and shares, its embeddings or
+ * failure. The in-flight entry is removed as soon as the call completes.
+ * <p>
+ * Documents are embedded by the delegate directly, as their formatting belongs to the
+ * delegate. To compose with a caching client such as
+ * {@link DeduplicatingEmbeddingClient}, wrap it, so that the concurrent cache misses are
+ * coalesced too.
+ *
+ * @since 0.7.1
+ */
+public class CoalescingEmbeddingClient implements EmbeddingClient {
+
+	private final EmbeddingClient delegate;
+
+	private final SingleFlight singleFlight = new SingleFlight();
+
+	public CoalescingEmbeddingClient(EmbeddingClient delegate) {
+		Assert.notNull(delegate, "Delegate must not be null");
+		this.delegate = delegate;
+	}
+
+	/**
+	 * @return the number of requests served by the call of an identical in-flight
+	 * request.
+	 */
+	public long getCoalescedCount() {
+		return this.singleFlight.getCoalescedCount();
+	}
+
+	@Override
+	public List<Double> embed(String text) {
+		return coalesce(key("text", List.of(text)), () -> this.delegate.embed(text));
+	}
+
+	@Override
+	public List<Double> embed(Document document) {
+		return this.delegate.embed(document);
+	}
+
+	@Override
+	public List<List<Double>> embed(List<String> texts) {
+		return coalesce(key("texts", texts), () -> this.delegate.embed(texts));
+	}
+
+	@Override
+	public EmbeddingResponse embedForResponse(List<String> texts) {
+		return coalesce(key("response", texts), () -> this.delegate.embedForResponse(texts));
+	}
+
+	@Override
+	public int dimensions() {
+		return this.delegate.dimensions();
+	}
+
+	private <T> T coalesce(String key, Supplier<T> delegateCall) {
+		return this.singleFlight.execute(key, delegateCall);
+	}
+
+	private static String key(String method, List<String> texts) {
+		List<String> values = new ArrayList<>(texts.size() + 1);
+		values.add(method);
+		values.addAll(texts);
+		return TextDigest.digest(values);
+	}
+
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2023-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.embedding;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.util.TextDigest;
+import org.springframework.util.Assert;
+
+/**
+ * {@link EmbeddingClient} decorator that embeds identical texts only once. Within a
+ * batch, every distinct text is sent to the delegate once and its embedding is fanned out
+ * to all the duplicates. Across calls, the embeddings of the most recently seen texts are
+ * kept, keyed by the {@link TextDigest} of their (formatted) content, so that repeated
+ * boilerplate chunks embedded document by document are served without calling the
+ * delegate.
+ * <p>
+ * Optionally, duplicate documents are linked to the first document seen with the same
+ * content through the {@link #CANONICAL_ID_METADATA_KEY} metadata, so that stores can
+ * skip or group them.
+ *
+ * @since 0.7.1
+ */
+public class DeduplicatingEmbeddingClient implements EmbeddingClient {
+
+	public static final String CANONICAL_ID_METADATA_KEY = "canonical_id";
+
+	public static final int DEFAULT_MAX_CACHED_EMBEDDINGS = 10_000;
+
+	private final EmbeddingClient delegate;
+
+	private final MetadataMode metadataMode;
+
+	/**
+	 * Content hash to embedding, in access order, bounded to the max cached embeddings.
+	 */
+	private final Map<String, CachedEmbedding> cache;
+
+	private final AtomicLong duplicates = new AtomicLong();
+
+	private boolean linkDuplicates = false;
+
+	public DeduplicatingEmbeddingClient(EmbeddingClient delegate) {
+		this(delegate, MetadataMode.EMBED, DEFAULT_MAX_CACHED_EMBEDDINGS);
+	}
+
+	/**
+	 * @param delegate the embedding client to deduplicate the requests of.
+	 * @param metadataMode the mode used to format the documents content. Should match the
+	 * delegate one.
+	 * @param maxCachedEmbeddings number of embeddings kept across calls. Zero to only
+	 * deduplicate within a batch.
+	 */
+	public DeduplicatingEmbeddingClient(EmbeddingClient delegate, MetadataMode metadataMode, int maxCachedEmbeddings) {
+		Assert.notNull(delegate, "Delegate must not be null");
+		Assert.notNull(metadataMode, "Metadata mode must not be null");
+		Assert.isTrue(maxCachedEmbeddings >= 0, "Max cached embeddings must not be negative");
+		this.delegate = delegate;
+		this.metadataMode = metadataMode;
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedEmbedding> eldest) {
+				return size() > maxCachedEmbeddings;
+			}
+
+		};
+	}
+
+	/**
+	 * @param linkDuplicates set the {@link #CANONICAL_ID_METADATA_KEY} metadata of the
+	 * duplicate documents to the id of the first document seen with the same content.
+	 */
+	public void setLinkDuplicates(boolean linkDuplicates) {
+		this.linkDuplicates = linkDuplicates;
+	}
+
+	/**
+	 * @return the number of texts served without embedding them, since they duplicate an
+	 * already embedded text.
+	 */
+	public long getDuplicateCount() {
+		return this.duplicates.get();
+	}
+
+	@Override
+	public List<Double> embed(String text) {
+		return embed(text, null);
+	}
+
+	@Override
+	public List<Double> embed(Document document) {
+		return embed(document.getFormattedContent(this.metadataMode), document);
+	}
+
+	private List<Double> embed(String text, Document document) {
+		String key = TextDigest.digest(text);
+		CachedEmbedding cached = get(key);
+		if (cached != null) {
+			this.duplicates.incrementAndGet();
+			link(document, cached.canonicalId());
+			return cached.embedding();
+		}
+		List<Double> embedding = this.delegate.embed(text);
+		put(key, new CachedEmbedding((document != null) ? document.getId() : null, embedding));
+		return embedding;
+	}
+
+	@Override
+	public List<List<Double>> embed(List<String> texts) {
+		return embedForResponse(texts).getData().stream().map(Embedding::getEmbedding).toList();
+	}
+
+	/**
+	 * Embed the documents, formatted according to the configured {@link MetadataMode},
+	 * with a single delegate call for all their distinct contents.
+	 * @param documents the documents to embed.
+	 * @return the embeddings, in the documents order.
+	 */
+	public List<List<Double>> embedDocuments(List<Document> documents) {
+		List<String> texts = documents.stream()
+			.map(document -> document.getFormattedContent(this.metadataMode))
+			.toList();
+		return embed(texts, documents).getData().stream().map(Embedding::getEmbedding).toList();
+	}
+
+	@Override
+	public EmbeddingResponse embedForResponse(List<String> texts) {
+		return embed(texts, null);
+	}
+
+	private EmbeddingResponse embed(List<String> texts, List<Document> documents) {
+
+		String[] keys = new String[texts.size()];
+		List<Double>[] embeddings = newArray(texts.size());
+		String[] canonicalIds = new String[texts.size()];
+
+		// Distinct content hash to its first position within the batch.
+		Map<String, Integer> firstPositions = new LinkedHashMap<>();
+		List<String> distinctTexts = new ArrayList<>();
+
+		for (int i = 0; i < texts.size(); i++) {
+			keys[i] = TextDigest.digest(texts.get(i));
+			CachedEmbedding cached = get(keys[i]);
+			if (cached != null) {
+				embeddings[i] = cached.embedding();
+				canonicalIds[i] = cached.canonicalId();
+			}
+			else if (!firstPositions.containsKey(keys[i])) {
+				firstPositions.put(keys[i], i);
+				distinctTexts.add(texts.get(i));
+			}
+		}
+
+		Map<String, Object> metadata = Map.of();
+		if (!distinctTexts.isEmpty()) {
+			EmbeddingResponse response = this.delegate.embedForResponse(distinctTexts);
+			metadata = response.getMetadata();
+			int n = 0;
+			for (int position : firstPositions.values()) {
+				embeddings[position] = response.getData().get(n++).getEmbedding();
+				canonicalIds[position] = (documents != null) ? documents.get(position).getId() : null;
+				put(keys[position], new CachedEmbedding(canonicalIds[position], embeddings[position]));
+			}
+		}
+
+		List<Embedding> data = new ArrayList<>(texts.size());
+		for (int i = 0; i < texts.size(); i++) {
+			Integer firstPosition = firstPositions.get(keys[i]);
+			if (firstPosition == null || firstPosition != i) {
+				// Served from the cache or from an earlier duplicate of this batch.
+				if (embeddings[i] == null) {
+					embeddings[i] = embeddings[firstPosition];
+					canonicalIds[i] = canonicalIds[firstPosition];
+				}
+				this.duplicates.incrementAndGet();
+				if (documents != null) {
+					link(documents.get(i), canonicalIds[i]);
+				}
+			}
+			data.add(new Embedding(embeddings[i], i));
+		}
+		return new EmbeddingResponse(data, metadata);
+	}
+
+	@Override
+	public int dimensions() {
+		return this.delegate.dimensions();
+	}
+
+	private void link(Document document, String canonicalId) {
+		if (this.linkDuplicates && document != null && canonicalId != null && !canonicalId.equals(document.getId())) {
+			document.getMetadata().put(CANONICAL_ID_METADATA_KEY, canonicalId);
+		}
+	}
+
+	private CachedEmbedding get(String key) {
+		synchronized (this.cache) {
+			return this.cache.get(key);
+		}
+	}
+
+	private void put(String key, CachedEmbedding embedding) {
+		synchronized (this.cache) {
+			this.cache.putIfAbsent(key, embedding);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Double>[] newArray(int size) {
+		return new List[size];
+	}
+
+	private record CachedEmbedding(String canonicalId, List<Double> embedding) {
+	}
+
+}
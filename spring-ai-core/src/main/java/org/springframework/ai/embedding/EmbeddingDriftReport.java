@@ -0,0 +1,115 @@
+/*
+ * Copyright 2023-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.embedding;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.util.Assert;
+
+/**
+ * Measures how far the embeddings of a candidate {@link EmbeddingClient} drift from the
+ * embeddings of a reference client over a sample corpus. Used, for example, to validate a
+ * quantized (int8) model against its fp32 original before switching to it.
+ *
+ * @since 0.7.1
+ */
+public final class EmbeddingDriftReport {
+
+	/**
+	 * Cosine similarities between the reference and candidate embeddings, sorted in
+	 * ascending order.
+	 */
+	private final double[] similarities;
+
+	private EmbeddingDriftReport(double[] similarities) {
+		this.similarities = similarities;
+		Arrays.sort(this.similarities);
+	}
+
+	/**
+	 * Embed the corpus with both clients and compare the resulting embeddings.
+	 * @param reference the reference client, e.g. the fp32 model.
+	 * @param candidate the client to validate, e.g. the quantized model.
+	 * @param corpus sample texts, representative of the production data.
+	 * @return the drift report.
+	 */
+	public static EmbeddingDriftReport compare(EmbeddingClient reference, EmbeddingClient candidate,
+			List<String> corpus) {
+
+		Assert.notNull(reference, "Reference embedding client must not be null");
+		Assert.notNull(candidate, "Candidate embedding client must not be null");
+		Assert.notEmpty(corpus, "Corpus must not be empty");
+
+		List<List<Double>> expected = reference.embed(corpus);
+		List<List<Double>> actual = candidate.embed(corpus);
+
+		Assert.isTrue(expected.size() == corpus.size() && actual.size() == corpus.size(),
+				"Expected one embedding per corpus text");
+
+		double[] similarities = new double[corpus.size()];
+		for (int i = 0; i < similarities.length; i++) {
+			similarities[i] = EmbeddingUtil.cosineSimilarity(expected.get(i), actual.get(i));
+		}
+		return new EmbeddingDriftReport(similarities);
+	}
+
+	public int getSampleCount() {
+		return this.similarities.length;
+	}
+
+	public double getMeanSimilarity() {
+		return Arrays.stream(this.similarities).average().orElse(Double.NaN);
+	}
+
+	public double getMinSimilarity() {
+		return this.similarities[0];
+	}
+
+	/**
+	 * @param percentile percentile in the [0, 100] range.
+	 * @return the cosine similarity at the given percentile (nearest rank). For example
+	 * the 5th percentile is the similarity that 95% of the samples meet or exceed.
+	 */
+	public double getSimilarityPercentile(double percentile) {
+		Assert.isTrue(percentile >= 0 && percentile <= 100, "Percentile must be in the [0, 100] range");
+		int rank = (int) Math.ceil(percentile / 100 * this.similarities.length);
+		return this.similarities[Math.max(rank - 1, 0)];
+	}
+
+	/**
+	 * @return the largest drift, i.e. 1 - the lowest cosine similarity.
+	 */
+	public double getMaxDrift() {
+		return 1 - getMinSimilarity();
+	}
+
+	/**
+	 * @param minSimilarity the acceptable cosine similarity threshold.
+	 * @return true if every sample meets the threshold.
+	 */
+	public boolean isWithin(double minSimilarity) {
+		return getMinSimilarity() >= minSimilarity;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("EmbeddingDriftReport{samples=%d, mean=%.6f, p5=%.6f, min=%.6f}", getSampleCount(),
+				getMeanSimilarity(), getSimilarityPercentile(5), getMinSimilarity());
+	}
+
+}
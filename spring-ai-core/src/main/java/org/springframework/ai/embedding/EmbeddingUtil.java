@@ -17,8 +17,11 @@
 package org.springframework.ai.embedding;
 
 import java.io.IOException;
+import java.util.AbstractList;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.RandomAccess;
 import java.util.stream.Collectors;
 
 import org.springframework.core.io.DefaultResourceLoader;
@@ -51,6 +54,44 @@ public class EmbeddingUtil {
 		}
 	}
 
+	/**
+	 * Expose a primitive float embedding as an unmodifiable {@code List<Double>} without
+	 * copying it. Values are boxed lazily, on access only.
+	 * @param embedding the embedding vector, not copied.
+	 * @return a read-only list view over the embedding.
+	 */
+	public static List<Double> asList(float[] embedding) {
+		return new FloatArrayList(embedding);
+	}
+
+	/**
+	 * @param vectorX the first embedding.
+	 * @param vectorY the second embedding, of the same dimensions.
+	 * @return the cosine similarity of the two embeddings, between -1 and 1.
+	 */
+	public static double cosineSimilarity(List<Double> vectorX, List<Double> vectorY) {
+		if (vectorX.size() != vectorY.size()) {
+			throw new IllegalArgumentException("Vectors lengths must be equal");
+		}
+
+		double dotProduct = 0;
+		double normX = 0;
+		double normY = 0;
+		for (int i = 0; i < vectorX.size(); ++i) {
+			double x = vectorX.get(i);
+			double y = vectorY.get(i);
+			dotProduct += x * y;
+			normX += x * x;
+			normY += y * y;
+		}
+
+		if (normX == 0 || normY == 0) {
+			throw new IllegalArgumentException("Vectors cannot have zero norm");
+		}
+
+		return dotProduct / (Math.sqrt(normX) * Math.sqrt(normY));
+	}
+
 	private static Map<String, Integer> loadKnownModelDimensions() {
 		try {
 			Properties properties = new Properties();
@@ -66,4 +107,24 @@ public class EmbeddingUtil {
 		}
 	}
 
+	private static class FloatArrayList extends AbstractList<Double> implements RandomAccess {
+
+		private final float[] values;
+
+		FloatArrayList(float[] values) {
+			this.values = values;
+		}
+
+		@Override
+		public Double get(int index) {
+			return (double) this.values[index];
+		}
+
+		@Override
+		public int size() {
+			return this.values.length;
+		}
+
+	}
+
 }
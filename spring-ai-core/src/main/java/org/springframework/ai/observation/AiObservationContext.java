@@ -0,0 +1,154 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.observation;
+
+import java.util.Map;
+
+import io.micrometer.observation.Observation;
+
+/**
+ * Context of an observed AI client, embedding client or vector store operation.
+ *
+ * @since 0.7.1
+ */
+public class AiObservationContext extends Observation.Context {
+
+	/**
+	 * Kind of the observed component.
+	 */
+	public enum Kind {
+
+		CHAT, EMBEDDING, VECTOR_STORE
+
+	}
+
+	private final Kind kind;
+
+	private final String provider;
+
+	private final String model;
+
+	private final String operation;
+
+	private Integer batchSize;
+
+	private Integer resultSize;
+
+	private Long promptTokens;
+
+	private Long completionTokens;
+
+	private Long totalTokens;
+
+	private boolean estimatedUsage;
+
+	/**
+	 * @param kind the kind of the observed component.
+	 * @param provider the provider, or store, name.
+	 * @param model the model name, null when unknown.
+	 * @param operation the operation name, such as {@code generate} or {@code add}.
+	 */
+	public AiObservationContext(Kind kind, String provider, String model, String operation) {
+		this.kind = kind;
+		this.provider = provider;
+		this.model = model;
+		this.operation = operation;
+	}
+
+	public Kind getKind() {
+		return this.kind;
+	}
+
+	public String getProvider() {
+		return this.provider;
+	}
+
+	public String getModel() {
+		return this.model;
+	}
+
+	public String getOperation() {
+		return this.operation;
+	}
+
+	/**
+	 * @return the number of texts embedded, or documents added or deleted, null if not
+	 * applicable.
+	 */
+	public Integer getBatchSize() {
+		return this.batchSize;
+	}
+
+	public void setBatchSize(Integer batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @return the number of documents found by a similarity search, null if not
+	 * applicable.
+	 */
+	public Integer getResultSize() {
+		return this.resultSize;
+	}
+
+	public void setResultSize(Integer resultSize) {
+		this.resultSize = resultSize;
+	}
+
+	public Long getPromptTokens() {
+		return this.promptTokens;
+	}
+
+	public Long getCompletionTokens() {
+		return this.completionTokens;
+	}
+
+	public Long getTotalTokens() {
+		return this.totalTokens;
+	}
+
+	/**
+	 * @return whether the token usage is estimated by the client rather than reported by
+	 * the provider, such as the usage counted from the deltas of a stream.
+	 */
+	public boolean isEstimatedUsage() {
+		return this.estimatedUsage;
+	}
+
+	/**
+	 * Read the token usage from the {@code prompt-tokens}, {@code completion-tokens} and
+	 * {@code total-tokens} entries of the response run info or metadata, and whether it
+	 * is estimated from its {@code estimated-usage} entry. The responses served from a
+	 * cache, flagged by a {@code cached} entry, consumed no tokens and report no usage.
+	 * @param usage the response run info or metadata.
+	 */
+	public void setUsage(Map<String, Object> usage) {
+		if (Boolean.TRUE.equals(usage.get("cached"))) {
+			return;
+		}
+		this.promptTokens = tokens(usage, "prompt-tokens");
+		this.completionTokens = tokens(usage, "completion-tokens");
+		this.totalTokens = tokens(usage, "total-tokens");
+		this.estimatedUsage = Boolean.TRUE.equals(usage.get("estimated-usage"));
+	}
+
+	private static Long tokens(Map<String, Object> usage, String key) {
+		// Negative counts stand for an unknown usage.
+		return (usage.get(key) instanceof Number tokens && tokens.longValue() >= 0) ? tokens.longValue() : null;
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.observation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Flux;
+
+import org.springframework.ai.observation.AiObservationContext.Kind;
+import org.springframework.util.Assert;
+
+/**
+ * Observes the operations of a single AI client, embedding client or vector store. Shared
+ * by the observed decorators.
+ */
+class AiObservations {
+
+	private static final AiObservationConvention DEFAULT_CONVENTION = new DefaultAiObservationConvention();
+
+	private final ObservationRegistry registry;
+
+	private final Kind kind;
+
+	private final String provider;
+
+	private final String model;
+
+	private AiObservationConvention convention;
+
+	AiObservations(ObservationRegistry registry, Kind kind, String provider, String model) {
+		Assert.notNull(registry, "Observation registry must not be null");
+		this.registry = registry;
+		this.kind = kind;
+		this.provider = provider;
+		this.model = model;
+	}
+
+	void setConvention(AiObservationConvention convention) {
+		this.convention = convention;
+	}
+
+	/**
+	 * Observe an operation.
+	 * @param operation the operation name.
+	 * @param before sets the context known before the operation, such as the batch size.
+	 * @param action the operation.
+	 * @param after sets the context known from the result, such as the token usage.
+	 * @return the operation result.
+	 */
+	<T> T observe(String operation, Consumer<AiObservationContext> before, Supplier<T> action,
+			BiConsumer<AiObservationContext, T> after) {
+		AiObservationContext context = new AiObservationContext(this.kind, this.provider, this.model, operation);
+		before.accept(context);
+		Observation observation = start(context);
+		try (Observation.Scope scope = observation.openScope()) {
+			T result = action.get();
+			after.accept(context, result);
+			return result;
+		}
+		catch (RuntimeException ex) {
+			observation.error(ex);
+			throw ex;
+		}
+		finally {
+			observation.stop();
+		}
+	}
+
+	/**
+	 * Observe an asynchronous operation, until the completion of its result.
+	 * @param operation the operation name.
+	 * @param action the operation.
+	 * @param after sets the context known from the result, such as the token usage.
+	 * @return the operation result.
+	 */
+	<T> CompletableFuture<T> observeAsync(String operation, Supplier<CompletableFuture<T>> action,
+			BiConsumer<AiObservationContext, T> after) {
+		AiObservationContext context = new AiObservationContext(this.kind, this.provider, this.model, operation);
+		Observation observation = start(context);
+		CompletableFuture<T> result;
+		try (Observation.Scope scope = observation.openScope()) {
+			result = action.get();
+		}
+		catch (RuntimeException ex) {
+			observation.error(ex);
+			observation.stop();
+			throw ex;
+		}
+		return result.whenComplete((value, ex) -> {
+			if (ex != null) {
+				observation.error((ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex);
+			}
+			else {
+				after.accept(context, value);
+			}
+			observation.stop();
+		});
+	}
+
+	/**
+	 * Observe a streaming operation, from its subscription until its completion, failure
+	 * or cancellation. Every subscription is a distinct observation.
+	 * @param operation the operation name.
+	 * @param action the operation.
+	 * @param onNext sets the context known from each element, such as the token usage
+	 * reported by the final one.
+	 * @return the operation elements.
+	 */
+	<T> Flux<T> observeStream(String operation, Supplier<Flux<T>> action, BiConsumer<AiObservationContext, T> onNext) {
+		return Flux.defer(() -> {
+			AiObservationContext context = new AiObservationContext(this.kind, this.provider, this.model, operation);
+			Observation observation = start(context);
+			Flux<T> elements;
+			try (Observation.Scope scope = observation.openScope()) {
+				elements = action.get();
+			}
+			catch (RuntimeException ex) {
+				observation.error(ex);
+				observation.stop();
+				throw ex;
+			}
+			return elements.doOnNext(element -> onNext.accept(context, element))
+				.doOnError(observation::error)
+				.doFinally(signal -> observation.stop());
+		});
+	}
+
+	private Observation start(AiObservationContext context) {
+		return Observation.createNotStarted(this.convention, DEFAULT_CONVENTION, () -> context, this.registry).start();
+	}
+
+}
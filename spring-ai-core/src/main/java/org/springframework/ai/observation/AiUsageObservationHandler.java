@@ -0,0 +1,122 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.observation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+
+import org.springframework.ai.observation.AiObservationContext.Kind;
+
+/**
+ * {@link ObservationHandler} counting the requests, failures and token usage of the
+ * observed operations, per kind, provider, model and operation. The meter handlers drop
+ * the high cardinality key values the token usage is reported as, this handler keeps
+ * their totals, for instance to be bound to a meter registry.
+ * <p>
+ * An observation is only counted once by a handler, even when it is registered several
+ * times on the registry.
+ *
+ * @since 0.7.1
+ */
+public class AiUsageObservationHandler implements ObservationHandler<AiObservationContext> {
+
+	private final Map<Key, Counters> counters = new ConcurrentHashMap<>();
+
+	@Override
+	public void onStop(AiObservationContext context) {
+		if (context.containsKey(this)) {
+			return;
+		}
+		context.put(this, Boolean.TRUE);
+		Key key = new Key(context.getKind(), context.getProvider(), context.getModel(), context.getOperation(),
+				context.isEstimatedUsage());
+		Counters counters = this.counters.computeIfAbsent(key, k -> new Counters());
+		counters.requests.increment();
+		if (context.getError() != null) {
+			counters.failures.increment();
+		}
+		add(counters.promptTokens, context.getPromptTokens());
+		add(counters.completionTokens, context.getCompletionTokens());
+		add(counters.totalTokens, context.getTotalTokens());
+	}
+
+	@Override
+	public boolean supportsContext(Observation.Context context) {
+		return context instanceof AiObservationContext;
+	}
+
+	/**
+	 * @return the current totals, one per kind, provider, model and operation observed,
+	 * and per estimated or reported usage.
+	 */
+	public List<Usage> getUsages() {
+		return this.counters.entrySet()
+			.stream()
+			.map(entry -> new Usage(entry.getKey().kind(), entry.getKey().provider(), entry.getKey().model(),
+					entry.getKey().operation(), entry.getKey().estimated(), entry.getValue().requests.sum(),
+					entry.getValue().failures.sum(), entry.getValue().promptTokens.sum(),
+					entry.getValue().completionTokens.sum(), entry.getValue().totalTokens.sum()))
+			.toList();
+	}
+
+	private static void add(LongAdder counter, Long tokens) {
+		if (tokens != null) {
+			counter.add(tokens);
+		}
+	}
+
+	/**
+	 * Totals of the observed operations of a model.
+	 *
+	 * @param kind the kind of the observed component.
+	 * @param provider the provider, or store, name.
+	 * @param model the model name, null when unknown.
+	 * @param operation the operation name.
+	 * @param estimated whether the token usage is estimated by the clients.
+	 * @param requests the number of operations.
+	 * @param failures the number of failed operations.
+	 * @param promptTokens the prompt tokens reported by the operations.
+	 * @param completionTokens the completion tokens reported by the operations.
+	 * @param totalTokens the total tokens reported by the operations.
+	 */
+	public record Usage(Kind kind, String provider, String model, String operation, boolean estimated, long requests,
+			long failures, long promptTokens, long completionTokens, long totalTokens) {
+	}
+
+	private record Key(Kind kind, String provider, String model, String operation, boolean estimated) {
+	}
+
+	private static final class Counters {
+
+		private final LongAdder requests = new LongAdder();
+
+		private final LongAdder failures = new LongAdder();
+
+		private final LongAdder promptTokens = new LongAdder();
+
+		private final LongAdder completionTokens = new LongAdder();
+
+		private final LongAdder totalTokens = new LongAdder();
+
+	}
+
+}
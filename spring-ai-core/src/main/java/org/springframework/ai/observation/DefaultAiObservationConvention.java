@@ -0,0 +1,90 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.observation;
+
+import java.util.Locale;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+
+/**
+ * Default {@link AiObservationConvention}. The observations are named after the kind of
+ * the component, tagged with its provider, model and operation, and whether their token
+ * usage is estimated, and carry the batch sizes and token usage as high cardinality key
+ * values.
+ *
+ * @since 0.7.1
+ */
+public class DefaultAiObservationConvention implements AiObservationConvention {
+
+	public static final String PROVIDER = "spring.ai.provider";
+
+	public static final String MODEL = "spring.ai.model";
+
+	public static final String OPERATION = "spring.ai.operation";
+
+	public static final String BATCH_SIZE = "spring.ai.batch.size";
+
+	public static final String RESULT_SIZE = "spring.ai.result.size";
+
+	public static final String PROMPT_TOKENS = "spring.ai.usage.prompt.tokens";
+
+	public static final String COMPLETION_TOKENS = "spring.ai.usage.completion.tokens";
+
+	public static final String TOTAL_TOKENS = "spring.ai.usage.total.tokens";
+
+	public static final String ESTIMATED_USAGE = "spring.ai.usage.estimated";
+
+	private static final String UNKNOWN = "none";
+
+	@Override
+	public String getName() {
+		return "spring.ai.operation";
+	}
+
+	@Override
+	public String getContextualName(AiObservationContext context) {
+		return context.getKind().name().toLowerCase(Locale.ROOT) + " " + context.getOperation();
+	}
+
+	@Override
+	public KeyValues getLowCardinalityKeyValues(AiObservationContext context) {
+		return KeyValues.of(KeyValue.of("spring.ai.kind", context.getKind().name().toLowerCase(Locale.ROOT)),
+				KeyValue.of(PROVIDER, valueOrUnknown(context.getProvider())),
+				KeyValue.of(MODEL, valueOrUnknown(context.getModel())), KeyValue.of(OPERATION, context.getOperation()),
+				KeyValue.of(ESTIMATED_USAGE, Boolean.toString(context.isEstimatedUsage())));
+	}
+
+	@Override
+	public KeyValues getHighCardinalityKeyValues(AiObservationContext context) {
+		KeyValues keyValues = KeyValues.empty();
+		keyValues = with(keyValues, BATCH_SIZE, context.getBatchSize());
+		keyValues = with(keyValues, RESULT_SIZE, context.getResultSize());
+		keyValues = with(keyValues, PROMPT_TOKENS, context.getPromptTokens());
+		keyValues = with(keyValues, COMPLETION_TOKENS, context.getCompletionTokens());
+		return with(keyValues, TOTAL_TOKENS, context.getTotalTokens());
+	}
+
+	private static KeyValues with(KeyValues keyValues, String key, Number value) {
+		return (value != null) ? keyValues.and(key, value.toString()) : keyValues;
+	}
+
+	private static String valueOrUnknown(String value) {
+		return (value != null) ? value : UNKNOWN;
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.observation;
+
+import java.util.concurrent.CompletableFuture;
+
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.ai.client.AiClient;
+import org.springframework.ai.client.AiResponse;
+import org.springframework.ai.client.AsyncAiClient;
+import org.springframework.ai.client.AsyncAiClientAdapter;
+import org.springframework.ai.client.StreamingAiClient;
+import org.springframework.ai.observation.AiObservationContext.Kind;
+import org.springframework.ai.prompt.Prompt;
+import org.springframework.util.Assert;
+
+/**
+ * {@link AiClient} decorator observing the generations with Micrometer, tagged by
+ * provider and model, with the token usage reported in the response run info. The
+ * streaming and asynchronous generations are observed until their completion. When the
+ * delegate does not support them, they fall back to its blocking generation: run by an
+ * {@link AsyncAiClientAdapter}, or streamed as a single response.
+ *
+ * @since 0.7.1
+ */
+public class ObservedAiClient implements StreamingAiClient, AsyncAiClient {
+
+	private final AiClient delegate;
+
+	private final AsyncAiClient asyncDelegate;
+
+	private final AiObservations observations;
+
+	/**
+	 * @param delegate the client to observe.
+	 * @param registry the registry of the observations.
+	 * @param provider the provider name.
+	 * @param model the model name, null when unknown.
+	 */
+	public ObservedAiClient(AiClient delegate, ObservationRegistry registry, String provider, String model) {
+		Assert.notNull(delegate, "Delegate must not be null");
+		this.delegate = delegate;
+		this.asyncDelegate = (delegate instanceof AsyncAiClient asyncClient) ? asyncClient
+				: new AsyncAiClientAdapter(delegate);
+		this.observations = new AiObservations(registry, Kind.CHAT, provider, model);
+	}
+
+	/**
+	 * @param convention the convention overriding the default one.
+	 */
+	public void setObservationConvention(AiObservationConvention convention) {
+		this.observations.setConvention(convention);
+	}
+
+	@Override
+	public AiResponse generate(Prompt prompt) {
+		return this.observations.observe("generate", context -> {
+		}, () -> this.delegate.generate(prompt), (context, response) -> context.setUsage(response.getRunInfo()));
+	}
+
+	@Override
+	public CompletableFuture<AiResponse> generateAsync(Prompt prompt) {
+		return this.observations.observeAsync("generate_async", () -> this.asyncDelegate.generateAsync(prompt),
+				(context, response) -> context.setUsage(response.getRunInfo()));
+	}
+
+	@Override
+	public Flux<AiResponse> generateStream(Prompt prompt) {
+		// The usage is reported by the final response of the stream.
+		return this.observations.observeStream("generate_stream", () -> stream(prompt), (context, response) -> {
+			if (response.getRunInfo().containsKey("total-tokens")) {
+				context.setUsage(response.getRunInfo());
+			}
+		});
+	}
+
+	private Flux<AiResponse> stream(Prompt prompt) {
+		if (this.delegate instanceof StreamingAiClient streamingClient) {
+			return streamingClient.generateStream(prompt);
+		}
+		return Mono.fromCallable(() -> this.delegate.generate(prompt)).flux();
+	}
+
+}
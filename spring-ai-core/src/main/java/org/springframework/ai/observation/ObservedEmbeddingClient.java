@@ -0,0 +1,95 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.observation;
+
+import java.util.List;
+
+import io.micrometer.observation.ObservationRegistry;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingClient;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.observation.AiObservationContext.Kind;
+import org.springframework.util.Assert;
+
+/**
+ * {@link EmbeddingClient} decorator observing the embedding calls with Micrometer, tagged
+ * by provider and model, with their batch size and the token usage reported in the
+ * response metadata.
+ *
+ * @since 0.7.1
+ */
+public class ObservedEmbeddingClient implements EmbeddingClient {
+
+	private final EmbeddingClient delegate;
+
+	private final AiObservations observations;
+
+	/**
+	 * @param delegate the client to observe.
+	 * @param registry the registry of the observations.
+	 * @param provider the provider name.
+	 * @param model the model name, null when unknown.
+	 */
+	public ObservedEmbeddingClient(EmbeddingClient delegate, ObservationRegistry registry, String provider,
+			String model) {
+		Assert.notNull(delegate, "Delegate must not be null");
+		this.delegate = delegate;
+		this.observations = new AiObservations(registry, Kind.EMBEDDING, provider, model);
+	}
+
+	/**
+	 * @param convention the convention overriding the default one.
+	 */
+	public void setObservationConvention(AiObservationConvention convention) {
+		this.observations.setConvention(convention);
+	}
+
+	@Override
+	public List<Double> embed(String text) {
+		return this.observations.observe("embed", context -> context.setBatchSize(1), () -> this.delegate.embed(text),
+				(context, embedding) -> {
+				});
+	}
+
+	@Override
+	public List<Double> embed(Document document) {
+		return this.observations.observe("embed", context -> context.setBatchSize(1),
+				() -> this.delegate.embed(document), (context, embedding) -> {
+				});
+	}
+
+	@Override
+	public List<List<Double>> embed(List<String> texts) {
+		return this.observations.observe("embed", context -> context.setBatchSize(texts.size()),
+				() -> this.delegate.embed(texts), (context, embeddings) -> {
+				});
+	}
+
+	@Override
+	public EmbeddingResponse embedForResponse(List<String> texts) {
+		return this.observations.observe("embed", context -> context.setBatchSize(texts.size()),
+				() -> this.delegate.embedForResponse(texts),
+				(context, response) -> context.setUsage(response.getMetadata()));
+	}
+
+	@Override
+	public int dimensions() {
+		return this.delegate.dimensions();
+	}
+
+}
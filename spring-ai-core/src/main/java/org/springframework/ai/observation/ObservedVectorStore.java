@@ -0,0 +1,83 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.observation;
+
+import java.util.List;
+import java.util.Optional;
+
+import io.micrometer.observation.ObservationRegistry;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.observation.AiObservationContext.Kind;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.util.Assert;
+
+/**
+ * {@link VectorStore} decorator observing the store operations with Micrometer, tagged by
+ * store, with the number of documents added, deleted or found.
+ *
+ * @since 0.7.1
+ */
+public class ObservedVectorStore implements VectorStore {
+
+	private final VectorStore delegate;
+
+	private final AiObservations observations;
+
+	/**
+	 * @param delegate the store to observe.
+	 * @param registry the registry of the observations.
+	 * @param store the store name.
+	 */
+	public ObservedVectorStore(VectorStore delegate, ObservationRegistry registry, String store) {
+		Assert.notNull(delegate, "Delegate must not be null");
+		this.delegate = delegate;
+		this.observations = new AiObservations(registry, Kind.VECTOR_STORE, store, null);
+	}
+
+	/**
+	 * @param convention the convention overriding the default one.
+	 */
+	public void setObservationConvention(AiObservationConvention convention) {
+		this.observations.setConvention(convention);
+	}
+
+	@Override
+	public void add(List<Document> documents) {
+		this.observations.observe("add", context -> context.setBatchSize(documents.size()), () -> {
+			this.delegate.add(documents);
+			return null;
+		}, (context, result) -> {
+		});
+	}
+
+	@Override
+	public Optional<Boolean> delete(List<String> idList) {
+		return this.observations.observe("delete", context -> context.setBatchSize(idList.size()),
+				() -> this.delegate.delete(idList), (context, result) -> {
+				});
+	}
+
+	@Override
+	public List<Document> similaritySearch(SearchRequest request) {
+		return this.observations.observe("similarity_search", context -> {
+		}, () -> this.delegate.similaritySearch(request),
+				(context, documents) -> context.setResultSize(documents.size()));
+	}
+
+}
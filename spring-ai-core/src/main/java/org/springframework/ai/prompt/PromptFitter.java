@@ -0,0 +1,156 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.prompt;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.springframework.ai.prompt.messages.ChatMessage;
+import org.springframework.ai.prompt.messages.Message;
+import org.springframework.ai.prompt.messages.MessageType;
+import org.springframework.ai.tokenizer.TokenCounter;
+import org.springframework.util.Assert;
+
+/**
+ * Fits a prompt into a token budget before it is sent, rather than having the provider
+ * reject it after a full round trip. When the prompt exceeds the budget, its messages are
+ * trimmed or dropped, lowest priority first and, within a priority, oldest first. A
+ * message is trimmed to its first tokens when enough of it fits, dropped otherwise.
+ * <p>
+ * The priority of a message is read from its {@link #PRIORITY_PROPERTY} property, such as
+ * a low priority set on the retrieved context chunks. Without it, the system messages and
+ * the last message are {@link #REQUIRED}, the other ones have a priority of zero.
+ *
+ * @since 0.7.1
+ */
+public class PromptFitter {
+
+	public static final String PRIORITY_PROPERTY = "priority";
+
+	/**
+	 * Priority of the messages which are never trimmed nor dropped.
+	 */
+	public static final int REQUIRED = Integer.MAX_VALUE;
+
+	public static final int DEFAULT_MIN_TRIMMED_TOKENS = 32;
+
+	private final TokenCounter tokenCounter;
+
+	private final int maxTokens;
+
+	private int minTrimmedTokens = DEFAULT_MIN_TRIMMED_TOKENS;
+
+	/**
+	 * @param tokenCounter the counter of the model the prompts are sent to.
+	 * @param maxTokens the token budget of the prompts, typically the model context
+	 * window minus the tokens reserved for the completion.
+	 */
+	public PromptFitter(TokenCounter tokenCounter, int maxTokens) {
+		Assert.notNull(tokenCounter, "Token counter must not be null");
+		Assert.isTrue(maxTokens > 0, "Max tokens must be positive");
+		this.tokenCounter = tokenCounter;
+		this.maxTokens = maxTokens;
+	}
+
+	/**
+	 * @param minTrimmedTokens the minimum content tokens a trimmed message keeps. A
+	 * message that would keep less is dropped.
+	 */
+	public void setMinTrimmedTokens(int minTrimmedTokens) {
+		Assert.isTrue(minTrimmedTokens > 0, "Min trimmed tokens must be positive");
+		this.minTrimmedTokens = minTrimmedTokens;
+	}
+
+	/**
+	 * Fit the prompt into the token budget.
+	 * @param prompt the prompt to fit.
+	 * @return the fitted prompt and its token counts.
+	 * @throws IllegalArgumentException if the required messages alone exceed the budget.
+	 */
+	public FittedPrompt fit(Prompt prompt) {
+		List<Message> messages = new ArrayList<>(prompt.getMessages());
+		int originalTokens = this.tokenCounter.count(prompt);
+		int tokens = originalTokens;
+		if (tokens <= this.maxTokens) {
+			return new FittedPrompt(prompt, tokens, originalTokens, 0, 0);
+		}
+
+		List<Integer> candidates = IntStream.range(0, messages.size())
+			.filter(i -> priority(messages, i) != REQUIRED)
+			.boxed()
+			.sorted(Comparator.<Integer>comparingInt(i -> priority(messages, i)).thenComparingInt(i -> i))
+			.toList();
+
+		int dropped = 0;
+		int trimmed = 0;
+		for (int i : candidates) {
+			if (tokens <= this.maxTokens) {
+				break;
+			}
+			Message message = messages.get(i);
+			int messageTokens = this.tokenCounter.count(message);
+			int contentTokens = this.tokenCounter.count(message.getContent());
+			int keptTokens = contentTokens - (tokens - this.maxTokens);
+			if (keptTokens >= this.minTrimmedTokens) {
+				Message trimmedMessage = new ChatMessage(message.getMessageType(),
+						this.tokenCounter.truncate(message.getContent(), keptTokens), message.getProperties());
+				messages.set(i, trimmedMessage);
+				tokens += this.tokenCounter.count(trimmedMessage) - messageTokens;
+				trimmed++;
+			}
+			else {
+				messages.set(i, null);
+				tokens -= messageTokens;
+				dropped++;
+			}
+		}
+
+		if (tokens > this.maxTokens) {
+			throw new IllegalArgumentException("The prompt required messages alone have " + tokens
+					+ " tokens, exceeding the budget of " + this.maxTokens + " tokens");
+		}
+		messages.removeIf(message -> message == null);
+		return new FittedPrompt(new Prompt(messages), tokens, originalTokens, dropped, trimmed);
+	}
+
+	private static int priority(List<Message> messages, int index) {
+		Message message = messages.get(index);
+		if (message.getProperties() != null && message.getProperties().get(PRIORITY_PROPERTY) instanceof Number n) {
+			return n.intValue();
+		}
+		if (message.getMessageType() == MessageType.SYSTEM || index == messages.size() - 1) {
+			return REQUIRED;
+		}
+		return 0;
+	}
+
+	/**
+	 * A prompt fitted into the token budget.
+	 *
+	 * @param prompt the fitted prompt, the original one when it already fitted.
+	 * @param tokens the tokens of the fitted prompt.
+	 * @param originalTokens the tokens of the original prompt.
+	 * @param droppedMessages the number of messages dropped.
+	 * @param trimmedMessages the number of messages trimmed.
+	 */
+	public record FittedPrompt(Prompt prompt, int tokens, int originalTokens, int droppedMessages,
+			int trimmedMessages) {
+	}
+
+}
@@ -0,0 +1,445 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.ratelimit;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.util.Assert;
+
+/**
+ * Client side limiter shared by the calls made against a single model provider account.
+ * Combines a tokens-per-minute and a requests-per-minute budget, both refilled
+ * continuously, with an AIMD (additive increase, multiplicative decrease) concurrency
+ * limit.
+ * <p>
+ * Callers {@link #acquire(long) acquire} a {@link Permit} with an estimate of the tokens
+ * the request will consume and, once the provider answered, report the actual usage with
+ * {@link Permit#release(long)}. A throttled response (HTTP 429) is reported with
+ * {@link Permit#throttled(Duration)}, which shrinks the concurrency limit by the backoff
+ * ratio and pauses all callers for the duration advertised by the {@code Retry-After}
+ * header. Every successful request grows the limit again by {@code 1/limit}.
+ *
+ * @since 0.7.1
+ */
+public class AdaptiveRateLimiter {
+
+	private static final Logger logger = LoggerFactory.getLogger(AdaptiveRateLimiter.class);
+
+	private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+	private static final Duration DEFAULT_THROTTLE_PAUSE = Duration.ofSeconds(1);
+
+	/**
+	 * Marks a stream cancelled before its permit was handed over.
+	 */
+	private static final Object CANCELLED = new Object();
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition available = this.lock.newCondition();
+
+	private final long tokensPerMinute;
+
+	private final long requestsPerMinute;
+
+	private final int minConcurrency;
+
+	private final int maxConcurrency;
+
+	private final double backoffRatio;
+
+	private double availableTokens;
+
+	private double availableRequests;
+
+	private double concurrencyLimit;
+
+	private int inFlight;
+
+	private long lastRefillNanos;
+
+	private long pausedUntilNanos;
+
+	/**
+	 * Create a limiter with no token or request budget and an adaptive concurrency limit
+	 * between 1 and 64.
+	 */
+	public AdaptiveRateLimiter() {
+		this(0, 0, 4, 1, 64, 0.5);
+	}
+
+	/**
+	 * Create a new limiter.
+	 * @param tokensPerMinute token budget per minute, zero or negative to disable.
+	 * @param requestsPerMinute request budget per minute, zero or negative to disable.
+	 * @param initialConcurrency concurrency limit to start with.
+	 * @param minConcurrency lower bound the concurrency limit is never decreased below.
+	 * @param maxConcurrency upper bound the concurrency limit is never increased above.
+	 * @param backoffRatio factor, in the (0, 1) range, applied to the concurrency limit
+	 * when the provider throttles a request.
+	 */
+	public AdaptiveRateLimiter(long tokensPerMinute, long requestsPerMinute, int initialConcurrency, int minConcurrency,
+			int maxConcurrency, double backoffRatio) {
+		Assert.isTrue(minConcurrency > 0, "Min concurrency must be greater than zero");
+		Assert.isTrue(maxConcurrency >= minConcurrency, "Max concurrency must not be less than min concurrency");
+		Assert.isTrue(backoffRatio > 0 && backoffRatio < 1, "Backoff ratio must be in the (0, 1) range");
+		this.tokensPerMinute = tokensPerMinute;
+		this.requestsPerMinute = requestsPerMinute;
+		this.minConcurrency = minConcurrency;
+		this.maxConcurrency = maxConcurrency;
+		this.backoffRatio = backoffRatio;
+		this.availableTokens = tokensPerMinute;
+		this.availableRequests = requestsPerMinute;
+		this.concurrencyLimit = Math.max(minConcurrency, Math.min(maxConcurrency, initialConcurrency));
+		this.lastRefillNanos = System.nanoTime();
+		this.pausedUntilNanos = this.lastRefillNanos;
+	}
+
+	/**
+	 * Rough token estimate for the given texts, used to reserve budget before the
+	 * provider reports the actual usage. Assumes ~4 characters per token.
+	 * @param texts the texts sent to the provider.
+	 * @return the estimated number of tokens.
+	 */
+	public static long estimateTokens(List<String> texts) {
+		long chars = 0;
+		for (String text : texts) {
+			chars += (text != null) ? text.length() : 0;
+		}
+		return (chars + 3) / 4;
+	}
+
+	/**
+	 * Block until a request estimated to consume the given number of tokens is allowed to
+	 * be sent.
+	 * @param estimatedTokens the number of tokens reserved for the request.
+	 * @return the permit that must be released once the request completed.
+	 */
+	public Permit acquire(long estimatedTokens) {
+		// Never wait for more tokens than the bucket can hold.
+		long reserved = (this.tokensPerMinute > 0) ? Math.min(Math.max(estimatedTokens, 0), this.tokensPerMinute) : 0;
+		this.lock.lock();
+		try {
+			while (true) {
+				long now = System.nanoTime();
+				refill(now);
+				long waitNanos = waitNanos(now, reserved);
+				if (waitNanos <= 0) {
+					this.inFlight++;
+					if (this.tokensPerMinute > 0) {
+						this.availableTokens -= reserved;
+					}
+					if (this.requestsPerMinute > 0) {
+						this.availableRequests -= 1;
+					}
+					return new Permit(reserved);
+				}
+				this.available.awaitNanos(waitNanos);
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for rate limit permit", ex);
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Run the given call within the limits, reporting the provider usage or throttling
+	 * back to the limiter.
+	 * @param estimatedTokens the number of tokens reserved for the request.
+	 * @param call the provider call.
+	 * @param usedTokens extracts the tokens used from the provider response, returns a
+	 * negative value if unknown.
+	 * @param classifier detects the provider throttling exceptions.
+	 * @param <T> the provider response type.
+	 * @return the provider response.
+	 */
+	public <T> T execute(long estimatedTokens, Supplier<T> call, ToLongFunction<T> usedTokens,
+			ThrottleClassifier classifier) {
+		Permit permit = acquire(estimatedTokens);
+		T response;
+		try {
+			response = call.get();
+		}
+		catch (RuntimeException ex) {
+			if (classifier.isThrottled(ex)) {
+				permit.throttled(classifier.getRetryAfter(ex));
+			}
+			else {
+				permit.failed();
+			}
+			throw ex;
+		}
+		permit.release((response != null) ? usedTokens.applyAsLong(response) : -1);
+		return response;
+	}
+
+	/**
+	 * Run the given streaming call within the limits. The permit is held until the stream
+	 * completes, fails or is cancelled.
+	 * @param estimatedTokens the number of tokens reserved for the request.
+	 * @param call the provider streaming call, subscribed once the permit is granted.
+	 * @param usedTokens extracts the tokens used so far from a streamed element, returns
+	 * a negative value if unknown. The last known value is reported.
+	 * @param classifier detects the provider throttling exceptions.
+	 * @param <T> the streamed element type.
+	 * @return the limited stream.
+	 */
+	public <T> Flux<T> executeStream(long estimatedTokens, Supplier<Flux<T>> call, ToLongFunction<T> usedTokens,
+			ThrottleClassifier classifier) {
+		return Flux.defer(() -> {
+			AtomicLong used = new AtomicLong(-1);
+			// Hands the permit over to the stream, or back to the limiter when the
+			// subscriber cancelled while it was being acquired.
+			AtomicReference<Object> handoff = new AtomicReference<>();
+			Mono<Permit> granted = Mono.fromCallable(() -> {
+				Permit permit = acquire(estimatedTokens);
+				if (!handoff.compareAndSet(null, permit)) {
+					permit.failed();
+				}
+				return permit;
+			}).subscribeOn(Schedulers.boundedElastic()).doOnCancel(() -> {
+				if (handoff.getAndSet(CANCELLED) instanceof Permit permit) {
+					permit.failed();
+				}
+			});
+			return Flux.usingWhen(granted, permit -> {
+				if (handoff.getAndSet(permit) == CANCELLED) {
+					return Flux.<T>empty();
+				}
+				return call.get().doOnNext(element -> {
+					long tokens = usedTokens.applyAsLong(element);
+					if (tokens >= 0) {
+						used.set(tokens);
+					}
+				});
+			}, permit -> Mono.fromRunnable(() -> permit.release(used.get())), (permit, ex) -> Mono.fromRunnable(() -> {
+				if (ex instanceof RuntimeException runtimeException && classifier.isThrottled(runtimeException)) {
+					permit.throttled(classifier.getRetryAfter(runtimeException));
+				}
+				else {
+					permit.failed();
+				}
+			}), permit -> Mono.fromRunnable(() -> permit.release(used.get())));
+		});
+	}
+
+	/**
+	 * @return the current adaptive concurrency limit.
+	 */
+	public int getConcurrencyLimit() {
+		this.lock.lock();
+		try {
+			return (int) this.concurrencyLimit;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the number of permits currently acquired and not released.
+	 */
+	public int getInFlight() {
+		this.lock.lock();
+		try {
+			return this.inFlight;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	private long waitNanos(long now, long reserved) {
+		if (now - this.pausedUntilNanos < 0) {
+			return this.pausedUntilNanos - now;
+		}
+		if (this.inFlight >= (int) this.concurrencyLimit) {
+			// Woken up by a release.
+			return Long.MAX_VALUE;
+		}
+		long wait = 0;
+		if (this.requestsPerMinute > 0 && this.availableRequests < 1) {
+			wait = Math.max(wait, nanosToRefill(1 - this.availableRequests, this.requestsPerMinute));
+		}
+		if (this.tokensPerMinute > 0 && this.availableTokens < reserved) {
+			wait = Math.max(wait, nanosToRefill(reserved - this.availableTokens, this.tokensPerMinute));
+		}
+		return wait;
+	}
+
+	private static long nanosToRefill(double missing, long perMinute) {
+		return Math.max(1, (long) Math.ceil(missing * NANOS_PER_MINUTE / perMinute));
+	}
+
+	private void refill(long now) {
+		long elapsed = now - this.lastRefillNanos;
+		if (elapsed <= 0) {
+			return;
+		}
+		this.lastRefillNanos = now;
+		if (this.tokensPerMinute > 0) {
+			this.availableTokens = Math.min(this.tokensPerMinute,
+					this.availableTokens + (double) elapsed * this.tokensPerMinute / NANOS_PER_MINUTE);
+		}
+		if (this.requestsPerMinute > 0) {
+			this.availableRequests = Math.min(this.requestsPerMinute,
+					this.availableRequests + (double) elapsed * this.requestsPerMinute / NANOS_PER_MINUTE);
+		}
+	}
+
+	private void complete(long reservedTokens, long usedTokens) {
+		this.lock.lock();
+		try {
+			this.inFlight--;
+			if (this.tokensPerMinute > 0 && usedTokens >= 0) {
+				// Reconcile the estimate with the usage reported by the provider. The
+				// bucket may go negative, which delays the following requests.
+				this.availableTokens += reservedTokens - usedTokens;
+			}
+			this.concurrencyLimit = Math.min(this.maxConcurrency, this.concurrencyLimit + 1 / this.concurrencyLimit);
+			this.available.signalAll();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	private void backoff(Duration retryAfter) {
+		this.lock.lock();
+		try {
+			this.inFlight--;
+			// The throttled request did not consume its reservation, but the budget is
+			// evidently exhausted on the provider side.
+			this.availableTokens = Math.min(this.availableTokens, 0);
+			this.availableRequests = Math.min(this.availableRequests, 0);
+			this.concurrencyLimit = Math.max(this.minConcurrency, this.concurrencyLimit * this.backoffRatio);
+			Duration pause = (retryAfter != null && !retryAfter.isNegative()) ? retryAfter : DEFAULT_THROTTLE_PAUSE;
+			long pausedUntil = System.nanoTime() + pause.toNanos();
+			if (pausedUntil - this.pausedUntilNanos > 0) {
+				this.pausedUntilNanos = pausedUntil;
+			}
+			logger.debug("Request throttled, reducing concurrency limit to {} and pausing for {}",
+					(int) this.concurrencyLimit, pause);
+			this.available.signalAll();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	private void abort() {
+		this.lock.lock();
+		try {
+			this.inFlight--;
+			this.available.signalAll();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Parse the value of a {@code Retry-After} header expressed in (possibly fractional)
+	 * seconds.
+	 * @param value the header value, can be null.
+	 * @return the parsed duration or null if the value is missing or not numeric.
+	 */
+	public static Duration parseRetryAfter(String value) {
+		if (value == null || value.isBlank()) {
+			return null;
+		}
+		try {
+			return Duration.ofMillis((long) (Double.parseDouble(value.trim()) * 1000));
+		}
+		catch (NumberFormatException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reservation granted by {@link AdaptiveRateLimiter#acquire(long)}. Exactly one of
+	 * the completion methods must be called, further calls are ignored.
+	 */
+	public final class Permit {
+
+		private final long reservedTokens;
+
+		private boolean completed;
+
+		private Permit(long reservedTokens) {
+			this.reservedTokens = reservedTokens;
+		}
+
+		/**
+		 * Complete a successful request.
+		 * @param usedTokens the tokens reported by the provider, or a negative value if
+		 * unknown, in which case the estimate is kept.
+		 */
+		public void release(long usedTokens) {
+			if (markCompleted()) {
+				complete(this.reservedTokens, usedTokens);
+			}
+		}
+
+		/**
+		 * Complete a request the provider rejected because of rate limiting.
+		 * @param retryAfter pause advertised by the provider, can be null.
+		 */
+		public void throttled(Duration retryAfter) {
+			if (markCompleted()) {
+				backoff(retryAfter);
+			}
+		}
+
+		/**
+		 * Complete a request that failed for any reason other than rate limiting.
+		 */
+		public void failed() {
+			if (markCompleted()) {
+				abort();
+			}
+		}
+
+		private synchronized boolean markCompleted() {
+			if (this.completed) {
+				return false;
+			}
+			this.completed = true;
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Tells the {@link AdaptiveRateLimiter} whether a provider specific exception means the
+ * request was rejected because of rate limiting.
+ *
+ * @since 0.7.1
+ */
+public interface ThrottleClassifier {
+
+	/**
+	 * @param ex the exception thrown by the provider client.
+	 * @return true if the provider rejected the request with HTTP 429.
+	 */
+	boolean isThrottled(RuntimeException ex);
+
+	/**
+	 * @param ex a throttling exception.
+	 * @return the pause advertised by the provider or null if unknown.
+	 */
+	default Duration getRetryAfter(RuntimeException ex) {
+		return null;
+	}
+
+}
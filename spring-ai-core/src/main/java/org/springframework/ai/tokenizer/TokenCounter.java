@@ -0,0 +1,155 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.tokenizer;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import com.knuddels.jtokkit.api.EncodingType;
+import com.knuddels.jtokkit.api.ModelType;
+
+import org.springframework.ai.prompt.Prompt;
+import org.springframework.ai.prompt.messages.Message;
+import org.springframework.util.Assert;
+
+/**
+ * Counts the tokens of texts and prompts with a jtokkit {@link Encoding}, so that their
+ * size is known before they are sent to a model. Chat prompts are counted the way the
+ * {@literal OpenAI} chat models bill them: each message costs a few tokens of framing on
+ * top of its content, and the reply is primed with a few more.
+ * <p>
+ * The counts of other model families are an estimate, a counter built with their own
+ * {@link Encoding} gives exact ones.
+ *
+ * @since 0.7.1
+ */
+public class TokenCounter {
+
+	public static final int DEFAULT_TOKENS_PER_MESSAGE = 3;
+
+	public static final int DEFAULT_TOKENS_PER_REPLY = 3;
+
+	private static final EncodingRegistry registry = Encodings.newLazyEncodingRegistry();
+
+	private final Encoding encoding;
+
+	private int tokensPerMessage = DEFAULT_TOKENS_PER_MESSAGE;
+
+	private int tokensPerReply = DEFAULT_TOKENS_PER_REPLY;
+
+	/**
+	 * Create a counter with the {@code cl100k_base} encoding of the GPT-3.5 and GPT-4
+	 * models.
+	 */
+	public TokenCounter() {
+		this(registry.getEncoding(EncodingType.CL100K_BASE));
+	}
+
+	/**
+	 * @param encoding the encoding of the model the texts are sent to.
+	 */
+	public TokenCounter(Encoding encoding) {
+		Assert.notNull(encoding, "Encoding must not be null");
+		this.encoding = encoding;
+	}
+
+	/**
+	 * Create a counter with the encoding of the given model. Versioned model names, such
+	 * as {@code gpt-4-0613}, use the encoding of their base model. Unknown models use the
+	 * {@code cl100k_base} encoding.
+	 * @param model the model name.
+	 * @return the counter of the model.
+	 */
+	public static TokenCounter forModel(String model) {
+		Assert.hasText(model, "Model must not be empty");
+		Optional<ModelType> modelType = Stream.of(ModelType.values())
+			.filter(type -> model.startsWith(type.getName()))
+			.max(Comparator.comparingInt(type -> type.getName().length()));
+		return modelType.map(type -> new TokenCounter(registry.getEncodingForModel(type))).orElseGet(TokenCounter::new);
+	}
+
+	/**
+	 * @param tokensPerMessage the tokens of framing added to every message.
+	 */
+	public void setTokensPerMessage(int tokensPerMessage) {
+		Assert.isTrue(tokensPerMessage >= 0, "Tokens per message must not be negative");
+		this.tokensPerMessage = tokensPerMessage;
+	}
+
+	/**
+	 * @param tokensPerReply the tokens priming the reply, added once per prompt.
+	 */
+	public void setTokensPerReply(int tokensPerReply) {
+		Assert.isTrue(tokensPerReply >= 0, "Tokens per reply must not be negative");
+		this.tokensPerReply = tokensPerReply;
+	}
+
+	/**
+	 * @return the encoding the tokens are counted with.
+	 */
+	public Encoding getEncoding() {
+		return this.encoding;
+	}
+
+	public int count(String text) {
+		return (text != null) ? this.encoding.countTokens(text) : 0;
+	}
+
+	/**
+	 * @param message the message to count.
+	 * @return the tokens of the message content and framing.
+	 */
+	public int count(Message message) {
+		return this.tokensPerMessage + count(message.getContent());
+	}
+
+	/**
+	 * @param prompt the prompt to count.
+	 * @return the tokens of all the prompt messages and of the reply priming.
+	 */
+	public int count(Prompt prompt) {
+		int tokens = this.tokensPerReply;
+		for (Message message : prompt.getMessages()) {
+			tokens += count(message);
+		}
+		return tokens;
+	}
+
+	/**
+	 * Truncate the text to its first tokens.
+	 * @param text the text to truncate.
+	 * @param maxTokens the maximum number of tokens to keep.
+	 * @return the text itself when it fits, its longest prefix that fits otherwise.
+	 */
+	public String truncate(String text, int maxTokens) {
+		Assert.isTrue(maxTokens >= 0, "Max tokens must not be negative");
+		if (text == null || maxTokens == 0) {
+			return "";
+		}
+		List<Integer> tokens = this.encoding.encode(text);
+		if (tokens.size() <= maxTokens) {
+			return text;
+		}
+		return this.encoding.decode(tokens.subList(0, maxTokens));
+	}
+
+}
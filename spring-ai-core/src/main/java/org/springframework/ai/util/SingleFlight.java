@@ -0,0 +1,93 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.util;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces the identical concurrent calls into a single one, used by the coalescing
+ * clients. A call arriving while one with the same key is in flight waits for, and
+ * shares, its result or failure. The in-flight entry is removed as soon as the call
+ * completes, so later calls are made again.
+ *
+ * @since 0.7.1
+ */
+public final class SingleFlight {
+
+	private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+	private final AtomicLong coalesced = new AtomicLong();
+
+	/**
+	 * @param key the call key, such as a {@link TextDigest}. Calls sharing a key must
+	 * return the same type.
+	 * @param call the call to make, unless an identical one is in flight.
+	 * @return the result of the call, or of the identical in-flight one.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T execute(String key, Supplier<T> call) {
+		CompletableFuture<Object> result = new CompletableFuture<>();
+		CompletableFuture<Object> existing = this.inFlight.putIfAbsent(key, result);
+		if (existing != null) {
+			this.coalesced.incrementAndGet();
+			return (T) join(existing);
+		}
+
+		try {
+			T value = call.get();
+			result.complete(value);
+			return value;
+		}
+		catch (Throwable ex) {
+			result.completeExceptionally(ex);
+			throw ex;
+		}
+		finally {
+			this.inFlight.remove(key, result);
+		}
+	}
+
+	/**
+	 * @return the number of calls served by an identical in-flight call.
+	 */
+	public long getCoalescedCount() {
+		return this.coalesced.get();
+	}
+
+	/**
+	 * Wait for the in-flight call, rethrowing its failure as is.
+	 */
+	private static Object join(CompletableFuture<Object> call) {
+		try {
+			return call.join();
+		}
+		catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (ex.getCause() instanceof Error error) {
+				throw error;
+			}
+			throw ex;
+		}
+	}
+
+}
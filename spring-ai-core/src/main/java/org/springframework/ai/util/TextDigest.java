@@ -0,0 +1,73 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * SHA-256 digest of texts, used to key the requests of the caching, coalescing and
+ * deduplicating clients. The texts are length prefixed, so that two lists of texts only
+ * have the same digest when they hold the same texts, in the same order.
+ *
+ * @since 0.7.1
+ */
+public final class TextDigest {
+
+	private TextDigest() {
+	}
+
+	/**
+	 * @param text the text to digest.
+	 * @return the hex encoded digest.
+	 */
+	public static String digest(String text) {
+		return digest(List.of(text));
+	}
+
+	/**
+	 * @param texts the texts to digest, in order, can hold nulls.
+	 * @return the hex encoded digest.
+	 */
+	public static String digest(List<String> texts) {
+		MessageDigest digest = newDigest();
+		for (String text : texts) {
+			update(digest, text);
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		// Length prefixed, so that the boundaries between the values are not ambiguous.
+		byte[] bytes = (value != null) ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+		digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+		digest.update((byte) ':');
+		digest.update(bytes);
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -4,6 +4,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.embedding.EmbeddingClient;
+import org.springframework.ai.embedding.EmbeddingUtil;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -87,19 +88,7 @@ public class InMemoryVectorStore implements VectorStore {
 	public class EmbeddingMath {
 
 		public static double cosineSimilarity(List<Double> vectorX, List<Double> vectorY) {
-			if (vectorX.size() != vectorY.size()) {
-				throw new IllegalArgumentException("Vectors lengths must be equal");
-			}
-
-			double dotProduct = dotProduct(vectorX, vectorY);
-			double normX = norm(vectorX);
-			double normY = norm(vectorY);
-
-			if (normX == 0 || normY == 0) {
-				throw new IllegalArgumentException("Vectors cannot have zero norm");
-			}
-
-			return dotProduct / (Math.sqrt(normX) * Math.sqrt(normY));
+			return EmbeddingUtil.cosineSimilarity(vectorX, vectorY);
 		}
 
 		public static double dotProduct(List<Double> vectorX, List<Double> vectorY) {
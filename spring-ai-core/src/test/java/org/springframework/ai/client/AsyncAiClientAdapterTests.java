@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.client;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.prompt.Prompt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AsyncAiClientAdapterTests {
+
+	@Test
+	public void generateAsyncDoesNotBlockTheCaller() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AiClient blockingClient = prompt -> {
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return new AiResponse(List.of(new Generation(prompt.getContents())));
+		};
+		AsyncAiClientAdapter client = new AsyncAiClientAdapter(blockingClient);
+
+		try {
+			CompletableFuture<AiResponse> first = client.generateAsync(new Prompt("first"));
+			CompletableFuture<AiResponse> second = client.generateAsync(new Prompt("second"));
+			assertThat(first).isNotDone();
+			assertThat(second).isNotDone();
+
+			release.countDown();
+			assertThat(first.get(5, TimeUnit.SECONDS).getGeneration().getText()).isEqualTo("first");
+			assertThat(second.get(5, TimeUnit.SECONDS).getGeneration().getText()).isEqualTo("second");
+		}
+		finally {
+			client.destroy();
+		}
+	}
+
+}
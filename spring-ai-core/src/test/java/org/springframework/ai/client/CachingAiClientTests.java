@@ -0,0 +1,190 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.client;
+
+import java.io.File;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.ai.prompt.Prompt;
+import org.springframework.ai.prompt.messages.SystemMessage;
+import org.springframework.ai.prompt.messages.UserMessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CachingAiClientTests {
+
+	private static final Map<String, Object> DETERMINISTIC = Map.of(CachingAiClient.TEMPERATURE_SETTING, 0.0);
+
+	private final List<String> requests = new ArrayList<>();
+
+	private final AiClient delegate = prompt -> {
+		this.requests.add(prompt.getContents());
+		return new AiResponse(List.of(new Generation("re: " + prompt.getContents(), Map.of("role", "assistant"))),
+				Map.of(), Map.of("call", this.requests.size()));
+	};
+
+	@Test
+	public void cacheIdenticalPrompts() {
+		Map<String, Object> settings = new HashMap<>(Map.of("model", "a", CachingAiClient.TEMPERATURE_SETTING, 0.0));
+		var client = new CachingAiClient(this.delegate, () -> settings, 10);
+
+		AiResponse miss = client.generate(new Prompt("hello"));
+		AiResponse hit = client.generate(new Prompt("hello"));
+		assertThat(miss.getGeneration().getText()).isEqualTo("re: hello");
+		assertThat(hit.getGeneration().getText()).isEqualTo("re: hello");
+		assertThat(miss.getRunInfo()).doesNotContainKey(CachingAiClient.CACHED_RUN_INFO);
+		assertThat(hit.getRunInfo()).containsEntry(CachingAiClient.CACHED_RUN_INFO, true);
+		// Same contents, different message types.
+		client.generate(new Prompt(List.of(new SystemMessage("hello"))));
+		// Different model.
+		settings.put("model", "b");
+		client.generate(new Prompt("hello"));
+
+		assertThat(this.requests).hasSize(3);
+		assertThat(client.getHitCount()).isEqualTo(1);
+		assertThat(client.getMissCount()).isEqualTo(3);
+	}
+
+	@Test
+	public void bypassNonDeterministicPrompts() {
+		Map<String, Object> settings = Map.of(CachingAiClient.TEMPERATURE_SETTING, 0.7);
+		var client = new CachingAiClient(this.delegate, () -> settings, 10);
+
+		client.generate(new Prompt("hello"));
+		client.generate(new Prompt("hello"));
+		assertThat(this.requests).hasSize(2);
+		assertThat(client.getBypassCount()).isEqualTo(2);
+
+		client.setCacheNonDeterministic(true);
+		client.generate(new Prompt("hello"));
+		client.generate(new Prompt("hello"));
+		assertThat(this.requests).hasSize(3);
+	}
+
+	@Test
+	public void defaultSettingsFromTheDelegate() {
+		var delegate = new SettingsClient();
+		var client = new CachingAiClient(delegate);
+
+		// Non-zero temperature by default.
+		client.generate(new Prompt("hello"));
+		client.generate(new Prompt("hello"));
+		assertThat(client.getBypassCount()).isEqualTo(2);
+
+		delegate.temperature = 0.0;
+		client.generate(new Prompt("hello"));
+		client.generate(new Prompt("hello"));
+		// The model is part of the key.
+		delegate.model = "b";
+		client.generate(new Prompt("hello"));
+
+		assertThat(client.getHitCount()).isEqualTo(1);
+		assertThat(client.getMissCount()).isEqualTo(2);
+		assertThat(delegate.calls).isEqualTo(4);
+	}
+
+	@Test
+	public void bypassUnknownTemperature() {
+		var client = new CachingAiClient(this.delegate);
+
+		client.generate(new Prompt("hello"));
+		client.generate(new Prompt("hello"));
+		assertThat(client.getBypassCount()).isEqualTo(2);
+
+		var delegate = new SettingsClient();
+		delegate.temperature = null;
+		var settingsClient = new CachingAiClient(delegate);
+		settingsClient.generate(new Prompt("hello"));
+		settingsClient.generate(new Prompt("hello"));
+		assertThat(settingsClient.getBypassCount()).isEqualTo(2);
+		assertThat(delegate.calls).isEqualTo(2);
+
+		client.setCacheNonDeterministic(true);
+		client.generate(new Prompt("hello"));
+		client.generate(new Prompt("hello"));
+		assertThat(client.getHitCount()).isEqualTo(1);
+		assertThat(this.requests).hasSize(3);
+	}
+
+	@Test
+	public void expireAfterTimeToLive() {
+		var client = new CachingAiClient(this.delegate, () -> DETERMINISTIC, CachingAiClient.DEFAULT_MAX_ENTRIES);
+		client.setTimeToLive(Duration.ofMinutes(1));
+		client.setClock(Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+
+		client.generate(new Prompt("hello"));
+		client.generate(new Prompt("hello"));
+		client.setClock(Clock.fixed(Instant.EPOCH.plus(Duration.ofMinutes(2)), ZoneOffset.UTC));
+		client.generate(new Prompt("hello"));
+
+		assertThat(this.requests).hasSize(2);
+	}
+
+	@Test
+	public void persistOnDisk(@TempDir File directory) {
+		var client = new CachingAiClient(this.delegate, () -> DETERMINISTIC, CachingAiClient.DEFAULT_MAX_ENTRIES);
+		client.setDirectory(directory);
+		client.generate(new Prompt(new UserMessage("hello")));
+
+		var restarted = new CachingAiClient(this.delegate, () -> DETERMINISTIC, CachingAiClient.DEFAULT_MAX_ENTRIES);
+		restarted.setDirectory(directory);
+		AiResponse response = restarted.generate(new Prompt(new UserMessage("hello")));
+
+		assertThat(this.requests).hasSize(1);
+		assertThat(response.getGeneration().getText()).isEqualTo("re: hello");
+		assertThat(response.getGeneration().getInfo()).containsEntry("role", "assistant");
+		assertThat(response.getRunInfo()).containsEntry("call", 1);
+
+		restarted.clear();
+		restarted.generate(new Prompt(new UserMessage("hello")));
+		assertThat(this.requests).hasSize(2);
+	}
+
+	static class SettingsClient implements AiClient {
+
+		String model = "a";
+
+		Double temperature = 0.7;
+
+		int calls;
+
+		public String getModel() {
+			return this.model;
+		}
+
+		public Double getTemperature() {
+			return this.temperature;
+		}
+
+		@Override
+		public AiResponse generate(Prompt prompt) {
+			this.calls++;
+			return new AiResponse(List.of(new Generation(this.model + ": " + prompt.getContents())));
+		}
+
+	}
+
+}
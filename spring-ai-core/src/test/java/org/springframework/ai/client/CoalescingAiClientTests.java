@@ -0,0 +1,105 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.prompt.Prompt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CoalescingAiClientTests {
+
+	private final AtomicInteger calls = new AtomicInteger();
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@Test
+	public void coalesceIdenticalInFlightRequests() throws Exception {
+		var client = new CoalescingAiClient(prompt -> {
+			this.calls.incrementAndGet();
+			await();
+			return new AiResponse(List.of(new Generation("re: " + prompt.getContents())));
+		});
+
+		List<CompletableFuture<AiResponse>> responses = generateConcurrently(client, 8);
+		this.release.countDown();
+
+		for (CompletableFuture<AiResponse> response : responses) {
+			assertThat(response.get(5, TimeUnit.SECONDS).getGeneration().getText()).isEqualTo("re: hello");
+		}
+		assertThat(this.calls).hasValue(1);
+		assertThat(client.getCoalescedCount()).isEqualTo(7);
+
+		// Completed calls are not reused.
+		client.generate(new Prompt("hello"));
+		assertThat(this.calls).hasValue(2);
+	}
+
+	@Test
+	public void propagateFailuresToAllWaiters() throws Exception {
+		var client = new CoalescingAiClient(prompt -> {
+			this.calls.incrementAndGet();
+			await();
+			throw new IllegalStateException("boom");
+		});
+
+		List<CompletableFuture<AiResponse>> responses = generateConcurrently(client, 4);
+		this.release.countDown();
+
+		for (CompletableFuture<AiResponse> response : responses) {
+			assertThatThrownBy(() -> response.get(5, TimeUnit.SECONDS))
+				.hasRootCauseInstanceOf(IllegalStateException.class);
+		}
+		assertThat(this.calls).hasValue(1);
+	}
+
+	private List<CompletableFuture<AiResponse>> generateConcurrently(CoalescingAiClient client, int requests)
+			throws InterruptedException {
+		CompletableFuture<AiResponse> first = CompletableFuture.supplyAsync(() -> client.generate(new Prompt("hello")));
+		while (this.calls.get() == 0) {
+			Thread.sleep(1);
+		}
+		List<CompletableFuture<AiResponse>> others = new ArrayList<>();
+		for (int i = 1; i < requests; i++) {
+			others.add(CompletableFuture.supplyAsync(() -> client.generate(new Prompt("hello"))));
+		}
+		// Let the duplicates attach to the in-flight call.
+		while (client.getCoalescedCount() < requests - 1) {
+			Thread.sleep(1);
+		}
+		others.add(0, first);
+		return others;
+	}
+
+	private void await() {
+		try {
+			this.release.await(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
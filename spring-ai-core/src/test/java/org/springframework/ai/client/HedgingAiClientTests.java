@@ -0,0 +1,193 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.client;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import org.springframework.ai.prompt.Prompt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HedgingAiClientTests {
+
+	@Test
+	public void hedgeSlowPrimaryAndCancelIt() throws Exception {
+		CountDownLatch cancelled = new CountDownLatch(1);
+		AiClient slow = prompt -> {
+			try {
+				Thread.sleep(10_000);
+			}
+			catch (InterruptedException ex) {
+				cancelled.countDown();
+			}
+			return response("slow");
+		};
+		var client = newClient(slow, prompt -> response("fast"));
+		client.setInitialHedgeDelay(Duration.ofMillis(50));
+
+		try {
+			assertThat(client.generate(new Prompt("hello")).getGeneration().getText()).isEqualTo("fast");
+			assertThat(client.getHedgeCount()).isEqualTo(1);
+			assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+			// The cancelled call latency is recorded as (at least) its elapsed time.
+			assertThat(client.getDelegateStatuses().get(0).averageLatency())
+				.isGreaterThanOrEqualTo(Duration.ofMillis(50));
+		}
+		finally {
+			client.destroy();
+		}
+	}
+
+	@Test
+	public void failoverAndOpenTheCircuit() {
+		AtomicInteger failingCalls = new AtomicInteger();
+		AiClient failing = prompt -> {
+			failingCalls.incrementAndGet();
+			throw new IllegalStateException("unavailable");
+		};
+		var client = newClient(failing, prompt -> response("backup"));
+		client.setFailureThreshold(1);
+		client.setOpenDuration(Duration.ofMinutes(1));
+
+		try {
+			assertThat(client.generate(new Prompt("hello")).getGeneration().getText()).isEqualTo("backup");
+			assertThat(client.getFailoverCount()).isEqualTo(1);
+			assertThat(client.getDelegateStatuses().get(0).circuitOpen()).isTrue();
+
+			// The open delegate is skipped.
+			assertThat(client.generate(new Prompt("hello")).getGeneration().getText()).isEqualTo("backup");
+			assertThat(failingCalls).hasValue(1);
+		}
+		finally {
+			client.destroy();
+		}
+	}
+
+	@Test
+	public void takeTheHalfOpenProbeOnlyWhenSending() throws Exception {
+		AtomicInteger primaryCalls = new AtomicInteger();
+		AtomicInteger secondaryCalls = new AtomicInteger();
+		var client = newClient(prompt -> {
+			if (primaryCalls.incrementAndGet() == 1) {
+				throw new IllegalStateException("unavailable");
+			}
+			return response("primary");
+		}, prompt -> {
+			secondaryCalls.incrementAndGet();
+			throw new IllegalStateException("unavailable");
+		});
+		client.setFailureThreshold(1);
+		client.setOpenDuration(Duration.ofMillis(200));
+
+		try {
+			assertThatThrownBy(() -> client.generate(new Prompt("hello"))).isInstanceOf(IllegalStateException.class);
+			Thread.sleep(300);
+
+			// Both circuits are half open, only the primary is sent the request.
+			assertThat(client.generate(new Prompt("hello")).getGeneration().getText()).isEqualTo("primary");
+			assertThat(secondaryCalls).hasValue(1);
+			// The secondary probe is still available.
+			assertThat(client.getDelegateStatuses().get(1).circuitOpen()).isFalse();
+		}
+		finally {
+			client.destroy();
+		}
+	}
+
+	@Test
+	public void allDelegatesFail() {
+		AiClient failing = prompt -> {
+			throw new IllegalStateException("unavailable");
+		};
+		var client = newClient(failing, failing);
+
+		try {
+			assertThatThrownBy(() -> client.generate(new Prompt("hello"))).isInstanceOf(IllegalStateException.class)
+				.satisfies(ex -> assertThat(ex.getSuppressed()).hasSize(1));
+		}
+		finally {
+			client.destroy();
+		}
+	}
+
+	@Test
+	@Timeout(value = 5, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+	public void failOverErrors() {
+		AiClient failing = prompt -> {
+			throw new AssertionError("broken");
+		};
+		var client = newClient(failing, failing);
+		client.setHedging(false);
+
+		try {
+			assertThatThrownBy(() -> client.generate(new Prompt("hello"))).isInstanceOf(AssertionError.class);
+			assertThat(client.getFailoverCount()).isEqualTo(1);
+		}
+		finally {
+			client.destroy();
+		}
+	}
+
+	@Test
+	public void doNotFailOverRequestFailures() {
+		AtomicInteger secondaryCalls = new AtomicInteger();
+		var client = newClient(prompt -> {
+			throw new IllegalArgumentException("invalid prompt");
+		}, prompt -> {
+			secondaryCalls.incrementAndGet();
+			return response("secondary");
+		});
+		client.setHedging(false);
+		client.setFailureThreshold(1);
+
+		try {
+			assertThatThrownBy(() -> client.generate(new Prompt("hello"))).hasMessage("invalid prompt");
+			assertThat(secondaryCalls).hasValue(0);
+			assertThat(client.getDelegateStatuses().get(0).circuitOpen()).isFalse();
+
+			client.setFailureClassifier(ex -> true);
+			assertThat(client.generate(new Prompt("hello")).getGeneration().getText()).isEqualTo("secondary");
+			assertThat(client.getDelegateStatuses().get(0).circuitOpen()).isTrue();
+		}
+		finally {
+			client.destroy();
+		}
+	}
+
+	private static HedgingAiClient newClient(AiClient primary, AiClient secondary) {
+		Map<String, AiClient> delegates = new LinkedHashMap<>();
+		delegates.put("primary", primary);
+		delegates.put("secondary", secondary);
+		var client = new HedgingAiClient(delegates);
+		client.setLatencyWeighting(false);
+		return client;
+	}
+
+	private static AiResponse response(String text) {
+		return new AiResponse(List.of(new Generation(text)));
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.client;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.prompt.Prompt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PrioritySchedulingAiClientTests {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private final List<String> sent = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Records the prompts, the "block" one waits for the release.
+	 */
+	private final AiClient delegate = prompt -> {
+		String text = prompt.getMessages().get(0).getContent();
+		this.sent.add(text);
+		if (text.equals("block")) {
+			try {
+				this.release.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return new AiResponse(List.of(new Generation(text)));
+	};
+
+	@AfterEach
+	public void stop() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void interactiveRequestsOvertakeBatchOnes() throws Exception {
+		var client = new PrioritySchedulingAiClient(this.delegate, 1);
+		AiClient batch = client.forPriorityClass(PrioritySchedulingAiClient.BATCH);
+
+		Future<?> blocking = this.executor.submit(() -> client.generate(new Prompt("block")));
+		awaitUntil(() -> this.sent.size(), 1);
+		for (int i = 0; i < 3; i++) {
+			String text = "batch" + i;
+			this.executor.submit(() -> batch.generate(new Prompt(text)));
+			awaitUntil(() -> queued(client, PrioritySchedulingAiClient.BATCH), i + 1);
+		}
+		Future<?> interactive = this.executor.submit(() -> client.generate(new Prompt("interactive")));
+		awaitUntil(() -> queued(client, PrioritySchedulingAiClient.INTERACTIVE), 1);
+
+		this.release.countDown();
+		blocking.get(5, TimeUnit.SECONDS);
+		interactive.get(5, TimeUnit.SECONDS);
+		awaitUntil(() -> this.sent.size(), 5);
+
+		assertThat(this.sent).containsExactly("block", "interactive", "batch0", "batch1", "batch2");
+		var statistics = client.getQueueStatistics().get(PrioritySchedulingAiClient.BATCH);
+		assertThat(statistics.served()).isEqualTo(3);
+		assertThat(statistics.queued()).isZero();
+		assertThat(statistics.maxQueueTime()).isPositive();
+		assertThat(client.getInFlight()).isZero();
+	}
+
+	@Test
+	public void weightedFairShares() throws Exception {
+		var client = new PrioritySchedulingAiClient(this.delegate, 1);
+		client.setPriorityClass(PrioritySchedulingAiClient.BATCH, 4, null);
+		AiClient batch = client.forPriorityClass(PrioritySchedulingAiClient.BATCH);
+
+		this.executor.submit(() -> client.generate(new Prompt("block")));
+		awaitUntil(() -> this.sent.size(), 1);
+		for (int i = 0; i < 4; i++) {
+			String text = "interactive" + i;
+			this.executor.submit(() -> client.generate(new Prompt(text)));
+			awaitUntil(() -> queued(client, PrioritySchedulingAiClient.INTERACTIVE), i + 1);
+		}
+		for (int i = 0; i < 2; i++) {
+			String text = "batch" + i;
+			this.executor.submit(() -> batch.generate(new Prompt(text)));
+			awaitUntil(() -> queued(client, PrioritySchedulingAiClient.BATCH), i + 1);
+		}
+
+		this.release.countDown();
+		awaitUntil(() -> this.sent.size(), 7);
+
+		// With weights 8 and 4, the batch class is granted a slot every two interactive
+		// ones.
+		assertThat(this.sent).containsExactly("block", "interactive0", "interactive1", "batch0", "interactive2",
+				"interactive3", "batch1");
+	}
+
+	@Test
+	public void shedRequestsPastTheirMaxQueueTime() throws Exception {
+		var client = new PrioritySchedulingAiClient(this.delegate, 1);
+		client.setPriorityClass(PrioritySchedulingAiClient.BATCH, 1, Duration.ofMillis(50));
+
+		this.executor.submit(() -> client.generate(new Prompt("block")));
+		awaitUntil(() -> this.sent.size(), 1);
+
+		assertThatThrownBy(
+				() -> client.forPriorityClass(PrioritySchedulingAiClient.BATCH).generate(new Prompt("batch")))
+			.isInstanceOf(RequestShedException.class)
+			.extracting("priorityClass")
+			.isEqualTo(PrioritySchedulingAiClient.BATCH);
+
+		this.release.countDown();
+		awaitUntil(client::getInFlight, 0);
+		assertThat(this.sent).containsExactly("block");
+		var statistics = client.getQueueStatistics().get(PrioritySchedulingAiClient.BATCH);
+		assertThat(statistics.shed()).isEqualTo(1);
+		assertThat(statistics.served()).isZero();
+	}
+
+	@Test
+	public void rejectUnknownPriorityClass() {
+		var client = new PrioritySchedulingAiClient(this.delegate, 1);
+
+		assertThatThrownBy(() -> client.forPriorityClass("unknown")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static int queued(PrioritySchedulingAiClient client, String priorityClass) {
+		return client.getQueueStatistics().get(priorityClass).queued();
+	}
+
+	private static void awaitUntil(IntSupplier actual, int expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (actual.getAsInt() != expected && System.nanoTime() - deadline < 0) {
+			Thread.sleep(5);
+		}
+		assertThat(actual.getAsInt()).isEqualTo(expected);
+	}
+
+}
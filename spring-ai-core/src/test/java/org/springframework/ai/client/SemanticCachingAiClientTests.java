@@ -0,0 +1,156 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.client;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingClient;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.prompt.Prompt;
+import org.springframework.ai.vectorstore.InMemoryVectorStore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SemanticCachingAiClientTests {
+
+	private final List<String> requests = new ArrayList<>();
+
+	private final AiClient delegate = prompt -> {
+		this.requests.add(prompt.getContents());
+		return new AiResponse(List.of(new Generation("re: " + prompt.getContents())));
+	};
+
+	private final InMemoryVectorStore vectorStore = new InMemoryVectorStore(new LetterEmbeddingClient());
+
+	@Test
+	public void serveSimilarPrompts() {
+		var client = new SemanticCachingAiClient(this.delegate, this.vectorStore, 0.95);
+		client.setExecutor(Runnable::run);
+
+		client.generate(new Prompt("What is Spring AI?"));
+		AiResponse paraphrase = client.generate(new Prompt("what is spring ai"));
+		client.generate(new Prompt("How do I configure a vector store?"));
+
+		assertThat(this.requests).containsExactly("What is Spring AI?", "How do I configure a vector store?");
+		assertThat(paraphrase.getGeneration().getText()).isEqualTo("re: What is Spring AI?");
+		assertThat(client.getHitCount()).isEqualTo(1);
+		assertThat(client.getMissCount()).isEqualTo(2);
+		assertThat(client.getHitRate()).isEqualTo(1.0 / 3);
+	}
+
+	@Test
+	public void invalidateByMetadata() {
+		var client = new SemanticCachingAiClient(this.delegate, this.vectorStore);
+		client.setExecutor(Runnable::run);
+		client.setMetadataProvider(
+				prompt -> Map.of("topic", prompt.getContents().contains("Spring") ? "spring" : "other"));
+
+		client.generate(new Prompt("What is Spring AI?"));
+		client.generate(new Prompt("How do I configure a vector store?"));
+
+		assertThat(client.invalidate(metadata -> "spring".equals(metadata.get("topic")))).isEqualTo(1);
+		assertThat(client.getEntryIds()).hasSize(1);
+
+		client.generate(new Prompt("What is Spring AI?"));
+		client.generate(new Prompt("How do I configure a vector store?"));
+		assertThat(this.requests).hasSize(3);
+	}
+
+	@Test
+	public void boundTheEntries() {
+		var client = new SemanticCachingAiClient(this.delegate, this.vectorStore);
+		client.setExecutor(Runnable::run);
+		client.setMaxEntries(2);
+
+		client.generate(new Prompt("What is Spring AI?"));
+		client.generate(new Prompt("How do I configure a vector store?"));
+		client.generate(new Prompt("Which embedding clients are supported?"));
+
+		assertThat(client.getEntryIds()).hasSize(2);
+		// The oldest entry was deleted from the store too.
+		client.generate(new Prompt("What is Spring AI?"));
+		client.generate(new Prompt("Which embedding clients are supported?"));
+		assertThat(this.requests).hasSize(4);
+		assertThat(client.getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void expireAfterTimeToLive() {
+		var client = new SemanticCachingAiClient(this.delegate, this.vectorStore);
+		client.setExecutor(Runnable::run);
+		client.setTimeToLive(Duration.ofMinutes(1));
+		client.setClock(Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+
+		client.generate(new Prompt("What is Spring AI?"));
+		client.generate(new Prompt("What is Spring AI?"));
+		assertThat(client.getHitCount()).isEqualTo(1);
+
+		client.setClock(Clock.fixed(Instant.EPOCH.plus(Duration.ofMinutes(2)), ZoneOffset.UTC));
+		client.generate(new Prompt("What is Spring AI?"));
+		assertThat(this.requests).hasSize(2);
+		// The expired entry was replaced by the fresh one.
+		assertThat(client.getEntryIds()).hasSize(1);
+		client.generate(new Prompt("What is Spring AI?"));
+		assertThat(client.getHitCount()).isEqualTo(2);
+	}
+
+	/**
+	 * Embeds a text as its case insensitive letter frequencies.
+	 */
+	private static class LetterEmbeddingClient implements EmbeddingClient {
+
+		@Override
+		public List<Double> embed(String text) {
+			double[] counts = new double[26];
+			for (char c : text.toLowerCase().toCharArray()) {
+				if (c >= 'a' && c <= 'z') {
+					counts[c - 'a']++;
+				}
+			}
+			List<Double> embedding = new ArrayList<>();
+			for (double count : counts) {
+				embedding.add(count);
+			}
+			return embedding;
+		}
+
+		@Override
+		public List<Double> embed(Document document) {
+			return embed(document.getContent());
+		}
+
+		@Override
+		public List<List<Double>> embed(List<String> texts) {
+			return texts.stream().map(this::embed).toList();
+		}
+
+		@Override
+		public EmbeddingResponse embedForResponse(List<String> texts) {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.embedding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.document.Document;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CoalescingEmbeddingClientTests {
+
+	private final AtomicInteger calls = new AtomicInteger();
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@Test
+	public void coalesceIdenticalInFlightRequests() throws Exception {
+		var client = new CoalescingEmbeddingClient(
+				new BlockingEmbeddingClient(text -> List.of((double) text.length())));
+
+		List<CompletableFuture<List<Double>>> embeddings = embedConcurrently(client, 8);
+		this.release.countDown();
+
+		for (CompletableFuture<List<Double>> embedding : embeddings) {
+			assertThat(embedding.get(5, TimeUnit.SECONDS)).containsExactly(5.0);
+		}
+		assertThat(this.calls).hasValue(1);
+		assertThat(client.getCoalescedCount()).isEqualTo(7);
+
+		// Completed calls are not reused.
+		client.embed("hello");
+		assertThat(this.calls).hasValue(2);
+		// Neither are the batches of different texts, nor the different methods.
+		client.embed(List.of("hello", "world"));
+		client.embed(List.of("hello", "there"));
+		client.embedForResponse(List.of("hello", "world"));
+		assertThat(this.calls).hasValue(5);
+	}
+
+	@Test
+	public void propagateFailuresToAllWaiters() throws Exception {
+		var client = new CoalescingEmbeddingClient(new BlockingEmbeddingClient(text -> {
+			throw new IllegalStateException("boom");
+		}));
+
+		List<CompletableFuture<List<Double>>> embeddings = embedConcurrently(client, 4);
+		this.release.countDown();
+
+		for (CompletableFuture<List<Double>> embedding : embeddings) {
+			assertThatThrownBy(() -> embedding.get(5, TimeUnit.SECONDS))
+				.hasRootCauseInstanceOf(IllegalStateException.class);
+		}
+		assertThat(this.calls).hasValue(1);
+	}
+
+	private List<CompletableFuture<List<Double>>> embedConcurrently(CoalescingEmbeddingClient client, int requests)
+			throws InterruptedException {
+		CompletableFuture<List<Double>> first = CompletableFuture.supplyAsync(() -> client.embed("hello"));
+		while (this.calls.get() == 0) {
+			Thread.sleep(1);
+		}
+		List<CompletableFuture<List<Double>>> others = new ArrayList<>();
+		for (int i = 1; i < requests; i++) {
+			others.add(CompletableFuture.supplyAsync(() -> client.embed("hello")));
+		}
+		// Let the duplicates attach to the in-flight call.
+		while (client.getCoalescedCount() < requests - 1) {
+			Thread.sleep(1);
+		}
+		others.add(0, first);
+		return others;
+	}
+
+	/**
+	 * Counts the calls, the single text ones waiting for the release.
+	 */
+	private class BlockingEmbeddingClient implements EmbeddingClient {
+
+		private final Function<String, List<Double>> embedding;
+
+		BlockingEmbeddingClient(Function<String, List<Double>> embedding) {
+			this.embedding = embedding;
+		}
+
+		@Override
+		public List<Double> embed(String text) {
+			calls.incrementAndGet();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return this.embedding.apply(text);
+		}
+
+		@Override
+		public List<Double> embed(Document document) {
+			return embed(document.getContent());
+		}
+
+		@Override
+		public List<List<Double>> embed(List<String> texts) {
+			calls.incrementAndGet();
+			return texts.stream().map(this.embedding).toList();
+		}
+
+		@Override
+		public EmbeddingResponse embedForResponse(List<String> texts) {
+			calls.incrementAndGet();
+			return new EmbeddingResponse(List.of(), Map.of());
+		}
+
+	}
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2023-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.embedding;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeduplicatingEmbeddingClientTests {
+
+	private final RecordingEmbeddingClient delegate = new RecordingEmbeddingClient();
+
+	@Test
+	public void deduplicateWithinBatch() {
+		var client = new DeduplicatingEmbeddingClient(this.delegate, MetadataMode.NONE, 0);
+
+		List<List<Double>> embeddings = client.embed(List.of("a", "bb", "a", "ccc", "bb"));
+
+		assertThat(this.delegate.requests).containsExactly(List.of("a", "bb", "ccc"));
+		assertThat(embeddings).containsExactly(List.of(1.0), List.of(2.0), List.of(1.0), List.of(3.0), List.of(2.0));
+		assertThat(client.getDuplicateCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void deduplicateAcrossCalls() {
+		var client = new DeduplicatingEmbeddingClient(this.delegate, MetadataMode.NONE, 10);
+
+		Document document = new Document("a", Map.of());
+		String text = document.getFormattedContent(MetadataMode.NONE);
+
+		client.embed(text);
+		client.embed(document);
+		List<List<Double>> embeddings = client.embed(List.of(text, "bb"));
+
+		assertThat(this.delegate.requests).containsExactly(List.of(text), List.of("bb"));
+		assertThat(embeddings).containsExactly(List.of((double) text.length()), List.of(2.0));
+		assertThat(client.getDuplicateCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void evictLeastRecentlyUsed() {
+		var client = new DeduplicatingEmbeddingClient(this.delegate, MetadataMode.NONE, 1);
+
+		client.embed("a");
+		client.embed("bb");
+		client.embed("a");
+
+		assertThat(this.delegate.requests).containsExactly(List.of("a"), List.of("bb"), List.of("a"));
+	}
+
+	@Test
+	public void linkDuplicateDocuments() {
+		var client = new DeduplicatingEmbeddingClient(this.delegate, MetadataMode.NONE, 10);
+		client.setLinkDuplicates(true);
+
+		Document first = new Document("1", "footer", new HashMap<>());
+		Document second = new Document("2", "footer", new HashMap<>());
+		Document third = new Document("3", "body", new HashMap<>());
+		Document fourth = new Document("4", "footer", new HashMap<>());
+
+		client.embedDocuments(List.of(first, second, third));
+		client.embed(fourth);
+
+		assertThat(this.delegate.requests).containsExactly(
+				List.of(first.getFormattedContent(MetadataMode.NONE), third.getFormattedContent(MetadataMode.NONE)));
+		assertThat(first.getMetadata()).doesNotContainKey(DeduplicatingEmbeddingClient.CANONICAL_ID_METADATA_KEY);
+		assertThat(second.getMetadata()).containsEntry(DeduplicatingEmbeddingClient.CANONICAL_ID_METADATA_KEY, "1");
+		assertThat(third.getMetadata()).doesNotContainKey(DeduplicatingEmbeddingClient.CANONICAL_ID_METADATA_KEY);
+		assertThat(fourth.getMetadata()).containsEntry(DeduplicatingEmbeddingClient.CANONICAL_ID_METADATA_KEY, "1");
+	}
+
+	/**
+	 * Embeds a text as its length and records the batches it is called with.
+	 */
+	private static class RecordingEmbeddingClient implements EmbeddingClient {
+
+		private final List<List<String>> requests = new ArrayList<>();
+
+		@Override
+		public List<Double> embed(String text) {
+			return embed(List.of(text)).get(0);
+		}
+
+		@Override
+		public List<Double> embed(Document document) {
+			return embed(document.getContent());
+		}
+
+		@Override
+		public List<List<Double>> embed(List<String> texts) {
+			return embedForResponse(texts).getData().stream().map(Embedding::getEmbedding).toList();
+		}
+
+		@Override
+		public EmbeddingResponse embedForResponse(List<String> texts) {
+			this.requests.add(texts);
+			List<Embedding> data = new ArrayList<>();
+			for (int i = 0; i < texts.size(); i++) {
+				data.add(new Embedding(List.of((double) texts.get(i).length()), i));
+			}
+			return new EmbeddingResponse(data, Map.of());
+		}
+
+	}
+
+}
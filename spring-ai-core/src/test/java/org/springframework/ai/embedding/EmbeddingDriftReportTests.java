@@ -0,0 +1,80 @@
+/*
+ * Copyright 2023-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.embedding;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.document.Document;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class EmbeddingDriftReportTests {
+
+	@Test
+	public void compare() {
+		EmbeddingClient reference = new MapEmbeddingClient(
+				Map.of("a", List.of(1.0, 0.0), "b", List.of(0.0, 1.0), "c", List.of(1.0, 1.0)));
+		EmbeddingClient candidate = new MapEmbeddingClient(
+				Map.of("a", List.of(1.0, 0.0), "b", List.of(1.0, 1.0), "c", List.of(2.0, 2.0)));
+
+		EmbeddingDriftReport report = EmbeddingDriftReport.compare(reference, candidate, List.of("a", "b", "c"));
+
+		assertThat(report.getSampleCount()).isEqualTo(3);
+		assertThat(report.getMinSimilarity()).isCloseTo(Math.sqrt(0.5), within(1e-9));
+		assertThat(report.getMaxDrift()).isCloseTo(1 - Math.sqrt(0.5), within(1e-9));
+		assertThat(report.getMeanSimilarity()).isCloseTo((2 + Math.sqrt(0.5)) / 3, within(1e-9));
+		assertThat(report.getSimilarityPercentile(5)).isCloseTo(Math.sqrt(0.5), within(1e-9));
+		assertThat(report.getSimilarityPercentile(100)).isCloseTo(1.0, within(1e-9));
+		assertThat(report.isWithin(0.7)).isTrue();
+		assertThat(report.isWithin(0.99)).isFalse();
+	}
+
+	private static class MapEmbeddingClient implements EmbeddingClient {
+
+		private final Map<String, List<Double>> embeddings;
+
+		MapEmbeddingClient(Map<String, List<Double>> embeddings) {
+			this.embeddings = embeddings;
+		}
+
+		@Override
+		public List<Double> embed(String text) {
+			return this.embeddings.get(text);
+		}
+
+		@Override
+		public List<Double> embed(Document document) {
+			return embed(document.getContent());
+		}
+
+		@Override
+		public List<List<Double>> embed(List<String> texts) {
+			return texts.stream().map(this::embed).toList();
+		}
+
+		@Override
+		public EmbeddingResponse embedForResponse(List<String> texts) {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}
@@ -86,4 +86,11 @@ public class EmbeddingUtilTests {
 		assertThat(EmbeddingUtil.dimensions(embeddingClient, "unknown_model")).isEqualTo(3);
 	}
 
+	@Test
+	public void testAsList() {
+		List<Double> list = EmbeddingUtil.asList(new float[] { 0.5f, -1.0f });
+		assertThat(list).containsExactly(0.5, -1.0);
+		assertThat(list).isEqualTo(List.of(0.5, -1.0));
+	}
+
 }
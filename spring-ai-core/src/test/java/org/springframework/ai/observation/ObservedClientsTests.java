@@ -0,0 +1,318 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.observation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import org.springframework.ai.client.AiResponse;
+import org.springframework.ai.client.AsyncAiClient;
+import org.springframework.ai.client.CachingAiClient;
+import org.springframework.ai.client.Generation;
+import org.springframework.ai.client.StreamingAiClient;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingClient;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.prompt.Prompt;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ObservedClientsTests {
+
+	private final List<AiObservationContext> stopped = new CopyOnWriteArrayList<>();
+
+	private final ObservationRegistry registry = ObservationRegistry.create();
+
+	public ObservedClientsTests() {
+		this.registry.observationConfig().observationHandler(new ObservationHandler<AiObservationContext>() {
+
+			@Override
+			public void onStop(AiObservationContext context) {
+				stopped.add(context);
+			}
+
+			@Override
+			public boolean supportsContext(Observation.Context context) {
+				return context instanceof AiObservationContext;
+			}
+
+		});
+	}
+
+	@Test
+	public void observeGenerationWithTokenUsage() {
+		var client = new ObservedAiClient(
+				prompt -> new AiResponse(List.of(new Generation("hi")), Map.of(),
+						Map.of("prompt-tokens", 3, "completion-tokens", 1L, "total-tokens", 4L)),
+				this.registry, "openai", "gpt-4");
+
+		client.generate(new Prompt("hello"));
+
+		AiObservationContext context = this.stopped.get(0);
+		assertThat(context.getName()).isEqualTo("spring.ai.operation");
+		assertThat(context.getContextualName()).isEqualTo("chat generate");
+		assertThat(context.getLowCardinalityKeyValues()).contains(
+				KeyValue.of(DefaultAiObservationConvention.PROVIDER, "openai"),
+				KeyValue.of(DefaultAiObservationConvention.MODEL, "gpt-4"),
+				KeyValue.of(DefaultAiObservationConvention.OPERATION, "generate"),
+				KeyValue.of(DefaultAiObservationConvention.ESTIMATED_USAGE, "false"));
+		assertThat(context.getPromptTokens()).isEqualTo(3);
+		assertThat(context.getHighCardinalityKeyValues())
+			.contains(KeyValue.of(DefaultAiObservationConvention.TOTAL_TOKENS, "4"));
+	}
+
+	@Test
+	public void observeFailure() {
+		var client = new ObservedAiClient(prompt -> {
+			throw new IllegalStateException("boom");
+		}, this.registry, "openai", null);
+
+		assertThatThrownBy(() -> client.generate(new Prompt("hello"))).hasMessage("boom");
+
+		AiObservationContext context = this.stopped.get(0);
+		assertThat(context.getError()).hasMessage("boom");
+		assertThat(context.getLowCardinalityKeyValues())
+			.contains(KeyValue.of(DefaultAiObservationConvention.MODEL, "none"));
+	}
+
+	@Test
+	public void observeStreamUntilItsCompletion() {
+		var client = new ObservedAiClient(
+				new TestStreamingClient(Flux.just(new AiResponse(List.of(new Generation("Hello"))),
+						new AiResponse(List.of(new Generation(" world")), Map.of(),
+								Map.of("prompt-tokens", 3L, "completion-tokens", 2L, "total-tokens", 5L)))),
+				this.registry, "openai", "gpt-4");
+
+		Flux<AiResponse> stream = client.generateStream(new Prompt("hello"));
+		assertThat(this.stopped).isEmpty();
+		assertThat(stream.collectList().block()).hasSize(2);
+
+		AiObservationContext context = this.stopped.get(0);
+		assertThat(context.getOperation()).isEqualTo("generate_stream");
+		assertThat(context.getTotalTokens()).isEqualTo(5);
+	}
+
+	@Test
+	public void observeCancelledStream() {
+		var client = new ObservedAiClient(
+				new TestStreamingClient(
+						Flux.just(new AiResponse(List.of(new Generation("Hello")))).concatWith(Flux.never())),
+				this.registry, "openai", "gpt-4");
+
+		assertThat(client.generateStream(new Prompt("hello")).blockFirst().getGeneration().getText())
+			.isEqualTo("Hello");
+
+		assertThat(this.stopped).hasSize(1);
+		assertThat(this.stopped.get(0).getTotalTokens()).isNull();
+	}
+
+	@Test
+	public void observeAsyncGenerationUntilItsCompletion() throws Exception {
+		CompletableFuture<AiResponse> response = new CompletableFuture<>();
+		var client = new ObservedAiClient(new TestAsyncClient(response), this.registry, "azure-openai", "gpt-4");
+
+		CompletableFuture<AiResponse> observed = client.generateAsync(new Prompt("hello"));
+		assertThat(this.stopped).isEmpty();
+		response.complete(new AiResponse(List.of(new Generation("hi")), Map.of(), Map.of("total-tokens", 4L)));
+
+		assertThat(observed.get(5, TimeUnit.SECONDS).getGeneration().getText()).isEqualTo("hi");
+		assertThat(this.stopped.get(0).getOperation()).isEqualTo("generate_async");
+		assertThat(this.stopped.get(0).getTotalTokens()).isEqualTo(4);
+	}
+
+	@Test
+	public void observeAsyncFailure() {
+		var client = new ObservedAiClient(
+				new TestAsyncClient(CompletableFuture.failedFuture(new IllegalStateException("boom"))), this.registry,
+				"azure-openai", "gpt-4");
+
+		assertThatThrownBy(() -> client.generateAsync(new Prompt("hello")).join())
+			.hasCauseInstanceOf(IllegalStateException.class);
+
+		assertThat(this.stopped.get(0).getError()).hasMessage("boom");
+	}
+
+	@Test
+	public void fallBackToTheBlockingGeneration() throws Exception {
+		var client = new ObservedAiClient(
+				prompt -> new AiResponse(List.of(new Generation("hi")), Map.of(), Map.of("total-tokens", 4L)),
+				this.registry, "openai", null);
+
+		assertThat(client.generateStream(new Prompt("hello")).collectList().block()).hasSize(1);
+		assertThat(client.generateAsync(new Prompt("hello")).get(5, TimeUnit.SECONDS).getGeneration().getText())
+			.isEqualTo("hi");
+
+		assertThat(this.stopped).extracting(AiObservationContext::getOperation)
+			.containsExactly("generate_stream", "generate_async");
+		assertThat(this.stopped).extracting(AiObservationContext::getTotalTokens).containsExactly(4L, 4L);
+	}
+
+	@Test
+	public void countTheUsage() {
+		AiUsageObservationHandler handler = new AiUsageObservationHandler();
+		// Registered twice, the observations are still counted once.
+		this.registry.observationConfig().observationHandler(handler).observationHandler(handler);
+		var client = new ObservedAiClient(
+				prompt -> new AiResponse(List.of(new Generation("hi")), Map.of(),
+						Map.of("prompt-tokens", 3L, "completion-tokens", 1L, "total-tokens", 4L)),
+				this.registry, "openai", "gpt-4");
+		var failing = new ObservedAiClient(prompt -> {
+			throw new IllegalStateException("boom");
+		}, this.registry, "openai", "gpt-4");
+
+		var estimating = new ObservedAiClient(
+				prompt -> new AiResponse(List.of(new Generation("hi")), Map.of(),
+						Map.of("completion-tokens", 1L, "total-tokens", 1L, "estimated-usage", true)),
+				this.registry, "openai", "gpt-4");
+
+		client.generate(new Prompt("hello"));
+		client.generate(new Prompt("hello"));
+		assertThatThrownBy(() -> failing.generate(new Prompt("hello"))).hasMessage("boom");
+		estimating.generate(new Prompt("hello"));
+
+		assertThat(handler.getUsages()).containsExactlyInAnyOrder(
+				new AiUsageObservationHandler.Usage(AiObservationContext.Kind.CHAT, "openai", "gpt-4", "generate",
+						false, 3, 1, 6, 2, 8),
+				new AiUsageObservationHandler.Usage(AiObservationContext.Kind.CHAT, "openai", "gpt-4", "generate", true,
+						1, 0, 0, 1, 1));
+		assertThat(this.stopped.get(3).getLowCardinalityKeyValues())
+			.contains(KeyValue.of(DefaultAiObservationConvention.ESTIMATED_USAGE, "true"));
+	}
+
+	@Test
+	public void noUsageForCachedResponses() {
+		var client = new ObservedAiClient(new CachingAiClient(
+				prompt -> new AiResponse(List.of(new Generation("hi")), Map.of(), Map.of("total-tokens", 4L)),
+				() -> Map.of(CachingAiClient.TEMPERATURE_SETTING, 0.0), 10), this.registry, "openai", "gpt-4");
+
+		client.generate(new Prompt("hello"));
+		client.generate(new Prompt("hello"));
+
+		assertThat(this.stopped).extracting(AiObservationContext::getTotalTokens).containsExactly(4L, null);
+	}
+
+	@Test
+	public void observeEmbeddingBatches() {
+		var client = new ObservedEmbeddingClient(new EmbeddingClient() {
+
+			@Override
+			public List<Double> embed(String text) {
+				return List.of(1.0);
+			}
+
+			@Override
+			public List<Double> embed(Document document) {
+				return List.of(1.0);
+			}
+
+			@Override
+			public List<List<Double>> embed(List<String> texts) {
+				return texts.stream().map(this::embed).toList();
+			}
+
+			@Override
+			public EmbeddingResponse embedForResponse(List<String> texts) {
+				return new EmbeddingResponse(List.of(new Embedding(List.of(1.0), 0), new Embedding(List.of(1.0), 1)),
+						Map.of("total-tokens", 7));
+			}
+
+		}, this.registry, "openai", "text-embedding-ada-002");
+
+		client.embedForResponse(List.of("a", "b"));
+
+		AiObservationContext context = this.stopped.get(0);
+		assertThat(context.getKind()).isEqualTo(AiObservationContext.Kind.EMBEDDING);
+		assertThat(context.getBatchSize()).isEqualTo(2);
+		assertThat(context.getTotalTokens()).isEqualTo(7);
+	}
+
+	@Test
+	public void observeVectorStoreOperations() {
+		var store = new ObservedVectorStore(new VectorStore() {
+
+			@Override
+			public void add(List<Document> documents) {
+			}
+
+			@Override
+			public Optional<Boolean> delete(List<String> idList) {
+				return Optional.of(true);
+			}
+
+			@Override
+			public List<Document> similaritySearch(SearchRequest request) {
+				return List.of(new Document("found"));
+			}
+
+		}, this.registry, "pgvector");
+
+		store.add(List.of(new Document("a"), new Document("b")));
+		store.similaritySearch("query");
+		store.delete(List.of("1"));
+
+		assertThat(this.stopped).extracting(AiObservationContext::getOperation)
+			.containsExactly("add", "similarity_search", "delete");
+		assertThat(this.stopped.get(0).getBatchSize()).isEqualTo(2);
+		assertThat(this.stopped.get(1).getResultSize()).isEqualTo(1);
+		assertThat(this.stopped.get(2).getLowCardinalityKeyValues())
+			.contains(KeyValue.of(DefaultAiObservationConvention.PROVIDER, "pgvector"));
+	}
+
+	private record TestStreamingClient(Flux<AiResponse> responses) implements StreamingAiClient {
+
+		@Override
+		public AiResponse generate(Prompt prompt) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Flux<AiResponse> generateStream(Prompt prompt) {
+			return this.responses;
+		}
+
+	}
+
+	private record TestAsyncClient(CompletableFuture<AiResponse> response) implements AsyncAiClient {
+
+		@Override
+		public AiResponse generate(Prompt prompt) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<AiResponse> generateAsync(Prompt prompt) {
+			return this.response;
+		}
+
+	}
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.prompt;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.client.AiClient;
+import org.springframework.ai.client.AiResponse;
+import org.springframework.ai.client.Generation;
+import org.springframework.ai.client.TokenBudgetAiClient;
+import org.springframework.ai.prompt.PromptFitter.FittedPrompt;
+import org.springframework.ai.prompt.messages.ChatMessage;
+import org.springframework.ai.prompt.messages.Message;
+import org.springframework.ai.prompt.messages.MessageType;
+import org.springframework.ai.prompt.messages.SystemMessage;
+import org.springframework.ai.prompt.messages.UserMessage;
+import org.springframework.ai.tokenizer.TokenCounter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PromptFitterTests {
+
+	private final TokenCounter counter = new TokenCounter();
+
+	@Test
+	public void keepFittingPrompt() {
+		Prompt prompt = new Prompt("Hello world");
+
+		FittedPrompt fitted = new PromptFitter(this.counter, 100).fit(prompt);
+
+		assertThat(fitted.prompt()).isSameAs(prompt);
+		assertThat(fitted.tokens()).isEqualTo(this.counter.count(prompt));
+		assertThat(fitted.droppedMessages()).isZero();
+	}
+
+	@Test
+	public void dropLowestPriorityMessagesFirst() {
+		Message system = new SystemMessage("You answer from the context.");
+		Message relevant = context("The relevant chunk. ".repeat(10), 2);
+		Message irrelevant = context("The irrelevant chunk. ".repeat(10), 1);
+		Message question = new UserMessage("What is relevant?");
+		Prompt prompt = new Prompt(List.of(system, relevant, irrelevant, question));
+		int budget = this.counter.count(prompt) - this.counter.count(irrelevant) + 1;
+
+		FittedPrompt fitted = new PromptFitter(this.counter, budget).fit(prompt);
+
+		assertThat(fitted.prompt().getMessages()).containsExactly(system, relevant, question);
+		assertThat(fitted.droppedMessages()).isEqualTo(1);
+		assertThat(fitted.tokens()).isLessThanOrEqualTo(budget);
+		assertThat(fitted.originalTokens()).isEqualTo(this.counter.count(prompt));
+	}
+
+	@Test
+	public void trimMessageWhenEnoughOfItFits() {
+		Message history = new UserMessage("Some earlier turn of the conversation. ".repeat(20));
+		Message question = new UserMessage("And now?");
+		Prompt prompt = new Prompt(List.of(history, question));
+		int budget = this.counter.count(prompt) - 50;
+
+		FittedPrompt fitted = new PromptFitter(this.counter, budget).fit(prompt);
+
+		assertThat(fitted.trimmedMessages()).isEqualTo(1);
+		assertThat(fitted.tokens()).isLessThanOrEqualTo(budget);
+		Message trimmed = fitted.prompt().getMessages().get(0);
+		assertThat(trimmed.getMessageType()).isEqualTo(MessageType.USER);
+		assertThat(history.getContent()).startsWith(trimmed.getContent());
+		assertThat(fitted.prompt().getMessages().get(1)).isSameAs(question);
+	}
+
+	@Test
+	public void rejectRequiredMessagesExceedingTheBudget() {
+		Prompt prompt = new Prompt(
+				List.of(new SystemMessage("A long system prompt. ".repeat(20)), new UserMessage("Hello world")));
+
+		assertThatThrownBy(() -> new PromptFitter(this.counter, 20).fit(prompt))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void reportTokenCountsInRunInfo() {
+		AiClient delegate = prompt -> new AiResponse(List.of(new Generation(prompt.getContents())), Map.of(),
+				Map.of("model", "test"));
+		Message history = context("Some earlier context. ".repeat(10), 0);
+		Prompt prompt = new Prompt(List.of(history, new UserMessage("Hello")));
+		int budget = this.counter.count(prompt) - this.counter.count(history) + 1;
+		var client = new TokenBudgetAiClient(delegate, new PromptFitter(this.counter, budget));
+
+		AiResponse response = client.generate(prompt);
+
+		assertThat(response.getGeneration().getText()).isEqualTo("Hello");
+		assertThat(response.getRunInfo()).containsEntry("model", "test")
+			.containsEntry(TokenBudgetAiClient.ORIGINAL_PROMPT_TOKENS, this.counter.count(prompt))
+			.containsEntry(TokenBudgetAiClient.PROMPT_TOKENS, this.counter.count(new Prompt("Hello")))
+			.containsEntry(TokenBudgetAiClient.DROPPED_MESSAGES, 1)
+			.containsEntry(TokenBudgetAiClient.TRIMMED_MESSAGES, 0);
+	}
+
+	private static Message context(String content, int priority) {
+		return new ChatMessage(MessageType.USER, content, Map.of(PromptFitter.PRIORITY_PROPERTY, priority));
+	}
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.ratelimit;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit Tests for {@link AdaptiveRateLimiter}.
+ */
+class AdaptiveRateLimiterTests {
+
+	@Test
+	void concurrencyLimitBlocksUntilRelease() throws Exception {
+		AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(0, 0, 1, 1, 1, 0.5);
+
+		AdaptiveRateLimiter.Permit first = limiter.acquire(10);
+		CompletableFuture<AdaptiveRateLimiter.Permit> second = CompletableFuture.supplyAsync(() -> limiter.acquire(10));
+
+		assertThatThrownBy(() -> second.get(100, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+
+		first.release(10);
+		assertThat(second.get(1, TimeUnit.SECONDS)).isNotNull();
+		assertThat(limiter.getInFlight()).isEqualTo(1);
+	}
+
+	@Test
+	void successIncreasesAndThrottlingDecreasesConcurrency() {
+		AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(0, 0, 4, 1, 8, 0.5);
+
+		for (int i = 0; i < 20; i++) {
+			limiter.acquire(1).release(1);
+		}
+		assertThat(limiter.getConcurrencyLimit()).isGreaterThan(4);
+
+		int before = limiter.getConcurrencyLimit();
+		limiter.acquire(1).throttled(Duration.ZERO);
+		assertThat(limiter.getConcurrencyLimit()).isEqualTo(before / 2);
+	}
+
+	@Test
+	void throttlingPausesForRetryAfter() {
+		AdaptiveRateLimiter limiter = new AdaptiveRateLimiter();
+
+		limiter.acquire(1).throttled(Duration.ofMillis(200));
+
+		long start = System.nanoTime();
+		limiter.acquire(1).release(1);
+		assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(150));
+	}
+
+	@Test
+	void tokenBudgetReconciledWithActualUsage() throws Exception {
+		// 600 tokens per minute refills 10 tokens per second.
+		AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(600, 0, 4, 1, 4, 0.5);
+
+		// The estimate was far too low, the bucket goes into debt.
+		limiter.acquire(10).release(600);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<AdaptiveRateLimiter.Permit> next = executor.submit(() -> limiter.acquire(10));
+			assertThatThrownBy(() -> next.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+		}
+		finally {
+			// Interrupts the acquire still waiting for the bucket to refill.
+			executor.shutdownNow();
+			assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+		}
+	}
+
+	@Test
+	void executeReportsThrottlingAndRethrows() {
+		AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(0, 0, 4, 1, 4, 0.5);
+		ThrottleClassifier classifier = ex -> ex instanceof IllegalStateException;
+
+		assertThatThrownBy(() -> limiter.execute(1, () -> {
+			throw new IllegalStateException("429");
+		}, response -> 1, classifier)).isInstanceOf(IllegalStateException.class);
+
+		assertThat(limiter.getConcurrencyLimit()).isEqualTo(2);
+		assertThat(limiter.getInFlight()).isZero();
+	}
+
+	@Test
+	void executeStreamHoldsThePermitUntilTheStreamEnds() {
+		AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(0, 0, 4, 1, 4, 0.5);
+		ThrottleClassifier classifier = ex -> ex instanceof IllegalStateException;
+
+		List<Integer> elements = limiter
+			.executeStream(1, () -> Flux.just(1, 2, 3).doOnNext(element -> assertThat(limiter.getInFlight()).isOne()),
+					element -> element, classifier)
+			.collectList()
+			.block();
+		assertThat(elements).containsExactly(1, 2, 3);
+		assertThat(limiter.getInFlight()).isZero();
+
+		// Cancelled.
+		assertThat(limiter.executeStream(1, () -> Flux.just(1, 2, 3), element -> element, classifier)
+			.take(1)
+			.collectList()
+			.block()).containsExactly(1);
+		// The cancellation cleanup is not awaited by the subscriber.
+		awaitNoneInFlight(limiter);
+
+		assertThatThrownBy(() -> limiter
+			.executeStream(1, () -> Flux.<Integer>error(new IllegalStateException("429")), element -> element,
+					classifier)
+			.blockLast()).isInstanceOf(IllegalStateException.class);
+		assertThat(limiter.getConcurrencyLimit()).isEqualTo(2);
+		assertThat(limiter.getInFlight()).isZero();
+	}
+
+	@Test
+	void cancellingTheStreamWhileAcquiringReleasesThePermit() throws Exception {
+		CountDownLatch acquired = new CountDownLatch(1);
+		CountDownLatch cancelled = new CountDownLatch(1);
+		AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(0, 0, 1, 1, 1, 0.5) {
+
+			@Override
+			public Permit acquire(long estimatedTokens) {
+				Permit permit = super.acquire(estimatedTokens);
+				acquired.countDown();
+				// Granted once the subscriber already cancelled.
+				boolean interrupted = false;
+				while (true) {
+					try {
+						cancelled.await();
+						break;
+					}
+					catch (InterruptedException ex) {
+						interrupted = true;
+					}
+				}
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+				return permit;
+			}
+
+		};
+
+		Disposable subscription = limiter.executeStream(1, () -> Flux.just(1), element -> element, ex -> false)
+			.timeout(Duration.ofSeconds(5))
+			.subscribe();
+		assertThat(acquired.await(5, TimeUnit.SECONDS)).isTrue();
+		subscription.dispose();
+		cancelled.countDown();
+
+		awaitNoneInFlight(limiter);
+	}
+
+	private static void awaitNoneInFlight(AdaptiveRateLimiter limiter) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (limiter.getInFlight() != 0 && System.nanoTime() - deadline < 0) {
+			Thread.onSpinWait();
+		}
+		assertThat(limiter.getInFlight()).isZero();
+	}
+
+	@Test
+	void estimateTokens() {
+		assertThat(AdaptiveRateLimiter.estimateTokens(List.of("abcd", "abcdefgh"))).isEqualTo(3);
+		assertThat(AdaptiveRateLimiter.parseRetryAfter("1.5")).isEqualTo(Duration.ofMillis(1500));
+		assertThat(AdaptiveRateLimiter.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT")).isNull();
+	}
+
+}
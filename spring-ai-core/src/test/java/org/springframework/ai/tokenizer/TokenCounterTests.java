@@ -0,0 +1,59 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.tokenizer;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.prompt.Prompt;
+import org.springframework.ai.prompt.messages.SystemMessage;
+import org.springframework.ai.prompt.messages.UserMessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenCounterTests {
+
+	private final TokenCounter counter = new TokenCounter();
+
+	@Test
+	public void countPrompt() {
+		int system = this.counter.count("You are a helpful assistant.");
+		int user = this.counter.count("Hello world");
+
+		Prompt prompt = new Prompt(
+				List.of(new SystemMessage("You are a helpful assistant."), new UserMessage("Hello world")));
+
+		assertThat(user).isEqualTo(2);
+		assertThat(this.counter.count(prompt)).isEqualTo(
+				system + user + 2 * TokenCounter.DEFAULT_TOKENS_PER_MESSAGE + TokenCounter.DEFAULT_TOKENS_PER_REPLY);
+	}
+
+	@Test
+	public void truncate() {
+		assertThat(this.counter.truncate("Hello world, how are you?", 2)).isEqualTo("Hello world");
+		assertThat(this.counter.truncate("Hello world", 10)).isEqualTo("Hello world");
+	}
+
+	@Test
+	public void encodingForModel() {
+		assertThat(TokenCounter.forModel("gpt-4-0613").getEncoding().getName()).isEqualTo("cl100k_base");
+		assertThat(TokenCounter.forModel("text-davinci-003").getEncoding().getName()).isEqualTo("p50k_base");
+		assertThat(TokenCounter.forModel("llama2").getEncoding().getName()).isEqualTo("cl100k_base");
+	}
+
+}
@@ -1,25 +1,30 @@
 package org.springframework.ai.ollama.client;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.ai.client.AiClient;
 import org.springframework.ai.client.AiResponse;
+import org.springframework.ai.client.AsyncAiClient;
 import org.springframework.ai.client.Generation;
+import org.springframework.ai.client.StreamingAiClient;
 import org.springframework.ai.prompt.Prompt;
 import org.springframework.util.CollectionUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -30,7 +35,7 @@ import java.util.stream.Collectors;
  *
  * @author nullptr
  */
-public class OllamaClient implements AiClient {
+public class OllamaClient implements StreamingAiClient, AsyncAiClient {
 
 	/** Logger for logging the events and messages. */
 	private static final Logger log = LoggerFactory.getLogger(OllamaClient.class);
@@ -38,6 +43,9 @@ public class OllamaClient implements AiClient {
 	/** Mapper for JSON serialization and deserialization. */
 	private static final ObjectMapper jsonMapper = new ObjectMapper();
 
+	/** Reader of the newline delimited generation results, straight from the bytes. */
+	private static final ObjectReader resultReader = jsonMapper.readerFor(OllamaGenerateResult.class);
+
 	/** HTTP client for making asynchronous calls to the Ollama Service. */
 	private static final HttpClient httpClient = HttpClient.newBuilder().build();
 
@@ -50,6 +58,18 @@ public class OllamaClient implements AiClient {
 	/** Optional callback to handle individual generation results. */
 	private Consumer<OllamaGenerateResult> simpleCallback;
 
+	/** How long the model stays loaded after a request, the server default if null. */
+	private Duration keepAlive;
+
+	/** Size of the context window, the model default if null. */
+	private Integer numCtx;
+
+	/** Number of threads of the generation, the server default if null. */
+	private Integer numThread;
+
+	/** Temperature of the generation, the model default if null. */
+	private Double temperature;
+
 	/**
 	 * Constructs an OllamaClient with the specified base URL and model.
 	 * @param baseUrl Base URL of the Ollama Service.
@@ -73,15 +93,108 @@ public class OllamaClient implements AiClient {
 
 	@Override
 	public AiResponse generate(Prompt prompt) {
+		return generate(prompt, this.simpleCallback);
+	}
+
+	/**
+	 * Generates the completion of the prompt, handing every partial result to the given
+	 * callback as soon as it is received.
+	 * @param prompt The prompt to complete.
+	 * @param callback Callback of this request, in place of the client wide one.
+	 * @return The complete AiResponse.
+	 */
+	public AiResponse generate(Prompt prompt, Consumer<OllamaGenerateResult> callback) {
+		return generate(prompt, null, callback);
+	}
+
+	/**
+	 * Generates the completion of the prompt following an earlier exchange.
+	 * @param prompt The new input of the exchange.
+	 * @param context Context returned by the previous generation of the exchange, null
+	 * for a new exchange.
+	 * @param callback Callback of this request, in place of the client wide one.
+	 * @return The complete AiResponse.
+	 * @see OllamaConversation
+	 */
+	AiResponse generate(Prompt prompt, List<Long> context, Consumer<OllamaGenerateResult> callback) {
 		validatePrompt(prompt);
 
-		HttpRequest request = buildHttpRequest(prompt);
+		HttpRequest request = buildHttpRequest(prompt, context);
 		var response = sendRequest(request);
 
-		List<OllamaGenerateResult> results = readGenerateResults(response.body());
+		List<OllamaGenerateResult> results = readGenerateResults(response.body(), callback);
 		return getAiResponse(results);
 	}
 
+	/**
+	 * Generates the completion of the prompt without blocking the calling thread. The
+	 * request is sent with the asynchronous HTTP client and the results are parsed on its
+	 * executor once the response body is complete, the callback is invoked at that time.
+	 * @param prompt The prompt to complete.
+	 * @return The future complete AiResponse.
+	 */
+	@Override
+	public CompletableFuture<AiResponse> generateAsync(Prompt prompt) {
+		validatePrompt(prompt);
+
+		HttpRequest request = buildHttpRequest(prompt);
+		Consumer<OllamaGenerateResult> callback = this.simpleCallback;
+		return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+			checkStatus(response);
+			return getAiResponse(readGenerateResults(new ByteArrayInputStream(response.body()), callback));
+		});
+	}
+
+	/**
+	 * Streams the completion of the prompt. Every partial result is emitted as soon as it
+	 * is received, as an AiResponse holding the newly generated text. Cancelling the
+	 * subscription closes the HTTP response stream, which aborts the generation.
+	 * @param prompt The prompt to complete.
+	 * @return The stream of partial AiResponses.
+	 */
+	@Override
+	public Flux<AiResponse> generateStream(Prompt prompt) {
+		validatePrompt(prompt);
+
+		HttpRequest request = buildHttpRequest(prompt);
+		return Flux.using(() -> sendRequest(request).body(), body -> {
+			MappingIterator<OllamaGenerateResult> results = readValues(body);
+			return Flux.fromIterable(() -> results);
+		}, this::closeQuietly)
+			.doOnNext(this::validateResult)
+			.map(this::getStreamingAiResponse)
+			.subscribeOn(Schedulers.boundedElastic());
+	}
+
+	/**
+	 * Loads the model of this client into memory, so that the first request does not pay
+	 * for the load. The model then stays loaded for the configured keep alive.
+	 * @return The future completion of the load.
+	 */
+	public CompletableFuture<Void> preload() {
+		return preload(this.model);
+	}
+
+	/**
+	 * Loads the given model into memory, so that the first request does not pay for the
+	 * load. A generation request without any prompt only loads the model.
+	 * @param model The model to load.
+	 * @return The future completion of the load.
+	 */
+	public CompletableFuture<Void> preload(String model) {
+		var data = new LinkedHashMap<String, Object>();
+		data.put("model", model);
+		addRequestOptions(data);
+		HttpRequest request = buildHttpRequest(data);
+		return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenAccept(response -> {
+			checkStatus(response);
+			readGenerateResults(new ByteArrayInputStream(response.body()), null).stream()
+				.filter(result -> result.getLoadDuration() != null)
+				.forEach(result -> log.info("Loaded the {} model in {}ms", model,
+						result.getLoadDuration() / 1000 / 1000));
+		});
+	}
+
 	/**
 	 * Validates the provided prompt.
 	 * @param prompt The prompt to validate.
@@ -102,7 +215,27 @@ public class OllamaClient implements AiClient {
 	 * @return The constructed HttpRequest.
 	 */
 	protected HttpRequest buildHttpRequest(Prompt prompt) {
-		String requestBody = getGenerateRequestBody(prompt.getMessages().get(0).getContent());
+		return buildHttpRequest(prompt, null);
+	}
+
+	/**
+	 * Constructs an HTTP request for the provided prompt, following an earlier exchange.
+	 * @param prompt The prompt for which the request needs to be built.
+	 * @param context Context returned by the previous generation, null if none.
+	 * @return The constructed HttpRequest.
+	 */
+	protected HttpRequest buildHttpRequest(Prompt prompt, List<Long> context) {
+		return buildHttpRequest(getGenerateRequestData(prompt.getMessages().get(0).getContent(), context));
+	}
+
+	private HttpRequest buildHttpRequest(Map<String, Object> data) {
+		String requestBody;
+		try {
+			requestBody = jsonMapper.writeValueAsString(data);
+		}
+		catch (JsonProcessingException ex) {
+			throw new RuntimeException("Failed to serialize the prompt to JSON", ex);
+		}
 
 		// remove the suffix '/' if necessary
 		String url = !this.baseUrl.endsWith("/") ? this.baseUrl : this.baseUrl.substring(0, this.baseUrl.length() - 1);
@@ -120,27 +253,62 @@ public class OllamaClient implements AiClient {
 	 * @return HttpResponse containing the response data.
 	 */
 	protected HttpResponse<InputStream> sendRequest(HttpRequest request) {
-		var response = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream()).join();
-		if (response.statusCode() != 200) {
-			throw new RuntimeException("Ollama call returned an unexpected status: " + response.statusCode());
+		HttpResponse<InputStream> response;
+		try {
+			response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+		}
+		catch (IOException e) {
+			throw new RuntimeException("Ollama call failed.", e);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while calling Ollama.", e);
 		}
+		checkStatus(response);
 		return response;
 	}
 
+	private void checkStatus(HttpResponse<?> response) {
+		if (response.statusCode() != 200) {
+			throw new OllamaStatusException(response.statusCode());
+		}
+	}
+
 	/**
-	 * Serializes the prompt into a request body for the Ollama API call.
-	 * @param prompt The prompt to be serialized.
-	 * @return Serialized request body as a String.
+	 * Builds the request body data of the Ollama API call.
+	 * @param prompt The prompt to be sent.
+	 * @param context Context returned by the previous generation, null if none.
+	 * @return Request body data, to be serialized.
 	 */
-	private String getGenerateRequestBody(String prompt) {
-		var data = Map.of("model", model, "prompt", prompt);
-		try {
-			return jsonMapper.writeValueAsString(data);
-		}
-		catch (JsonProcessingException ex) {
-			throw new RuntimeException("Failed to serialize the prompt to JSON", ex);
+	private Map<String, Object> getGenerateRequestData(String prompt, List<Long> context) {
+		var data = new LinkedHashMap<String, Object>();
+		data.put("model", model);
+		data.put("prompt", prompt);
+		if (context != null) {
+			data.put("context", context);
 		}
+		addRequestOptions(data);
+		return data;
+	}
 
+	private void addRequestOptions(Map<String, Object> data) {
+		if (this.keepAlive != null) {
+			// A negative duration keeps the model loaded indefinitely.
+			data.put("keep_alive", this.keepAlive.isNegative() ? -1 : this.keepAlive.toSeconds());
+		}
+		var options = new LinkedHashMap<String, Object>();
+		if (this.numCtx != null) {
+			options.put("num_ctx", this.numCtx);
+		}
+		if (this.numThread != null) {
+			options.put("num_thread", this.numThread);
+		}
+		if (this.temperature != null) {
+			options.put("temperature", this.temperature);
+		}
+		if (!options.isEmpty()) {
+			data.put("options", options);
+		}
 	}
 
 	/**
@@ -150,11 +318,23 @@ public class OllamaClient implements AiClient {
 	 * @return List of OllamaGenerateResult.
 	 */
 	protected List<OllamaGenerateResult> readGenerateResults(InputStream inputStream) {
-		try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream))) {
+		return readGenerateResults(inputStream, this.simpleCallback);
+	}
+
+	/**
+	 * Reads and processes the results from the InputStream provided by the Ollama
+	 * Service. The results are parsed straight from the stream bytes, without reading
+	 * each line as a String first.
+	 * @param inputStream InputStream containing the results from the Ollama Service.
+	 * @param callback Optional callback to handle the individual results.
+	 * @return List of OllamaGenerateResult.
+	 */
+	protected List<OllamaGenerateResult> readGenerateResults(InputStream inputStream,
+			Consumer<OllamaGenerateResult> callback) {
+		try (MappingIterator<OllamaGenerateResult> iterator = readValues(inputStream)) {
 			var results = new ArrayList<OllamaGenerateResult>();
-			String line;
-			while ((line = bufferedReader.readLine()) != null) {
-				processResponseLine(line, results);
+			while (iterator.hasNext()) {
+				processResult(iterator.next(), callback, results);
 			}
 			return results;
 		}
@@ -163,6 +343,24 @@ public class OllamaClient implements AiClient {
 		}
 	}
 
+	private MappingIterator<OllamaGenerateResult> readValues(InputStream inputStream) {
+		try {
+			return resultReader.readValues(inputStream);
+		}
+		catch (IOException e) {
+			throw new RuntimeException("Error parsing Ollama generation response.", e);
+		}
+	}
+
+	private void closeQuietly(InputStream inputStream) {
+		try {
+			inputStream.close();
+		}
+		catch (IOException e) {
+			log.debug("Failed to close the Ollama response stream", e);
+		}
+	}
+
 	/**
 	 * Processes a single line from the Ollama response.
 	 * @param line The line to be processed.
@@ -182,19 +380,28 @@ public class OllamaClient implements AiClient {
 			throw new RuntimeException("Error parsing response line from Ollama.", e);
 		}
 
-		if (result.getModel() == null || result.getDone() == null) {
-			throw new IllegalStateException("Received invalid data from Ollama.  Model = " + result.getModel()
-					+ " , Done = " + result.getDone());
+		processResult(result, this.simpleCallback, results);
+	}
 
-		}
+	private void processResult(OllamaGenerateResult result, Consumer<OllamaGenerateResult> callback,
+			List<OllamaGenerateResult> results) {
+		validateResult(result);
 
-		if (simpleCallback != null) {
-			simpleCallback.accept(result);
+		if (callback != null) {
+			callback.accept(result);
 		}
 
 		results.add(result);
 	}
 
+	private void validateResult(OllamaGenerateResult result) {
+		if (result.getModel() == null || result.getDone() == null) {
+			throw new IllegalStateException("Received invalid data from Ollama.  Model = " + result.getModel()
+					+ " , Done = " + result.getDone());
+
+		}
+	}
+
 	/**
 	 * Converts the list of OllamaGenerateResult into a structured AiResponse.
 	 * @param results List of OllamaGenerateResult.
@@ -213,7 +420,41 @@ public class OllamaClient implements AiClient {
 		// TODO investigate mapping of additional metadata/runtime info to the response.
 		// Determine if should be top
 		// level map vs. nested map
-		return new AiResponse(Collections.singletonList(generation), Map.of("ollama-generate-results", results));
+		Map<String, Object> runInfo = results.stream()
+			.filter(Objects::nonNull)
+			.filter(it -> Boolean.TRUE.equals(it.getDone()))
+			.findFirst()
+			.map(OllamaClient::getUsage)
+			.orElse(Map.of());
+		return new AiResponse(Collections.singletonList(generation), Map.of("ollama-generate-results", results),
+				runInfo);
+	}
+
+	/**
+	 * Converts a single streamed OllamaGenerateResult into an AiResponse.
+	 * @param result The partial generation result.
+	 * @return AiResponse holding the newly generated text.
+	 */
+	protected AiResponse getStreamingAiResponse(OllamaGenerateResult result) {
+		var generation = new Generation(result.getResponse() != null ? result.getResponse() : "");
+		Map<String, Object> runInfo = Boolean.TRUE.equals(result.getDone()) ? getUsage(result) : Map.of();
+		return new AiResponse(Collections.singletonList(generation), Map.of("ollama-generate-result", result), runInfo);
+	}
+
+	/**
+	 * Reads the token usage reported by the final result of a generation.
+	 * @param result The final generation result.
+	 * @return The {@code prompt-tokens}, {@code completion-tokens} and
+	 * {@code total-tokens} run info, empty when the result holds no usage.
+	 */
+	private static Map<String, Object> getUsage(OllamaGenerateResult result) {
+		if (result.getEvalCount() == null) {
+			return Map.of();
+		}
+		// The prompt evaluation is not reported when the prompt was cached.
+		long promptTokens = (result.getPromptEvalCount() != null) ? result.getPromptEvalCount() : 0;
+		return Map.of("prompt-tokens", promptTokens, "completion-tokens", result.getEvalCount(), "total-tokens",
+				promptTokens + result.getEvalCount());
 	}
 
 	/**
@@ -238,11 +479,77 @@ public class OllamaClient implements AiClient {
 	}
 
 	/**
-	 * Sets the callback that handles individual generation results.
+	 * Sets the callback that handles individual generation results. The callback is
+	 * shared by all the requests of this client, prefer
+	 * {@link #generate(Prompt, Consumer)} or {@link #generateStream(Prompt)} to handle
+	 * the results of a single request.
 	 * @param simpleCallback The callback to be set.
 	 */
 	public void setSimpleCallback(Consumer<OllamaGenerateResult> simpleCallback) {
 		this.simpleCallback = simpleCallback;
 	}
 
+	/**
+	 * @return How long the model stays loaded after a request.
+	 */
+	public Duration getKeepAlive() {
+		return keepAlive;
+	}
+
+	/**
+	 * Sets how long the model stays loaded after a request, the server default (5
+	 * minutes) if null. A negative duration keeps it loaded indefinitely, zero unloads it
+	 * right after the request.
+	 * @param keepAlive The keep alive duration.
+	 */
+	public void setKeepAlive(Duration keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	/**
+	 * @return Size of the context window, in tokens.
+	 */
+	public Integer getNumCtx() {
+		return numCtx;
+	}
+
+	/**
+	 * Sets the size of the context window, in tokens, the model default if null.
+	 * @param numCtx The context window size.
+	 */
+	public void setNumCtx(Integer numCtx) {
+		this.numCtx = numCtx;
+	}
+
+	/**
+	 * @return Number of threads of the generation.
+	 */
+	public Integer getNumThread() {
+		return numThread;
+	}
+
+	/**
+	 * Sets the number of threads of the generation, detected by the server if null.
+	 * @param numThread The number of threads.
+	 */
+	public void setNumThread(Integer numThread) {
+		this.numThread = numThread;
+	}
+
+	/**
+	 * @return Temperature of the generation.
+	 */
+	public Double getTemperature() {
+		return temperature;
+	}
+
+	/**
+	 * Sets the temperature of the generation, the model default if null. Zero makes the
+	 * generation deterministic.
+	 * @param temperature The temperature.
+	 */
+	public void setTemperature(Double temperature) {
+		this.temperature = temperature;
+	}
+
 }
@@ -0,0 +1,430 @@
+package org.springframework.ai.ollama.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.client.AiResponse;
+import org.springframework.ai.client.AsyncAiClient;
+import org.springframework.ai.client.StreamingAiClient;
+import org.springframework.ai.prompt.Prompt;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A client spreading the requests over a cluster of Ollama Services. Each request is
+ * routed to the healthy node with the least outstanding requests. Nodes which already
+ * served a model are preferred for it, as a node loading a model it does not hold yet
+ * answers much slower: a cold node is chosen only when its outstanding requests plus the
+ * cold node penalty are lower than those of the warm nodes.
+ * <p>
+ * The nodes are health checked periodically. A node failing several checks or requests in
+ * a row is ejected until it passes a health check again, or serves a request. Only the
+ * connection errors, timeouts and server errors count as request failures, not the
+ * invalid prompts or the client errors such as an unknown model. When no node is healthy,
+ * the requests are sent to all the nodes anyway, so that the ejected nodes are reinstated
+ * by their first successful request even without health checks.
+ *
+ * @since 0.7.1
+ */
+public class OllamaClusterClient implements StreamingAiClient, AsyncAiClient, DisposableBean {
+
+	/** Logger for logging the events and messages. */
+	private static final Logger log = LoggerFactory.getLogger(OllamaClusterClient.class);
+
+	/** HTTP client for the health checks. */
+	private static final HttpClient healthCheckClient = HttpClient.newBuilder()
+		.connectTimeout(Duration.ofSeconds(5))
+		.build();
+
+	public static final Duration DEFAULT_HEALTH_CHECK_INTERVAL = Duration.ofSeconds(10);
+
+	public static final int DEFAULT_UNHEALTHY_THRESHOLD = 3;
+
+	public static final int DEFAULT_COLD_NODE_PENALTY = 2;
+
+	/** Nodes of the cluster. */
+	private final List<Node> nodes;
+
+	/** Default model, used by {@link #generate(Prompt)}. */
+	private final String model;
+
+	/** Number of consecutive failures ejecting a node. */
+	private int unhealthyThreshold = DEFAULT_UNHEALTHY_THRESHOLD;
+
+	/** Outstanding requests a cold node is weighted with. */
+	private int coldNodePenalty = DEFAULT_COLD_NODE_PENALTY;
+
+	/** Configures the clients of the nodes, such as their request options. */
+	private volatile Consumer<OllamaClient> clientCustomizer = client -> {
+	};
+
+	/** Scheduler of the health checks. */
+	private final ScheduledExecutorService healthChecks;
+
+	/**
+	 * Constructs an OllamaClusterClient checking the health of the nodes every
+	 * {@link #DEFAULT_HEALTH_CHECK_INTERVAL}.
+	 * @param baseUrls Base URLs of the Ollama Services.
+	 * @param model Default model specification for the AI service.
+	 */
+	public OllamaClusterClient(List<String> baseUrls, String model) {
+		this(baseUrls, model, DEFAULT_HEALTH_CHECK_INTERVAL);
+	}
+
+	/**
+	 * Constructs an OllamaClusterClient.
+	 * @param baseUrls Base URLs of the Ollama Services.
+	 * @param model Default model specification for the AI service.
+	 * @param healthCheckInterval Interval of the health checks, zero to disable them.
+	 */
+	public OllamaClusterClient(List<String> baseUrls, String model, Duration healthCheckInterval) {
+		Assert.notEmpty(baseUrls, "Base URLs must not be empty");
+		Assert.hasText(model, "Model must not be empty");
+		this.nodes = baseUrls.stream().map(Node::new).toList();
+		this.model = model;
+		if (healthCheckInterval.isZero()) {
+			this.healthChecks = null;
+		}
+		else {
+			this.healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "ollama-health-check");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.healthChecks.scheduleWithFixedDelay(this::checkHealth, healthCheckInterval.toMillis(),
+					healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Sets the number of consecutive failed health checks or requests ejecting a node.
+	 * @param unhealthyThreshold The threshold.
+	 */
+	public void setUnhealthyThreshold(int unhealthyThreshold) {
+		Assert.isTrue(unhealthyThreshold > 0, "Unhealthy threshold must be positive");
+		this.unhealthyThreshold = unhealthyThreshold;
+	}
+
+	/**
+	 * Sets the number of outstanding requests a node which never served the model is
+	 * weighted with. Zero for a plain least outstanding requests routing.
+	 * @param coldNodePenalty The penalty.
+	 */
+	public void setColdNodePenalty(int coldNodePenalty) {
+		Assert.isTrue(coldNodePenalty >= 0, "Cold node penalty must not be negative");
+		this.coldNodePenalty = coldNodePenalty;
+	}
+
+	/**
+	 * Sets the customizer of the clients of the nodes, applied before their first
+	 * request.
+	 * @param clientCustomizer The customizer, such as setting the request options.
+	 */
+	public void setClientCustomizer(Consumer<OllamaClient> clientCustomizer) {
+		Assert.notNull(clientCustomizer, "Client customizer must not be null");
+		this.clientCustomizer = clientCustomizer;
+	}
+
+	@Override
+	public AiResponse generate(Prompt prompt) {
+		return generate(this.model, prompt);
+	}
+
+	/**
+	 * Generates the completion of the prompt with the given model.
+	 * @param model The model to use.
+	 * @param prompt The prompt to complete.
+	 * @return The complete AiResponse.
+	 */
+	public AiResponse generate(String model, Prompt prompt) {
+		Node node = acquire(model);
+		long start = System.nanoTime();
+		try {
+			AiResponse response = client(node, model).generate(prompt);
+			node.succeeded(System.nanoTime() - start);
+			return response;
+		}
+		catch (RuntimeException ex) {
+			failed(node, ex);
+			throw ex;
+		}
+		finally {
+			node.outstanding.decrementAndGet();
+		}
+	}
+
+	@Override
+	public CompletableFuture<AiResponse> generateAsync(Prompt prompt) {
+		Node node = acquire(this.model);
+		long start = System.nanoTime();
+		CompletableFuture<AiResponse> response;
+		try {
+			response = client(node, this.model).generateAsync(prompt);
+		}
+		catch (RuntimeException ex) {
+			node.outstanding.decrementAndGet();
+			throw ex;
+		}
+		return response.whenComplete((result, ex) -> {
+			node.outstanding.decrementAndGet();
+			if (ex == null) {
+				node.succeeded(System.nanoTime() - start);
+			}
+			else {
+				failed(node, ex);
+			}
+		});
+	}
+
+	@Override
+	public Flux<AiResponse> generateStream(Prompt prompt) {
+		return Flux.defer(() -> {
+			Node node = acquire(this.model);
+			long start = System.nanoTime();
+			Flux<AiResponse> responses;
+			try {
+				responses = client(node, this.model).generateStream(prompt);
+			}
+			catch (RuntimeException ex) {
+				node.outstanding.decrementAndGet();
+				throw ex;
+			}
+			return responses.doOnComplete(() -> node.succeeded(System.nanoTime() - start))
+				.doOnError(ex -> failed(node, ex))
+				.doFinally(signal -> node.outstanding.decrementAndGet());
+		});
+	}
+
+	/**
+	 * Loads the default model into memory on the healthy nodes.
+	 * @return The future completion of the loads.
+	 * @see #preload(String)
+	 */
+	public CompletableFuture<Void> preload() {
+		return preload(this.model);
+	}
+
+	/**
+	 * Loads the given model into memory on every healthy node, or on all the nodes when
+	 * none is healthy, so that the first requests do not pay for the load. The nodes
+	 * which loaded the model are then preferred for it.
+	 * @param model The model to load.
+	 * @return The future completion of the loads, failed if any of them failed.
+	 */
+	public CompletableFuture<Void> preload(String model) {
+		return CompletableFuture
+			.allOf(candidates().stream().map(node -> client(node, model).preload(model).whenComplete((result, ex) -> {
+				if (ex == null) {
+					node.warmModels.add(model);
+				}
+				else {
+					failed(node, ex);
+				}
+			})).toArray(CompletableFuture[]::new));
+	}
+
+	/**
+	 * Checks the health of every node, ejecting or reinstating them.
+	 */
+	public void checkHealth() {
+		for (Node node : this.nodes) {
+			HttpRequest request = HttpRequest.newBuilder()
+				.uri(URI.create(node.baseUrl + "/api/tags"))
+				.timeout(Duration.ofSeconds(5))
+				.GET()
+				.build();
+			try {
+				HttpResponse<Void> response = healthCheckClient.send(request, HttpResponse.BodyHandlers.discarding());
+				if (response.statusCode() == 200) {
+					node.reinstate();
+				}
+				else {
+					node.failed(this.unhealthyThreshold);
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch (Exception ex) {
+				log.debug("Ollama node {} failed its health check", node.baseUrl, ex);
+				node.failed(this.unhealthyThreshold);
+			}
+		}
+	}
+
+	/**
+	 * @return The status of every node, in the configured order.
+	 */
+	public List<NodeStatus> getNodeStatuses() {
+		return this.nodes.stream().map(Node::status).toList();
+	}
+
+	/**
+	 * @return Default model name for the AI service.
+	 */
+	public String getModel() {
+		return this.model;
+	}
+
+	@Override
+	public void destroy() {
+		if (this.healthChecks != null) {
+			this.healthChecks.shutdownNow();
+		}
+	}
+
+	/**
+	 * Counts the failure of a request against the node, unless the request itself is at
+	 * fault.
+	 * @param node The node which served the request.
+	 * @param ex The failure of the request.
+	 */
+	private void failed(Node node, Throwable ex) {
+		if (isNodeFailure(ex)) {
+			node.failed(this.unhealthyThreshold);
+		}
+	}
+
+	/**
+	 * @param ex The failure of a request.
+	 * @return Whether the failure is caused by the node: a connection error, a timeout or
+	 * a server error.
+	 */
+	static boolean isNodeFailure(Throwable ex) {
+		for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+			if (cause instanceof OllamaStatusException statusException) {
+				return statusException.getStatusCode() >= 500;
+			}
+			if (cause instanceof IOException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private OllamaClient client(Node node, String model) {
+		return node.clients.computeIfAbsent(model, key -> {
+			OllamaClient client = new OllamaClient(node.baseUrl, key);
+			this.clientCustomizer.accept(client);
+			return client;
+		});
+	}
+
+	/**
+	 * Selects the node serving the next request of the model and counts the request as
+	 * outstanding on it.
+	 * @param model The requested model.
+	 * @return The selected node.
+	 */
+	private Node acquire(String model) {
+		Node node = candidates().stream()
+			.min(Comparator.comparingInt(candidate -> candidate.outstanding.get()
+					+ (candidate.warmModels.contains(model) ? 0 : this.coldNodePenalty)))
+			.orElseThrow();
+		node.outstanding.incrementAndGet();
+		node.warmModels.add(model);
+		return node;
+	}
+
+	/**
+	 * @return The healthy nodes, all the nodes when none is healthy.
+	 */
+	private List<Node> candidates() {
+		List<Node> candidates = this.nodes.stream().filter(node -> node.healthy).toList();
+		return candidates.isEmpty() ? this.nodes : candidates;
+	}
+
+	/**
+	 * Status of a node of the cluster.
+	 *
+	 * @param baseUrl Base URL of the node.
+	 * @param healthy Whether the node receives requests.
+	 * @param outstanding Number of requests in progress.
+	 * @param requests Number of successful requests.
+	 * @param failures Number of failed requests and health checks.
+	 * @param averageLatency Average latency of the successful requests.
+	 */
+	public record NodeStatus(String baseUrl, boolean healthy, int outstanding, long requests, long failures,
+			Duration averageLatency) {
+	}
+
+	private static final class Node {
+
+		private final String baseUrl;
+
+		private final Map<String, OllamaClient> clients = new ConcurrentHashMap<>();
+
+		/** Models this node served, hence likely to hold in memory. */
+		private final Set<String> warmModels = ConcurrentHashMap.newKeySet();
+
+		private final AtomicInteger outstanding = new AtomicInteger();
+
+		private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+		private final AtomicLong requests = new AtomicLong();
+
+		private final AtomicLong failures = new AtomicLong();
+
+		private final AtomicLong latencyNanos = new AtomicLong();
+
+		private volatile boolean healthy = true;
+
+		Node(String baseUrl) {
+			// remove the suffix '/' if necessary
+			this.baseUrl = !baseUrl.endsWith("/") ? baseUrl : baseUrl.substring(0, baseUrl.length() - 1);
+		}
+
+		void succeeded(long nanos) {
+			this.requests.incrementAndGet();
+			this.latencyNanos.addAndGet(nanos);
+			reinstate();
+		}
+
+		void failed(int unhealthyThreshold) {
+			this.failures.incrementAndGet();
+			if (this.consecutiveFailures.incrementAndGet() >= unhealthyThreshold && this.healthy) {
+				log.warn("Ejecting the unhealthy Ollama node {}", this.baseUrl);
+				this.healthy = false;
+				// The node may have restarted, without any model loaded.
+				this.warmModels.clear();
+			}
+		}
+
+		void reinstate() {
+			this.consecutiveFailures.set(0);
+			if (!this.healthy) {
+				log.info("Reinstating the Ollama node {}", this.baseUrl);
+				this.healthy = true;
+			}
+		}
+
+		NodeStatus status() {
+			long requests = this.requests.get();
+			Duration averageLatency = Duration.ofNanos((requests > 0) ? this.latencyNanos.get() / requests : 0);
+			return new NodeStatus(this.baseUrl, this.healthy, this.outstanding.get(), requests, this.failures.get(),
+					averageLatency);
+		}
+
+	}
+
+}
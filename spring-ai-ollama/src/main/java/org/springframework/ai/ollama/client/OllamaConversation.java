@@ -0,0 +1,71 @@
+package org.springframework.ai.ollama.client;
+
+import org.springframework.ai.client.AiClient;
+import org.springframework.ai.client.AiResponse;
+import org.springframework.ai.prompt.Prompt;
+import org.springframework.util.Assert;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A multi-turn exchange with an Ollama model. Each turn sends only its new input along
+ * with the {@code context} tokens returned by the previous turn, so that the server does
+ * not evaluate the whole history again. The turns of a conversation are sequential.
+ *
+ * @since 0.7.1
+ */
+public class OllamaConversation implements AiClient {
+
+	/** Client sending the turns. */
+	private final OllamaClient client;
+
+	/** Context tokens returned by the last turn, null before the first one. */
+	private List<Long> context;
+
+	/**
+	 * Starts a new conversation.
+	 * @param client Client sending the turns.
+	 */
+	public OllamaConversation(OllamaClient client) {
+		Assert.notNull(client, "Client must not be null");
+		this.client = client;
+	}
+
+	@Override
+	public AiResponse generate(Prompt prompt) {
+		return generate(prompt, this.client.getSimpleCallback());
+	}
+
+	/**
+	 * Sends the next turn of the conversation.
+	 * @param prompt The new input of the conversation.
+	 * @param callback Callback of this turn, in place of the client wide one.
+	 * @return The complete AiResponse.
+	 */
+	public synchronized AiResponse generate(Prompt prompt, Consumer<OllamaGenerateResult> callback) {
+		AiResponse response = this.client.generate(prompt, this.context, callback);
+		@SuppressWarnings("unchecked")
+		var results = (List<OllamaGenerateResult>) response.getProviderOutput().get("ollama-generate-results");
+		results.stream()
+			.filter(result -> Boolean.TRUE.equals(result.getDone()) && result.getContext() != null)
+			.reduce((first, second) -> second)
+			.ifPresent(result -> this.context = result.getContext());
+		return response;
+	}
+
+	/**
+	 * @return Context tokens returned by the last turn, null before the first one.
+	 */
+	public synchronized List<Long> getContext() {
+		return context;
+	}
+
+	/**
+	 * Forgets the previous turns, the next one starts a new exchange.
+	 */
+	public synchronized void reset() {
+		this.context = null;
+	}
+
+}
@@ -0,0 +1,29 @@
+package org.springframework.ai.ollama.client;
+
+/**
+ * Thrown when an Ollama Service call returns an unexpected HTTP status.
+ *
+ * @since 0.7.1
+ */
+public class OllamaStatusException extends RuntimeException {
+
+	/** HTTP status code returned by the Ollama Service. */
+	private final int statusCode;
+
+	/**
+	 * Constructs an OllamaStatusException.
+	 * @param statusCode HTTP status code returned by the Ollama Service.
+	 */
+	public OllamaStatusException(int statusCode) {
+		super("Ollama call returned an unexpected status: " + statusCode);
+		this.statusCode = statusCode;
+	}
+
+	/**
+	 * @return HTTP status code returned by the Ollama Service.
+	 */
+	public int getStatusCode() {
+		return this.statusCode;
+	}
+
+}
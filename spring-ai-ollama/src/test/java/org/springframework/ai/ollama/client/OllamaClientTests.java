@@ -1,16 +1,188 @@
 package org.springframework.ai.ollama.client;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.springframework.ai.client.AiResponse;
+import org.springframework.ai.client.Generation;
 import org.springframework.ai.prompt.Prompt;
 import org.springframework.util.CollectionUtils;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 public class OllamaClientTests {
 
+	private static final String[] LINES = { "{\"model\":\"llama2\",\"response\":\"Hello\",\"done\":false}\n",
+			"{\"model\":\"llama2\",\"response\":\" world\",\"done\":false}\n",
+			"{\"model\":\"llama2\",\"response\":\"\",\"done\":true,\"prompt_eval_count\":5,\"eval_count\":2}\n" };
+
+	private HttpServer server;
+
+	@AfterEach
+	public void stopServer() {
+		if (this.server != null) {
+			this.server.stop(0);
+		}
+	}
+
+	@Test
+	public void generateWithCallback() throws IOException {
+		startServer(new CountDownLatch(0));
+		OllamaClient client = new OllamaClient(baseUrl(), "llama2");
+		List<String> received = new ArrayList<>();
+
+		AiResponse aiResponse = client.generate(new Prompt("Hello"), result -> received.add(result.getResponse()));
+
+		Assertions.assertEquals("Hello world", aiResponse.getGeneration().getText());
+		Assertions.assertEquals(List.of("Hello", " world", ""), received);
+		Assertions.assertEquals(Map.of("prompt-tokens", 5L, "completion-tokens", 2L, "total-tokens", 7L),
+				aiResponse.getRunInfo());
+	}
+
+	@Test
+	public void generateAsync() throws Exception {
+		startServer(new CountDownLatch(0));
+		OllamaClient client = new OllamaClient(baseUrl(), "llama2");
+
+		AiResponse aiResponse = client.generateAsync(new Prompt("Hello")).get(5, TimeUnit.SECONDS);
+
+		Assertions.assertEquals("Hello world", aiResponse.getGeneration().getText());
+	}
+
+	@Test
+	public void generateStream() throws IOException {
+		startServer(new CountDownLatch(0));
+		OllamaClient client = new OllamaClient(baseUrl(), "llama2");
+
+		List<AiResponse> responses = client.generateStream(new Prompt("Hello")).collectList().block();
+
+		Assertions.assertEquals(List.of("Hello", " world", ""),
+				responses.stream().map(AiResponse::getGeneration).map(Generation::getText).toList());
+		OllamaGenerateResult last = (OllamaGenerateResult) responses.get(2)
+			.getProviderOutput()
+			.get("ollama-generate-result");
+		Assertions.assertTrue(last.getDone());
+		Assertions.assertEquals(2L, last.getEvalCount());
+		Assertions.assertTrue(responses.get(1).getRunInfo().isEmpty());
+		Assertions.assertEquals(7L, responses.get(2).getRunInfo().get("total-tokens"));
+	}
+
+	@Test
+	public void generateStreamEmitsBeforeTheEnd() throws IOException {
+		// The server holds the end of the generation until the first token is received.
+		CountDownLatch firstToken = new CountDownLatch(1);
+		startServer(firstToken);
+		OllamaClient client = new OllamaClient(baseUrl(), "llama2");
+
+		List<AiResponse> responses = client.generateStream(new Prompt("Hello"))
+			.doOnNext(response -> firstToken.countDown())
+			.take(1)
+			.collectList()
+			.block();
+
+		Assertions.assertEquals("Hello", responses.get(0).getGeneration().getText());
+	}
+
+	@Test
+	public void sendRequestOptions() throws Exception {
+		List<JsonNode> requests = startRecordingServer();
+		OllamaClient client = new OllamaClient(baseUrl(), "llama2");
+		client.setKeepAlive(Duration.ofMinutes(-1));
+		client.setNumCtx(4096);
+		client.setNumThread(8);
+		client.setTemperature(0.0);
+
+		client.generate(new Prompt("Hello"));
+		client.preload("mistral").get(5, TimeUnit.SECONDS);
+
+		JsonNode generate = requests.get(0);
+		Assertions.assertEquals(-1, generate.get("keep_alive").asInt());
+		Assertions.assertEquals(4096, generate.get("options").get("num_ctx").asInt());
+		Assertions.assertEquals(8, generate.get("options").get("num_thread").asInt());
+		Assertions.assertEquals(0.0, generate.get("options").get("temperature").asDouble());
+		Assertions.assertFalse(generate.has("context"));
+		JsonNode preload = requests.get(1);
+		Assertions.assertEquals("mistral", preload.get("model").asText());
+		Assertions.assertFalse(preload.has("prompt"));
+		Assertions.assertEquals(-1, preload.get("keep_alive").asInt());
+	}
+
+	@Test
+	public void conversationReusesTheContext() throws IOException {
+		List<JsonNode> requests = startRecordingServer();
+		OllamaConversation conversation = new OllamaConversation(new OllamaClient(baseUrl(), "llama2"));
+
+		conversation.generate(new Prompt("Hello"));
+		AiResponse aiResponse = conversation.generate(new Prompt("How are you?"));
+
+		Assertions.assertEquals("Hello world", aiResponse.getGeneration().getText());
+		Assertions.assertFalse(requests.get(0).has("context"));
+		Assertions.assertEquals("How are you?", requests.get(1).get("prompt").asText());
+		Assertions.assertEquals("[1,2,3]", requests.get(1).get("context").toString());
+		Assertions.assertEquals(List.of(1L, 2L, 3L), conversation.getContext());
+
+		conversation.reset();
+		conversation.generate(new Prompt("Hello"));
+		Assertions.assertFalse(requests.get(2).has("context"));
+	}
+
+	private List<JsonNode> startRecordingServer() throws IOException {
+		List<JsonNode> requests = new CopyOnWriteArrayList<>();
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		this.server.createContext("/api/generate", exchange -> {
+			requests.add(new ObjectMapper().readTree(exchange.getRequestBody()));
+			exchange.sendResponseHeaders(200, 0);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(LINES[0].getBytes(StandardCharsets.UTF_8));
+				body.write(LINES[1].getBytes(StandardCharsets.UTF_8));
+				body.write("{\"model\":\"llama2\",\"response\":\"\",\"done\":true,\"context\":[1,2,3]}\n"
+					.getBytes(StandardCharsets.UTF_8));
+			}
+		});
+		this.server.start();
+		return requests;
+	}
+
+	private void startServer(CountDownLatch firstToken) throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		this.server.createContext("/api/generate", exchange -> {
+			exchange.getRequestBody().readAllBytes();
+			exchange.sendResponseHeaders(200, 0);
+			try (OutputStream body = exchange.getResponseBody()) {
+				for (int i = 0; i < LINES.length; i++) {
+					body.write(LINES[i].getBytes(StandardCharsets.UTF_8));
+					body.flush();
+					if (i == 0 && !firstToken.await(5, TimeUnit.SECONDS)) {
+						return;
+					}
+				}
+			}
+			catch (InterruptedException | IOException ex) {
+				// The client went away.
+			}
+		});
+		this.server.start();
+	}
+
+	private String baseUrl() {
+		return "http://127.0.0.1:" + this.server.getAddress().getPort() + "/";
+	}
+
 	@Test
 	@Disabled("For manual smoke testing only.")
 	public void smokeTest() {
@@ -0,0 +1,220 @@
+package org.springframework.ai.ollama.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.client.AiResponse;
+import org.springframework.ai.ollama.client.OllamaClusterClient.NodeStatus;
+import org.springframework.ai.prompt.Prompt;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class OllamaClusterClientTests {
+
+	private static final String LINE = "{\"model\":\"llama2\",\"response\":\"Hello\",\"done\":true}\n";
+
+	private final List<HttpServer> servers = new ArrayList<>();
+
+	private final List<AtomicInteger> generations = new ArrayList<>();
+
+	private OllamaClusterClient client;
+
+	@AfterEach
+	public void stop() {
+		if (this.client != null) {
+			this.client.destroy();
+		}
+		this.servers.forEach(server -> server.stop(0));
+	}
+
+	@Test
+	public void stickToTheWarmNode() throws IOException {
+		this.client = new OllamaClusterClient(List.of(startServer(null), startServer(null)), "llama2", Duration.ZERO);
+
+		for (int i = 0; i < 3; i++) {
+			Assertions.assertEquals("Hello", this.client.generate(new Prompt("Hello")).getGeneration().getText());
+		}
+
+		Assertions.assertEquals(3, this.generations.get(0).get());
+		Assertions.assertEquals(0, this.generations.get(1).get());
+		NodeStatus status = this.client.getNodeStatuses().get(0);
+		Assertions.assertEquals(3, status.requests());
+		Assertions.assertEquals(0, status.outstanding());
+		Assertions.assertTrue(status.averageLatency().compareTo(Duration.ZERO) > 0);
+	}
+
+	@Test
+	public void spreadOverTheLeastBusyNodes() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		this.client = new OllamaClusterClient(List.of(startServer(release), startServer(release)), "llama2",
+				Duration.ZERO);
+		this.client.setColdNodePenalty(0);
+
+		CompletableFuture<AiResponse> first = this.client.generateAsync(new Prompt("Hello"));
+		CompletableFuture<AiResponse> second = this.client.generateAsync(new Prompt("Hello"));
+		release.countDown();
+		CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+
+		Assertions.assertEquals(1, this.generations.get(0).get());
+		Assertions.assertEquals(1, this.generations.get(1).get());
+	}
+
+	@Test
+	public void ejectAndReinstateUnhealthyNodes() throws IOException {
+		String down = startServer(null);
+		String up = startServer(null);
+		this.client = new OllamaClusterClient(List.of(down, up), "llama2", Duration.ZERO);
+		this.client.setUnhealthyThreshold(1);
+		HttpServer downServer = this.servers.get(0);
+		downServer.stop(0);
+
+		Assertions.assertThrows(RuntimeException.class, () -> this.client.generate(new Prompt("Hello")));
+		Assertions.assertFalse(this.client.getNodeStatuses().get(0).healthy());
+		this.client.generate(new Prompt("Hello"));
+		Assertions.assertEquals(1, this.generations.get(1).get());
+
+		HttpServer restarted = HttpServer.create(downServer.getAddress(), 0);
+		restarted.createContext("/api/tags", OllamaClusterClientTests::listModels);
+		restarted.start();
+		this.servers.add(restarted);
+		this.client.checkHealth();
+
+		Assertions.assertTrue(this.client.getNodeStatuses().get(0).healthy());
+		Assertions.assertTrue(this.client.getNodeStatuses().get(1).healthy());
+	}
+
+	@Test
+	public void preloadOnTheHealthyNodes() throws Exception {
+		String down = startServer(null);
+		String up = startServer(null);
+		this.client = new OllamaClusterClient(List.of(down, up), "llama2", Duration.ZERO);
+		this.client.setUnhealthyThreshold(1);
+		HttpServer downServer = this.servers.get(0);
+		downServer.stop(0);
+		Assertions.assertThrows(RuntimeException.class, () -> this.client.generate(new Prompt("Hello")));
+
+		this.client.preload("mistral").get(5, TimeUnit.SECONDS);
+		Assertions.assertEquals(1, this.generations.get(1).get());
+
+		HttpServer restarted = HttpServer.create(downServer.getAddress(), 0);
+		restarted.createContext("/api/generate", exchange -> {
+			this.generations.get(0).incrementAndGet();
+			exchange.sendResponseHeaders(500, -1);
+			exchange.close();
+		});
+		restarted.createContext("/api/tags", OllamaClusterClientTests::listModels);
+		restarted.start();
+		this.servers.add(restarted);
+		this.client.checkHealth();
+
+		// The node which loaded the model is preferred over the cold one.
+		this.client.generate("mistral", new Prompt("Hello"));
+		Assertions.assertEquals(2, this.generations.get(1).get());
+		Assertions.assertEquals(0, this.generations.get(0).get());
+	}
+
+	@Test
+	public void invalidStreamRequestsAreNotOutstanding() throws IOException {
+		this.client = new OllamaClusterClient(List.of(startServer(null)), "llama2", Duration.ZERO);
+
+		Assertions.assertThrows(RuntimeException.class,
+				() -> this.client.generateStream(new Prompt(List.of())).collectList().block());
+
+		Assertions.assertEquals(0, this.client.getNodeStatuses().get(0).outstanding());
+	}
+
+	@Test
+	public void clientErrorsDoNotEjectTheNode() throws IOException {
+		AtomicInteger status = new AtomicInteger(404);
+		this.client = new OllamaClusterClient(List.of(startStatusServer(status)), "llama2", Duration.ZERO);
+		this.client.setUnhealthyThreshold(1);
+
+		Assertions.assertThrows(OllamaStatusException.class, () -> this.client.generate(new Prompt("Hello")));
+		Assertions.assertThrows(RuntimeException.class, () -> this.client.generate(new Prompt(List.of())));
+		Assertions.assertThrows(RuntimeException.class, () -> this.client.generateAsync(new Prompt("Hello")).join());
+
+		NodeStatus nodeStatus = this.client.getNodeStatuses().get(0);
+		Assertions.assertTrue(nodeStatus.healthy());
+		Assertions.assertEquals(0, nodeStatus.failures());
+	}
+
+	@Test
+	public void reinstateOnSuccessWithoutHealthChecks() throws IOException {
+		AtomicInteger status = new AtomicInteger(503);
+		this.client = new OllamaClusterClient(List.of(startStatusServer(status)), "llama2", Duration.ZERO);
+		this.client.setUnhealthyThreshold(1);
+
+		Assertions.assertThrows(OllamaStatusException.class, () -> this.client.generate(new Prompt("Hello")));
+		Assertions.assertFalse(this.client.getNodeStatuses().get(0).healthy());
+
+		// Sent to the ejected node anyway, as no node is healthy.
+		status.set(200);
+		Assertions.assertEquals("Hello", this.client.generate(new Prompt("Hello")).getGeneration().getText());
+		Assertions.assertTrue(this.client.getNodeStatuses().get(0).healthy());
+	}
+
+	private static void listModels(HttpExchange exchange) throws IOException {
+		exchange.sendResponseHeaders(200, -1);
+		exchange.close();
+	}
+
+	private String startStatusServer(AtomicInteger status) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/api/generate", exchange -> {
+			exchange.getRequestBody().readAllBytes();
+			if (status.get() != 200) {
+				exchange.sendResponseHeaders(status.get(), -1);
+				exchange.close();
+				return;
+			}
+			exchange.sendResponseHeaders(200, 0);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(LINE.getBytes(StandardCharsets.UTF_8));
+			}
+		});
+		server.start();
+		this.servers.add(server);
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	private String startServer(CountDownLatch release) throws IOException {
+		AtomicInteger count = new AtomicInteger();
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/api/generate", exchange -> {
+			exchange.getRequestBody().readAllBytes();
+			count.incrementAndGet();
+			try {
+				if (release != null && !release.await(5, TimeUnit.SECONDS)) {
+					return;
+				}
+				exchange.sendResponseHeaders(200, 0);
+				try (OutputStream body = exchange.getResponseBody()) {
+					body.write(LINE.getBytes(StandardCharsets.UTF_8));
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		server.createContext("/api/tags", OllamaClusterClientTests::listModels);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		this.servers.add(server);
+		this.generations.add(count);
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+}
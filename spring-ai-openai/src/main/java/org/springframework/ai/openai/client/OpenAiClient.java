@@ -16,8 +16,11 @@
 
 package org.springframework.ai.openai.client;
 
+import com.theokanning.openai.Usage;
 import com.theokanning.openai.completion.chat.ChatCompletionChoice;
+import com.theokanning.openai.completion.chat.ChatCompletionChunk;
 import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatCompletionResult;
 import com.theokanning.openai.completion.chat.ChatMessage;
 import com.theokanning.openai.service.OpenAiService;
 import org.slf4j.Logger;
@@ -25,14 +28,21 @@ import org.slf4j.LoggerFactory;
 import org.springframework.ai.client.AiClient;
 import org.springframework.ai.client.AiResponse;
 import org.springframework.ai.client.Generation;
+import org.springframework.ai.client.StreamingAiClient;
+import org.springframework.ai.openai.ratelimit.OpenAiThrottleClassifier;
 import org.springframework.ai.prompt.Prompt;
 import org.springframework.ai.prompt.messages.Message;
 import org.springframework.ai.prompt.messages.MessageType;
+import org.springframework.ai.ratelimit.AdaptiveRateLimiter;
 import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * {@link AiClient} implementation for {@literal OpenAI} backed by {@link OpenAiService}.
@@ -44,7 +54,7 @@ import java.util.Map;
  * @see org.springframework.ai.client.AiClient
  * @see com.theokanning.openai.service.OpenAiService
  */
-public class OpenAiClient implements AiClient {
+public class OpenAiClient implements StreamingAiClient {
 
 	// TODO how to set default options for the entire client
 	// TODO expose request options into Prompt API via PromptOptions
@@ -56,6 +66,8 @@ public class OpenAiClient implements AiClient {
 
 	private final OpenAiService openAiService;
 
+	private AdaptiveRateLimiter rateLimiter;
+
 	public OpenAiClient(OpenAiService openAiService) {
 		Assert.notNull(openAiService, "OpenAiService must not be null");
 		this.openAiService = openAiService;
@@ -77,6 +89,18 @@ public class OpenAiClient implements AiClient {
 		this.temperature = temperature;
 	}
 
+	public AdaptiveRateLimiter getRateLimiter() {
+		return this.rateLimiter;
+	}
+
+	/**
+	 * Throttle the chat completion requests with the given, possibly shared, limiter.
+	 * @param rateLimiter the limiter to use or null to disable client side throttling.
+	 */
+	public void setRateLimiter(AdaptiveRateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
 	@Override
 	public String generate(String text) {
 		ChatCompletionRequest chatCompletionRequest = getChatCompletionRequest(text);
@@ -85,6 +109,44 @@ public class OpenAiClient implements AiClient {
 
 	@Override
 	public AiResponse generate(Prompt prompt) {
+		return getAiResponse(getPromptChatCompletionRequest(prompt));
+	}
+
+	/**
+	 * Stream the chat completion as server-sent events. Every emitted response holds the
+	 * content deltas of a completion chunk. The response of the final chunk of a choice
+	 * holds the {@code finish-reason} and the usage in its run info. The streaming API
+	 * does not report the usage, the prompt tokens are estimated and the completion
+	 * tokens are counted from the deltas, one token each, the run info
+	 * {@code estimated-usage} flag marking them as such. Cancelling the subscription
+	 * stops reading the events and closes the HTTP response.
+	 * @param prompt the prompt to complete.
+	 * @return the stream of completion deltas.
+	 */
+	@Override
+	public Flux<AiResponse> generateStream(Prompt prompt) {
+
+		ChatCompletionRequest chatCompletionRequest = getPromptChatCompletionRequest(prompt);
+
+		List<String> contents = chatCompletionRequest.getMessages().stream().map(ChatMessage::getContent).toList();
+		long promptTokens = AdaptiveRateLimiter.estimateTokens(contents);
+
+		Supplier<Flux<AiResponse>> call = () -> {
+			AtomicLong completionTokens = new AtomicLong();
+			return Flux.from(this.openAiService.streamChatCompletion(chatCompletionRequest))
+				.map(chunk -> getStreamingAiResponse(chunk, promptTokens, completionTokens));
+		};
+
+		if (this.rateLimiter == null) {
+			return Flux.defer(call);
+		}
+
+		return this.rateLimiter.executeStream(promptTokens, call,
+				response -> (Long) response.getRunInfo().getOrDefault("total-tokens", -1L),
+				OpenAiThrottleClassifier.INSTANCE);
+	}
+
+	private ChatCompletionRequest getPromptChatCompletionRequest(Prompt prompt) {
 
 		List<Message> messages = prompt.getMessages();
 
@@ -92,13 +154,41 @@ public class OpenAiClient implements AiClient {
 			.map(message -> new ChatMessage(message.getMessageTypeValue(), message.getContent()))
 			.toList();
 
-		ChatCompletionRequest chatCompletionRequest = ChatCompletionRequest.builder()
+		return ChatCompletionRequest.builder()
 			.model(this.model)
 			.temperature(this.temperature)
 			.messages(theoMessages)
 			.build();
+	}
 
-		return getAiResponse(chatCompletionRequest);
+	private AiResponse getStreamingAiResponse(ChatCompletionChunk chunk, long promptTokens,
+			AtomicLong completionTokens) {
+
+		List<Generation> generations = new ArrayList<>();
+		Map<String, Object> runInfo = new HashMap<>();
+
+		for (ChatCompletionChoice choice : chunk.getChoices()) {
+			ChatMessage delta = choice.getMessage();
+			String content = (delta != null && delta.getContent() != null) ? delta.getContent() : "";
+			if (!content.isEmpty()) {
+				completionTokens.incrementAndGet();
+			}
+			Map<String, Object> info = new HashMap<>();
+			if (delta != null && delta.getRole() != null) {
+				info.put("role", delta.getRole());
+			}
+			if (choice.getFinishReason() != null) {
+				info.put("finish-reason", choice.getFinishReason());
+				runInfo.put("finish-reason", choice.getFinishReason());
+				runInfo.put("prompt-tokens", promptTokens);
+				runInfo.put("completion-tokens", completionTokens.get());
+				runInfo.put("total-tokens", promptTokens + completionTokens.get());
+				runInfo.put("estimated-usage", true);
+			}
+			generations.add(new Generation(content, info));
+		}
+
+		return new AiResponse(generations, Map.of(), runInfo);
 	}
 
 	private ChatCompletionRequest getChatCompletionRequest(String text) {
@@ -121,9 +211,8 @@ public class OpenAiClient implements AiClient {
 		List<Generation> generations = new ArrayList<>();
 		logger.trace("ChatMessages: {}", chatCompletionRequest.getMessages());
 
-		List<ChatCompletionChoice> chatCompletionChoices = this.openAiService
-			.createChatCompletion(chatCompletionRequest)
-			.getChoices();
+		ChatCompletionResult chatCompletionResult = createChatCompletion(chatCompletionRequest);
+		List<ChatCompletionChoice> chatCompletionChoices = chatCompletionResult.getChoices();
 		logger.trace("ChatCompletionChoice: {}", chatCompletionChoices);
 
 		for (ChatCompletionChoice chatCompletionChoice : chatCompletionChoices) {
@@ -134,15 +223,22 @@ public class OpenAiClient implements AiClient {
 			generations.add(generation);
 		}
 
-		return new AiResponse(generations);
+		return new AiResponse(generations, Map.of(), getRunInfo(chatCompletionResult.getUsage()));
+	}
+
+	private static Map<String, Object> getRunInfo(Usage usage) {
+		if (usage == null) {
+			return Map.of();
+		}
+		return Map.of("prompt-tokens", usage.getPromptTokens(), "completion-tokens", usage.getCompletionTokens(),
+				"total-tokens", usage.getTotalTokens(), "estimated-usage", false);
 	}
 
 	private String getResponse(ChatCompletionRequest chatCompletionRequest) {
 
 		StringBuilder builder = new StringBuilder();
 
-		this.openAiService.createChatCompletion(chatCompletionRequest)
-			.getChoices()
+		createChatCompletion(chatCompletionRequest).getChoices()
 			.forEach(choice -> builder.append(choice.getMessage().getContent()));
 
 		String response = builder.toString();
@@ -150,6 +246,20 @@ public class OpenAiClient implements AiClient {
 		return response;
 	}
 
+	private ChatCompletionResult createChatCompletion(ChatCompletionRequest chatCompletionRequest) {
+
+		if (this.rateLimiter == null) {
+			return this.openAiService.createChatCompletion(chatCompletionRequest);
+		}
+
+		List<String> contents = chatCompletionRequest.getMessages().stream().map(ChatMessage::getContent).toList();
+
+		return this.rateLimiter.execute(AdaptiveRateLimiter.estimateTokens(contents),
+				() -> this.openAiService.createChatCompletion(chatCompletionRequest),
+				result -> (result.getUsage() != null) ? result.getUsage().getTotalTokens() : -1,
+				OpenAiThrottleClassifier.INSTANCE);
+	}
+
 	private List<ChatCompletionRequest> getChatCompletionRequest(Prompt prompt) {
 
 		List<ChatMessage> chatMessages = convertToChatMessages(prompt.getMessages());
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2023-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.openai.embedding;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Base64;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.theokanning.openai.Usage;
+import io.reactivex.Single;
+import retrofit2.http.Body;
+import retrofit2.http.POST;
+
+/**
+ * Lightweight Retrofit binding of the {@literal OpenAI} embeddings endpoint, requesting
+ * the embeddings as base64 encoded, little endian, float32 arrays. The payload is about a
+ * third of the JSON number arrays and is decoded without any number parsing.
+ *
+ * @since 0.7.1
+ */
+public interface OpenAiEmbeddingApi {
+
+	String BASE64_ENCODING_FORMAT = "base64";
+
+	@POST("/v1/embeddings")
+	Single<Base64EmbeddingResult> createEmbeddings(@Body Base64EmbeddingRequest request);
+
+	record Base64EmbeddingRequest(@JsonProperty("model") String model, @JsonProperty("input") List<String> input,
+			@JsonProperty("encoding_format") String encodingFormat) {
+
+		public Base64EmbeddingRequest(String model, List<String> input) {
+			this(model, input, BASE64_ENCODING_FORMAT);
+		}
+
+	}
+
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	record Base64EmbeddingResult(@JsonProperty("model") String model, @JsonProperty("data") List<Base64Embedding> data,
+			@JsonProperty("usage") Usage usage) {
+
+	}
+
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	record Base64Embedding(@JsonProperty("index") int index, @JsonProperty("embedding") String embedding) {
+
+		/**
+		 * @return the decoded embedding vector.
+		 */
+		public float[] decode() {
+			return OpenAiEmbeddingApi.decode(this.embedding);
+		}
+
+	}
+
+	/**
+	 * Decode a base64 encoded array of little endian float32 values.
+	 * @param base64 the encoded embedding.
+	 * @return the embedding vector.
+	 */
+	static float[] decode(String base64) {
+		ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(base64)).order(ByteOrder.LITTLE_ENDIAN);
+		float[] embedding = new float[buffer.remaining() / Float.BYTES];
+		buffer.asFloatBuffer().get(embedding);
+		return embedding;
+	}
+
+}
@@ -8,6 +8,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import com.theokanning.openai.Usage;
 import com.theokanning.openai.embedding.EmbeddingRequest;
+import com.theokanning.openai.embedding.EmbeddingResult;
 import com.theokanning.openai.service.OpenAiService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +19,8 @@ import org.springframework.ai.embedding.Embedding;
 import org.springframework.ai.embedding.EmbeddingClient;
 import org.springframework.ai.embedding.EmbeddingResponse;
 import org.springframework.ai.embedding.EmbeddingUtil;
+import org.springframework.ai.openai.ratelimit.OpenAiThrottleClassifier;
+import org.springframework.ai.ratelimit.AdaptiveRateLimiter;
 import org.springframework.util.Assert;
 
 public class OpenAiEmbeddingClient implements EmbeddingClient {
@@ -32,6 +35,10 @@ public class OpenAiEmbeddingClient implements EmbeddingClient {
 
 	private final MetadataMode metadataMode;
 
+	private AdaptiveRateLimiter rateLimiter;
+
+	private OpenAiEmbeddingApi base64EmbeddingApi;
+
 	public OpenAiEmbeddingClient(OpenAiService openAiService) {
 		this(openAiService, "text-embedding-ada-002");
 	}
@@ -51,20 +58,11 @@ public class OpenAiEmbeddingClient implements EmbeddingClient {
 
 	@Override
 	public List<Double> embed(String text) {
-		EmbeddingRequest embeddingRequest = EmbeddingRequest.builder().input(List.of(text)).model(this.model).build();
-		com.theokanning.openai.embedding.EmbeddingResult nativeEmbeddingResult = this.openAiService
-			.createEmbeddings(embeddingRequest);
-		return generateEmbeddingResponse(nativeEmbeddingResult).getData().get(0).getEmbedding();
+		return embedForResponse(List.of(text)).getData().get(0).getEmbedding();
 	}
 
 	public List<Double> embed(Document document) {
-		EmbeddingRequest embeddingRequest = EmbeddingRequest.builder()
-			.input(List.of(document.getFormattedContent(this.metadataMode)))
-			.model(this.model)
-			.build();
-		com.theokanning.openai.embedding.EmbeddingResult nativeEmbeddingResult = this.openAiService
-			.createEmbeddings(embeddingRequest);
-		return generateEmbeddingResponse(nativeEmbeddingResult).getData().get(0).getEmbedding();
+		return embed(document.getFormattedContent(this.metadataMode));
 	}
 
 	public List<List<Double>> embed(List<String> texts) {
@@ -74,14 +72,57 @@ public class OpenAiEmbeddingClient implements EmbeddingClient {
 
 	@Override
 	public EmbeddingResponse embedForResponse(List<String> texts) {
+		if (this.base64EmbeddingApi != null) {
+			return embedBase64(texts);
+		}
 		EmbeddingRequest embeddingRequest = EmbeddingRequest.builder().input(texts).model(this.model).build();
-		com.theokanning.openai.embedding.EmbeddingResult nativeEmbeddingResult = this.openAiService
-			.createEmbeddings(embeddingRequest);
+		EmbeddingResult nativeEmbeddingResult = createEmbeddings(embeddingRequest);
 		return generateEmbeddingResponse(nativeEmbeddingResult);
 	}
 
-	private EmbeddingResponse generateEmbeddingResponse(
-			com.theokanning.openai.embedding.EmbeddingResult nativeEmbeddingResult) {
+	/**
+	 * Throttle the embedding requests with the given, possibly shared, limiter.
+	 * @param rateLimiter the limiter to use or null to disable client side throttling.
+	 */
+	public void setRateLimiter(AdaptiveRateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
+	/**
+	 * Request the embeddings base64 encoded through the given API, instead of as JSON
+	 * number arrays through the {@link OpenAiService}.
+	 * @param base64EmbeddingApi the API to use or null to use the {@link OpenAiService}.
+	 */
+	public void setBase64EmbeddingApi(OpenAiEmbeddingApi base64EmbeddingApi) {
+		this.base64EmbeddingApi = base64EmbeddingApi;
+	}
+
+	private EmbeddingResponse embedBase64(List<String> texts) {
+		var request = new OpenAiEmbeddingApi.Base64EmbeddingRequest(this.model, texts);
+		OpenAiEmbeddingApi.Base64EmbeddingResult result = (this.rateLimiter == null)
+				? OpenAiService.execute(this.base64EmbeddingApi.createEmbeddings(request))
+				: this.rateLimiter.execute(AdaptiveRateLimiter.estimateTokens(texts),
+						() -> OpenAiService.execute(this.base64EmbeddingApi.createEmbeddings(request)),
+						r -> (r.usage() != null) ? r.usage().getTotalTokens() : -1, OpenAiThrottleClassifier.INSTANCE);
+
+		List<Embedding> data = new ArrayList<>(result.data().size());
+		for (OpenAiEmbeddingApi.Base64Embedding nativeDatum : result.data()) {
+			data.add(new Embedding(EmbeddingUtil.asList(nativeDatum.decode()), nativeDatum.index()));
+		}
+		return new EmbeddingResponse(data, generateMetadata(result.model(), result.usage()));
+	}
+
+	private EmbeddingResult createEmbeddings(EmbeddingRequest embeddingRequest) {
+		if (this.rateLimiter == null) {
+			return this.openAiService.createEmbeddings(embeddingRequest);
+		}
+		return this.rateLimiter.execute(AdaptiveRateLimiter.estimateTokens(embeddingRequest.getInput()),
+				() -> this.openAiService.createEmbeddings(embeddingRequest),
+				result -> (result.getUsage() != null) ? result.getUsage().getTotalTokens() : -1,
+				OpenAiThrottleClassifier.INSTANCE);
+	}
+
+	private EmbeddingResponse generateEmbeddingResponse(EmbeddingResult nativeEmbeddingResult) {
 		List<Embedding> data = generateEmbeddingList(nativeEmbeddingResult.getData());
 		Map<String, Object> metadata = generateMetadata(nativeEmbeddingResult.getModel(),
 				nativeEmbeddingResult.getUsage());
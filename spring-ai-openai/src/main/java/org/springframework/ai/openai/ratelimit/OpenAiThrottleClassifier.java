@@ -0,0 +1,54 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.openai.ratelimit;
+
+import java.time.Duration;
+
+import com.theokanning.openai.OpenAiHttpException;
+import retrofit2.HttpException;
+
+import org.springframework.ai.ratelimit.AdaptiveRateLimiter;
+import org.springframework.ai.ratelimit.ThrottleClassifier;
+
+/**
+ * {@link ThrottleClassifier} for the {@link OpenAiHttpException}s thrown by the
+ * {@literal OpenAI} service. The {@code Retry-After} header is read from the underlying
+ * Retrofit {@link HttpException}.
+ *
+ * @since 0.7.1
+ */
+public class OpenAiThrottleClassifier implements ThrottleClassifier {
+
+	public static final OpenAiThrottleClassifier INSTANCE = new OpenAiThrottleClassifier();
+
+	private static final int TOO_MANY_REQUESTS = 429;
+
+	@Override
+	public boolean isThrottled(RuntimeException ex) {
+		return ex instanceof OpenAiHttpException openAiHttpException
+				&& openAiHttpException.statusCode == TOO_MANY_REQUESTS;
+	}
+
+	@Override
+	public Duration getRetryAfter(RuntimeException ex) {
+		if (ex.getCause() instanceof HttpException httpException && httpException.response() != null) {
+			return AdaptiveRateLimiter.parseRetryAfter(httpException.response().headers().get("Retry-After"));
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2023-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.openai.client;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.theokanning.openai.Usage;
+import com.theokanning.openai.completion.chat.ChatCompletionChoice;
+import com.theokanning.openai.completion.chat.ChatCompletionChunk;
+import com.theokanning.openai.completion.chat.ChatCompletionResult;
+import com.theokanning.openai.completion.chat.ChatMessage;
+import com.theokanning.openai.service.OpenAiService;
+import io.reactivex.Flowable;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.client.AiResponse;
+import org.springframework.ai.prompt.Prompt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class OpenAiClientTests {
+
+	private final OpenAiService openAiService = mock(OpenAiService.class);
+
+	private final OpenAiClient client = new OpenAiClient(this.openAiService);
+
+	@Test
+	void generateWithUsage() {
+		Usage usage = new Usage();
+		usage.setPromptTokens(9);
+		usage.setCompletionTokens(2);
+		usage.setTotalTokens(11);
+		ChatCompletionResult result = new ChatCompletionResult();
+		result.setChoices(List.of(chunk("assistant", "Hello world", "stop").getChoices().get(0)));
+		result.setUsage(usage);
+		given(this.openAiService.createChatCompletion(any())).willReturn(result);
+
+		AiResponse response = this.client.generate(new Prompt("Say hello"));
+
+		assertThat(response.getGeneration().getText()).isEqualTo("Hello world");
+		assertThat(response.getRunInfo()).containsEntry("prompt-tokens", 9L)
+			.containsEntry("completion-tokens", 2L)
+			.containsEntry("total-tokens", 11L)
+			.containsEntry("estimated-usage", false);
+	}
+
+	@Test
+	void streamDeltas() {
+		given(this.openAiService.streamChatCompletion(any())).willReturn(Flowable.just(chunk("assistant", "", null),
+				chunk(null, "Hello", null), chunk(null, " world", null), chunk(null, null, "stop")));
+
+		List<AiResponse> responses = this.client.generateStream(new Prompt("Say hello")).collectList().block();
+
+		assertThat(responses).hasSize(4);
+		assertThat(responses.get(0).getGeneration().getInfo()).containsEntry("role", "assistant");
+		assertThat(responses.stream().map(response -> response.getGeneration().getText())).containsExactly("", "Hello",
+				" world", "");
+
+		// Only the final chunk carries the finish reason and the usage.
+		assertThat(responses.get(2).getRunInfo()).isEmpty();
+		AiResponse last = responses.get(3);
+		assertThat(last.getGeneration().getInfo()).containsEntry("finish-reason", "stop");
+		assertThat(last.getRunInfo()).containsEntry("finish-reason", "stop")
+			.containsEntry("completion-tokens", 2L)
+			.containsEntry("estimated-usage", true);
+		long promptTokens = (Long) last.getRunInfo().get("prompt-tokens");
+		assertThat(promptTokens).isPositive();
+		assertThat(last.getRunInfo()).containsEntry("total-tokens", promptTokens + 2);
+	}
+
+	@Test
+	void cancellingTheStreamCancelsTheUpstream() {
+		AtomicBoolean cancelled = new AtomicBoolean();
+		given(this.openAiService.streamChatCompletion(any()))
+			.willReturn(Flowable.just(chunk("assistant", "Hello", null))
+				.concatWith(Flowable.never())
+				.doOnCancel(() -> cancelled.set(true)));
+
+		AiResponse first = this.client.generateStream(new Prompt("Say hello")).blockFirst();
+
+		assertThat(first.getGeneration().getText()).isEqualTo("Hello");
+		assertThat(cancelled).isTrue();
+	}
+
+	private static ChatCompletionChunk chunk(String role, String content, String finishReason) {
+		ChatCompletionChoice choice = new ChatCompletionChoice();
+		choice.setIndex(0);
+		choice.setMessage(new ChatMessage(role, content));
+		choice.setFinishReason(finishReason);
+		ChatCompletionChunk chunk = new ChatCompletionChunk();
+		chunk.setChoices(List.of(choice));
+		return chunk;
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2023-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.openai.embedding;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Base64;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.theokanning.openai.service.OpenAiService;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpenAiEmbeddingApiTests {
+
+	private final ObjectMapper mapper = OpenAiService.defaultObjectMapper();
+
+	@Test
+	void serializeRequest() throws Exception {
+		var request = new OpenAiEmbeddingApi.Base64EmbeddingRequest("text-embedding-ada-002", List.of("Hello"));
+
+		assertThat(this.mapper.writeValueAsString(request))
+			.isEqualTo("{\"model\":\"text-embedding-ada-002\",\"input\":[\"Hello\"],\"encoding_format\":\"base64\"}");
+	}
+
+	@Test
+	void decodeResult() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(3 * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putFloat(0.5f).putFloat(-1.25f).putFloat(3f);
+		String base64 = Base64.getEncoder().encodeToString(buffer.array());
+
+		String json = """
+				{"object": "list", "model": "text-embedding-ada-002",
+				 "data": [{"object": "embedding", "index": 0, "embedding": "%s"}],
+				 "usage": {"prompt_tokens": 2, "total_tokens": 2}}
+				""".formatted(base64);
+
+		var result = this.mapper.readValue(json, OpenAiEmbeddingApi.Base64EmbeddingResult.class);
+
+		assertThat(result.model()).isEqualTo("text-embedding-ada-002");
+		assertThat(result.usage().getTotalTokens()).isEqualTo(2);
+		assertThat(result.data()).hasSize(1);
+		assertThat(result.data().get(0).index()).isZero();
+		assertThat(result.data().get(0).decode()).containsExactly(0.5f, -1.25f, 3f);
+	}
+
+}
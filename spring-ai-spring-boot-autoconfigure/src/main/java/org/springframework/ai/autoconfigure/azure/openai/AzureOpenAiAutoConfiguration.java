@@ -16,16 +16,23 @@
 
 package org.springframework.ai.autoconfigure.azure.openai;
 
+import com.azure.ai.openai.OpenAIAsyncClient;
 import com.azure.ai.openai.OpenAIClient;
 import com.azure.ai.openai.OpenAIClientBuilder;
 import com.azure.core.credential.AzureKeyCredential;
+import org.springframework.ai.autoconfigure.ratelimit.RateLimitProperties;
 import org.springframework.ai.azure.openai.client.AzureOpenAiClient;
 import org.springframework.ai.azure.openai.embedding.AzureOpenAiEmbeddingClient;
+import org.springframework.ai.ratelimit.AdaptiveRateLimiter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.util.StringUtils;
 
 @AutoConfiguration
@@ -39,30 +46,66 @@ public class AzureOpenAiAutoConfiguration {
 		this.azureOpenAiProperties = azureOpenAiProperties;
 	}
 
-	@Bean
-	@ConditionalOnMissingBean
-	public OpenAIClient msoftSdkOpenAiClient(AzureOpenAiProperties azureOpenAiProperties) {
-		if (!StringUtils.hasText(azureOpenAiProperties.getApiKey())) {
-			throw new IllegalArgumentException("You must provide an API key with the property name "
-					+ AzureOpenAiProperties.CONFIG_PREFIX + ".api-key");
+	/**
+	 * The Microsoft SDK clients, created only when the application does not provide its
+	 * own {@link OpenAIClient}. Otherwise no asynchronous client is created, and the
+	 * non-blocking calls fall back to the provided synchronous client.
+	 */
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnMissingBean(OpenAIClient.class)
+	static class MicrosoftSdkClientConfiguration {
+
+		@Bean
+		public OpenAIClient msoftSdkOpenAiClient(AzureOpenAiProperties azureOpenAiProperties) {
+			return msoftSdkOpenAiClientBuilder(azureOpenAiProperties).buildClient();
+		}
+
+		@Bean
+		@ConditionalOnMissingBean
+		public OpenAIAsyncClient msoftSdkOpenAiAsyncClient(AzureOpenAiProperties azureOpenAiProperties) {
+			return msoftSdkOpenAiClientBuilder(azureOpenAiProperties).buildAsyncClient();
+		}
+
+		private OpenAIClientBuilder msoftSdkOpenAiClientBuilder(AzureOpenAiProperties azureOpenAiProperties) {
+			if (!StringUtils.hasText(azureOpenAiProperties.getApiKey())) {
+				throw new IllegalArgumentException("You must provide an API key with the property name "
+						+ AzureOpenAiProperties.CONFIG_PREFIX + ".api-key");
+			}
+			return new OpenAIClientBuilder().endpoint(azureOpenAiProperties.getEndpoint())
+				.credential(new AzureKeyCredential(azureOpenAiProperties.getApiKey()));
 		}
-		OpenAIClient msoftSdkOpenAiClient = new OpenAIClientBuilder().endpoint(this.azureOpenAiProperties.getEndpoint())
-			.credential(new AzureKeyCredential(this.azureOpenAiProperties.getApiKey()))
-			.buildClient();
-		return msoftSdkOpenAiClient;
+
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = AzureOpenAiProperties.CONFIG_PREFIX + ".rate-limit", name = "enabled",
+			havingValue = "true")
+	public AdaptiveRateLimiter azureOpenAiRateLimiter() {
+		RateLimitProperties rateLimit = this.azureOpenAiProperties.getRateLimit();
+		return new AdaptiveRateLimiter(rateLimit.getTokensPerMinute(), rateLimit.getRequestsPerMinute(),
+				rateLimit.getInitialConcurrency(), rateLimit.getMinConcurrency(), rateLimit.getMaxConcurrency(),
+				rateLimit.getBackoffRatio());
 	}
 
 	@Bean
-	public AzureOpenAiClient azureOpenAiClient(OpenAIClient msoftSdkOpenAiClient) {
+	public AzureOpenAiClient azureOpenAiClient(OpenAIClient msoftSdkOpenAiClient,
+			ObjectProvider<OpenAIAsyncClient> msoftSdkOpenAiAsyncClient,
+			@Qualifier("azureOpenAiRateLimiter") ObjectProvider<AdaptiveRateLimiter> azureOpenAiRateLimiter) {
 		AzureOpenAiClient azureOpenAiClient = new AzureOpenAiClient(msoftSdkOpenAiClient);
+		azureOpenAiClient.setAsyncClient(msoftSdkOpenAiAsyncClient.getIfAvailable());
 		azureOpenAiClient.setTemperature(this.azureOpenAiProperties.getTemperature());
 		azureOpenAiClient.setModel(this.azureOpenAiProperties.getModel());
+		azureOpenAiClient.setRateLimiter(azureOpenAiRateLimiter.getIfAvailable());
 		return azureOpenAiClient;
 	}
 
 	@Bean
-	public AzureOpenAiEmbeddingClient azureOpenAiEmbeddingClient(OpenAIClient msoftSdkOpenAiClient) {
-		return new AzureOpenAiEmbeddingClient(msoftSdkOpenAiClient, this.azureOpenAiProperties.getEmbeddingModel());
+	public AzureOpenAiEmbeddingClient azureOpenAiEmbeddingClient(OpenAIClient msoftSdkOpenAiClient,
+			@Qualifier("azureOpenAiRateLimiter") ObjectProvider<AdaptiveRateLimiter> azureOpenAiRateLimiter) {
+		AzureOpenAiEmbeddingClient embeddingClient = new AzureOpenAiEmbeddingClient(msoftSdkOpenAiClient,
+				this.azureOpenAiProperties.getEmbeddingModel());
+		embeddingClient.setRateLimiter(azureOpenAiRateLimiter.getIfAvailable());
+		return embeddingClient;
 	}
 
 }
@@ -16,7 +16,9 @@
 
 package org.springframework.ai.autoconfigure.azure.openai;
 
+import org.springframework.ai.autoconfigure.ratelimit.RateLimitProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
 
 @ConfigurationProperties(AzureOpenAiProperties.CONFIG_PREFIX)
 public class AzureOpenAiProperties {
@@ -35,6 +37,12 @@ public class AzureOpenAiProperties {
 
 	private String embeddingModel = "text-embedding-ada-002";
 
+	/**
+	 * Client side rate limiting, shared by the chat and embedding clients.
+	 */
+	@NestedConfigurationProperty
+	private final RateLimitProperties rateLimit = new RateLimitProperties();
+
 	public String getEndpoint() {
 		return endpoint;
 	}
@@ -79,4 +87,8 @@ public class AzureOpenAiProperties {
 		this.embeddingModel = embeddingModel;
 	}
 
+	public RateLimitProperties getRateLimit() {
+		return rateLimit;
+	}
+
 }
@@ -43,13 +43,41 @@ public class TransformersEmbeddingClientAutoConfiguration {
 
 		embeddingClient.setDisableCaching(!properties.getCache().isEnabled());
 		embeddingClient.setResourceCacheDirectory(properties.getCache().getDirectory());
+		embeddingClient.setCacheOptimizedModel(properties.getCache().isOptimizedModel());
+		if (properties.getCache().getMaxSize() != null) {
+			embeddingClient.setResourceCacheMaxSize(properties.getCache().getMaxSize().toBytes());
+		}
+		embeddingClient.setResourceCacheMirrorDirectory(properties.getCache().getMirrorDirectory());
 
 		embeddingClient.setTokenizerResource(properties.getTokenizer().getUri());
+		embeddingClient.setTokenizerSha256(properties.getTokenizer().getSha256());
 		embeddingClient.setTokenizerOptions(properties.getTokenizer().getOptions());
+		embeddingClient.setMaxSequenceLength(properties.getTokenizer().getMaxSequenceLength());
+		embeddingClient.setTruncation(properties.getTokenizer().getTruncation());
 
-		embeddingClient.setModelResource(properties.getOnnx().getModelUri());
+		String modelUri = properties.getOnnx().getModelUri();
+		if (properties.getOnnx().isQuantized() && TransformersEmbeddingClient.DEFAULT_ONNX_MODEL_URI.equals(modelUri)) {
+			modelUri = TransformersEmbeddingClient.DEFAULT_ONNX_QUANTIZED_MODEL_URI;
+		}
+		embeddingClient.setModelResource(modelUri);
+		embeddingClient.setModelSha256(properties.getOnnx().getModelSha256());
 
 		embeddingClient.setGpuDeviceId(properties.getOnnx().getGpuDeviceId());
+		embeddingClient.setIntraOpNumThreads(properties.getOnnx().getIntraOpNumThreads());
+		embeddingClient.setInterOpNumThreads(properties.getOnnx().getInterOpNumThreads());
+		embeddingClient.setOptimizationLevel(properties.getOnnx().getOptimizationLevel());
+		embeddingClient.setExecutionMode(properties.getOnnx().getExecutionMode());
+		embeddingClient.setMemoryPatternOptimization(properties.getOnnx().isMemoryPatternOptimization());
+		embeddingClient.setCpuArenaAllocator(properties.getOnnx().isCpuArenaAllocator());
+		embeddingClient.setParallelism(properties.getOnnx().getParallelism());
+
+		embeddingClient.setNormalize(properties.isNormalize());
+		embeddingClient.setMaxTokensPerBatch(properties.getMaxTokensPerBatch());
+
+		embeddingClient.setWindowed(properties.getWindow().isEnabled());
+		embeddingClient.setWindowSize(properties.getWindow().getSize());
+		embeddingClient.setWindowOverlap(properties.getWindow().getOverlap());
+		embeddingClient.setWindowPooling(properties.getWindow().getPooling());
 
 		return embeddingClient;
 	}
@@ -22,11 +22,13 @@ import java.util.List;
 import java.util.Map;
 
 import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.onnxruntime.OrtSession;
 
 import org.springframework.ai.document.Document;
 import org.springframework.ai.document.MetadataMode;
 import org.springframework.ai.embedding.TransformersEmbeddingClient;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 import static org.springframework.ai.autoconfigure.embedding.transformer.TransformersEmbeddingClientProperties.CONFIG_PREFIX;
 
@@ -54,6 +56,11 @@ public class TransformersEmbeddingClientProperties {
 		 */
 		private String uri = TransformersEmbeddingClient.DEFAULT_ONNX_TOKENIZER_URI;
 
+		/**
+		 * Optional, hex encoded, SHA-256 checksum verified when caching the tokenizer.
+		 */
+		private String sha256;
+
 		/**
 		 * HuggingFaceTokenizer options such as 'addSpecialTokens', 'modelMaxLength',
 		 * 'truncation', 'padding', 'maxLength', 'stride' and 'padToMultipleOf'. Leave
@@ -61,6 +68,18 @@ public class TransformersEmbeddingClientProperties {
 		 */
 		private Map<String, String> options = new HashMap<>();
 
+		/**
+		 * Maximum number of tokens per input text. Longer texts are truncated. Leave
+		 * unset, or set to zero, to use the tokenizer configured max length.
+		 */
+		private int maxSequenceLength = -1;
+
+		/**
+		 * Truncation strategy for texts longer than the max sequence length. Defaults to
+		 * LONGEST_FIRST.
+		 */
+		private TransformersEmbeddingClient.Truncation truncation = TransformersEmbeddingClient.Truncation.LONGEST_FIRST;
+
 		public String getUri() {
 			return uri;
 		}
@@ -69,6 +88,14 @@ public class TransformersEmbeddingClientProperties {
 			this.uri = uri;
 		}
 
+		public String getSha256() {
+			return sha256;
+		}
+
+		public void setSha256(String sha256) {
+			this.sha256 = sha256;
+		}
+
 		public Map<String, String> getOptions() {
 			return options;
 		}
@@ -77,6 +104,22 @@ public class TransformersEmbeddingClientProperties {
 			this.options = options;
 		}
 
+		public int getMaxSequenceLength() {
+			return maxSequenceLength;
+		}
+
+		public void setMaxSequenceLength(int maxSequenceLength) {
+			this.maxSequenceLength = maxSequenceLength;
+		}
+
+		public TransformersEmbeddingClient.Truncation getTruncation() {
+			return truncation;
+		}
+
+		public void setTruncation(TransformersEmbeddingClient.Truncation truncation) {
+			this.truncation = truncation;
+		}
+
 	}
 
 	private final Tokenizer tokenizer = new Tokenizer();
@@ -95,6 +138,26 @@ public class TransformersEmbeddingClientProperties {
 		 */
 		private String directory = DEFAULT_CACHE_DIRECTORY;
 
+		/**
+		 * Persist the ONNX runtime optimized model into the cache directory and reuse it
+		 * on subsequent startups, skipping the graph optimization. Applicable only for
+		 * cache.enabled == true.
+		 */
+		private boolean optimizedModel = false;
+
+		/**
+		 * Maximum size of the cache directory. The least recently used files are evicted
+		 * when exceeded. Unbounded if not set.
+		 */
+		private DataSize maxSize;
+
+		/**
+		 * Local directory mirroring the remote resources, laid out as {host}/{path} (e.g.
+		 * huggingface.co/intfloat/e5-small-v2/resolve/main/model.onnx). Resources found
+		 * in the mirror are cached from it without network access.
+		 */
+		private String mirrorDirectory;
+
 		public boolean isEnabled() {
 			return enabled;
 		}
@@ -111,6 +174,30 @@ public class TransformersEmbeddingClientProperties {
 			this.directory = directory;
 		}
 
+		public DataSize getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(DataSize maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public String getMirrorDirectory() {
+			return mirrorDirectory;
+		}
+
+		public void setMirrorDirectory(String mirrorDirectory) {
+			this.mirrorDirectory = mirrorDirectory;
+		}
+
+		public boolean isOptimizedModel() {
+			return optimizedModel;
+		}
+
+		public void setOptimizedModel(boolean optimizedModel) {
+			this.optimizedModel = optimizedModel;
+		}
+
 	}
 
 	/**
@@ -131,6 +218,18 @@ public class TransformersEmbeddingClientProperties {
 		 */
 		private String modelUri = TransformersEmbeddingClient.DEFAULT_ONNX_MODEL_URI;
 
+		/**
+		 * Use the dynamically quantized (int8) variant of the default model. Faster on
+		 * CPU, with a small accuracy drift. Ignored if a custom modelUri is set, which
+		 * can point to a pre-quantized model instead.
+		 */
+		private boolean quantized = false;
+
+		/**
+		 * Optional, hex encoded, SHA-256 checksum verified when caching the model.
+		 */
+		private String modelSha256;
+
 		/**
 		 * Defaults to: 'last_hidden_state'.
 		 */
@@ -144,6 +243,47 @@ public class TransformersEmbeddingClientProperties {
 		 */
 		private int gpuDeviceId = -1;
 
+		/**
+		 * Number of threads used to parallelize the execution within nodes. Zero to use
+		 * the runtime default.
+		 */
+		private int intraOpNumThreads = 0;
+
+		/**
+		 * Number of threads used to parallelize the execution of the graph (across
+		 * nodes). Applicable with the PARALLEL execution mode. Zero to use the runtime
+		 * default.
+		 */
+		private int interOpNumThreads = 0;
+
+		/**
+		 * Graph optimization level: NO_OPT, BASIC_OPT, EXTENDED_OPT or ALL_OPT. Leave
+		 * unset to use the runtime default.
+		 */
+		private OrtSession.SessionOptions.OptLevel optimizationLevel;
+
+		/**
+		 * Graph execution mode: SEQUENTIAL or PARALLEL. Leave unset to use the runtime
+		 * default.
+		 */
+		private OrtSession.SessionOptions.ExecutionMode executionMode;
+
+		/**
+		 * Pre-allocate memory based on the shapes of earlier runs.
+		 */
+		private boolean memoryPatternOptimization = true;
+
+		/**
+		 * Use the CPU memory arena allocator.
+		 */
+		private boolean cpuArenaAllocator = true;
+
+		/**
+		 * Number of batches of a single embedding request run concurrently, on a pool of
+		 * worker threads sharing the same session. Defaults to 1 (sequential).
+		 */
+		private int parallelism = 1;
+
 		public String getModelUri() {
 			return modelUri;
 		}
@@ -152,6 +292,22 @@ public class TransformersEmbeddingClientProperties {
 			this.modelUri = modelUri;
 		}
 
+		public String getModelSha256() {
+			return modelSha256;
+		}
+
+		public void setModelSha256(String modelSha256) {
+			this.modelSha256 = modelSha256;
+		}
+
+		public boolean isQuantized() {
+			return quantized;
+		}
+
+		public void setQuantized(boolean quantized) {
+			this.quantized = quantized;
+		}
+
 		public int getGpuDeviceId() {
 			return gpuDeviceId;
 		}
@@ -160,6 +316,62 @@ public class TransformersEmbeddingClientProperties {
 			this.gpuDeviceId = gpuDeviceId;
 		}
 
+		public int getIntraOpNumThreads() {
+			return intraOpNumThreads;
+		}
+
+		public void setIntraOpNumThreads(int intraOpNumThreads) {
+			this.intraOpNumThreads = intraOpNumThreads;
+		}
+
+		public int getInterOpNumThreads() {
+			return interOpNumThreads;
+		}
+
+		public void setInterOpNumThreads(int interOpNumThreads) {
+			this.interOpNumThreads = interOpNumThreads;
+		}
+
+		public OrtSession.SessionOptions.OptLevel getOptimizationLevel() {
+			return optimizationLevel;
+		}
+
+		public void setOptimizationLevel(OrtSession.SessionOptions.OptLevel optimizationLevel) {
+			this.optimizationLevel = optimizationLevel;
+		}
+
+		public OrtSession.SessionOptions.ExecutionMode getExecutionMode() {
+			return executionMode;
+		}
+
+		public void setExecutionMode(OrtSession.SessionOptions.ExecutionMode executionMode) {
+			this.executionMode = executionMode;
+		}
+
+		public boolean isMemoryPatternOptimization() {
+			return memoryPatternOptimization;
+		}
+
+		public void setMemoryPatternOptimization(boolean memoryPatternOptimization) {
+			this.memoryPatternOptimization = memoryPatternOptimization;
+		}
+
+		public boolean isCpuArenaAllocator() {
+			return cpuArenaAllocator;
+		}
+
+		public void setCpuArenaAllocator(boolean cpuArenaAllocator) {
+			this.cpuArenaAllocator = cpuArenaAllocator;
+		}
+
+		public int getParallelism() {
+			return parallelism;
+		}
+
+		public void setParallelism(int parallelism) {
+			this.parallelism = parallelism;
+		}
+
 		public String getModelOutputName() {
 			return modelOutputName;
 		}
@@ -176,6 +388,72 @@ public class TransformersEmbeddingClientProperties {
 		return onnx;
 	}
 
+	/**
+	 * Sliding window embedding of the texts longer than the window size.
+	 */
+	public static class Window {
+
+		/**
+		 * Embed long texts as overlapping token windows pooled into a single embedding,
+		 * instead of truncating them.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Window size in tokens. Leave unset to use the tokenizer max sequence length.
+		 */
+		private int size = -1;
+
+		/**
+		 * Number of tokens shared by two consecutive windows.
+		 */
+		private int overlap = 32;
+
+		/**
+		 * How the window embeddings are combined: MEAN or TOKEN_WEIGHTED.
+		 */
+		private TransformersEmbeddingClient.WindowPooling pooling = TransformersEmbeddingClient.WindowPooling.TOKEN_WEIGHTED;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		public void setSize(int size) {
+			this.size = size;
+		}
+
+		public int getOverlap() {
+			return overlap;
+		}
+
+		public void setOverlap(int overlap) {
+			this.overlap = overlap;
+		}
+
+		public TransformersEmbeddingClient.WindowPooling getPooling() {
+			return pooling;
+		}
+
+		public void setPooling(TransformersEmbeddingClient.WindowPooling pooling) {
+			this.pooling = pooling;
+		}
+
+	}
+
+	private final Window window = new Window();
+
+	public Window getWindow() {
+		return window;
+	}
+
 	/**
 	 * Specifies what parts of the {@link Document}'s content and metadata will be used
 	 * for computing the embeddings. Applicable for the
@@ -186,6 +464,18 @@ public class TransformersEmbeddingClientProperties {
 	 */
 	private MetadataMode metadataMode = MetadataMode.NONE;
 
+	/**
+	 * L2 normalize the mean pooled embeddings. Defaults to false.
+	 */
+	private boolean normalize = false;
+
+	/**
+	 * Token budget (batch size x padded sequence length) of a single inference call.
+	 * Inputs are grouped by length into batches within this budget. Zero or negative to
+	 * embed all the inputs in a single batch.
+	 */
+	private int maxTokensPerBatch = TransformersEmbeddingClient.DEFAULT_MAX_TOKENS_PER_BATCH;
+
 	public Tokenizer getTokenizer() {
 		return tokenizer;
 	}
@@ -198,4 +488,20 @@ public class TransformersEmbeddingClientProperties {
 		this.metadataMode = metadataMode;
 	}
 
+	public boolean isNormalize() {
+		return normalize;
+	}
+
+	public void setNormalize(boolean normalize) {
+		this.normalize = normalize;
+	}
+
+	public int getMaxTokensPerBatch() {
+		return maxTokensPerBatch;
+	}
+
+	public void setMaxTokensPerBatch(int maxTokensPerBatch) {
+		this.maxTokensPerBatch = maxTokensPerBatch;
+	}
+
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2023-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.autoconfigure.observation;
+
+import io.micrometer.observation.ObservationRegistry;
+
+import org.springframework.ai.observation.AiObservationConvention;
+import org.springframework.ai.observation.AiUsageObservationHandler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Observes all the {@link org.springframework.ai.client.AiClient},
+ * {@link org.springframework.ai.embedding.EmbeddingClient} and
+ * {@link org.springframework.ai.vectorstore.VectorStore} beans with the application
+ * {@link ObservationRegistry}, when there is one. Their requests and token usage are
+ * counted by the {@link AiUsageObservationHandler}.
+ */
+@AutoConfiguration
+@ConditionalOnClass(ObservationRegistry.class)
+@EnableConfigurationProperties(AiObservationProperties.class)
+@ConditionalOnProperty(prefix = AiObservationProperties.CONFIG_PREFIX, name = "enabled", havingValue = "true",
+		matchIfMissing = true)
+public class AiObservationAutoConfiguration {
+
+	@Bean
+	static AiObservationBeanPostProcessor aiObservationBeanPostProcessor(
+			ObjectProvider<ObservationRegistry> observationRegistry,
+			ObjectProvider<AiObservationConvention> observationConvention,
+			ObjectProvider<AiUsageObservationHandler> usageObservationHandler) {
+		return new AiObservationBeanPostProcessor(observationRegistry, observationConvention, usageObservationHandler);
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	AiUsageObservationHandler aiUsageObservationHandler() {
+		return new AiUsageObservationHandler();
+	}
+
+}
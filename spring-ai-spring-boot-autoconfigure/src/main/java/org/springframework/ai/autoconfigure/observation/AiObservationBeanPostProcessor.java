@@ -0,0 +1,234 @@
+/*
+ * Copyright 2023-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.autoconfigure.observation;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import org.springframework.ai.client.AiClient;
+import org.springframework.ai.client.AsyncAiClient;
+import org.springframework.ai.client.StreamingAiClient;
+import org.springframework.ai.embedding.EmbeddingClient;
+import org.springframework.ai.observation.AiObservationConvention;
+import org.springframework.ai.observation.AiUsageObservationHandler;
+import org.springframework.ai.observation.ObservedAiClient;
+import org.springframework.ai.observation.ObservedEmbeddingClient;
+import org.springframework.ai.observation.ObservedVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Proxies the {@link AiClient}, {@link EmbeddingClient} and {@link VectorStore} beans so
+ * that their operations, including the streaming and asynchronous generations, go through
+ * the matching observed decorator. The proxies extend the bean classes, so that the beans
+ * can still be injected by their concrete type.
+ * <p>
+ * The provider, or store, name is derived from the bean class name, such as
+ * {@code openai} for the {@code OpenAiClient}, and the model name is read from its
+ * {@code getModel()} method, when there is one.
+ * <p>
+ * The decorators of the observed beans, such as the routing, caching or token budget
+ * clients, are not observed themselves, so that the operations they delegate, and their
+ * token usage, are only counted once. They are told apart by their dependency on an
+ * observed bean of the same type.
+ */
+class AiObservationBeanPostProcessor implements BeanPostProcessor, BeanFactoryAware {
+
+	private static final String[] TYPE_SUFFIXES = { "EmbeddingClient", "VectorStore", "Client" };
+
+	private final ObjectProvider<ObservationRegistry> observationRegistry;
+
+	private final ObjectProvider<AiObservationConvention> observationConvention;
+
+	private final ObjectProvider<AiUsageObservationHandler> usageObservationHandler;
+
+	private final AtomicBoolean usageObservationHandlerRegistered = new AtomicBoolean();
+
+	/**
+	 * Observed bean name to the bean class.
+	 */
+	private final Map<String, Class<?>> observedBeans = new ConcurrentHashMap<>();
+
+	private BeanFactory beanFactory;
+
+	AiObservationBeanPostProcessor(ObjectProvider<ObservationRegistry> observationRegistry,
+			ObjectProvider<AiObservationConvention> observationConvention,
+			ObjectProvider<AiUsageObservationHandler> usageObservationHandler) {
+		this.observationRegistry = observationRegistry;
+		this.observationConvention = observationConvention;
+		this.usageObservationHandler = usageObservationHandler;
+	}
+
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (!(bean instanceof AiClient || bean instanceof EmbeddingClient || bean instanceof VectorStore)
+				|| bean instanceof ObservedAiClient || bean instanceof ObservedEmbeddingClient
+				|| bean instanceof ObservedVectorStore) {
+			return bean;
+		}
+		ObservationRegistry registry = this.observationRegistry.getIfUnique();
+		if (registry == null || registry.isNoop() || isDecorator(bean, beanName)) {
+			return bean;
+		}
+		if (this.usageObservationHandlerRegistered.compareAndSet(false, true)) {
+			this.usageObservationHandler.ifUnique(handler -> registry.observationConfig().observationHandler(handler));
+		}
+
+		Class<?> beanClass = ClassUtils.getUserClass(bean);
+		String provider = provider(beanClass);
+		String model = model(bean, beanClass);
+		AiObservationConvention convention = this.observationConvention.getIfUnique();
+
+		Map<Class<?>, Object> decorators = new LinkedHashMap<>();
+		if (bean instanceof AiClient aiClient) {
+			ObservedAiClient decorator = new ObservedAiClient(aiClient, registry, provider, model);
+			decorator.setObservationConvention(convention);
+			decorators.put(AiClient.class, decorator);
+			if (bean instanceof StreamingAiClient) {
+				decorators.put(StreamingAiClient.class, decorator);
+			}
+			if (bean instanceof AsyncAiClient) {
+				decorators.put(AsyncAiClient.class, decorator);
+			}
+		}
+		if (bean instanceof EmbeddingClient embeddingClient) {
+			ObservedEmbeddingClient decorator = new ObservedEmbeddingClient(embeddingClient, registry, provider, model);
+			decorator.setObservationConvention(convention);
+			decorators.put(EmbeddingClient.class, decorator);
+		}
+		if (bean instanceof VectorStore vectorStore) {
+			ObservedVectorStore decorator = new ObservedVectorStore(vectorStore, registry, provider);
+			decorator.setObservationConvention(convention);
+			decorators.put(VectorStore.class, decorator);
+		}
+
+		this.observedBeans.put(beanName, beanClass);
+		ProxyFactory proxyFactory = new ProxyFactory(bean);
+		// Lambdas and final classes can only be proxied through their interfaces.
+		proxyFactory.setProxyTargetClass(!Modifier.isFinal(beanClass.getModifiers()));
+		proxyFactory.addAdvice(new ObservationInterceptor(decorators));
+		return proxyFactory.getProxy(beanClass.getClassLoader());
+	}
+
+	/**
+	 * @return whether the bean depends on an observed bean of the same type, which it
+	 * presumably delegates to.
+	 */
+	private boolean isDecorator(Object bean, String beanName) {
+		if (!(this.beanFactory instanceof ConfigurableBeanFactory configurableBeanFactory)) {
+			return false;
+		}
+		for (String dependency : configurableBeanFactory.getDependenciesForBean(beanName)) {
+			Class<?> observed = this.observedBeans.get(dependency);
+			if (observed != null && ((bean instanceof AiClient && AiClient.class.isAssignableFrom(observed))
+					|| (bean instanceof EmbeddingClient && EmbeddingClient.class.isAssignableFrom(observed))
+					|| (bean instanceof VectorStore && VectorStore.class.isAssignableFrom(observed)))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static String provider(Class<?> beanClass) {
+		String name = beanClass.getSimpleName();
+		for (String suffix : TYPE_SUFFIXES) {
+			if (name.endsWith(suffix) && name.length() > suffix.length()) {
+				name = name.substring(0, name.length() - suffix.length());
+				break;
+			}
+		}
+		return name.toLowerCase(Locale.ROOT);
+	}
+
+	private static String model(Object bean, Class<?> beanClass) {
+		Method getModel = ReflectionUtils.findMethod(beanClass, "getModel");
+		if (getModel == null || getModel.getReturnType() != String.class
+				|| !Modifier.isPublic(getModel.getModifiers())) {
+			return null;
+		}
+		ReflectionUtils.makeAccessible(getModel);
+		return (String) ReflectionUtils.invokeMethod(getModel, bean);
+	}
+
+	/**
+	 * Routes the interface methods of the observed types to their decorator, the other
+	 * methods to the bean itself.
+	 */
+	private static class ObservationInterceptor implements MethodInterceptor {
+
+		private final Map<Class<?>, Object> decorators;
+
+		private final Map<Method, Optional<Routing>> routings = new ConcurrentHashMap<>();
+
+		ObservationInterceptor(Map<Class<?>, Object> decorators) {
+			this.decorators = decorators;
+		}
+
+		@Override
+		public Object invoke(MethodInvocation invocation) throws Throwable {
+			Optional<Routing> routing = this.routings.computeIfAbsent(invocation.getMethod(), this::routing);
+			if (routing.isEmpty()) {
+				return invocation.proceed();
+			}
+			try {
+				return routing.get().method().invoke(routing.get().decorator(), invocation.getArguments());
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+
+		private Optional<Routing> routing(Method method) {
+			for (Map.Entry<Class<?>, Object> decorator : this.decorators.entrySet()) {
+				Method interfaceMethod = ReflectionUtils.findMethod(decorator.getKey(), method.getName(),
+						method.getParameterTypes());
+				if (interfaceMethod != null && interfaceMethod.getDeclaringClass() != Object.class) {
+					return Optional.of(new Routing(interfaceMethod, decorator.getValue()));
+				}
+			}
+			return Optional.empty();
+		}
+
+	}
+
+	private record Routing(Method method, Object decorator) {
+	}
+
+}
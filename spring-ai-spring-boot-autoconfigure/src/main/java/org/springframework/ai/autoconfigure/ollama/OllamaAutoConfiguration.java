@@ -16,10 +16,21 @@
 
 package org.springframework.ai.autoconfigure.ollama;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import org.springframework.ai.ollama.client.OllamaClient;
+import org.springframework.ai.ollama.client.OllamaClusterClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 
@@ -28,10 +39,58 @@ import org.springframework.context.annotation.Bean;
 @EnableConfigurationProperties(OllamaProperties.class)
 public class OllamaAutoConfiguration {
 
+	private static final Log logger = LogFactory.getLog(OllamaAutoConfiguration.class);
+
 	@Bean
 	@ConditionalOnMissingBean
+	@ConditionalOnProperty(prefix = OllamaProperties.CONFIG_PREFIX + ".cluster", name = "enabled",
+			havingValue = "false", matchIfMissing = true)
 	public OllamaClient ollamaClient(OllamaProperties properties) {
-		return new OllamaClient(properties.getBaseUrl(), properties.getModel());
+		OllamaClient client = new OllamaClient(properties.getBaseUrl(), properties.getModel());
+		configure(client, properties);
+		return client;
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(prefix = OllamaProperties.CONFIG_PREFIX + ".cluster", name = "enabled", havingValue = "true")
+	public OllamaClusterClient ollamaClusterClient(OllamaProperties properties) {
+		OllamaProperties.Cluster cluster = properties.getCluster();
+		OllamaClusterClient client = new OllamaClusterClient(cluster.getBaseUrls(), properties.getModel(),
+				cluster.getHealthCheckInterval());
+		client.setUnhealthyThreshold(cluster.getUnhealthyThreshold());
+		client.setColdNodePenalty(cluster.getColdNodePenalty());
+		client.setClientCustomizer(nodeClient -> configure(nodeClient, properties));
+		return client;
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = OllamaProperties.CONFIG_PREFIX + ".warm-up", name = "enabled", havingValue = "true")
+	public SmartInitializingSingleton ollamaWarmUp(ObjectProvider<OllamaClient> ollamaClient,
+			ObjectProvider<OllamaClusterClient> ollamaClusterClient, OllamaProperties properties) {
+		return () -> {
+			ollamaClient.ifAvailable(client -> warmUp(properties, client.getModel(), client::preload));
+			ollamaClusterClient.ifAvailable(client -> warmUp(properties, client.getModel(), client::preload));
+		};
+	}
+
+	private static void warmUp(OllamaProperties properties, String defaultModel,
+			Function<String, CompletableFuture<Void>> preload) {
+		List<String> models = properties.getWarmUp().getModels();
+		for (String model : models.isEmpty() ? List.of(defaultModel) : models) {
+			// Loaded in the background, the startup does not wait for them.
+			preload.apply(model).exceptionally(ex -> {
+				logger.warn("Failed to load the " + model + " Ollama model", ex);
+				return null;
+			});
+		}
+	}
+
+	private static void configure(OllamaClient client, OllamaProperties properties) {
+		client.setKeepAlive(properties.getKeepAlive());
+		client.setNumCtx(properties.getNumCtx());
+		client.setNumThread(properties.getNumThread());
+		client.setTemperature(properties.getTemperature());
 	}
 
 }
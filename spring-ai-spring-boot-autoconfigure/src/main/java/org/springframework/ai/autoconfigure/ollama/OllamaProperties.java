@@ -16,6 +16,11 @@
 
 package org.springframework.ai.autoconfigure.ollama;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.ai.ollama.client.OllamaClusterClient;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(OllamaProperties.CONFIG_PREFIX)
@@ -33,6 +38,32 @@ public class OllamaProperties {
 	 */
 	private String model = "llama2";
 
+	/**
+	 * How long the model stays loaded after a request. Negative to keep it loaded
+	 * indefinitely. The server default (5 minutes) if not set.
+	 */
+	private Duration keepAlive;
+
+	/**
+	 * Size of the context window, in tokens. The model default if not set.
+	 */
+	private Integer numCtx;
+
+	/**
+	 * Number of threads of the generation. Detected by the server if not set.
+	 */
+	private Integer numThread;
+
+	/**
+	 * Temperature of the generation, zero for deterministic generations. The model
+	 * default if not set.
+	 */
+	private Double temperature;
+
+	private final WarmUp warmUp = new WarmUp();
+
+	private final Cluster cluster = new Cluster();
+
 	public String getBaseUrl() {
 		return baseUrl;
 	}
@@ -49,4 +80,146 @@ public class OllamaProperties {
 		this.model = model;
 	}
 
+	public Duration getKeepAlive() {
+		return keepAlive;
+	}
+
+	public void setKeepAlive(Duration keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	public Integer getNumCtx() {
+		return numCtx;
+	}
+
+	public void setNumCtx(Integer numCtx) {
+		this.numCtx = numCtx;
+	}
+
+	public Integer getNumThread() {
+		return numThread;
+	}
+
+	public void setNumThread(Integer numThread) {
+		this.numThread = numThread;
+	}
+
+	public Double getTemperature() {
+		return temperature;
+	}
+
+	public void setTemperature(Double temperature) {
+		this.temperature = temperature;
+	}
+
+	public WarmUp getWarmUp() {
+		return warmUp;
+	}
+
+	public Cluster getCluster() {
+		return cluster;
+	}
+
+	public static class WarmUp {
+
+		/**
+		 * Load the models into memory on startup, so that the first requests do not pay
+		 * for the load.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Models to load on startup. The configured model if empty.
+		 */
+		private List<String> models = new ArrayList<>();
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public List<String> getModels() {
+			return models;
+		}
+
+		public void setModels(List<String> models) {
+			this.models = models;
+		}
+
+	}
+
+	public static class Cluster {
+
+		/**
+		 * Spread the requests over several Ollama API servers, instead of the single base
+		 * URL.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Base URLs of the Ollama API servers of the cluster.
+		 */
+		private List<String> baseUrls = new ArrayList<>();
+
+		/**
+		 * Interval of the nodes health checks. Zero to disable them.
+		 */
+		private Duration healthCheckInterval = OllamaClusterClient.DEFAULT_HEALTH_CHECK_INTERVAL;
+
+		/**
+		 * Number of consecutive failed health checks or requests ejecting a node.
+		 */
+		private int unhealthyThreshold = OllamaClusterClient.DEFAULT_UNHEALTHY_THRESHOLD;
+
+		/**
+		 * Number of outstanding requests a node which never served the model is weighted
+		 * with, keeping the requests on the nodes already holding the model.
+		 */
+		private int coldNodePenalty = OllamaClusterClient.DEFAULT_COLD_NODE_PENALTY;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public List<String> getBaseUrls() {
+			return baseUrls;
+		}
+
+		public void setBaseUrls(List<String> baseUrls) {
+			this.baseUrls = baseUrls;
+		}
+
+		public Duration getHealthCheckInterval() {
+			return healthCheckInterval;
+		}
+
+		public void setHealthCheckInterval(Duration healthCheckInterval) {
+			this.healthCheckInterval = healthCheckInterval;
+		}
+
+		public int getUnhealthyThreshold() {
+			return unhealthyThreshold;
+		}
+
+		public void setUnhealthyThreshold(int unhealthyThreshold) {
+			this.unhealthyThreshold = unhealthyThreshold;
+		}
+
+		public int getColdNodePenalty() {
+			return coldNodePenalty;
+		}
+
+		public void setColdNodePenalty(int coldNodePenalty) {
+			this.coldNodePenalty = coldNodePenalty;
+		}
+
+	}
+
 }
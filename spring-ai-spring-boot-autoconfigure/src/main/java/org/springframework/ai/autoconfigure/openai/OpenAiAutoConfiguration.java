@@ -27,12 +27,18 @@ import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
 import retrofit2.converter.jackson.JacksonConverterFactory;
 
 import org.springframework.ai.autoconfigure.NativeHints;
+import org.springframework.ai.autoconfigure.ratelimit.RateLimitProperties;
 import org.springframework.ai.embedding.EmbeddingClient;
 import org.springframework.ai.openai.client.OpenAiClient;
+import org.springframework.ai.openai.embedding.OpenAiEmbeddingApi;
 import org.springframework.ai.openai.embedding.OpenAiEmbeddingClient;
+import org.springframework.ai.ratelimit.AdaptiveRateLimiter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ImportRuntimeHints;
@@ -46,9 +52,19 @@ import static org.springframework.ai.autoconfigure.openai.OpenAiProperties.CONFI
 @ImportRuntimeHints(NativeHints.class)
 public class OpenAiAutoConfiguration {
 
+	@Bean
+	@ConditionalOnProperty(prefix = CONFIG_PREFIX + ".rate-limit", name = "enabled", havingValue = "true")
+	public AdaptiveRateLimiter openAiRateLimiter(OpenAiProperties openAiProperties) {
+		RateLimitProperties rateLimit = openAiProperties.getRateLimit();
+		return new AdaptiveRateLimiter(rateLimit.getTokensPerMinute(), rateLimit.getRequestsPerMinute(),
+				rateLimit.getInitialConcurrency(), rateLimit.getMinConcurrency(), rateLimit.getMaxConcurrency(),
+				rateLimit.getBackoffRatio());
+	}
+
 	@Bean
 	@ConditionalOnMissingBean
-	public OpenAiClient openAiClient(OpenAiProperties openAiProperties) {
+	public OpenAiClient openAiClient(OpenAiProperties openAiProperties,
+			@Qualifier("openAiRateLimiter") ObjectProvider<AdaptiveRateLimiter> openAiRateLimiter) {
 
 		OpenAiService openAiService = theoOpenAiService(openAiProperties.getBaseUrl(), openAiProperties.getApiKey(),
 				openAiProperties.getDuration());
@@ -56,21 +72,34 @@ public class OpenAiAutoConfiguration {
 		OpenAiClient openAiClient = new OpenAiClient(openAiService);
 		openAiClient.setTemperature(openAiProperties.getTemperature());
 		openAiClient.setModel(openAiProperties.getModel());
+		openAiClient.setRateLimiter(openAiRateLimiter.getIfAvailable());
 
 		return openAiClient;
 	}
 
 	@Bean
 	@ConditionalOnMissingBean
-	public EmbeddingClient openAiEmbeddingClient(OpenAiProperties openAiProperties) {
+	public EmbeddingClient openAiEmbeddingClient(OpenAiProperties openAiProperties,
+			@Qualifier("openAiRateLimiter") ObjectProvider<AdaptiveRateLimiter> openAiRateLimiter) {
 
-		OpenAiService openAiService = theoOpenAiService(openAiProperties.getEmbedding().getBaseUrl(),
+		Retrofit retrofit = theoRetrofit(openAiProperties.getEmbedding().getBaseUrl(),
 				openAiProperties.getEmbedding().getApiKey(), openAiProperties.getDuration());
 
-		return new OpenAiEmbeddingClient(openAiService, openAiProperties.getEmbedding().getModel());
+		OpenAiEmbeddingClient embeddingClient = new OpenAiEmbeddingClient(
+				new OpenAiService(retrofit.create(OpenAiApi.class)), openAiProperties.getEmbedding().getModel());
+		embeddingClient.setRateLimiter(openAiRateLimiter.getIfAvailable());
+		if (openAiProperties.getEmbedding().isBase64Encoding()) {
+			embeddingClient.setBase64EmbeddingApi(retrofit.create(OpenAiEmbeddingApi.class));
+		}
+
+		return embeddingClient;
 	}
 
 	private OpenAiService theoOpenAiService(String baseUrl, String apiKey, Duration duration) {
+		return new OpenAiService(theoRetrofit(baseUrl, apiKey, duration).create(OpenAiApi.class));
+	}
+
+	private Retrofit theoRetrofit(String baseUrl, String apiKey, Duration duration) {
 
 		if ("https://api.openai.com".equals(baseUrl) && !StringUtils.hasText(apiKey)) {
 			throw new IllegalArgumentException(
@@ -82,15 +111,11 @@ public class OpenAiAutoConfiguration {
 
 		// Waiting for https://github.com/TheoKanning/openai-java/issues/249 to be
 		// resolved.
-		Retrofit retrofit = new Retrofit.Builder().baseUrl(baseUrl)
+		return new Retrofit.Builder().baseUrl(baseUrl)
 			.client(client)
 			.addConverterFactory(JacksonConverterFactory.create(mapper))
 			.addCallAdapterFactory(RxJava2CallAdapterFactory.create())
 			.build();
-
-		OpenAiApi api = retrofit.create(OpenAiApi.class);
-
-		return new OpenAiService(api);
 	}
 
 }
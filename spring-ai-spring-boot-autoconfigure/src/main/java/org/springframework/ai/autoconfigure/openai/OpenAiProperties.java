@@ -20,7 +20,9 @@ import static org.springframework.ai.autoconfigure.openai.OpenAiProperties.CONFI
 
 import java.time.Duration;
 
+import org.springframework.ai.autoconfigure.ratelimit.RateLimitProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
@@ -35,6 +37,12 @@ public class OpenAiProperties {
 
 	private final Embedding embedding = new Embedding(this);
 
+	/**
+	 * Client side rate limiting, shared by the chat and embedding clients.
+	 */
+	@NestedConfigurationProperty
+	private final RateLimitProperties rateLimit = new RateLimitProperties();
+
 	private String apiKey;
 
 	private String model = "gpt-3.5-turbo";
@@ -85,6 +93,10 @@ public class OpenAiProperties {
 		return this.embedding;
 	}
 
+	public RateLimitProperties getRateLimit() {
+		return this.rateLimit;
+	}
+
 	public static class Embedding {
 
 		private final OpenAiProperties openAiProperties;
@@ -95,6 +107,12 @@ public class OpenAiProperties {
 
 		private String baseUrl;
 
+		/**
+		 * Request the embeddings as base64 encoded float32 arrays instead of JSON number
+		 * arrays. Smaller payloads, cheaper to decode.
+		 */
+		private boolean base64Encoding = false;
+
 		protected Embedding(OpenAiProperties openAiProperties) {
 			Assert.notNull(openAiProperties, "OpenAiProperties must not be null");
 			this.openAiProperties = openAiProperties;
@@ -124,6 +142,14 @@ public class OpenAiProperties {
 			return StringUtils.hasText(this.baseUrl) ? this.baseUrl : getOpenAiProperties().getBaseUrl();
 		}
 
+		public boolean isBase64Encoding() {
+			return this.base64Encoding;
+		}
+
+		public void setBase64Encoding(boolean base64Encoding) {
+			this.base64Encoding = base64Encoding;
+		}
+
 		public void setBaseUrl(String baseUrl) {
 			this.baseUrl = baseUrl;
 		}
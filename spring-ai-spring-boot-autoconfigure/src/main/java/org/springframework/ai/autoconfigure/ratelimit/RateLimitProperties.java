@@ -0,0 +1,120 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.autoconfigure.ratelimit;
+
+import org.springframework.ai.ratelimit.AdaptiveRateLimiter;
+
+/**
+ * Client side rate limiting settings, shared by the chat and embedding clients of a
+ * single provider.
+ *
+ * @see AdaptiveRateLimiter
+ */
+public class RateLimitProperties {
+
+	/**
+	 * Enable the client side rate limiter.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Token budget per minute. Zero disables the token budget.
+	 */
+	private long tokensPerMinute = 0;
+
+	/**
+	 * Request budget per minute. Zero disables the request budget.
+	 */
+	private long requestsPerMinute = 0;
+
+	/**
+	 * Number of concurrent requests allowed at start up.
+	 */
+	private int initialConcurrency = 4;
+
+	/**
+	 * Lower bound of the adaptive concurrency limit.
+	 */
+	private int minConcurrency = 1;
+
+	/**
+	 * Upper bound of the adaptive concurrency limit.
+	 */
+	private int maxConcurrency = 64;
+
+	/**
+	 * Factor applied to the concurrency limit when the provider answers with HTTP 429.
+	 */
+	private double backoffRatio = 0.5;
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public long getTokensPerMinute() {
+		return this.tokensPerMinute;
+	}
+
+	public void setTokensPerMinute(long tokensPerMinute) {
+		this.tokensPerMinute = tokensPerMinute;
+	}
+
+	public long getRequestsPerMinute() {
+		return this.requestsPerMinute;
+	}
+
+	public void setRequestsPerMinute(long requestsPerMinute) {
+		this.requestsPerMinute = requestsPerMinute;
+	}
+
+	public int getInitialConcurrency() {
+		return this.initialConcurrency;
+	}
+
+	public void setInitialConcurrency(int initialConcurrency) {
+		this.initialConcurrency = initialConcurrency;
+	}
+
+	public int getMinConcurrency() {
+		return this.minConcurrency;
+	}
+
+	public void setMinConcurrency(int minConcurrency) {
+		this.minConcurrency = minConcurrency;
+	}
+
+	public int getMaxConcurrency() {
+		return this.maxConcurrency;
+	}
+
+	public void setMaxConcurrency(int maxConcurrency) {
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	public double getBackoffRatio() {
+		return this.backoffRatio;
+	}
+
+	public void setBackoffRatio(double backoffRatio) {
+		this.backoffRatio = backoffRatio;
+	}
+
+}
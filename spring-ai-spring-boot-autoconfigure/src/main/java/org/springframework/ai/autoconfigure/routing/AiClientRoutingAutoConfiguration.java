@@ -0,0 +1,66 @@
+/*
+ * Copyright 2023-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.autoconfigure.routing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.ai.autoconfigure.azure.openai.AzureOpenAiAutoConfiguration;
+import org.springframework.ai.autoconfigure.ollama.OllamaAutoConfiguration;
+import org.springframework.ai.autoconfigure.openai.OpenAiAutoConfiguration;
+import org.springframework.ai.client.AiClient;
+import org.springframework.ai.client.HedgingAiClient;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.Assert;
+
+@AutoConfiguration(
+		after = { OpenAiAutoConfiguration.class, AzureOpenAiAutoConfiguration.class, OllamaAutoConfiguration.class })
+@EnableConfigurationProperties(AiClientRoutingProperties.class)
+@ConditionalOnProperty(prefix = AiClientRoutingProperties.CONFIG_PREFIX, name = "enabled", havingValue = "true")
+public class AiClientRoutingAutoConfiguration {
+
+	@Bean
+	@Primary
+	public HedgingAiClient routingAiClient(AiClientRoutingProperties properties, BeanFactory beanFactory) {
+		Assert.notEmpty(properties.getDelegates(), "You must provide the AiClient bean names with the property name "
+				+ AiClientRoutingProperties.CONFIG_PREFIX + ".delegates");
+
+		Map<String, AiClient> delegates = new LinkedHashMap<>();
+		for (String name : properties.getDelegates()) {
+			delegates.put(name, beanFactory.getBean(name, AiClient.class));
+			// Looked up by name, the dependency is not registered by the container.
+			if (beanFactory instanceof ConfigurableBeanFactory configurableBeanFactory) {
+				configurableBeanFactory.registerDependentBean(name, "routingAiClient");
+			}
+		}
+
+		HedgingAiClient client = new HedgingAiClient(delegates);
+		client.setLatencyWeighting(properties.isLatencyWeighting());
+		client.setHedging(properties.getHedge().isEnabled());
+		client.setHedgePercentile(properties.getHedge().getPercentile());
+		client.setInitialHedgeDelay(properties.getHedge().getInitialDelay());
+		client.setFailureThreshold(properties.getCircuitBreaker().getFailureThreshold());
+		client.setOpenDuration(properties.getCircuitBreaker().getOpenDuration());
+		return client;
+	}
+
+}
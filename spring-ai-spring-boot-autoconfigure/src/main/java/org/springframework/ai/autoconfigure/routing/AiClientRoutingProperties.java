@@ -0,0 +1,161 @@
+/*
+ * Copyright 2023-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.autoconfigure.routing;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.ai.client.HedgingAiClient;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Routing of the requests over several AI clients.
+ *
+ * @see HedgingAiClient
+ */
+@ConfigurationProperties(AiClientRoutingProperties.CONFIG_PREFIX)
+public class AiClientRoutingProperties {
+
+	public static final String CONFIG_PREFIX = "spring.ai.routing";
+
+	/**
+	 * Enable the routing AI client, registered as the primary AiClient.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Names of the AiClient beans to route the requests to, in preference order.
+	 */
+	private List<String> delegates = new ArrayList<>();
+
+	/**
+	 * Send less traffic to the delegates with a higher average latency. Otherwise the
+	 * delegates are tried in their configured order.
+	 */
+	private boolean latencyWeighting = true;
+
+	private final Hedge hedge = new Hedge();
+
+	private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public List<String> getDelegates() {
+		return this.delegates;
+	}
+
+	public void setDelegates(List<String> delegates) {
+		this.delegates = delegates;
+	}
+
+	public boolean isLatencyWeighting() {
+		return this.latencyWeighting;
+	}
+
+	public void setLatencyWeighting(boolean latencyWeighting) {
+		this.latencyWeighting = latencyWeighting;
+	}
+
+	public Hedge getHedge() {
+		return this.hedge;
+	}
+
+	public CircuitBreaker getCircuitBreaker() {
+		return this.circuitBreaker;
+	}
+
+	public static class Hedge {
+
+		/**
+		 * Send the request to a second delegate when the first one exceeds its latency
+		 * budget.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Percentile, between 0 and 1, of the delegate latencies used as its budget.
+		 */
+		private double percentile = HedgingAiClient.DEFAULT_HEDGE_PERCENTILE;
+
+		/**
+		 * Latency budget used until enough latencies of the delegate are known.
+		 */
+		private Duration initialDelay = HedgingAiClient.DEFAULT_INITIAL_HEDGE_DELAY;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public double getPercentile() {
+			return this.percentile;
+		}
+
+		public void setPercentile(double percentile) {
+			this.percentile = percentile;
+		}
+
+		public Duration getInitialDelay() {
+			return this.initialDelay;
+		}
+
+		public void setInitialDelay(Duration initialDelay) {
+			this.initialDelay = initialDelay;
+		}
+
+	}
+
+	public static class CircuitBreaker {
+
+		/**
+		 * Number of consecutive failures after which a delegate is skipped.
+		 */
+		private int failureThreshold = HedgingAiClient.DEFAULT_FAILURE_THRESHOLD;
+
+		/**
+		 * Time a failing delegate is skipped before being probed again.
+		 */
+		private Duration openDuration = HedgingAiClient.DEFAULT_OPEN_DURATION;
+
+		public int getFailureThreshold() {
+			return this.failureThreshold;
+		}
+
+		public void setFailureThreshold(int failureThreshold) {
+			this.failureThreshold = failureThreshold;
+		}
+
+		public Duration getOpenDuration() {
+			return this.openDuration;
+		}
+
+		public void setOpenDuration(Duration openDuration) {
+			this.openDuration = openDuration;
+		}
+
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2023-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.autoconfigure.azure.openai;
+
+import com.azure.ai.openai.OpenAIAsyncClient;
+import com.azure.ai.openai.OpenAIClient;
+import com.azure.ai.openai.OpenAIClientBuilder;
+import com.azure.core.credential.AzureKeyCredential;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.azure.openai.client.AzureOpenAiClient;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AzureOpenAiAutoConfigurationTests {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+		.withConfiguration(AutoConfigurations.of(AzureOpenAiAutoConfiguration.class));
+
+	@Test
+	void sdkClients() {
+		contextRunner
+			.withPropertyValues("spring.ai.azure.openai.api-key=key",
+					"spring.ai.azure.openai.endpoint=https://example.openai.azure.com")
+			.run(context -> {
+				assertThat(context).hasSingleBean(OpenAIClient.class).hasSingleBean(OpenAIAsyncClient.class);
+				assertThat(context.getBean(AzureOpenAiClient.class).getAsyncClient())
+					.isSameAs(context.getBean(OpenAIAsyncClient.class));
+			});
+	}
+
+	@Test
+	void userSuppliedClient() {
+		// No API key, the SDK clients are not auto-configured.
+		contextRunner.withUserConfiguration(UserClientConfiguration.class).run(context -> {
+			assertThat(context).hasNotFailed().doesNotHaveBean(OpenAIAsyncClient.class);
+			assertThat(context.getBean(OpenAIClient.class)).isSameAs(context.getBean("userClient"));
+			// The non-blocking calls fall back to the synchronous client.
+			assertThat(context.getBean(AzureOpenAiClient.class).getAsyncClient()).isNull();
+		});
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	static class UserClientConfiguration {
+
+		@Bean
+		OpenAIClient userClient() {
+			return new OpenAIClientBuilder().endpoint("https://example.openai.azure.com")
+				.credential(new AzureKeyCredential("key"))
+				.buildClient();
+		}
+
+	}
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2023-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.autoconfigure.observation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import org.springframework.ai.autoconfigure.ollama.OllamaAutoConfiguration;
+import org.springframework.ai.autoconfigure.routing.AiClientRoutingAutoConfiguration;
+import org.springframework.ai.client.AiClient;
+import org.springframework.ai.client.AiResponse;
+import org.springframework.ai.client.Generation;
+import org.springframework.ai.client.HedgingAiClient;
+import org.springframework.ai.client.StreamingAiClient;
+import org.springframework.ai.observation.AiObservationContext;
+import org.springframework.ai.observation.AiUsageObservationHandler;
+import org.springframework.ai.observation.DefaultAiObservationConvention;
+import org.springframework.ai.ollama.client.OllamaClient;
+import org.springframework.ai.prompt.Prompt;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AiObservationAutoConfigurationTests {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+		.withConfiguration(AutoConfigurations.of(AiObservationAutoConfiguration.class, OllamaAutoConfiguration.class));
+
+	@Test
+	void observeAiBeans() {
+		contextRunner.withUserConfiguration(ObservationConfig.class).run(context -> {
+			OllamaClient ollamaClient = context.getBean(OllamaClient.class);
+			assertThat(AopUtils.isCglibProxy(ollamaClient)).isTrue();
+			assertThat(ollamaClient.getModel()).isEqualTo("llama2");
+
+			AiClient testClient = context.getBean("testAiClient", AiClient.class);
+			assertThat(testClient.generate(new Prompt("hello")).getGeneration().getText()).isEqualTo("hello");
+
+			List<AiObservationContext> stopped = context.getBean(ObservationConfig.class).stopped;
+			assertThat(stopped).hasSize(1);
+			assertThat(stopped.get(0).getLowCardinalityKeyValues()).contains(
+					KeyValue.of(DefaultAiObservationConvention.PROVIDER, "testai"),
+					KeyValue.of(DefaultAiObservationConvention.MODEL, "test-model"),
+					KeyValue.of(DefaultAiObservationConvention.OPERATION, "generate"));
+		});
+	}
+
+	@Test
+	void observeStreamingAndCountTheUsage() {
+		contextRunner.withUserConfiguration(ObservationConfig.class).run(context -> {
+			TestAiClient testClient = context.getBean(TestAiClient.class);
+			assertThat(testClient.generateStream(new Prompt("hello")).collectList().block()).hasSize(2);
+
+			List<AiObservationContext> stopped = context.getBean(ObservationConfig.class).stopped;
+			assertThat(stopped).extracting(AiObservationContext::getOperation).containsExactly("generate_stream");
+			assertThat(context.getBean(AiUsageObservationHandler.class).getUsages()).singleElement()
+				.satisfies(usage -> {
+					assertThat(usage.provider()).isEqualTo("testai");
+					assertThat(usage.requests()).isEqualTo(1);
+					assertThat(usage.totalTokens()).isEqualTo(3);
+				});
+		});
+	}
+
+	@Test
+	void countTheUsageOfRoutedGenerationsOnce() {
+		contextRunner.withConfiguration(AutoConfigurations.of(AiClientRoutingAutoConfiguration.class))
+			.withUserConfiguration(ObservationConfig.class)
+			.withPropertyValues("spring.ai.routing.enabled=true", "spring.ai.routing.delegates=testAiClient")
+			.run(context -> {
+				AiClient client = context.getBean(AiClient.class);
+				assertThat(client).isInstanceOf(HedgingAiClient.class);
+				assertThat(AopUtils.isAopProxy(client)).isFalse();
+				client.generate(new Prompt("hello"));
+
+				assertThat(context.getBean(AiUsageObservationHandler.class).getUsages()).singleElement()
+					.satisfies(usage -> {
+						assertThat(usage.provider()).isEqualTo("testai");
+						assertThat(usage.requests()).isEqualTo(1);
+						assertThat(usage.totalTokens()).isEqualTo(2);
+					});
+			});
+	}
+
+	@Test
+	void noObservationRegistry() {
+		contextRunner.run(context -> assertThat(AopUtils.isAopProxy(context.getBean(OllamaClient.class))).isFalse());
+	}
+
+	@Test
+	void disabled() {
+		contextRunner.withUserConfiguration(ObservationConfig.class)
+			.withPropertyValues("spring.ai.observations.enabled=false")
+			.run(context -> assertThat(AopUtils.isAopProxy(context.getBean(OllamaClient.class))).isFalse());
+	}
+
+	@Test
+	void providerName() {
+		assertThat(AiObservationBeanPostProcessor.provider(OllamaClient.class)).isEqualTo("ollama");
+		assertThat(AiObservationBeanPostProcessor.provider(TestAiClient.class)).isEqualTo("testai");
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	static class ObservationConfig {
+
+		private final List<AiObservationContext> stopped = new CopyOnWriteArrayList<>();
+
+		@Bean
+		ObservationRegistry observationRegistry() {
+			ObservationRegistry registry = ObservationRegistry.create();
+			registry.observationConfig().observationHandler(new ObservationHandler<AiObservationContext>() {
+
+				@Override
+				public void onStop(AiObservationContext context) {
+					stopped.add(context);
+				}
+
+				@Override
+				public boolean supportsContext(Observation.Context context) {
+					return context instanceof AiObservationContext;
+				}
+
+			});
+			return registry;
+		}
+
+		@Bean
+		TestAiClient testAiClient() {
+			return new TestAiClient();
+		}
+
+	}
+
+	static class TestAiClient implements StreamingAiClient {
+
+		@Override
+		public AiResponse generate(Prompt prompt) {
+			return new AiResponse(List.of(new Generation(prompt.getContents())), Map.of(), Map.of("total-tokens", 2L));
+		}
+
+		@Override
+		public Flux<AiResponse> generateStream(Prompt prompt) {
+			return Flux.just(new AiResponse(List.of(new Generation(prompt.getContents()))),
+					new AiResponse(List.of(new Generation("")), Map.of(), Map.of("total-tokens", 3L)));
+		}
+
+		public String getModel() {
+			return "test-model";
+		}
+
+	}
+
+}
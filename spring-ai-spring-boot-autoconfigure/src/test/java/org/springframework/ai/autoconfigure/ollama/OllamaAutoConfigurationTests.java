@@ -16,9 +16,25 @@
 
 package org.springframework.ai.autoconfigure.ollama;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.ai.ollama.client.OllamaClient;
+import org.springframework.ai.ollama.client.OllamaClusterClient;
+import org.springframework.ai.ollama.client.OllamaClusterClient.NodeStatus;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import org.springframework.context.annotation.Bean;
@@ -31,6 +47,18 @@ public class OllamaAutoConfigurationTests {
 	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
 		.withConfiguration(AutoConfigurations.of(OllamaAutoConfiguration.class));
 
+	private final List<HttpServer> servers = new ArrayList<>();
+
+	/** Base URL and model of the received preload requests. */
+	private final List<String> preloads = new CopyOnWriteArrayList<>();
+
+	private final CountDownLatch preloaded = new CountDownLatch(2);
+
+	@AfterEach
+	void stopServers() {
+		this.servers.forEach(server -> server.stop(0));
+	}
+
 	@Test
 	void defaults() {
 		contextRunner.run(context -> {
@@ -59,6 +87,75 @@ public class OllamaAutoConfigurationTests {
 			});
 	}
 
+	@Test
+	void requestOptions() {
+		contextRunner
+			.withPropertyValues("spring.ai.ollama.keep-alive=-1s", "spring.ai.ollama.num-ctx=4096",
+					"spring.ai.ollama.num-thread=8", "spring.ai.ollama.temperature=0")
+			.run(context -> {
+				OllamaClient client = context.getBean(OllamaClient.class);
+				assertThat(client.getKeepAlive()).isNegative();
+				assertThat(client.getNumCtx()).isEqualTo(4096);
+				assertThat(client.getNumThread()).isEqualTo(8);
+				assertThat(client.getTemperature()).isZero();
+				assertThat(context).doesNotHaveBean("ollamaWarmUp");
+			});
+	}
+
+	@Test
+	void warmUp() throws IOException {
+		String baseUrl = startServer();
+		contextRunner
+			.withPropertyValues("spring.ai.ollama.base-url=" + baseUrl, "spring.ai.ollama.warm-up.enabled=true",
+					"spring.ai.ollama.warm-up.models=llama2,mistral")
+			.run(context -> {
+				assertThat(context).hasNotFailed().hasBean("ollamaWarmUp");
+				assertThat(this.preloaded.await(5, TimeUnit.SECONDS)).isTrue();
+				assertThat(this.preloads).containsExactlyInAnyOrder(baseUrl + " llama2", baseUrl + " mistral");
+			});
+	}
+
+	@Test
+	void warmUpFailure() {
+		contextRunner
+			.withPropertyValues("spring.ai.ollama.base-url=http://127.0.0.1:1", "spring.ai.ollama.warm-up.enabled=true")
+			.run(context -> {
+				// The startup does not fail when the models cannot be loaded.
+				assertThat(context).hasNotFailed().hasBean("ollamaWarmUp");
+			});
+	}
+
+	@Test
+	void clusterWarmUp() throws IOException {
+		String node1 = startServer();
+		String node2 = startServer();
+		contextRunner
+			.withPropertyValues("spring.ai.ollama.cluster.enabled=true",
+					"spring.ai.ollama.cluster.base-urls=" + node1 + "," + node2,
+					"spring.ai.ollama.cluster.health-check-interval=0", "spring.ai.ollama.warm-up.enabled=true")
+			.run(context -> {
+				assertThat(context).hasNotFailed().hasBean("ollamaWarmUp");
+				assertThat(this.preloaded.await(5, TimeUnit.SECONDS)).isTrue();
+				assertThat(this.preloads).containsExactlyInAnyOrder(node1 + " llama2", node2 + " llama2");
+			});
+	}
+
+	@Test
+	void cluster() {
+		contextRunner
+			.withPropertyValues("spring.ai.ollama.cluster.enabled=true",
+					"spring.ai.ollama.cluster.base-urls=http://node1:11434,http://node2:11434",
+					"spring.ai.ollama.cluster.health-check-interval=0")
+			.run(context -> {
+				assertThat(context).doesNotHaveBean(OllamaClient.class);
+
+				OllamaClusterClient client = context.getBean(OllamaClusterClient.class);
+				assertThat(client.getModel()).isEqualTo("llama2");
+				assertThat(client.getNodeStatuses()).extracting(NodeStatus::baseUrl)
+					.containsExactly("http://node1:11434", "http://node2:11434");
+			});
+	}
+
 	@Test
 	void customConfig() {
 		contextRunner.withUserConfiguration(CustomConfig.class).run(context -> {
@@ -68,6 +165,23 @@ public class OllamaAutoConfigurationTests {
 		});
 	}
 
+	private String startServer() throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+		server.createContext("/api/generate", exchange -> {
+			JsonNode request = new ObjectMapper().readTree(exchange.getRequestBody());
+			this.preloads.add(baseUrl + " " + request.get("model").asText());
+			exchange.sendResponseHeaders(200, 0);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write("{\"done\":true}\n".getBytes(StandardCharsets.UTF_8));
+			}
+			this.preloaded.countDown();
+		});
+		server.start();
+		this.servers.add(server);
+		return baseUrl;
+	}
+
 	@Configuration(proxyBeanMethods = false)
 	static class CustomConfig {
 
@@ -22,6 +22,7 @@ import java.time.Duration;
 
 import org.junit.jupiter.api.Test;
 
+import org.springframework.ai.autoconfigure.ratelimit.RateLimitProperties;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringBootConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -35,7 +36,9 @@ import org.springframework.boot.test.context.SpringBootTest;
  */
 @SpringBootTest(properties = { "spring.ai.openai.api-key=abc123", "spring.ai.openai.model=claudia-shiffer-5",
 		"spring.ai.openai.base-url=https://api.openai.spring.io/eieioh", "spring.ai.openai.temperature=0.5",
-		"spring.ai.openai.duration=30s", "spring.ai.openai.embedding.base-url=https://api.openai.spring.io/embedding" })
+		"spring.ai.openai.duration=30s", "spring.ai.openai.embedding.base-url=https://api.openai.spring.io/embedding",
+		"spring.ai.openai.rate-limit.enabled=true", "spring.ai.openai.rate-limit.tokens-per-minute=90000",
+		"spring.ai.openai.rate-limit.requests-per-minute=3500", "spring.ai.openai.embedding.base64-encoding=true" })
 @SuppressWarnings("unused")
 class OpenAiPropertiesTests {
 
@@ -58,6 +61,14 @@ class OpenAiPropertiesTests {
 		assertThat(embedding.getApiKey()).isEqualTo(this.openAiProperties.getApiKey());
 		assertThat(embedding.getModel()).isEqualTo("text-embedding-ada-002");
 		assertThat(embedding.getBaseUrl()).isEqualTo("https://api.openai.spring.io/embedding");
+		assertThat(embedding.isBase64Encoding()).isTrue();
+
+		RateLimitProperties rateLimit = this.openAiProperties.getRateLimit();
+
+		assertThat(rateLimit.isEnabled()).isTrue();
+		assertThat(rateLimit.getTokensPerMinute()).isEqualTo(90000L);
+		assertThat(rateLimit.getRequestsPerMinute()).isEqualTo(3500L);
+		assertThat(rateLimit.getMaxConcurrency()).isEqualTo(64);
 	}
 
 	@SpringBootConfiguration
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2023-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ai.autoconfigure.routing;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.client.AiClient;
+import org.springframework.ai.client.AiResponse;
+import org.springframework.ai.client.Generation;
+import org.springframework.ai.client.HedgingAiClient;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AiClientRoutingAutoConfigurationTests {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+		.withConfiguration(AutoConfigurations.of(AiClientRoutingAutoConfiguration.class))
+		.withUserConfiguration(DelegatesConfig.class);
+
+	@Test
+	void disabledByDefault() {
+		contextRunner.run(context -> assertThat(context).doesNotHaveBean(HedgingAiClient.class));
+	}
+
+	@Test
+	void routeToTheConfiguredDelegates() {
+		contextRunner
+			.withPropertyValues("spring.ai.routing.enabled=true", "spring.ai.routing.delegates=failing,backup",
+					"spring.ai.routing.latency-weighting=false", "spring.ai.routing.hedge.initial-delay=5s",
+					"spring.ai.routing.circuit-breaker.failure-threshold=1")
+			.run(context -> {
+				AiClientRoutingProperties properties = context.getBean(AiClientRoutingProperties.class);
+				assertThat(properties.getHedge().getInitialDelay()).isEqualTo(Duration.ofSeconds(5));
+
+				AiClient client = context.getBean(AiClient.class);
+				assertThat(client).isInstanceOf(HedgingAiClient.class);
+				assertThat(client.generate("hello")).isEqualTo("backup");
+				assertThat(((HedgingAiClient) client).getDelegateStatuses())
+					.extracting(HedgingAiClient.DelegateStatus::circuitOpen)
+					.containsExactly(true, false);
+			});
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	static class DelegatesConfig {
+
+		@Bean
+		AiClient failing() {
+			return prompt -> {
+				throw new IllegalStateException("unavailable");
+			};
+		}
+
+		@Bean
+		AiClient backup() {
+			return prompt -> new AiResponse(List.of(new Generation("backup")));
+		}
+
+	}
+
+}